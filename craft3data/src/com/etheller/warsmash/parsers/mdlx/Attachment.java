@@ -15,11 +15,7 @@ public class Attachment extends GenericObject {
 		super(0x800);
 	}
 
-	/**
-	 * Restricts us to only be able to parse models on one thread at a time, in
-	 * return for high performance.
-	 */
-	private static final byte[] PATH_BYTES_HEAP = new byte[260];
+	private static final int PATH_BYTES_LENGTH = 260;
 
 	@Override
 	public void readMdx(final LittleEndianDataInputStream stream) throws IOException {
@@ -27,7 +23,7 @@ public class Attachment extends GenericObject {
 
 		super.readMdx(stream);
 
-		this.path = ParseUtils.readString(stream, PATH_BYTES_HEAP);
+		this.path = ParseUtils.readString(stream, PATH_BYTES_LENGTH);
 		this.attachmentId = stream.readInt();
 
 		this.readTimelines(stream, size - this.getByteLength());
@@ -20,17 +20,13 @@ public class Camera extends AnimatedObject {
 		this.targetPosition = new float[3];
 	}
 
-	/**
-	 * Restricts us to only be able to parse models on one thread at a time, in
-	 * return for high performance.
-	 */
-	private static final byte[] NAME_BYTES_HEAP = new byte[80];
+	private static final int NAME_BYTES_LENGTH = 80;
 
 	@Override
 	public void readMdx(final LittleEndianDataInputStream stream) throws IOException {
 		final long size = ParseUtils.readUInt32(stream);
 
-		this.name = ParseUtils.readString(stream, NAME_BYTES_HEAP);
+		this.name = ParseUtils.readString(stream, NAME_BYTES_LENGTH);
 		ParseUtils.readFloatArray(stream, this.position);
 		this.fieldOfView = stream.readFloat();
 		this.farClippingPlane = stream.readFloat();
@@ -26,11 +26,7 @@ public abstract class GenericObject extends AnimatedObject implements Chunk {
 	private int parentId;
 	protected int flags;
 
-	/**
-	 * Restricts us to only be able to parse models on one thread at a time, in
-	 * return for high performance.
-	 */
-	private static final byte[] NAME_BYTES_HEAP = new byte[80];
+	private static final int NAME_BYTES_LENGTH = 80;
 
 	public GenericObject(final int flags) {
 		this.name = "";
@@ -42,7 +38,7 @@ public abstract class GenericObject extends AnimatedObject implements Chunk {
 	@Override
 	public void readMdx(final LittleEndianDataInputStream stream) throws IOException {
 		final long size = ParseUtils.readUInt32(stream);
-		this.name = ParseUtils.readString(stream, NAME_BYTES_HEAP);
+		this.name = ParseUtils.readString(stream, NAME_BYTES_LENGTH);
 		this.objectId = stream.readInt();
 		this.parentId = stream.readInt();
 		this.flags = stream.readInt(); // Used to be Int32 in JS
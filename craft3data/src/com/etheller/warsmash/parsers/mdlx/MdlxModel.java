@@ -175,16 +175,12 @@ public class MdlxModel {
 		this.version = (int) ParseUtils.readUInt32(stream);
 	}
 
-	/**
-	 * Restricts us to only be able to parse models on one thread at a time, in
-	 * return for high performance.
-	 */
-	private static final byte[] NAME_BYTES_HEAP = new byte[80];
-	private static final byte[] ANIMATION_FILE_BYTES_HEAP = new byte[260];
+	private static final int NAME_BYTES_LENGTH = 80;
+	private static final int ANIMATION_FILE_BYTES_LENGTH = 260;
 
 	private void loadModelChunk(final LittleEndianDataInputStream stream) throws IOException {
-		this.name = ParseUtils.readString(stream, NAME_BYTES_HEAP);
-		this.animationFile = ParseUtils.readString(stream, ANIMATION_FILE_BYTES_HEAP);
+		this.name = ParseUtils.readString(stream, NAME_BYTES_LENGTH);
+		this.animationFile = ParseUtils.readString(stream, ANIMATION_FILE_BYTES_LENGTH);
 		this.extent.readMdx(stream);
 		this.blendTime = ParseUtils.readUInt32(stream);
 	}
@@ -267,12 +263,12 @@ public class MdlxModel {
 		ParseUtils.writeUInt32(stream, 372);
 		final byte[] bytes = this.name.getBytes(ParseUtils.UTF8);
 		stream.write(bytes);
-		for (int i = 0; i < (NAME_BYTES_HEAP.length - bytes.length); i++) {
+		for (int i = 0; i < (NAME_BYTES_LENGTH - bytes.length); i++) {
 			stream.write((byte) 0);
 		}
 		final byte[] animationFileBytes = this.animationFile.getBytes(ParseUtils.UTF8);
 		stream.write(animationFileBytes);
-		for (int i = 0; i < (ANIMATION_FILE_BYTES_HEAP.length - animationFileBytes.length); i++) {
+		for (int i = 0; i < (ANIMATION_FILE_BYTES_LENGTH - animationFileBytes.length); i++) {
 			stream.write((byte) 0);
 		}
 		this.extent.writeMdx(stream);
@@ -21,11 +21,7 @@ public class ParticleEmitter extends GenericObject {
 		super(0x1000);
 	}
 
-	/**
-	 * Restricts us to only be able to parse models on one thread at a time, in
-	 * return for high performance.
-	 */
-	private static final byte[] PATH_BYTES_HEAP = new byte[260];
+	private static final int PATH_BYTES_LENGTH = 260;
 
 	@Override
 	public void readMdx(final LittleEndianDataInputStream stream) throws IOException {
@@ -37,7 +33,7 @@ public class ParticleEmitter extends GenericObject {
 		this.gravity = stream.readFloat();
 		this.longitude = stream.readFloat();
 		this.latitude = stream.readFloat();
-		this.path = ParseUtils.readString(stream, PATH_BYTES_HEAP);
+		this.path = ParseUtils.readString(stream, PATH_BYTES_LENGTH);
 		this.lifeSpan = stream.readFloat();
 		this.speed = stream.readFloat();
 
@@ -56,7 +52,7 @@ public class ParticleEmitter extends GenericObject {
 		stream.writeFloat(this.latitude);
 		final byte[] bytes = this.path.getBytes(ParseUtils.UTF8);
 		stream.write(bytes);
-		for (int i = 0; i < (PATH_BYTES_HEAP.length - bytes.length); i++) {
+		for (int i = 0; i < (PATH_BYTES_LENGTH - bytes.length); i++) {
 			stream.write((byte) 0);
 		}
 		stream.writeFloat(this.lifeSpan);
@@ -23,15 +23,11 @@ public class Sequence implements MdlxBlock {
 	private final EnumSet<AnimationTokens.SecondaryTag> secondaryTags = EnumSet
 			.noneOf(AnimationTokens.SecondaryTag.class);
 
-	/**
-	 * Restricts us to only be able to parse models on one thread at a time, in
-	 * return for high performance.
-	 */
-	private static final byte[] NAME_BYTES_HEAP = new byte[80];
+	private static final int NAME_BYTES_LENGTH = 80;
 
 	@Override
 	public void readMdx(final LittleEndianDataInputStream stream) throws IOException {
-		this.name = ParseUtils.readString(stream, NAME_BYTES_HEAP);
+		this.name = ParseUtils.readString(stream, NAME_BYTES_LENGTH);
 		ParseUtils.readUInt32Array(stream, this.interval);
 		this.moveSpeed = stream.readFloat();
 		this.flags = (int) ParseUtils.readUInt32(stream);
@@ -45,7 +41,7 @@ public class Sequence implements MdlxBlock {
 	public void writeMdx(final LittleEndianDataOutputStream stream) throws IOException {
 		final byte[] bytes = this.name.getBytes(ParseUtils.UTF8);
 		stream.write(bytes);
-		for (int i = 0; i < (NAME_BYTES_HEAP.length - bytes.length); i++) {
+		for (int i = 0; i < (NAME_BYTES_LENGTH - bytes.length); i++) {
 			stream.write((byte) 0);
 		}
 		ParseUtils.writeUInt32Array(stream, this.interval);
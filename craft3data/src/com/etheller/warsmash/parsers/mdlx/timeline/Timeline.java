@@ -23,12 +23,6 @@ public abstract class Timeline<TYPE> implements Chunk {
 	private TYPE[] inTans;
 	private TYPE[] outTans;
 
-	/**
-	 * Restricts us to only be able to parse models on one thread at a time, in
-	 * return for high performance.
-	 */
-	private static StringBuffer STRING_BUFFER_HEAP = new StringBuffer();
-
 	public War3ID getName() {
 		return this.name;
 	}
@@ -164,11 +158,12 @@ public abstract class Timeline<TYPE> implements Chunk {
 			stream.writeAttrib(MdlUtils.TOKEN_GLOBAL_SEQ_ID, this.globalSequenceId);
 		}
 
+		final StringBuilder frameBuilder = new StringBuilder();
 		for (int i = 0; i < tracksCount; i++) {
-			STRING_BUFFER_HEAP.setLength(0);
-			STRING_BUFFER_HEAP.append(this.frames[i]);
-			STRING_BUFFER_HEAP.append(':');
-			this.writeMdlValue(stream, STRING_BUFFER_HEAP.toString(), this.values[i]);
+			frameBuilder.setLength(0);
+			frameBuilder.append(this.frames[i]);
+			frameBuilder.append(':');
+			this.writeMdlValue(stream, frameBuilder.toString(), this.values[i]);
 			if (this.interpolationType.tangential()) {
 				stream.indent();
 				this.writeMdlValue(stream, "InTan", this.inTans[i]);
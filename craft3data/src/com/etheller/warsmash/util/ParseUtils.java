@@ -160,6 +160,26 @@ public class ParseUtils {
 		return name;
 	}
 
+	private static final ThreadLocal<byte[]> STRING_BYTES_HEAP = ThreadLocal.withInitial(() -> new byte[260]);
+
+	/**
+	 * Reads a null padded string of a fixed number of bytes. The bytes are read
+	 * into a scratch array of the current thread, so models can be parsed on
+	 * several threads at once.
+	 */
+	public static String readString(final LittleEndianDataInputStream stream, final int length) throws IOException {
+		byte[] bytes = STRING_BYTES_HEAP.get();
+		if (bytes.length < length) {
+			bytes = new byte[length];
+			STRING_BYTES_HEAP.set(bytes);
+		}
+		stream.readFully(bytes, 0, length);
+		int i;
+		for (i = 0; (i < length) && (bytes[i] != 0); i++) {
+		}
+		return new String(bytes, 0, i, ParseUtils.UTF8);
+	}
+
 	public static String readUntilNull(final LittleEndianDataInputStream stream) throws IOException {
 
 		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -2,11 +2,15 @@ package com.hiveworkshop.blizzard.casc.io;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import com.hiveworkshop.blizzard.casc.ConfigurationFile;
 import com.hiveworkshop.blizzard.casc.info.Info;
@@ -50,6 +54,28 @@ public class WarcraftIIICASC implements AutoCloseable {
 			return filePathStrings;
 		}
 
+		/**
+		 * Enumerate all file paths contained in this file system, walking the file
+		 * system and converting paths with several threads. The file paths are in the
+		 * same order as enumerateFiles returns them.
+		 *
+		 * @param pool Pool to enumerate the file system with.
+		 * @return A list containing all file paths contained in this file system.
+		 * @throws IOException In an exception occurs when resolving files.
+		 */
+		public List<String> enumerateFiles(final ForkJoinPool pool) throws IOException {
+			final List<PathResult> pathResults = vfs.getAllFiles(pool);
+			final String[] filePathStrings = new String[pathResults.size()];
+
+			try {
+				pool.invoke(new PathConvertTask(pathResults, filePathStrings, 0, filePathStrings.length));
+			} catch (final UncheckedIOException e) {
+				throw e.getCause();
+			}
+
+			return Arrays.asList(filePathStrings);
+		}
+
 		/**
 		 * Test if the specified file path is a file.
 		 *
@@ -112,8 +138,35 @@ public class WarcraftIIICASC implements AutoCloseable {
 		 */
 		public ByteBuffer readFileData(final String filePath) throws IOException {
 			final byte[][] pathFragments = VirtualFileSystem.convertFilePath(filePath);
-			final PathResult resolveResult = vfs.resolvePath(pathFragments);
+			return readFileData(vfs.resolvePath(pathFragments));
+		}
 
+		/**
+		 * Resolve the specified file path once, so that the file can be tested and
+		 * read repeatedly without resolving the path again.
+		 *
+		 * @param filePath Path of file to resolve.
+		 * @return Path result of the file, or null if the path is not a file.
+		 * @throws IOException In an exception occurs when resolving files.
+		 */
+		public PathResult resolveFile(final String filePath) throws IOException {
+			final byte[][] pathFragments = VirtualFileSystem.convertFilePath(filePath);
+			try {
+				final PathResult resolveResult = vfs.resolvePath(pathFragments);
+				return resolveResult.isFile() ? resolveResult : null;
+			} catch (final FileNotFoundException e) {
+				return null;
+			}
+		}
+
+		/**
+		 * Fully read the file of the specified path result into memory.
+		 *
+		 * @param resolveResult Path result of file to read.
+		 * @return Buffer containing file data.
+		 * @throws IOException If an error occurs when reading the file.
+		 */
+		public ByteBuffer readFileData(final PathResult resolveResult) throws IOException {
 			if (!resolveResult.isFile()) {
 				throw new FileNotFoundException("the specified file path does not resolve to a file");
 			} else if (!resolveResult.existsInStorage()) {
@@ -126,6 +179,46 @@ public class WarcraftIIICASC implements AutoCloseable {
 		}
 	}
 
+	/**
+	 * Task to convert a range of path results into path strings, split in halves
+	 * until the range is small.
+	 */
+	private static final class PathConvertTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private static final int SERIAL_THRESHOLD = 1024;
+
+		private final List<PathResult> pathResults;
+		private final String[] filePathStrings;
+		private final int start;
+		private final int end;
+
+		private PathConvertTask(final List<PathResult> pathResults, final String[] filePathStrings, final int start,
+				final int end) {
+			this.pathResults = pathResults;
+			this.filePathStrings = filePathStrings;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if ((end - start) <= SERIAL_THRESHOLD) {
+				try {
+					for (int index = start; index < end; index += 1) {
+						filePathStrings[index] = pathResults.get(index).getPath();
+					}
+				} catch (final IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			} else {
+				final int middle = (start + end) >>> 1;
+				invokeAll(new PathConvertTask(pathResults, filePathStrings, start, middle),
+						new PathConvertTask(pathResults, filePathStrings, middle, end));
+			}
+		}
+	}
+
 	/**
 	 * Name of the CASC data folder used by Warcraft III.
 	 */
@@ -141,6 +234,11 @@ public class WarcraftIIICASC implements AutoCloseable {
 	 */
 	private final int activeInfoRecord;
 
+	/**
+	 * Key of the Warcraft III build configuration.
+	 */
+	private final String buildKey;
+
 	/**
 	 * Warcraft III build configuration.
 	 */
@@ -211,7 +309,7 @@ public class WarcraftIIICASC implements AutoCloseable {
 		if (buildKeyFieldIndex == -1) {
 			throw new MalformedCASCStructureException("build info contains no build key field");
 		}
-		final String buildKey = buildInfo.getField(activeInfoRecord, buildKeyFieldIndex);
+		buildKey = buildInfo.getField(activeInfoRecord, buildKeyFieldIndex);
 
 		// resolve data folder
 		dataPath = installFolder.resolve(WC3_DATA_FOLDER_NAME);
@@ -270,6 +368,16 @@ public class WarcraftIIICASC implements AutoCloseable {
 		return buildInfo.getField(activeInfoRecord, branchFieldIndex);
 	}
 
+	/**
+	 * Returns the key of the build configuration which is currently mounted. It
+	 * changes whenever the game is updated.
+	 *
+	 * @return Build configuration key.
+	 */
+	public String getBuildKey() {
+		return buildKey;
+	}
+
 	/**
 	 * Returns the build information of the archive.
 	 *
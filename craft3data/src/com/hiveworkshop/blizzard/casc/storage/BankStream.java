@@ -16,6 +16,18 @@ import com.hiveworkshop.blizzard.casc.nio.MalformedCASCStructureException;
  * assembled using higher level logic into a continuous file.
  */
 public class BankStream {
+	/**
+	 * Inflater of each thread. It is reset for every bank rather than creating an
+	 * Inflater, with its own native zlib context, per bank.
+	 */
+	private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+	/**
+	 * Scratch array of each thread for encoded or decoded bytes that are not
+	 * backed by an array, since the Inflater of Java 8 only works on arrays.
+	 */
+	private static final ThreadLocal<byte[][]> SCRATCH = ThreadLocal.withInitial(() -> new byte[2][0]);
+
 	private final StorageContainer container;
 	private final BLTEContent[] content;
 	private final ByteBuffer streamBuffer;
@@ -117,8 +129,6 @@ public class BankStream {
 
 			final ByteBuffer encodedBuffer = ((ByteBuffer) streamBuffer.slice().limit((int) encodedSize)).slice();
 			final ByteBuffer decodedBuffer = ((ByteBuffer) bankBuffer.slice().limit((int) decodedSize)).slice();
-			final byte[] intermediateEncodedCopy = new byte[encodedBuffer.remaining()];
-			final byte[] intermediateDecodedCopy = new byte[decodedBuffer.remaining()];
 
 			final char encodingMode = (char) encodedBuffer.get();
 			switch (encodingMode) {
@@ -131,21 +141,7 @@ public class BankStream {
 				break;
 			case 'Z':
 				// zlib compressed data
-				final Inflater zlib = new Inflater();
-				encodedBuffer.get(intermediateEncodedCopy, 0, encodedBuffer.remaining());
-				zlib.setInput(intermediateEncodedCopy);
-				final int resultSize;
-				try {
-					resultSize = zlib.inflate(intermediateDecodedCopy);
-					decodedBuffer.put(intermediateDecodedCopy, 0, resultSize);
-				} catch (final DataFormatException e) {
-					throw new MalformedCASCStructureException("zlib inflate exception", e);
-				}
-				if (resultSize != decodedSize) {
-					throw new MalformedCASCStructureException("not enough bytes generated: " + resultSize + "B");
-				} else if (!zlib.finished()) {
-					throw new MalformedCASCStructureException("unfinished inflate operation");
-				}
+				inflate(encodedBuffer, decodedBuffer);
 				break;
 			default:
 				throw new UnsupportedEncodingException("unsupported encoding mode: " + encodingMode);
@@ -173,6 +169,68 @@ public class BankStream {
 		return bankBuffer;
 	}
 
+	/**
+	 * Inflates all remaining encoded bytes into exactly the remaining space of the
+	 * decoded buffer. Bytes already in arrays are used in place, so heap buffers
+	 * are inflated straight into without intermediate copies.
+	 */
+	private static void inflate(final ByteBuffer encodedBuffer, final ByteBuffer decodedBuffer) throws IOException {
+		final byte[][] scratch = SCRATCH.get();
+		final Inflater zlib = INFLATER.get();
+		zlib.reset();
+
+		final int encodedSize = encodedBuffer.remaining();
+		if (encodedBuffer.hasArray()) {
+			zlib.setInput(encodedBuffer.array(), encodedBuffer.arrayOffset() + encodedBuffer.position(), encodedSize);
+		} else {
+			if (scratch[0].length < encodedSize) {
+				scratch[0] = new byte[encodedSize];
+			}
+			encodedBuffer.duplicate().get(scratch[0], 0, encodedSize);
+			zlib.setInput(scratch[0], 0, encodedSize);
+		}
+		encodedBuffer.position(encodedBuffer.limit());
+
+		final int decodedSize = decodedBuffer.remaining();
+		final boolean inflateIntoArray = decodedBuffer.hasArray() && !decodedBuffer.isReadOnly();
+		final byte[] output;
+		final int outputOffset;
+		if (inflateIntoArray) {
+			output = decodedBuffer.array();
+			outputOffset = decodedBuffer.arrayOffset() + decodedBuffer.position();
+		} else {
+			if (scratch[1].length < decodedSize) {
+				scratch[1] = new byte[decodedSize];
+			}
+			output = scratch[1];
+			outputOffset = 0;
+		}
+
+		int resultSize = 0;
+		try {
+			while ((resultSize < decodedSize) && !zlib.finished()) {
+				final int inflated = zlib.inflate(output, outputOffset + resultSize, decodedSize - resultSize);
+				if ((inflated == 0) && (zlib.needsInput() || zlib.needsDictionary())) {
+					break;
+				}
+				resultSize += inflated;
+			}
+		} catch (final DataFormatException e) {
+			throw new MalformedCASCStructureException("zlib inflate exception", e);
+		}
+		if (resultSize != decodedSize) {
+			throw new MalformedCASCStructureException("not enough bytes generated: " + resultSize + "B");
+		} else if (!zlib.finished()) {
+			throw new MalformedCASCStructureException("unfinished inflate operation");
+		}
+
+		if (inflateIntoArray) {
+			decodedBuffer.position(decodedBuffer.position() + resultSize);
+		} else {
+			decodedBuffer.put(output, 0, resultSize);
+		}
+	}
+
 	/**
 	 * Returns true while one or more banks are remaining to be streamed. Only valid
 	 * if hasBanks returns true.
@@ -64,6 +64,17 @@ public class Storage implements AutoCloseable {
 	 */
 	public static final int DATA_FILE_EXTENSION_LENGTH = 3;
 
+	/**
+	 * Spacing of the memory mapped windows of a data file.
+	 */
+	private static final long MAPPING_WINDOW_SIZE = 1L << 28;
+
+	/**
+	 * Extra length each memory mapped window extends into the next, so that a
+	 * container starting near the end of a window still fits in it.
+	 */
+	private static final long MAPPING_WINDOW_OVERLAP = 1L << 24;
+
 	/**
 	 * Converts an encoding key into an index file number.
 	 *
@@ -84,6 +95,13 @@ public class Storage implements AutoCloseable {
 
 	private final HashMap<Integer, FileChannel> channelMap = new HashMap<>();
 
+	/**
+	 * Memory mapped windows of data files, keyed by data file index in the upper
+	 * and window number in the lower 32 bits. They are kept for the life of the
+	 * store and containers are sliced out of them.
+	 */
+	private final HashMap<Long, MappedByteBuffer> mappingWindowMap = new HashMap<>();
+
 	private final IndexFile[] indicies = new IndexFile[INDEX_COUNT];
 
 	/**
@@ -198,6 +216,7 @@ public class Storage implements AutoCloseable {
 			}
 		}
 
+		mappingWindowMap.clear();
 		closed = true;
 
 		if (exception != null) {
@@ -262,6 +281,9 @@ public class Storage implements AutoCloseable {
 
 	/**
 	 * Fetch a buffer from storage.
+	 * <p>
+	 * When memory mapping the buffer is a slice of a window shared with other
+	 * containers of the data file, and is only paged in as it is read.
 	 *
 	 * @param index  Data file index.
 	 * @param offset Data file offset.
@@ -277,9 +299,19 @@ public class Storage implements AutoCloseable {
 
 		final ByteBuffer storageBuffer;
 		if (useMemoryMapping) {
-			final MappedByteBuffer mappedBuffer = fileChannel.map(MapMode.READ_ONLY, offset, length);
-			mappedBuffer.load();
-			storageBuffer = mappedBuffer;
+			final long windowNumber = offset / MAPPING_WINDOW_SIZE;
+			final long windowOffset = offset - (windowNumber * MAPPING_WINDOW_SIZE);
+			final MappedByteBuffer window = getMappingWindow(index, fileChannel, windowNumber,
+					windowOffset + length);
+			if (window != null) {
+				// pages are only faulted in as banks are decoded
+				final ByteBuffer windowBuffer = window.duplicate();
+				windowBuffer.limit((int) (windowOffset + length));
+				windowBuffer.position((int) windowOffset);
+				storageBuffer = windowBuffer.slice();
+			} else {
+				storageBuffer = fileChannel.map(MapMode.READ_ONLY, offset, length);
+			}
 		} else {
 			storageBuffer = ByteBuffer.allocate((int) length);
 			while (storageBuffer.hasRemaining()
@@ -296,6 +328,42 @@ public class Storage implements AutoCloseable {
 		return storageBuffer;
 	}
 
+	/**
+	 * Get a memory mapped window of a data file, mapping it the first time it is
+	 * used. The window is at most MAPPING_WINDOW_SIZE + MAPPING_WINDOW_OVERLAP bytes
+	 * long, less if the data file ends sooner.
+	 *
+	 * @param index        Data file index.
+	 * @param fileChannel  Data file channel.
+	 * @param windowNumber Window number in the data file.
+	 * @param end          Offset into the window that must be mapped.
+	 * @return Mapped window, or null if the end is beyond the window overlap.
+	 * @throws IOException If a problem occurs when mapping the window.
+	 */
+	private synchronized MappedByteBuffer getMappingWindow(final int index, final FileChannel fileChannel,
+			final long windowNumber, final long end) throws IOException {
+		final long windowLength = MAPPING_WINDOW_SIZE + MAPPING_WINDOW_OVERLAP;
+		if (end > windowLength) {
+			return null;
+		}
+
+		final Long windowKey = ((long) index << 32) | windowNumber;
+		MappedByteBuffer window = mappingWindowMap.get(windowKey);
+		if ((window == null) || (window.capacity() < end)) {
+			// data files can grow while open, remap if the container is past the end
+			final long windowStart = windowNumber * MAPPING_WINDOW_SIZE;
+			final long mappedLength = Math.min(windowLength, fileChannel.size() - windowStart);
+			if (mappedLength < end) {
+				throw new EOFException("unexpected end of file");
+			}
+
+			window = fileChannel.map(MapMode.READ_ONLY, windowStart, mappedLength);
+			mappingWindowMap.put(windowKey, window);
+		}
+
+		return window;
+	}
+
 	/**
 	 * Loads a file fully into memory. Memory mapping is used if allowed.
 	 *
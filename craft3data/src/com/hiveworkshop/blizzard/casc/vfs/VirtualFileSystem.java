@@ -2,6 +2,7 @@ package com.hiveworkshop.blizzard.casc.vfs;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
@@ -16,6 +17,8 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import com.hiveworkshop.ReteraCASCUtils;
 import com.hiveworkshop.blizzard.casc.Key;
@@ -175,6 +178,7 @@ public final class VirtualFileSystem {
 				final BankStream bankStream = storage.getBanks(fileReference.getEncodingKey());
 				// TODO test if compressed and logical sizes match stored sizes.
 
+				// banks are decoded one at a time straight from the storage buffer
 				fileBuffer.limit((int) (logicalOffset + logicalSize));
 				fileBuffer.position((int) logicalOffset);
 				while (bankStream.hasNextBank()) {
@@ -187,6 +191,86 @@ public final class VirtualFileSystem {
 		}
 	}
 
+	/**
+	 * Task to retrieve all files below a node. Down to PARALLEL_DEPTH a subtask is
+	 * forked for every child node, below that the tree is walked recursively.
+	 * Results are in the same order as the recursive walk produces them.
+	 */
+	private final class FilePathRetrieveTask extends RecursiveTask<List<PathResult>> {
+		private static final long serialVersionUID = 1L;
+
+		private final byte[][] parentPathFragments;
+		private final PathNode node;
+		private final int depth;
+
+		private FilePathRetrieveTask(final byte[][] parentPathFragments, final PathNode node, final int depth) {
+			this.parentPathFragments = parentPathFragments;
+			this.node = node;
+			this.depth = depth;
+		}
+
+		@Override
+		protected List<PathResult> compute() {
+			final ArrayList<PathResult> resultList = new ArrayList<PathResult>();
+			try {
+				if (depth >= PARALLEL_DEPTH) {
+					recursiveFilePathRetrieve(parentPathFragments, resultList, node);
+					return resultList;
+				}
+
+				final byte[][] currentPathFragments = appendNodePathFragments(parentPathFragments, node);
+				final ArrayList<FilePathRetrieveTask> subtasks = new ArrayList<FilePathRetrieveTask>();
+				boolean isFile = false;
+				if (node instanceof PrefixNode) {
+					final PrefixNode prefixNode = (PrefixNode) node;
+
+					final int childCount = prefixNode.getNodeCount();
+					for (int index = 0; index < childCount; index += 1) {
+						subtasks.add(new FilePathRetrieveTask(currentPathFragments, prefixNode.getNode(index),
+								depth + 1));
+					}
+				} else if (node instanceof FileNode) {
+					final FileNode fileNode = (FileNode) node;
+
+					if (fileNode.getFileReferenceCount() == 1) {
+						// check if nested VFS
+						final Key encodingKey = fileNode.getFileReference(0).getEncodingKey();
+						final TVFSFile tvfsFile = resolveTVFS(encodingKey);
+
+						if (tvfsFile != null) {
+							// file is also a folder
+							final byte[][] folderPathFragments = Arrays.copyOf(currentPathFragments,
+									currentPathFragments.length + 1);
+							folderPathFragments[currentPathFragments.length] = new byte[0];
+
+							final int rootCount = tvfsFile.getRootNodeCount();
+							for (int rootIndex = 0; rootIndex < rootCount; rootIndex += 1) {
+								subtasks.add(new FilePathRetrieveTask(folderPathFragments,
+										tvfsFile.getRootNode(rootIndex), depth + 1));
+							}
+						}
+
+						isFile = true;
+					}
+				} else {
+					throw new IllegalArgumentException("unsupported node type");
+				}
+
+				invokeAll(subtasks);
+				for (final FilePathRetrieveTask subtask : subtasks) {
+					resultList.addAll(subtask.join());
+				}
+				if (isFile) {
+					resultList.add(new PathResult(node, currentPathFragments));
+				}
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+
+			return resultList;
+		}
+	}
+
 	/**
 	 * VFS storage reference key prefix.
 	 */
@@ -207,6 +291,56 @@ public final class VirtualFileSystem {
 	 */
 	public static final String PATH_SEPERATOR = "\\";
 
+	/**
+	 * Depth of the TVFS tree down to which getAllFiles forks a task per node.
+	 */
+	private static final int PARALLEL_DEPTH = 6;
+
+	/**
+	 * Appends the path fragments of a node to the path fragments of its parent.
+	 *
+	 * @param parentPathFragments Path fragments of parent node.
+	 * @param node                The child node.
+	 * @return Path fragments of the child node.
+	 */
+	private static byte[][] appendNodePathFragments(final byte[][] parentPathFragments, final PathNode node) {
+		byte[][] currentPathFragments = parentPathFragments;
+
+		final int fragmentCount = node.getPathFragmentCount();
+		if (fragmentCount > 0) {
+			int fragmentIndex = 0;
+			final byte[] fragment = node.getFragment(fragmentIndex++);
+
+			// expand path fragment array
+			int basePathFragmentsIndex = currentPathFragments.length;
+			if ((fragmentCount > 1) || (fragment.length > 0)) {
+				// first fragment of the node gets merged with last path fragment
+				basePathFragmentsIndex -= 1;
+			}
+			currentPathFragments = Arrays.copyOf(currentPathFragments, basePathFragmentsIndex + fragmentCount);
+
+			// merge fragment
+			final byte[] sourceFragment = currentPathFragments[basePathFragmentsIndex];
+			byte[] joinedFragment = fragment;
+			if (sourceFragment != null) {
+				joinedFragment = sourceFragment;
+				if (fragment.length != 0) {
+					final int joinOffset = sourceFragment.length;
+					joinedFragment = Arrays.copyOf(sourceFragment, joinOffset + fragment.length);
+					System.arraycopy(fragment, 0, joinedFragment, joinOffset, fragment.length);
+				}
+			}
+
+			// append path fragments
+			currentPathFragments[basePathFragmentsIndex] = joinedFragment;
+			for (; fragmentIndex < fragmentCount; fragmentIndex += 1) {
+				currentPathFragments[basePathFragmentsIndex + fragmentIndex] = node.getFragment(fragmentIndex);
+			}
+		}
+
+		return currentPathFragments;
+	}
+
 	/**
 	 * Compares the path fragments of a node with a section of file path fragments.
 	 * This is useful for performing a binary search on a node's children.
@@ -442,6 +576,31 @@ public final class VirtualFileSystem {
 		return pathStringList;
 	}
 
+	/**
+	 * Method to get all files in the file system, walking the TVFS tree with
+	 * several threads. The files are in the same order as getAllFiles returns
+	 * them.
+	 *
+	 * @param pool Pool to walk the TVFS tree with.
+	 * @return List of file path results for every file in the file system.
+	 * @throws IOException If an exception is thrown when loading a TVFS file.
+	 */
+	public List<PathResult> getAllFiles(final ForkJoinPool pool) throws IOException {
+		final ArrayList<PathResult> pathStringList = new ArrayList<PathResult>();
+
+		final int rootCount = tvfsRoot.getRootNodeCount();
+		for (int rootIndex = 0; rootIndex < rootCount; rootIndex += 1) {
+			final PathNode root = tvfsRoot.getRootNode(rootIndex);
+			try {
+				pathStringList.addAll(pool.invoke(new FilePathRetrieveTask(new byte[1][0], root, 0)));
+			} catch (final UncheckedIOException e) {
+				throw e.getCause();
+			}
+		}
+
+		return pathStringList;
+	}
+
 	/**
 	 * Recursive function to traverse the TVFS tree and resolve all files in the
 	 * file system.
@@ -453,40 +612,7 @@ public final class VirtualFileSystem {
 	 */
 	private void recursiveFilePathRetrieve(final byte[][] parentPathFragments, final ArrayList<PathResult> resultList,
 			final PathNode currentNode) throws IOException {
-		byte[][] currentPathFragments = parentPathFragments;
-
-		// process path fragments
-		final int fragmentCount = currentNode.getPathFragmentCount();
-		if (fragmentCount > 0) {
-			int fragmentIndex = 0;
-			final byte[] fragment = currentNode.getFragment(fragmentIndex++);
-
-			// expand path fragment array
-			int basePathFragmentsIndex = currentPathFragments.length;
-			if ((fragmentCount > 1) || (fragment.length > 0)) {
-				// first fragment of the node gets merged with last path fragment
-				basePathFragmentsIndex -= 1;
-			}
-			currentPathFragments = Arrays.copyOf(currentPathFragments, basePathFragmentsIndex + fragmentCount);
-
-			// merge fragment
-			final byte[] sourceFragment = currentPathFragments[basePathFragmentsIndex];
-			byte[] joinedFragment = fragment;
-			if (sourceFragment != null) {
-				joinedFragment = sourceFragment;
-				if (fragment.length != 0) {
-					final int joinOffset = sourceFragment.length;
-					joinedFragment = Arrays.copyOf(sourceFragment, joinOffset + fragment.length);
-					System.arraycopy(fragment, 0, joinedFragment, joinOffset, fragment.length);
-				}
-			}
-
-			// append path fragments
-			currentPathFragments[basePathFragmentsIndex] = joinedFragment;
-			for (; fragmentIndex < fragmentCount; fragmentIndex += 1) {
-				currentPathFragments[basePathFragmentsIndex + fragmentIndex] = currentNode.getFragment(fragmentIndex);
-			}
-		}
+		final byte[][] currentPathFragments = appendNodePathFragments(parentPathFragments, currentNode);
 
 		if (currentNode instanceof PrefixNode) {
 			final PrefixNode prefixNode = (PrefixNode) currentNode;
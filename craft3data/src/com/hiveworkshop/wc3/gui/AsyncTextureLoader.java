@@ -0,0 +1,205 @@
+package com.hiveworkshop.wc3.gui;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.hiveworkshop.wc3.gui.BLPHandler.EncodedTexture;
+import com.hiveworkshop.wc3.gui.datachooser.DataSource;
+
+/**
+ * Reads and decodes textures on a pool of worker threads so that opening a
+ * model does not wait for every BLP to be read from its archive and go through
+ * ImageIO one after the other. A viewport asks for a texture with
+ * {@link #request(DataSource, String)}, draws a placeholder in the meantime and
+ * swaps the real texture in once the request is done. Requests for a texture
+ * that is already being loaded wait for that load instead of starting another
+ * one.
+ */
+public final class AsyncTextureLoader {
+	private static AsyncTextureLoader current;
+
+	public static synchronized AsyncTextureLoader get() {
+		if (current == null) {
+			current = new AsyncTextureLoader(BLPHandler.get());
+		}
+		return current;
+	}
+
+	private final BLPHandler blpHandler;
+	private final ExecutorService executor;
+	private final Map<DecodeKey, Decode> keyToDecode = new HashMap<>();
+
+	public AsyncTextureLoader(final BLPHandler blpHandler) {
+		this.blpHandler = blpHandler;
+		final AtomicInteger threadCount = new AtomicInteger();
+		executor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()),
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(final Runnable runnable) {
+						final Thread thread = new Thread(runnable,
+								"Texture Decoder " + threadCount.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+	}
+
+	/**
+	 * Starts loading a texture, see BLPHandler.loadTexture for how the path is
+	 * resolved. Textures in the GPU buffer cache come back as a request that is
+	 * already done.
+	 */
+	public TextureRequest request(final DataSource dataSource, final String filepath) {
+		final GPUReadyTexture cachedTexture = blpHandler.getCachedTexture(filepath);
+		if (cachedTexture != null) {
+			final TextureRequest request = new TextureRequest();
+			request.complete(cachedTexture, null);
+			return request;
+		}
+		final DecodeKey key = new DecodeKey(dataSource, filepath.toLowerCase());
+		final TextureRequest request = new TextureRequest();
+		final Decode decode;
+		synchronized (this) {
+			final Decode runningDecode = keyToDecode.get(key);
+			if (runningDecode != null) {
+				runningDecode.requests.add(request);
+				return request;
+			}
+			decode = new Decode(key, filepath);
+			decode.requests.add(request);
+			keyToDecode.put(key, decode);
+		}
+		executor.execute(decode);
+		return request;
+	}
+
+	/**
+	 * One read and decode shared by all the requests for the same file.
+	 */
+	private final class Decode implements Runnable {
+		private final DecodeKey key;
+		private final String filepath;
+		private final List<TextureRequest> requests = new ArrayList<>();
+
+		private Decode(final DecodeKey key, final String filepath) {
+			this.key = key;
+			this.filepath = filepath;
+		}
+
+		@Override
+		public void run() {
+			GPUReadyTexture texture = null;
+			Exception exception = null;
+			try {
+				final EncodedTexture encodedTexture = blpHandler.readEncodedTexture(key.dataSource, filepath);
+				if (encodedTexture != null) {
+					texture = blpHandler.decodeTexture(encodedTexture);
+				}
+			} catch (final Exception e) {
+				exception = e;
+			}
+			finish(texture, exception);
+		}
+
+		/**
+		 * Hands the texture to every request, each one gets its own reference.
+		 */
+		private void finish(final GPUReadyTexture texture, final Exception exception) {
+			final List<TextureRequest> finishedRequests;
+			synchronized (AsyncTextureLoader.this) {
+				keyToDecode.remove(key);
+				finishedRequests = new ArrayList<>(requests);
+			}
+			for (int i = 0; i < finishedRequests.size(); i++) {
+				if ((texture != null) && (i > 0)) {
+					texture.retain();
+				}
+				finishedRequests.get(i).complete(texture, exception);
+			}
+		}
+	}
+
+	/**
+	 * A texture that is being loaded. Poll {@link #isDone()} and then
+	 * {@link #take()} the result, or {@link #cancel()} it if it is not needed
+	 * anymore so that its buffer can be freed.
+	 */
+	public static final class TextureRequest {
+		private boolean done;
+		private boolean cancelled;
+		private GPUReadyTexture texture;
+		private Exception exception;
+
+		private synchronized void complete(final GPUReadyTexture texture, final Exception exception) {
+			if (cancelled) {
+				if (texture != null) {
+					texture.release();
+				}
+				return;
+			}
+			this.texture = texture;
+			this.exception = exception;
+			done = true;
+		}
+
+		public synchronized boolean isDone() {
+			return done;
+		}
+
+		/**
+		 * Returns the loaded texture, with a reference that the caller has to
+		 * release, or null if the texture does not exist, failed to load (see
+		 * {@link #getException()}), or was taken already.
+		 */
+		public synchronized GPUReadyTexture take() {
+			final GPUReadyTexture result = texture;
+			texture = null;
+			return result;
+		}
+
+		/**
+		 * @return the reason the texture failed to load, or null
+		 */
+		public synchronized Exception getException() {
+			return exception;
+		}
+
+		public synchronized void cancel() {
+			cancelled = true;
+			if (texture != null) {
+				texture.release();
+				texture = null;
+			}
+		}
+	}
+
+	private static final class DecodeKey {
+		private final DataSource dataSource;
+		private final String lowerCaseFilepath;
+
+		private DecodeKey(final DataSource dataSource, final String lowerCaseFilepath) {
+			this.dataSource = dataSource;
+			this.lowerCaseFilepath = lowerCaseFilepath;
+		}
+
+		@Override
+		public int hashCode() {
+			return (31 * System.identityHashCode(dataSource)) + lowerCaseFilepath.hashCode();
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (!(obj instanceof DecodeKey)) {
+				return false;
+			}
+			final DecodeKey other = (DecodeKey) obj;
+			return (dataSource == other.dataSource) && lowerCaseFilepath.equals(other.lowerCaseFilepath);
+		}
+	}
+}
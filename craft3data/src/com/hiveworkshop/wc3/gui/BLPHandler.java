@@ -8,15 +8,17 @@ import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
 import java.awt.image.ComponentColorModel;
 import java.awt.image.DataBuffer;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReadParam;
@@ -27,36 +29,183 @@ import javax.swing.JOptionPane;
 
 import org.lwjgl.BufferUtils;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.io.ByteStreams;
+
 import com.hiveworkshop.wc3.gui.datachooser.DataSource;
 import com.hiveworkshop.wc3.mdl.Bitmap;
 import com.hiveworkshop.wc3.mdl.Material;
 import com.hiveworkshop.wc3.mdl.v2.ModelView;
 import com.hiveworkshop.wc3.mpq.MpqCodebase;
 
+import de.wc3data.image.BlpFile;
 import de.wc3data.image.TgaFile;
 
 public class BLPHandler {
 
 	public BLPHandler() {
+		setCacheLimits(DEFAULT_IMAGE_CACHE_BYTES, DEFAULT_GPU_CACHE_BYTES);
 	}
 
+	public static final long DEFAULT_IMAGE_CACHE_BYTES = 512L * 1024 * 1024;
+	public static final long DEFAULT_GPU_CACHE_BYTES = 256L * 1024 * 1024;
+
 	/**
 	 * Caching here is dangerous, only works if you're not changing the underlying
 	 * images.
+	 *
+	 * Both caches are bounded by the bytes of the pixels they hold, not by entry
+	 * count, and drop the least recently used textures first when they go over
+	 * their limit. Evicted GPU buffers are freed right away unless somebody is
+	 * still uploading them (see GPUReadyTexture).
 	 */
-	Map<String, BufferedImage> cache = new HashMap<>();
-	Map<String, GPUReadyTexture> gpuBufferCache = new HashMap<>();
+	private volatile Cache<String, BufferedImage> cache;
+	private volatile Cache<String, GPUReadyTexture> gpuBufferCache;
+	private long imageCacheLimit = -1;
+	private long gpuCacheLimit = -1;
+	private final AtomicLong imageCacheBytes = new AtomicLong();
+	private final AtomicLong gpuCacheBytes = new AtomicLong();
+	// stats of the caches that were replaced by setCacheLimits
+	private CacheStats oldImageCacheStats = new CacheStats(0, 0, 0, 0, 0, 0);
+	private CacheStats oldGpuCacheStats = new CacheStats(0, 0, 0, 0, 0, 0);
 	private static final int BYTES_PER_PIXEL = 4;
 
+	/**
+	 * Changes the byte limits of the decoded image cache and the GPU buffer cache.
+	 * Entries over the new limits are evicted.
+	 */
+	public synchronized void setCacheLimits(final long imageCacheLimit, final long gpuCacheLimit) {
+		if ((imageCacheLimit == this.imageCacheLimit) && (gpuCacheLimit == this.gpuCacheLimit)) {
+			return;
+		}
+		final Cache<String, BufferedImage> oldCache = cache;
+		final Cache<String, GPUReadyTexture> oldGpuBufferCache = gpuBufferCache;
+		this.imageCacheLimit = imageCacheLimit;
+		this.gpuCacheLimit = gpuCacheLimit;
+		cache = createImageCache(imageCacheLimit);
+		gpuBufferCache = createGpuBufferCache(gpuCacheLimit);
+		if (oldCache != null) {
+			for (final Map.Entry<String, BufferedImage> entry : oldCache.asMap().entrySet()) {
+				putImage(entry.getKey(), entry.getValue());
+			}
+			oldImageCacheStats = oldImageCacheStats.plus(oldCache.stats());
+			oldCache.invalidateAll();
+		}
+		if (oldGpuBufferCache != null) {
+			for (final Map.Entry<String, GPUReadyTexture> entry : oldGpuBufferCache.asMap().entrySet()) {
+				if (entry.getValue().retain()) {
+					putGpuTexture(entry.getKey(), entry.getValue());
+				}
+			}
+			oldGpuCacheStats = oldGpuCacheStats.plus(oldGpuBufferCache.stats());
+			oldGpuBufferCache.invalidateAll();
+		}
+	}
+
+	public void applyCacheLimits(final ProgramPreferences preferences) {
+		setCacheLimits(preferences.getTextureCacheMegabytes() * 1024L * 1024L,
+				preferences.getGpuTextureCacheMegabytes() * 1024L * 1024L);
+	}
+
+	private Cache<String, BufferedImage> createImageCache(final long maximumBytes) {
+		return CacheBuilder.newBuilder().maximumWeight(maximumBytes).weigher(new Weigher<String, BufferedImage>() {
+			@Override
+			public int weigh(final String key, final BufferedImage value) {
+				return getSizeInBytes(value);
+			}
+		}).removalListener(new RemovalListener<String, BufferedImage>() {
+			@Override
+			public void onRemoval(final RemovalNotification<String, BufferedImage> notification) {
+				imageCacheBytes.addAndGet(-getSizeInBytes(notification.getValue()));
+			}
+		}).recordStats().build();
+	}
+
+	private Cache<String, GPUReadyTexture> createGpuBufferCache(final long maximumBytes) {
+		return CacheBuilder.newBuilder().maximumWeight(maximumBytes).weigher(new Weigher<String, GPUReadyTexture>() {
+			@Override
+			public int weigh(final String key, final GPUReadyTexture value) {
+				return value.getSizeInBytes();
+			}
+		}).removalListener(new RemovalListener<String, GPUReadyTexture>() {
+			@Override
+			public void onRemoval(final RemovalNotification<String, GPUReadyTexture> notification) {
+				gpuCacheBytes.addAndGet(-notification.getValue().getSizeInBytes());
+				notification.getValue().release();
+			}
+		}).recordStats().build();
+	}
+
+	private static int getSizeInBytes(final BufferedImage image) {
+		final DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+		final long bytes = ((long) dataBuffer.getSize() * dataBuffer.getNumBanks()
+				* DataBuffer.getDataTypeSize(dataBuffer.getDataType())) / 8;
+		return (int) Math.min(Integer.MAX_VALUE, bytes);
+	}
+
+	private void putImage(final String key, final BufferedImage image) {
+		imageCacheBytes.addAndGet(getSizeInBytes(image));
+		cache.put(key, image);
+	}
+
+	/**
+	 * The cache takes over one reference of the texture.
+	 */
+	private void putGpuTexture(final String key, final GPUReadyTexture texture) {
+		gpuCacheBytes.addAndGet(texture.getSizeInBytes());
+		gpuBufferCache.put(key, texture);
+	}
+
+	/**
+	 * Hit, miss and eviction counts of the decoded image cache since startup.
+	 */
+	public CacheStats getImageCacheStats() {
+		return oldImageCacheStats.plus(cache.stats());
+	}
+
+	public CacheStats getGpuCacheStats() {
+		return oldGpuCacheStats.plus(gpuBufferCache.stats());
+	}
+
+	public long getImageCacheBytes() {
+		return imageCacheBytes.get();
+	}
+
+	public long getGpuCacheBytes() {
+		return gpuCacheBytes.get();
+	}
+
+	/**
+	 * Returns the texture pixels in a direct buffer. The caller owns one
+	 * reference of the result and has to call {@link GPUReadyTexture#release()}
+	 * when it is done with the buffer.
+	 */
 	public GPUReadyTexture loadTexture(final DataSource dataSource, final String filepath) {
-		final String lowerFilePath = filepath.toLowerCase();
-		GPUReadyTexture gpuReadyTexture = gpuBufferCache.get(lowerFilePath);
-		if (gpuReadyTexture != null) {
-			return gpuReadyTexture;
+		final GPUReadyTexture cachedTexture = getCachedTexture(filepath);
+		if (cachedTexture != null) {
+			return cachedTexture;
 		}
+		return toGPUReadyTexture(filepath.toLowerCase(), getTexture(dataSource, filepath));
+	}
 
-		final BufferedImage javaTexture = getTexture(dataSource, filepath);
+	/**
+	 * Returns the texture from the GPU buffer cache with a new reference for the
+	 * caller, or null if it is not cached.
+	 */
+	public GPUReadyTexture getCachedTexture(final String filepath) {
+		final GPUReadyTexture gpuReadyTexture = gpuBufferCache.getIfPresent(filepath.toLowerCase());
+		if ((gpuReadyTexture != null) && gpuReadyTexture.retain()) {
+			return gpuReadyTexture;
+		}
+		return null;
+	}
 
+	private GPUReadyTexture toGPUReadyTexture(final String lowerFilePath, final BufferedImage javaTexture) {
 		if (javaTexture == null) {
 			return null;
 		}
@@ -66,39 +215,127 @@ public class BLPHandler {
 
 		final ByteBuffer buffer = BufferUtils
 				.createByteBuffer(javaTexture.getWidth() * javaTexture.getHeight() * BYTES_PER_PIXEL);
-		// 4
-		// for
-		// RGBA,
-		// 3
-		// for
-		// RGB
-
-		for (int y = 0; y < javaTexture.getHeight(); y++) {
-			for (int x = 0; x < javaTexture.getWidth(); x++) {
-				final int pixel = pixels[(y * javaTexture.getWidth()) + x];
-				buffer.put((byte) ((pixel >> 16) & 0xFF)); // Red component
-				buffer.put((byte) ((pixel >> 8) & 0xFF)); // Green component
-				buffer.put((byte) (pixel & 0xFF)); // Blue component
-				buffer.put((byte) ((pixel >> 24) & 0xFF)); // Alpha component.
-				// Only for RGBA
-			}
+		// ARGB ints to RGBA bytes, written as big endian RGBA ints in one go
+		for (int i = 0; i < pixels.length; i++) {
+			final int pixel = pixels[i];
+			pixels[i] = (pixel << 8) | (pixel >>> 24);
 		}
+		buffer.duplicate().order(ByteOrder.BIG_ENDIAN).asIntBuffer().put(pixels);
 
-		buffer.flip();
-
-		gpuReadyTexture = new GPUReadyTexture(buffer, javaTexture.getWidth(), javaTexture.getHeight());
-		if (cache.containsKey(lowerFilePath)) {
+		final GPUReadyTexture gpuReadyTexture = new GPUReadyTexture(buffer, javaTexture.getWidth(),
+				javaTexture.getHeight());
+		if (cache.asMap().containsKey(lowerFilePath)) {
 			// In this case, caching is allowed
-			gpuBufferCache.put(lowerFilePath, gpuReadyTexture);
+			gpuReadyTexture.retain();
+			putGpuTexture(lowerFilePath, gpuReadyTexture);
 		}
 		// You now have a ByteBuffer filled with the color data of each pixel.
 		return gpuReadyTexture;
 	}
 
+	/**
+	 * Finds the file that a texture path resolves to, the same way getTexture
+	 * does, and reads it into memory without decoding it. This is the part of
+	 * loading a texture that has to use the data source; decodeTexture does the
+	 * rest and can run on any thread.
+	 *
+	 * @return the file contents, or null if the texture does not exist
+	 */
+	public EncodedTexture readEncodedTexture(final DataSource dataSource, final String filepath)
+			throws IOException {
+		final String lowerCaseFilepath = filepath.toLowerCase();
+		final BufferedImage cachedImage = cache.getIfPresent(lowerCaseFilepath);
+		if (cachedImage != null) {
+			return new EncodedTexture(lowerCaseFilepath, filepath, null, cachedImage, false);
+		}
+		if (dataSource.has(filepath)) {
+			final EncodedTexture encodedTexture = readEncodedTexture(dataSource, filepath, lowerCaseFilepath);
+			if (encodedTexture != null) {
+				return encodedTexture;
+			}
+		}
+		if (lowerCaseFilepath.endsWith(".blp") || lowerCaseFilepath.endsWith(".tif")) {
+			// War3 allows .blp and .tif to actually resolve to dds
+			final String ddsFilepath = filepath.substring(0, filepath.length() - 4) + ".dds";
+			final EncodedTexture encodedTexture = readEncodedTexture(dataSource, ddsFilepath, lowerCaseFilepath);
+			if (encodedTexture != null) {
+				return encodedTexture;
+			}
+		}
+		final String nameOnly = filepath
+				.substring(Math.max(filepath.lastIndexOf("/"), filepath.lastIndexOf("\\")) + 1);
+		return readEncodedTexture(dataSource, nameOnly, lowerCaseFilepath);
+	}
+
+	private EncodedTexture readEncodedTexture(final DataSource dataSource, final String filepath,
+			final String cacheKey) throws IOException {
+		try (final InputStream imageDataStream = dataSource.getResourceAsStream(filepath)) {
+			if (imageDataStream == null) {
+				return null;
+			}
+			return new EncodedTexture(cacheKey, filepath, ByteStreams.toByteArray(imageDataStream), null,
+					dataSource.allowDownstreamCaching(filepath));
+		}
+	}
+
+	/**
+	 * Decodes a texture read by readEncodedTexture and caches it like loadTexture
+	 * would. Does not touch any data source, so it is safe to call from worker
+	 * threads.
+	 *
+	 * @return the texture with a reference owned by the caller, or null if the
+	 *         file is not an image
+	 */
+	public GPUReadyTexture decodeTexture(final EncodedTexture encodedTexture) throws IOException {
+		BufferedImage image = encodedTexture.decodedImage;
+		if ((image == null) && !encodedTexture.allowDownstreamCaching
+				&& isExtension(encodedTexture.resolvedPath, ".blp")) {
+			// nothing to cache, so the pixels can go straight into the buffer
+			try {
+				final BlpFile blpFile = new BlpFile(ByteBuffer.wrap(encodedTexture.data));
+				final ByteBuffer buffer = BufferUtils
+						.createByteBuffer(blpFile.getWidth() * blpFile.getHeight() * BYTES_PER_PIXEL);
+				blpFile.decode(0, buffer);
+				buffer.flip();
+				return new GPUReadyTexture(buffer, blpFile.getWidth(), blpFile.getHeight());
+			} catch (final IOException e) {
+				// not something BlpFile can decode, let the ImageIO plugin try
+			}
+		}
+		if (image == null) {
+			image = decodeImage(encodedTexture.resolvedPath, new ByteArrayInputStream(encodedTexture.data));
+			if ((image != null) && encodedTexture.allowDownstreamCaching) {
+				putImage(encodedTexture.cacheKey, image);
+			}
+		}
+		return toGPUReadyTexture(encodedTexture.cacheKey, image);
+	}
+
+	/**
+	 * The undecoded contents of a texture file, see
+	 * {@link BLPHandler#readEncodedTexture(DataSource, String)}.
+	 */
+	public static final class EncodedTexture {
+		private final String cacheKey;
+		private final String resolvedPath;
+		private final byte[] data;
+		private final BufferedImage decodedImage;
+		private final boolean allowDownstreamCaching;
+
+		private EncodedTexture(final String cacheKey, final String resolvedPath, final byte[] data,
+				final BufferedImage decodedImage, final boolean allowDownstreamCaching) {
+			this.cacheKey = cacheKey;
+			this.resolvedPath = resolvedPath;
+			this.data = data;
+			this.decodedImage = decodedImage;
+			this.allowDownstreamCaching = allowDownstreamCaching;
+		}
+	}
+
 	public BufferedImage getTexture(final DataSource dataSource, final String filepath) {
 		try {
 			final String lowerCaseFilepath = filepath.toLowerCase();
-			BufferedImage resultImage = cache.get(lowerCaseFilepath);
+			BufferedImage resultImage = cache.getIfPresent(lowerCaseFilepath);
 			if (resultImage != null) {
 				return resultImage;
 			}
@@ -106,7 +343,7 @@ public class BLPHandler {
 				resultImage = loadTextureDirectly(dataSource, filepath);
 				if (resultImage != null) {
 					if (dataSource.allowDownstreamCaching(filepath)) {
-						cache.put(lowerCaseFilepath, resultImage);
+						putImage(lowerCaseFilepath, resultImage);
 					}
 					return resultImage;
 				}
@@ -117,7 +354,7 @@ public class BLPHandler {
 				resultImage = loadTextureDirectly(dataSource, ddsFilepath);
 				if (resultImage != null) {
 					if (dataSource.allowDownstreamCaching(ddsFilepath)) {
-						cache.put(lowerCaseFilepath, resultImage);
+						putImage(lowerCaseFilepath, resultImage);
 					}
 					return resultImage;
 				}
@@ -127,7 +364,7 @@ public class BLPHandler {
 			resultImage = loadTextureDirectly(dataSource, nameOnly);
 			if (resultImage != null) {
 				if (dataSource.allowDownstreamCaching(nameOnly)) {
-					cache.put(lowerCaseFilepath, resultImage);
+					putImage(lowerCaseFilepath, resultImage);
 				}
 			}
 			return resultImage;
@@ -140,16 +377,30 @@ public class BLPHandler {
 		BufferedImage resultImage = null;
 		try (final InputStream imageDataStream = dataSource.getResourceAsStream(filepath)) {
 			if (imageDataStream != null) {
-				if (isExtension(filepath, ".tga")) {
-					resultImage = TgaFile.readTGA(filepath, imageDataStream);
-				} else {
-					resultImage = ImageIO.read(imageDataStream);
-					if (resultImage != null) {
-						if (isExtension(filepath, ".blp")) {
-							resultImage = forceBufferedImagesRGB(resultImage);
-						}
-					}
-				}
+				resultImage = decodeImage(filepath, imageDataStream);
+			}
+		}
+		return resultImage;
+	}
+
+	private BufferedImage decodeImage(final String filepath, final InputStream imageDataStream) throws IOException {
+		if (isExtension(filepath, ".tga")) {
+			return TgaFile.readTGA(filepath, imageDataStream);
+		}
+		InputStream imageStream = imageDataStream;
+		if (isExtension(filepath, ".blp")) {
+			final byte[] blpData = ByteStreams.toByteArray(imageDataStream);
+			try {
+				return new BlpFile(ByteBuffer.wrap(blpData)).toBufferedImage(0);
+			} catch (final IOException e) {
+				// not something BlpFile can decode, let the ImageIO plugin try
+				imageStream = new ByteArrayInputStream(blpData);
+			}
+		}
+		BufferedImage resultImage = ImageIO.read(imageStream);
+		if (resultImage != null) {
+			if (isExtension(filepath, ".blp")) {
+				resultImage = forceBufferedImagesRGB(resultImage);
 			}
 		}
 		return resultImage;
@@ -270,7 +521,8 @@ public class BLPHandler {
 	}
 
 	public void dropCache() {
-		cache.clear();
+		cache.invalidateAll();
+		gpuBufferCache.invalidateAll();
 	}
 
 	public BufferedImage getGameTex(final String iconTexturePath) {
@@ -1,11 +1,25 @@
 package com.hiveworkshop.wc3.gui;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * RGBA pixels in a direct buffer, ready for glTexImage2D.
+ *
+ * The direct memory is reference counted so that it can be freed as soon as
+ * nobody needs it instead of whenever the garbage collector gets to it. A new
+ * texture starts with one reference owned by whoever created it; BLPHandler's
+ * cache takes its own reference while the texture is cached, and
+ * BLPHandler.loadTexture hands out a reference that the caller gives back with
+ * {@link #release()} once the pixels are uploaded.
+ */
 public class GPUReadyTexture {
-	private final ByteBuffer buffer;
+	private volatile ByteBuffer buffer;
 	private final int width;
 	private final int height;
+	private final AtomicInteger references = new AtomicInteger(1);
 
 	public GPUReadyTexture(final ByteBuffer buffer, final int width, final int height) {
 		this.buffer = buffer;
@@ -13,6 +27,9 @@ public class GPUReadyTexture {
 		this.height = height;
 	}
 
+	/**
+	 * @return the pixels, or null after the last reference was released
+	 */
 	public ByteBuffer getBuffer() {
 		return buffer;
 	}
@@ -25,4 +42,86 @@ public class GPUReadyTexture {
 		return height;
 	}
 
+	public int getSizeInBytes() {
+		return width * height * 4;
+	}
+
+	/**
+	 * Takes another reference, unless the texture was already freed.
+	 *
+	 * @return false if the texture was freed and must not be used
+	 */
+	boolean retain() {
+		while (true) {
+			final int count = references.get();
+			if (count <= 0) {
+				return false;
+			}
+			if (references.compareAndSet(count, count + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Gives back a reference, the direct memory is freed when the last one is
+	 * released.
+	 */
+	public void release() {
+		if (references.decrementAndGet() == 0) {
+			final ByteBuffer freedBuffer = buffer;
+			buffer = null;
+			if (freedBuffer != null) {
+				DirectBufferFreer.free(freedBuffer);
+			}
+		}
+	}
+
+	/**
+	 * Runs the cleaner of a direct buffer right away. There is no public API for
+	 * this on Java 8, so this goes through sun.misc.Unsafe.invokeCleaner (Java
+	 * 9+) or the buffer's own cleaner (Java 8). If neither is reachable the
+	 * buffer is just left to the garbage collector.
+	 */
+	private static final class DirectBufferFreer {
+		private static final Object UNSAFE;
+		private static final Method INVOKE_CLEANER;
+		static {
+			Object unsafe = null;
+			Method invokeCleaner = null;
+			try {
+				final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+				invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+				final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+				theUnsafe.setAccessible(true);
+				unsafe = theUnsafe.get(null);
+			} catch (final Exception e) {
+				// Java 8, use the cleaner of the buffer instead
+				invokeCleaner = null;
+				unsafe = null;
+			}
+			UNSAFE = unsafe;
+			INVOKE_CLEANER = invokeCleaner;
+		}
+
+		private static void free(final ByteBuffer buffer) {
+			if (!buffer.isDirect()) {
+				return;
+			}
+			try {
+				if (INVOKE_CLEANER != null) {
+					INVOKE_CLEANER.invoke(UNSAFE, buffer);
+				} else {
+					final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+					cleanerMethod.setAccessible(true);
+					final Object cleaner = cleanerMethod.invoke(buffer);
+					if (cleaner != null) {
+						cleaner.getClass().getMethod("clean").invoke(cleaner);
+					}
+				}
+			} catch (final Exception e) {
+				// leave it to the garbage collector
+			}
+		}
+	}
 }
@@ -12,6 +12,8 @@ public class ProgramPreferences implements Serializable {
 	 *
 	 */
 	private static final long serialVersionUID = 1L;
+	private static final int DEFAULT_TEXTURE_CACHE_MEGABYTES = 512;
+	private static final int DEFAULT_GPU_TEXTURE_CACHE_MEGABYTES = 256;
 	private int viewMode = 1;
 	private boolean showNormals;
 	private boolean showVertexModifierControls = false;
@@ -56,6 +58,8 @@ public class ProgramPreferences implements Serializable {
 	private Boolean quickBrowse = true;
 	private MouseButtonPreference threeDCameraSpinButton = MouseButtonPreference.LEFT;
 	private MouseButtonPreference threeDCameraPanButton = MouseButtonPreference.MIDDLE;
+	private Integer textureCacheMegabytes = DEFAULT_TEXTURE_CACHE_MEGABYTES;
+	private Integer gpuTextureCacheMegabytes = DEFAULT_GPU_TEXTURE_CACHE_MEGABYTES;
 
 	public void reload() {
 		dimLocks = new boolean[3];
@@ -117,6 +121,12 @@ public class ProgramPreferences implements Serializable {
 		if (quickBrowse == null) {
 			quickBrowse = Boolean.TRUE;
 		}
+		if (textureCacheMegabytes == null) {
+			textureCacheMegabytes = DEFAULT_TEXTURE_CACHE_MEGABYTES;
+		}
+		if (gpuTextureCacheMegabytes == null) {
+			gpuTextureCacheMegabytes = DEFAULT_GPU_TEXTURE_CACHE_MEGABYTES;
+		}
 	}
 
 	public void loadFrom(final ProgramPreferences other) {
@@ -159,6 +169,8 @@ public class ProgramPreferences implements Serializable {
 		this.allowLoadingNonBlpTextures = other.allowLoadingNonBlpTextures;
 		this.renderParticles = other.renderParticles;
 		this.renderStaticPoseParticles = other.renderStaticPoseParticles;
+		textureCacheMegabytes = other.textureCacheMegabytes;
+		gpuTextureCacheMegabytes = other.gpuTextureCacheMegabytes;
 		SaveProfile.save();
 		firePrefsChanged();
 
@@ -615,6 +627,33 @@ public class ProgramPreferences implements Serializable {
 		firePrefsChanged();
 	}
 
+	/**
+	 * Soft limit for the decoded textures that BLPHandler keeps in memory.
+	 */
+	public int getTextureCacheMegabytes() {
+		return textureCacheMegabytes == null ? DEFAULT_TEXTURE_CACHE_MEGABYTES : textureCacheMegabytes;
+	}
+
+	public void setTextureCacheMegabytes(final int textureCacheMegabytes) {
+		this.textureCacheMegabytes = textureCacheMegabytes;
+		SaveProfile.save();
+		firePrefsChanged();
+	}
+
+	/**
+	 * Soft limit for the direct buffers of texture pixels waiting to be uploaded
+	 * to OpenGL that BLPHandler keeps in memory.
+	 */
+	public int getGpuTextureCacheMegabytes() {
+		return gpuTextureCacheMegabytes == null ? DEFAULT_GPU_TEXTURE_CACHE_MEGABYTES : gpuTextureCacheMegabytes;
+	}
+
+	public void setGpuTextureCacheMegabytes(final int gpuTextureCacheMegabytes) {
+		this.gpuTextureCacheMegabytes = gpuTextureCacheMegabytes;
+		SaveProfile.save();
+		firePrefsChanged();
+	}
+
 	public void resetToDefaults() {
 		loadFrom(new ProgramPreferences());
 	}
@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.Collection;
@@ -13,19 +14,25 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 import com.hiveworkshop.blizzard.casc.io.WarcraftIIICASC;
 import com.hiveworkshop.blizzard.casc.io.WarcraftIIICASC.FileSystem;
+import com.hiveworkshop.blizzard.casc.vfs.VirtualFileSystem.PathResult;
 import com.hiveworkshop.json.JSONArray;
 import com.hiveworkshop.json.JSONObject;
 import com.hiveworkshop.json.JSONTokener;
 
 public class CascDataSource implements DataSource {
+	private static final Resolution NOT_FOUND = new Resolution(null, null);
+
 	private final String[] prefixes;
 	private WarcraftIIICASC warcraftIIICASC;
 	private FileSystem rootFileSystem;
 	private List<String> listFile;
 	private Map<String, String> fileAliases;
+	private final Map<String, Resolution> resolutionCache = new ConcurrentHashMap<>();
 
 	public CascDataSource(final String warcraft3InstallPath, final String[] prefixes) {
 		this.prefixes = prefixes;
@@ -38,174 +45,204 @@ public class CascDataSource implements DataSource {
 		try {
 			warcraftIIICASC = new WarcraftIIICASC(Paths.get(warcraft3InstallPath), true);
 			rootFileSystem = warcraftIIICASC.getRootFileSystem();
-			listFile = rootFileSystem.enumerateFiles();
-			fileAliases = new HashMap<>();
-			if (this.has("filealiases.json")) {
-				try (InputStream stream = this.getResourceAsStream("filealiases.json")) {
-					stream.mark(4);
-					if ('\ufeff' != stream.read()) {
-						stream.reset(); // not the BOM marker
-					}
-					final JSONArray jsonObject = new JSONArray(new JSONTokener(stream));
-					for (int i = 0; i < jsonObject.length(); i++) {
-						final JSONObject alias = jsonObject.getJSONObject(i);
-						final String src = alias.getString("src");
-						final String dest = alias.getString("dest");
-						fileAliases.put(src.toLowerCase(Locale.US).replace('/', '\\'),
-								dest.toLowerCase(Locale.US).replace('/', '\\'));
-						if ((src.toLowerCase(Locale.US).contains(".blp")
-								|| dest.toLowerCase(Locale.US).contains(".blp"))
-								&& (!alias.has("assetType") || "Texture".equals(alias.getString("assetType")))) {
-							// This case: I saw a texture that resolves in game but was failing in our code
-							// here, because of this entry:
-							// {"src":"Units/Human/WarWagon/SiegeEngine.blp",
-							// "dest":"Textures/Steamtank.blp", "assetType": "Texture"},
-							// Our repo here checks BLP then DDS at a high-up application level thing, and
-							// the problem is that this entry is written using .BLP but we must be able to
-							// resolve .DDS when we go to look it up. The actual model is .BLP so maybe
-							// that's how the game does it, but my alias mapping is happening after the
-							// .BLP->.DDS dynamic fix, and not before.
-							fileAliases.put(src.toLowerCase(Locale.US).replace('/', '\\').replace(".blp", ".dds"),
-									dest.toLowerCase(Locale.US).replace('/', '\\').replace(".blp", ".dds"));
-						}
-					}
+			final String buildKey = warcraftIIICASC.getBuildKey();
+			final File indexFile = CascListfileIndex.getIndexFile(buildKey, prefixes);
+			CascListfileIndex index = null;
+			try {
+				index = CascListfileIndex.load(indexFile, buildKey, prefixes);
+			} catch (final IOException e) {
+				// unreadable index, rebuild it below
+				e.printStackTrace();
+			}
+			if (index == null) {
+				listFile = rootFileSystem.enumerateFiles(ForkJoinPool.commonPool());
+				fileAliases = new HashMap<>();
+				loadFileAliases();
+				// lookups made while reading filealiases.json did not know the aliases yet
+				resolutionCache.clear();
+				index = new CascListfileIndex(buildKey, prefixes, listFile, fileAliases);
+				try {
+					index.save(indexFile);
+				} catch (final IOException e) {
+					e.printStackTrace();
 				}
+			} else {
+				listFile = index.getListfile();
+				fileAliases = index.getFileAliases();
 			}
 		} catch (final IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
-	@Override
-	public InputStream getResourceAsStream(String filepath) {
+	/**
+	 * Reads filealiases.json into fileAliases, if this data source has one.
+	 */
+	private void loadFileAliases() throws IOException {
+		if (this.has("filealiases.json")) {
+			try (InputStream stream = this.getResourceAsStream("filealiases.json")) {
+				stream.mark(4);
+				if ('\ufeff' != stream.read()) {
+					stream.reset(); // not the BOM marker
+				}
+				final JSONArray jsonObject = new JSONArray(new JSONTokener(stream));
+				for (int i = 0; i < jsonObject.length(); i++) {
+					final JSONObject alias = jsonObject.getJSONObject(i);
+					final String src = alias.getString("src");
+					final String dest = alias.getString("dest");
+					fileAliases.put(src.toLowerCase(Locale.US).replace('/', '\\'),
+							dest.toLowerCase(Locale.US).replace('/', '\\'));
+					if ((src.toLowerCase(Locale.US).contains(".blp")
+							|| dest.toLowerCase(Locale.US).contains(".blp"))
+							&& (!alias.has("assetType") || "Texture".equals(alias.getString("assetType")))) {
+						// This case: I saw a texture that resolves in game but was failing in our code
+						// here, because of this entry:
+						// {"src":"Units/Human/WarWagon/SiegeEngine.blp",
+						// "dest":"Textures/Steamtank.blp", "assetType": "Texture"},
+						// Our repo here checks BLP then DDS at a high-up application level thing, and
+						// the problem is that this entry is written using .BLP but we must be able to
+						// resolve .DDS when we go to look it up. The actual model is .BLP so maybe
+						// that's how the game does it, but my alias mapping is happening after the
+						// .BLP->.DDS dynamic fix, and not before.
+						fileAliases.put(src.toLowerCase(Locale.US).replace('/', '\\').replace(".blp", ".dds"),
+								dest.toLowerCase(Locale.US).replace('/', '\\').replace(".blp", ".dds"));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Where a path asked for resolves to, after aliases and prefixes. The file the
+	 * path names can be in the file system but not in local storage, so the first
+	 * candidate that is a file and the first one that can be read are kept
+	 * separately.
+	 */
+	private static final class Resolution {
+		private final PathResult file;
+		private final PathResult storedFile;
+
+		private Resolution(final PathResult file, final PathResult storedFile) {
+			this.file = file;
+			this.storedFile = storedFile;
+		}
+	}
+
+	/**
+	 * Returns the resolution of a path as it was asked for, so that repeated
+	 * lookups of a path are a single probe of resolutionCache. Resolutions are
+	 * computed outside of the map, two threads resolving the same new path at
+	 * once both do the work and one result wins.
+	 */
+	private Resolution resolve(final String filepath) {
+		Resolution resolution = resolutionCache.get(filepath);
+		if (resolution == null) {
+			resolution = computeResolution(filepath);
+			resolutionCache.put(filepath, resolution);
+		}
+		return resolution;
+	}
+
+	private Resolution computeResolution(String filepath) {
 		filepath = filepath.toLowerCase(Locale.US).replace('/', '\\').replace(':', '\\');
 		final String resolvedAlias = fileAliases.get(filepath);
 		if (resolvedAlias != null) {
 			filepath = resolvedAlias;
 		}
-		for (final String prefix : prefixes) {
-			final String tempFilepath = prefix + "\\" + filepath;
-			final InputStream stream = internalGetResourceAsStream(tempFilepath);
-			if (stream != null) {
-				return stream;
+		PathResult file = null;
+		for (int i = 0; i <= prefixes.length; i++) {
+			final String tempFilepath = i < prefixes.length ? prefixes[i] + "\\" + filepath : filepath;
+			try {
+				final PathResult candidate = rootFileSystem.resolveFile(tempFilepath);
+				if (candidate != null) {
+					if (file == null) {
+						file = candidate;
+					}
+					if (candidate.existsInStorage()) {
+						return new Resolution(file, candidate);
+					}
+				}
+			} catch (final IOException e) {
+				throw new RuntimeException("CASC parser error for: " + tempFilepath, e);
 			}
 		}
-		return internalGetResourceAsStream(filepath);
+		return file == null ? NOT_FOUND : new Resolution(file, null);
 	}
 
-	private InputStream internalGetResourceAsStream(final String tempFilepath) {
-		try {
-			if (rootFileSystem.isFile(tempFilepath) && rootFileSystem.isFileAvailable(tempFilepath)) {
-				final ByteBuffer buffer = rootFileSystem.readFileData(tempFilepath);
-				if (buffer.hasArray()) {
-					return new ByteArrayInputStream(buffer.array());
-				}
-				final byte[] data = new byte[buffer.remaining()];
-				buffer.clear();
-				buffer.get(data);
-				return new ByteArrayInputStream(data);
-			}
-		} catch (final IOException e) {
-			throw new RuntimeException("CASC parser error for: " + tempFilepath, e);
+	@Override
+	public InputStream getResourceAsStream(final String filepath) {
+		final PathResult storedFile = resolve(filepath).storedFile;
+		if (storedFile == null) {
+			return null;
+		}
+		final ByteBuffer buffer = internalRead(storedFile);
+		if (buffer.hasArray()) {
+			return new ByteArrayInputStream(buffer.array());
 		}
-		return null;
+		final byte[] data = new byte[buffer.remaining()];
+		buffer.clear();
+		buffer.get(data);
+		return new ByteArrayInputStream(data);
 	}
 
 	@Override
-	public ByteBuffer read(String path) {
-		path = path.toLowerCase(Locale.US).replace('/', '\\').replace(':', '\\');
-		final String resolvedAlias = fileAliases.get(path);
-		if (resolvedAlias != null) {
-			path = resolvedAlias;
-		}
-		for (final String prefix : prefixes) {
-			final String tempFilepath = prefix + "\\" + path;
-			final ByteBuffer stream = internalRead(tempFilepath);
-			if (stream != null) {
-				return stream;
-			}
+	public ByteBuffer read(final String path) {
+		final PathResult storedFile = resolve(path).storedFile;
+		if (storedFile == null) {
+			return null;
 		}
-		return internalRead(path);
+		return internalRead(storedFile);
 	}
 
-	private ByteBuffer internalRead(final String tempFilepath) {
+	private ByteBuffer internalRead(final PathResult storedFile) {
 		try {
-			if (rootFileSystem.isFile(tempFilepath) && rootFileSystem.isFileAvailable(tempFilepath)) {
-				final ByteBuffer buffer = rootFileSystem.readFileData(tempFilepath);
-				return buffer;
-			}
+			return rootFileSystem.readFileData(storedFile);
 		} catch (final IOException e) {
-			throw new RuntimeException("CASC parser error for: " + tempFilepath, e);
+			throw new RuntimeException("CASC parser error for: " + getPathString(storedFile), e);
 		}
-		return null;
 	}
 
 	@Override
-	public File getFile(String filepath) {
-		filepath = filepath.toLowerCase(Locale.US).replace('/', '\\').replace(':', '\\');
-		final String resolvedAlias = fileAliases.get(filepath);
-		if (resolvedAlias != null) {
-			filepath = resolvedAlias;
+	public File getFile(final String filepath) {
+		final PathResult storedFile = resolve(filepath).storedFile;
+		if (storedFile == null) {
+			return null;
 		}
-		for (final String prefix : prefixes) {
-			final String tempFilepath = prefix + "\\" + filepath;
-			final File file = internalGetFile(tempFilepath);
-			if (file != null) {
-				return file;
-			}
-		}
-		return internalGetFile(filepath);
-	}
-
-	private File internalGetFile(final String tempFilepath) {
+		final String tempFilepath = getPathString(storedFile);
 		try {
-			if (rootFileSystem.isFile(tempFilepath) && rootFileSystem.isFileAvailable(tempFilepath)) {
-				final ByteBuffer buffer = rootFileSystem.readFileData(tempFilepath);
-				String tmpdir = System.getProperty("java.io.tmpdir");
-				if (!tmpdir.endsWith(File.separator)) {
-					tmpdir += File.separator;
-				}
-				final String tempDir = tmpdir + "MatrixEaterExtract/";
-				final File tempProduct = new File(tempDir + tempFilepath.replace('\\', File.separatorChar));
-				tempProduct.delete();
-				tempProduct.getParentFile().mkdirs();
-				try (final FileChannel fileChannel = FileChannel.open(tempProduct.toPath(), StandardOpenOption.CREATE,
-						StandardOpenOption.WRITE, StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING)) {
-					fileChannel.write(buffer);
-				}
-				tempProduct.deleteOnExit();
-				return tempProduct;
+			final ByteBuffer buffer = rootFileSystem.readFileData(storedFile);
+			String tmpdir = System.getProperty("java.io.tmpdir");
+			if (!tmpdir.endsWith(File.separator)) {
+				tmpdir += File.separator;
 			}
+			final String tempDir = tmpdir + "MatrixEaterExtract/";
+			final File tempProduct = new File(tempDir + tempFilepath.replace('\\', File.separatorChar));
+			tempProduct.delete();
+			tempProduct.getParentFile().mkdirs();
+			try (final FileChannel fileChannel = FileChannel.open(tempProduct.toPath(), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING)) {
+				fileChannel.write(buffer);
+			}
+			tempProduct.deleteOnExit();
+			return tempProduct;
 		} catch (final IOException e) {
 			throw new RuntimeException("CASC parser error for: " + tempFilepath, e);
 		}
-		return null;
 	}
 
-	@Override
-	public boolean has(String filepath) {
-		filepath = filepath.toLowerCase(Locale.US).replace('/', '\\').replace(':', '\\');
-		final String resolvedAlias = fileAliases.get(filepath);
-		if (resolvedAlias != null) {
-			filepath = resolvedAlias;
-		}
-		for (final String prefix : prefixes) {
-			final String tempFilepath = prefix + "\\" + filepath;
-			try {
-				if (rootFileSystem.isFile(tempFilepath)) {
-					return true;
-				}
-			} catch (final IOException e) {
-				throw new RuntimeException("CASC parser error for: " + tempFilepath, e);
-			}
-		}
+	private static String getPathString(final PathResult file) {
 		try {
-			return rootFileSystem.isFile(filepath);
-		} catch (final IOException e) {
-			throw new RuntimeException("CASC parser error for: " + filepath, e);
+			return file.getPath();
+		} catch (final CharacterCodingException e) {
+			throw new RuntimeException(e);
 		}
 	}
 
+	@Override
+	public boolean has(final String filepath) {
+		return resolve(filepath).file != null;
+	}
+
 	@Override
 	public boolean allowDownstreamCaching(final String filepath) {
 		return true;
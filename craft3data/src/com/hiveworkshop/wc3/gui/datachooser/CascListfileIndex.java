@@ -0,0 +1,136 @@
+package com.hiveworkshop.wc3.gui.datachooser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The listfile and file aliases of a CASC data source, saved next to the user
+ * profile so that the next launch does not have to walk the whole TVFS tree.
+ * An index belongs to one build configuration and one set of prefixes (the
+ * prefixes decide which filealiases.json is used); when the game is updated
+ * the build key changes and the index is simply not found anymore.
+ */
+public final class CascListfileIndex {
+	private static final int MAGIC = 0x4C464958; // "LFIX"
+	private static final int VERSION = 1;
+
+	private final String buildKey;
+	private final String[] prefixes;
+	private final List<String> listfile;
+	private final Map<String, String> fileAliases;
+
+	public CascListfileIndex(final String buildKey, final String[] prefixes, final List<String> listfile,
+			final Map<String, String> fileAliases) {
+		this.buildKey = buildKey;
+		this.prefixes = prefixes.clone();
+		this.listfile = listfile;
+		this.fileAliases = fileAliases;
+	}
+
+	public List<String> getListfile() {
+		return listfile;
+	}
+
+	public Map<String, String> getFileAliases() {
+		return fileAliases;
+	}
+
+	/**
+	 * @return the file the index of this build and prefixes is saved to
+	 */
+	public static File getIndexFile(final String buildKey, final String[] prefixes) {
+		String profilePath = System.getProperty("user.home") + File.separator;
+		if (System.getProperty("os.name").toLowerCase().contains("win")) {
+			profilePath += "AppData" + File.separator + "Roaming" + File.separator + "ReteraStudio";
+		} else {
+			profilePath += ".reteraStudio";
+		}
+		final File indexFolder = new File(profilePath, "casc");
+		return new File(indexFolder,
+				buildKey + "-" + Integer.toHexString(Arrays.hashCode(prefixes)) + ".listfile");
+	}
+
+	/**
+	 * Reads a saved index.
+	 *
+	 * @return the index, or null if there is none for this build and prefixes
+	 */
+	public static CascListfileIndex load(final File indexFile, final String buildKey, final String[] prefixes)
+			throws IOException {
+		if (!indexFile.exists()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new GZIPInputStream(new FileInputStream(indexFile), 1 << 16)))) {
+			if ((in.readInt() != MAGIC) || (in.readInt() != VERSION) || !buildKey.equals(in.readUTF())) {
+				return null;
+			}
+			final int prefixCount = in.readInt();
+			if (prefixCount != prefixes.length) {
+				return null;
+			}
+			for (final String prefix : prefixes) {
+				if (!prefix.equals(in.readUTF())) {
+					return null;
+				}
+			}
+
+			final int fileCount = in.readInt();
+			final List<String> listfile = new ArrayList<>(fileCount);
+			for (int i = 0; i < fileCount; i++) {
+				listfile.add(in.readUTF());
+			}
+			final int aliasCount = in.readInt();
+			final Map<String, String> fileAliases = new HashMap<>(Math.max(16, (aliasCount * 4) / 3));
+			for (int i = 0; i < aliasCount; i++) {
+				final String src = in.readUTF();
+				fileAliases.put(src, in.readUTF());
+			}
+			return new CascListfileIndex(buildKey, prefixes, listfile, fileAliases);
+		}
+	}
+
+	/**
+	 * Writes the index to a temporary file first and then moves it in place, so
+	 * that a launch that is killed halfway does not leave a broken index behind.
+	 */
+	public void save(final File indexFile) throws IOException {
+		indexFile.getParentFile().mkdirs();
+		final File tempFile = new File(indexFile.getPath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tempFile), 1 << 16)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(buildKey);
+			out.writeInt(prefixes.length);
+			for (final String prefix : prefixes) {
+				out.writeUTF(prefix);
+			}
+			out.writeInt(listfile.size());
+			for (final String path : listfile) {
+				out.writeUTF(path);
+			}
+			out.writeInt(fileAliases.size());
+			for (final Map.Entry<String, String> alias : fileAliases.entrySet()) {
+				out.writeUTF(alias.getKey());
+				out.writeUTF(alias.getValue());
+			}
+		}
+		Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+}
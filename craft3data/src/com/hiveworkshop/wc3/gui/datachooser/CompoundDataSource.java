@@ -6,22 +6,20 @@ import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CompoundDataSource implements DataSource {
 	private final List<DataSource> mpqList = new ArrayList<>();
 
 	@Override
 	public boolean allowDownstreamCaching(final String filepath) {
-		for (int i = this.mpqList.size() - 1; i >= 0; i--) {
-			final DataSource mpq = this.mpqList.get(i);
-			if (mpq.has(filepath)) {
-				return mpq.allowDownstreamCaching(filepath);
-			}
+		final int index = pathIndex.resolve(this.mpqList, filepath);
+		if (index != DataSourcePathIndex.NOT_FOUND) {
+			return this.mpqList.get(index).allowDownstreamCaching(filepath);
 		}
 		return false;
 	}
@@ -34,7 +32,8 @@ public class CompoundDataSource implements DataSource {
 		}
 	}
 
-	Map<String, File> cache = new HashMap<>();
+	Map<String, File> cache = new ConcurrentHashMap<>();
+	private final DataSourcePathIndex pathIndex = new DataSourcePathIndex();
 
 	@Override
 	public File getFile(final String filepath) {
@@ -42,7 +41,7 @@ public class CompoundDataSource implements DataSource {
 			return this.cache.get(filepath);
 		}
 		try {
-			for (int i = this.mpqList.size() - 1; i >= 0; i--) {
+			for (int i = pathIndex.firstCandidate(this.mpqList, filepath); i >= 0; i--) {
 				final DataSource mpq = this.mpqList.get(i);
 				final File tempProduct = mpq.getFile(filepath);
 				if (tempProduct != null) {
@@ -60,7 +59,7 @@ public class CompoundDataSource implements DataSource {
 	@Override
 	public InputStream getResourceAsStream(final String filepath) {
 		try {
-			for (int i = this.mpqList.size() - 1; i >= 0; i--) {
+			for (int i = pathIndex.firstCandidate(this.mpqList, filepath); i >= 0; i--) {
 				final DataSource mpq = this.mpqList.get(i);
 				final InputStream resourceAsStream = mpq.getResourceAsStream(filepath);
 				if (resourceAsStream != null) {
@@ -77,7 +76,7 @@ public class CompoundDataSource implements DataSource {
 	@Override
 	public ByteBuffer read(final String path) throws IOException {
 		try {
-			for (int i = this.mpqList.size() - 1; i >= 0; i--) {
+			for (int i = pathIndex.firstCandidate(this.mpqList, path); i >= 0; i--) {
 				final DataSource mpq = this.mpqList.get(i);
 				final ByteBuffer buffer = mpq.read(path);
 				if (buffer != null) {
@@ -96,13 +95,7 @@ public class CompoundDataSource implements DataSource {
 		if (this.cache.containsKey(filepath)) {
 			return true;
 		}
-		for (int i = this.mpqList.size() - 1; i >= 0; i--) {
-			final DataSource mpq = this.mpqList.get(i);
-			if (mpq.has(filepath)) {
-				return true;
-			}
-		}
-		return false;
+		return pathIndex.resolve(this.mpqList, filepath) != DataSourcePathIndex.NOT_FOUND;
 	}
 
 	public void refresh(final List<DataSourceDescriptor> dataSourceDescriptors) {
@@ -117,6 +110,7 @@ public class CompoundDataSource implements DataSource {
 		}
 		this.cache.clear();
 		this.mpqList.clear();
+		pathIndex.invalidate();
 		if (dataSourceDescriptors != null) {
 			for (final DataSourceDescriptor descriptor : dataSourceDescriptors) {
 				this.mpqList.add(descriptor.createDataSource());
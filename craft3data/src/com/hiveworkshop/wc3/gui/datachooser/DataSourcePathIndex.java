@@ -0,0 +1,92 @@
+package com.hiveworkshop.wc3.gui.datachooser;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Remembers which data source of a stack a path resolves to, so that
+ * CompoundDataSource and MpqCodebase do not have to ask every MPQ in the stack
+ * again for every lookup. The stack is searched from the last data source
+ * down, the same as those classes do.
+ *
+ * Only MPQ and CASC archives are remembered, including paths that none of them
+ * has, because their contents do not change while they are open. Folders and
+ * nested stacks can change at any time and are still asked on every lookup.
+ * Call {@link #invalidate()} whenever the stack itself changes.
+ *
+ * Paths are remembered upper-cased and with backslashes, since both archive
+ * types find a file regardless of case and separator. The paths found are
+ * bounded by what the archives contain, the paths that none of them has are
+ * kept in a cache of at most {@link #MAX_MISSES} paths so that browsing or
+ * listfile-driven lookups cannot grow the index without limit.
+ *
+ * Reads start from {@link #firstCandidate(List, String)}, which falls back to
+ * the top of the stack when the index knows no data source for the path, so a
+ * path that the index misses (a data source whose has() is stricter than its
+ * reads, or an archive that changed on disk) is still found the way it was
+ * before there was an index.
+ */
+public final class DataSourcePathIndex {
+	public static final int NOT_FOUND = -1;
+	public static final int MAX_MISSES = 16384;
+
+	private final Map<String, Integer> pathToArchiveIndex = new ConcurrentHashMap<>();
+	private final Cache<String, Boolean> missingPaths = CacheBuilder.newBuilder().maximumSize(MAX_MISSES).build();
+
+	/**
+	 * @return the index in the stack of the data source that has the path, or
+	 *         {@link #NOT_FOUND}
+	 */
+	public int resolve(final List<DataSource> dataSources, final String filepath) {
+		final String key = filepath.toUpperCase(Locale.US).replace('/', '\\');
+		Integer archiveIndex = pathToArchiveIndex.get(key);
+		if (archiveIndex == null) {
+			archiveIndex = NOT_FOUND;
+			if (missingPaths.getIfPresent(key) == null) {
+				for (int i = dataSources.size() - 1; i >= 0; i--) {
+					final DataSource dataSource = dataSources.get(i);
+					if (isArchive(dataSource) && dataSource.has(filepath)) {
+						archiveIndex = i;
+						break;
+					}
+				}
+				if (archiveIndex == NOT_FOUND) {
+					missingPaths.put(key, Boolean.TRUE);
+				} else {
+					pathToArchiveIndex.put(key, archiveIndex);
+				}
+			}
+		}
+		for (int i = dataSources.size() - 1; i > archiveIndex; i--) {
+			final DataSource dataSource = dataSources.get(i);
+			if (!isArchive(dataSource) && dataSource.has(filepath)) {
+				return i;
+			}
+		}
+		return archiveIndex;
+	}
+
+	/**
+	 * @return the index in the stack to start reading the path from: the data
+	 *         source that has it, or the last data source when none is known to
+	 *         have it, so that every data source is still tried
+	 */
+	public int firstCandidate(final List<DataSource> dataSources, final String filepath) {
+		final int index = resolve(dataSources, filepath);
+		return index == NOT_FOUND ? dataSources.size() - 1 : index;
+	}
+
+	public void invalidate() {
+		pathToArchiveIndex.clear();
+		missingPaths.invalidateAll();
+	}
+
+	private static boolean isArchive(final DataSource dataSource) {
+		return (dataSource instanceof MpqDataSource) || (dataSource instanceof CascDataSource);
+	}
+}
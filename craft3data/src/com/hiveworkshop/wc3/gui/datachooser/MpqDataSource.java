@@ -7,6 +7,8 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.util.Collection;
@@ -16,19 +18,53 @@ import java.util.Set;
 import mpq.ArchivedFile;
 import mpq.ArchivedFileExtractor;
 import mpq.ArchivedFileStream;
-import mpq.HashLookup;
 import mpq.MPQArchive;
 import mpq.MPQException;
+import mpq.SectorCache;
 
+/**
+ * Files in an MPQ archive. Every stream reads its sectors on its own through
+ * the shared extractor, so this can be read from several threads at once as
+ * long as the input channel is a FileChannel.
+ *
+ * The archive can also be mapped into memory, which saves a copy for every
+ * sector read and lets stored files be read straight out of the mapping.
+ * Mapping is meant for tools that go through most of an archive; the mapping
+ * stays until it is garbage collected, even after the data source is closed.
+ *
+ * Decoded sectors are kept in a {@link SectorCache} shared by all streams of
+ * the archive, so reading a file twice or seeking around in it only
+ * decompresses each sector once.
+ */
 public class MpqDataSource implements DataSource {
+	public static final long DEFAULT_SECTOR_CACHE_BYTES = 8 * 1024 * 1024;
 
 	private final MPQArchive archive;
 	private final SeekableByteChannel inputChannel;
-	private final ArchivedFileExtractor extractor = new ArchivedFileExtractor();
+	private final ByteBuffer mapping;
+	private final SectorCache sectorCache = new SectorCache(DEFAULT_SECTOR_CACHE_BYTES);
+	private final ArchivedFileExtractor extractor = new ArchivedFileExtractor(sectorCache);
 
 	public MpqDataSource(final MPQArchive archive, final SeekableByteChannel inputChannel) {
 		this.archive = archive;
 		this.inputChannel = inputChannel;
+		mapping = null;
+	}
+
+	/**
+	 * @param memoryMapped
+	 *            map the archive into memory, archives of 2GB or more are read
+	 *            through the channel anyway
+	 */
+	public MpqDataSource(final MPQArchive archive, final FileChannel inputChannel, final boolean memoryMapped)
+			throws IOException {
+		this.archive = archive;
+		this.inputChannel = inputChannel;
+		if (memoryMapped && (inputChannel.size() <= Integer.MAX_VALUE)) {
+			mapping = inputChannel.map(MapMode.READ_ONLY, 0, inputChannel.size());
+		} else {
+			mapping = null;
+		}
 	}
 
 	public MPQArchive getArchive() {
@@ -39,36 +75,43 @@ public class MpqDataSource implements DataSource {
 		return inputChannel;
 	}
 
+	public boolean isMemoryMapped() {
+		return mapping != null;
+	}
+
+	/**
+	 * @return the decoded sectors of this archive, for its statistics or to
+	 *         change its size
+	 */
+	public SectorCache getSectorCache() {
+		return sectorCache;
+	}
+
+	private ArchivedFileStream openStream(final ArchivedFile file) {
+		if (mapping != null) {
+			return new ArchivedFileStream(mapping, extractor, file);
+		}
+		return new ArchivedFileStream(inputChannel, extractor, file);
+	}
+
 	@Override
 	public InputStream getResourceAsStream(final String filepath) throws IOException {
-		ArchivedFile file = null;
-		try {
-			file = archive.lookupHash2(new HashLookup(filepath));
-		} catch (final MPQException exc) {
-			if (exc.getMessage().equals("lookup not found")) {
-				return null;
-			} else {
-				throw new IOException(exc);
-			}
+		final ArchivedFile file = lookupFile(filepath);
+		if (file == null) {
+			return null;
 		}
-		final ArchivedFileStream stream = new ArchivedFileStream(inputChannel, extractor, file);
+		final ArchivedFileStream stream = openStream(file);
 		final InputStream newInputStream = Channels.newInputStream(stream);
 		return newInputStream;
 	}
 
 	@Override
 	public ByteBuffer read(final String path) throws IOException {
-		ArchivedFile file = null;
-		try {
-			file = archive.lookupHash2(new HashLookup(path));
-		} catch (final MPQException exc) {
-			if (exc.getMessage().equals("lookup not found")) {
-				return null;
-			} else {
-				throw new IOException(exc);
-			}
+		final ArchivedFile file = lookupFile(path);
+		if (file == null) {
+			return null;
 		}
-		try (final ArchivedFileStream stream = new ArchivedFileStream(inputChannel, extractor, file)) {
+		try (final ArchivedFileStream stream = openStream(file)) {
 			final long size = stream.size();
 			final ByteBuffer buffer = ByteBuffer.allocate((int) size);
 			stream.read(buffer);
@@ -81,17 +124,11 @@ public class MpqDataSource implements DataSource {
 		// TODO Auto-generated method stub
 		// System.out.println("getting it from the outside: " +
 		// filepath);
-		ArchivedFile file = null;
-		try {
-			file = archive.lookupHash2(new HashLookup(filepath));
-		} catch (final MPQException exc) {
-			if (exc.getMessage().equals("lookup not found")) {
-				return null;
-			} else {
-				throw new IOException(exc);
-			}
+		final ArchivedFile file = lookupFile(filepath);
+		if (file == null) {
+			return null;
 		}
-		final ArchivedFileStream stream = new ArchivedFileStream(inputChannel, extractor, file);
+		final ArchivedFileStream stream = openStream(file);
 		final InputStream newInputStream = Channels.newInputStream(stream);
 		String tmpdir = System.getProperty("java.io.tmpdir");
 		if (!tmpdir.endsWith(File.separator)) {
@@ -108,15 +145,14 @@ public class MpqDataSource implements DataSource {
 
 	@Override
 	public boolean has(final String filepath) {
+		return archive.hasFile(filepath);
+	}
+
+	private ArchivedFile lookupFile(final String filepath) throws IOException {
 		try {
-			archive.lookupPath(filepath);
-			return true;
+			return archive.lookupFile(filepath);
 		} catch (final MPQException exc) {
-			if (exc.getMessage().equals("lookup not found")) {
-				return false;
-			} else {
-				throw new RuntimeException(exc);
-			}
+			throw new IOException(exc);
 		}
 	}
 
@@ -129,9 +165,11 @@ public class MpqDataSource implements DataSource {
 	public Collection<String> getListfile() {
 		try {
 			final Set<String> listfile = new HashSet<>();
-			ArchivedFile listfileContents;
-			listfileContents = archive.lookupHash2(new HashLookup("(listfile)"));
-			final ArchivedFileStream stream = new ArchivedFileStream(inputChannel, extractor, listfileContents);
+			final ArchivedFile listfileContents = archive.lookupFile("(listfile)");
+			if (listfileContents == null) {
+				return null;
+			}
+			final ArchivedFileStream stream = openStream(listfileContents);
 			final InputStream newInputStream = Channels.newInputStream(stream);
 			try (BufferedReader reader = new BufferedReader(new InputStreamReader(newInputStream))) {
 				String line;
@@ -143,16 +181,13 @@ public class MpqDataSource implements DataSource {
 			}
 			return listfile;
 		} catch (final MPQException exc) {
-			if (exc.getMessage().equals("lookup not found")) {
-				return null;
-			} else {
-				throw new RuntimeException(exc);
-			}
+			throw new RuntimeException(exc);
 		}
 	}
 
 	@Override
 	public void close() throws IOException {
+		sectorCache.clear();
 		inputChannel.close();
 	}
 
@@ -1,11 +1,9 @@
 package com.hiveworkshop.wc3.gui.datachooser;
 
 import java.io.IOException;
-import java.nio.channels.SeekableByteChannel;
-import java.nio.file.Files;
+import java.nio.channels.FileChannel;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
-import java.util.EnumSet;
 
 import mpq.MPQArchive;
 import mpq.MPQException;
@@ -16,17 +14,27 @@ public class MpqDataSourceDescriptor implements DataSourceDescriptor {
 	 */
 	private static final long serialVersionUID = 8424254987711783598L;
 	private final String mpqFilePath;
+	private final boolean memoryMapped;
 
 	public MpqDataSourceDescriptor(final String mpqFilePath) {
+		this(mpqFilePath, false);
+	}
+
+	/**
+	 * @param memoryMapped
+	 *            map the archive into memory, see MpqDataSource
+	 */
+	public MpqDataSourceDescriptor(final String mpqFilePath, final boolean memoryMapped) {
 		this.mpqFilePath = mpqFilePath;
+		this.memoryMapped = memoryMapped;
 	}
 
 	@Override
 	public DataSource createDataSource() {
 		try {
-			SeekableByteChannel sbc;
-			sbc = Files.newByteChannel(Paths.get(mpqFilePath), EnumSet.of(StandardOpenOption.READ));
-			return new MpqDataSource(new MPQArchive(sbc), sbc);
+			// a FileChannel supports positional reads, so the archive can be read from many threads
+			final FileChannel channel = FileChannel.open(Paths.get(mpqFilePath), StandardOpenOption.READ);
+			return new MpqDataSource(new MPQArchive(channel), channel, memoryMapped);
 		} catch (final IOException e) {
 			throw new RuntimeException(e);
 		} catch (final MPQException e) {
@@ -44,6 +52,7 @@ public class MpqDataSourceDescriptor implements DataSourceDescriptor {
 		final int prime = 31;
 		int result = 1;
 		result = (prime * result) + ((mpqFilePath == null) ? 0 : mpqFilePath.hashCode());
+		result = (prime * result) + (memoryMapped ? 1231 : 1237);
 		return result;
 	}
 
@@ -66,6 +75,9 @@ public class MpqDataSourceDescriptor implements DataSourceDescriptor {
 		} else if (!mpqFilePath.equals(other.mpqFilePath)) {
 			return false;
 		}
+		if (memoryMapped != other.memoryMapped) {
+			return false;
+		}
 		return true;
 	}
 
@@ -73,8 +85,12 @@ public class MpqDataSourceDescriptor implements DataSourceDescriptor {
 		return mpqFilePath;
 	}
 
+	public boolean isMemoryMapped() {
+		return memoryMapped;
+	}
+
 	@Override
 	public DataSourceDescriptor duplicate() {
-		return new MpqDataSourceDescriptor(mpqFilePath);
+		return new MpqDataSourceDescriptor(mpqFilePath, memoryMapped);
 	}
 }
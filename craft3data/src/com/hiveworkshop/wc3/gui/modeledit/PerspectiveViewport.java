@@ -51,7 +51,9 @@ import java.awt.image.BufferedImage;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.JCheckBox;
 import javax.swing.JMenuItem;
@@ -71,6 +73,8 @@ import org.lwjgl.util.vector.Quaternion;
 import org.lwjgl.util.vector.Vector3f;
 import org.lwjgl.util.vector.Vector4f;
 
+import com.hiveworkshop.wc3.gui.AsyncTextureLoader;
+import com.hiveworkshop.wc3.gui.AsyncTextureLoader.TextureRequest;
 import com.hiveworkshop.wc3.gui.BLPHandler;
 import com.hiveworkshop.wc3.gui.ExceptionPopup;
 import com.hiveworkshop.wc3.gui.GPUReadyTexture;
@@ -91,8 +95,10 @@ import com.hiveworkshop.wc3.mdl.Material;
 import com.hiveworkshop.wc3.mdl.ParticleEmitter2;
 import com.hiveworkshop.wc3.mdl.Triangle;
 import com.hiveworkshop.wc3.mdl.Vertex;
+import com.hiveworkshop.wc3.mdl.render3d.GeosetBufferRenderer;
 import com.hiveworkshop.wc3.mdl.render3d.InternalInstance;
 import com.hiveworkshop.wc3.mdl.render3d.InternalResource;
+import com.hiveworkshop.wc3.mdl.render3d.RenderGeoset;
 import com.hiveworkshop.wc3.mdl.render3d.RenderModel;
 import com.hiveworkshop.wc3.mdl.render3d.RenderParticleEmitter2;
 import com.hiveworkshop.wc3.mdl.render3d.RenderResourceAllocator;
@@ -125,6 +131,7 @@ public class PerspectiveViewport extends BetterAWTGLCanvas
 
 	JCheckBox wireframe;
 	HashMap<Bitmap, Integer> textureMap = new HashMap<>();
+	private final Map<Bitmap, TextureRequest> pendingTextures = new HashMap<>();
 
 	Class<? extends Throwable> lastThrownErrorClass;
 	private final ProgramPreferences programPreferences;
@@ -258,6 +265,10 @@ public class PerspectiveViewport extends BetterAWTGLCanvas
 			GL11.glDeleteTextures(textureId);
 		}
 		textureMap.clear();
+		for (final TextureRequest request : pendingTextures.values()) {
+			request.cancel();
+		}
+		pendingTextures.clear();
 	}
 
 	public void loadToTexMap(final Bitmap tex) {
@@ -285,11 +296,19 @@ public class PerspectiveViewport extends BetterAWTGLCanvas
 			Integer texture = null;
 			try {
 				final DataSource workingDirectory = modelView.getModel().getWrappedDataSource();
+				final String texturePath;
 				if ((programPreferences.getAllowLoadingNonBlpTextures() != null)
 						&& programPreferences.getAllowLoadingNonBlpTextures()) {
-					texture = loadTexture(BLPHandler.get().loadTexture(workingDirectory, path), tex);
+					texturePath = path;
+				} else {
+					texturePath = path + ".blp";
+				}
+				final TextureRequest request = AsyncTextureLoader.get().request(workingDirectory, texturePath);
+				if (request.isDone()) {
+					texture = loadTexture(request.take(), tex);
 				} else {
-					texture = loadTexture(BLPHandler.get().loadTexture(workingDirectory, path + ".blp"), tex);
+					texture = loadPlaceholderTexture();
+					pendingTextures.put(tex, request);
 				}
 			} catch (final Exception exc) {
 				if (LOG_EXCEPTIONS) {
@@ -335,6 +354,7 @@ public class PerspectiveViewport extends BetterAWTGLCanvas
 	@Override
 	public void initGL() {
 		try {
+			geosetRenderer.release();
 			if ((programPreferences == null) || programPreferences.textureModels()) {
 				texLoaded = true;
 				deleteAllTextures();
@@ -445,6 +465,11 @@ public class PerspectiveViewport extends BetterAWTGLCanvas
 	private final Matrix4f skinBonesMatrixHeap = new Matrix4f();
 	private final Matrix4f skinBonesMatrixSumHeap = new Matrix4f();
 
+	// bumped once per paint, so that each geoset is only skinned once per frame
+	// even though it is drawn in several passes
+	private int skinFrame;
+	private final GeosetBufferRenderer geosetRenderer = new GeosetBufferRenderer();
+
 	@Override
 	protected void exceptionOccurred(final LWJGLException exception) {
 		super.exceptionOccurred(exception);
@@ -475,8 +500,14 @@ public class PerspectiveViewport extends BetterAWTGLCanvas
 			forceReloadTextures();
 			texLoaded = true;
 		}
+		swapInLoadedTextures();
 		try {
 			final int formatVersion = modelView.getModel().getFormatVersion();
+			skinFrame++;
+			// edits in place are picked up by RenderGeoset and GeosetVertexBuffer,
+			// only the geosets that left the model need to be dropped here
+			editorRenderModel.releaseRemovedGeosets();
+			geosetRenderer.releaseUnused(editorRenderModel);
 			initContext(0, 0, 0);
 			if ((getWidth() != current_width) || (getHeight() != current_height)) {
 				current_width = getWidth();
@@ -953,153 +984,8 @@ public class PerspectiveViewport extends BetterAWTGLCanvas
 				if (overriddenColors) {
 					GL11.glDisable(GL11.GL_ALPHA_TEST);
 				}
-				glBegin(GL11.GL_TRIANGLES);
-				if ((ModelUtils.isTangentAndSkinSupported(formatVersion)) && (geo.getVertices().size() > 0)
-						&& (geo.getVertex(0).getSkinBones() != null)) {
-					for (final Triangle tri : geo.getTriangles()) {
-						for (final GeosetVertex v : tri.getVerts()) {
-							vertexHeap.x = (float) v.x;
-							vertexHeap.y = (float) v.y;
-							vertexHeap.z = (float) v.z;
-							vertexHeap.w = 1;
-							skinBonesMatrixSumHeap.setZero();
-							final Bone[] skinBones = v.getSkinBones();
-							final short[] skinBoneWeights = v.getSkinBoneWeights();
-							vertexSumHeap.set(0, 0, 0, 0);
-							boolean processedBones = false;
-							for (int boneIndex = 0; boneIndex < 4; boneIndex++) {
-								final Bone skinBone = skinBones[boneIndex];
-								if (skinBone == null) {
-									continue;
-								}
-								processedBones = true;
-								final Matrix4f worldMatrix = editorRenderModel.getRenderNode(skinBone).getWorldMatrix();
-								skinBonesMatrixHeap.load(worldMatrix);
-
-								skinBonesMatrixSumHeap.m00 += (skinBonesMatrixHeap.m00 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m01 += (skinBonesMatrixHeap.m01 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m02 += (skinBonesMatrixHeap.m02 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m03 += (skinBonesMatrixHeap.m03 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m10 += (skinBonesMatrixHeap.m10 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m11 += (skinBonesMatrixHeap.m11 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m12 += (skinBonesMatrixHeap.m12 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m13 += (skinBonesMatrixHeap.m13 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m20 += (skinBonesMatrixHeap.m20 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m21 += (skinBonesMatrixHeap.m21 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m22 += (skinBonesMatrixHeap.m22 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m23 += (skinBonesMatrixHeap.m23 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m30 += (skinBonesMatrixHeap.m30 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m31 += (skinBonesMatrixHeap.m31 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m32 += (skinBonesMatrixHeap.m32 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m33 += (skinBonesMatrixHeap.m33 * skinBoneWeights[boneIndex])
-										/ 255f;
-							}
-							if (!processedBones) {
-								skinBonesMatrixSumHeap.setIdentity();
-							}
-							Matrix4f.transform(skinBonesMatrixSumHeap, vertexHeap, vertexSumHeap);
-							if (v.getNormal() != null) {
-								normalHeap.x = (float) v.getNormal().x;
-								normalHeap.y = (float) v.getNormal().y;
-								normalHeap.z = (float) v.getNormal().z;
-								normalHeap.w = 0;
-								Matrix4f.transform(skinBonesMatrixSumHeap, normalHeap, normalSumHeap);
-
-								if (normalSumHeap.length() > 0) {
-									normalSumHeap.normalise();
-								} else {
-									normalSumHeap.set(0, 1, 0, 0);
-								}
-
-								GL11.glNormal3f(normalSumHeap.y, normalSumHeap.z, normalSumHeap.x);
-							}
-							int coordId = layer.getCoordId();
-							if (coordId >= v.getTverts().size()) {
-								coordId = v.getTverts().size() - 1;
-							}
-							GL11.glTexCoord2f((float) v.getTverts().get(coordId).x,
-									(float) v.getTverts().get(coordId).y);
-							GL11.glVertex3f(vertexSumHeap.y, vertexSumHeap.z, vertexSumHeap.x);
-						}
-					}
-				} else {
-					for (final Triangle tri : geo.getTriangles()) {
-						for (final GeosetVertex v : tri.getVerts()) {
-
-							vertexHeap.x = (float) v.x;
-							vertexHeap.y = (float) v.y;
-							vertexHeap.z = (float) v.z;
-							vertexHeap.w = 1;
-							final int boneCount = v.getBones().size();
-							if (boneCount > 0) {
-								vertexSumHeap.set(0, 0, 0, 0);
-								for (final Bone bone : v.getBones()) {
-									Matrix4f.transform(editorRenderModel.getRenderNode(bone).getWorldMatrix(),
-											vertexHeap, appliedVertexHeap);
-									Vector4f.add(vertexSumHeap, appliedVertexHeap, vertexSumHeap);
-								}
-								vertexSumHeap.x /= boneCount;
-								vertexSumHeap.y /= boneCount;
-								vertexSumHeap.z /= boneCount;
-								vertexSumHeap.w /= boneCount;
-							} else {
-								vertexSumHeap.set(vertexHeap);
-							}
-							if (v.getNormal() != null) {
-								normalHeap.x = (float) v.getNormal().x;
-								normalHeap.y = (float) v.getNormal().y;
-								normalHeap.z = (float) v.getNormal().z;
-								normalHeap.w = 0;
-								if (boneCount > 0) {
-									normalSumHeap.set(0, 0, 0, 0);
-									for (final Bone bone : v.getBones()) {
-										Matrix4f.transform(editorRenderModel.getRenderNode(bone).getWorldMatrix(),
-												normalHeap, appliedNormalHeap);
-										Vector4f.add(normalSumHeap, appliedNormalHeap, normalSumHeap);
-									}
-								} else {
-									normalSumHeap.set(normalHeap);
-								}
-
-								if (normalSumHeap.length() > 0) {
-									normalSumHeap.normalise();
-								} else {
-									normalSumHeap.set(0, 1, 0, 0);
-								}
-
-								GL11.glNormal3f(normalSumHeap.y, normalSumHeap.z, normalSumHeap.x);
-							}
-							int coordId = layer.getCoordId();
-							if (coordId >= v.getTverts().size()) {
-								coordId = v.getTverts().size() - 1;
-							}
-							final int highestTvertexIndx = v.getTverts().size() - 1;
-							GL11.glTexCoord2f((float) v.getTverts().get(coordId).x,
-									(float) v.getTverts().get(coordId).y);
-							GL11.glVertex3f(vertexSumHeap.y, vertexSumHeap.z, vertexSumHeap.x);
-						}
-					}
-				}
-				// if( texture != null )
-				// {
-				// texture.release();
-				// }
-				glEnd();
+				geosetRenderer.draw(editorRenderModel.getRenderGeoset(geo), skinFrame,
+						RenderGeoset.usesSkinBones(geo, formatVersion), layer.getCoordId());
 			}
 		}
 	}
@@ -1342,13 +1228,23 @@ public class PerspectiveViewport extends BetterAWTGLCanvas
 		if (image == null) {
 			return -1;
 		}
+		final int textureID = GL11.glGenTextures(); // Generate texture ID
+		uploadTexture(textureID, image, bitmap);
+
+		// Return the texture ID so we can bind it later again
+		return textureID;
+	}
 
+	/**
+	 * Replaces the pixels of an existing texture ID and gives back the reference
+	 * to the GPUReadyTexture.
+	 */
+	private static void uploadTexture(final int textureID, final GPUReadyTexture image, final Bitmap bitmap) {
 		final ByteBuffer buffer = image.getBuffer();
 		// You now have a ByteBuffer filled with the color data of each pixel.
 		// Now just create a texture ID and bind it. Then you can load it using
 		// whatever OpenGL method you want, for example:
 
-		final int textureID = GL11.glGenTextures(); // Generate texture ID
 		GL11.glBindTexture(GL11.GL_TEXTURE_2D, textureID); // Bind texture ID
 
 		// Setup wrap mode
@@ -1364,11 +1260,58 @@ public class PerspectiveViewport extends BetterAWTGLCanvas
 		// Send texel data to OpenGL
 		GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA8, image.getWidth(), image.getHeight(), 0, GL11.GL_RGBA,
 				GL11.GL_UNSIGNED_BYTE, buffer);
+		image.release();
+	}
 
-		// Return the texture ID so we can bind it later again
+	/**
+	 * A one pixel grey texture drawn while the real one is still being decoded,
+	 * see swapInLoadedTextures.
+	 */
+	private static int loadPlaceholderTexture() {
+		final ByteBuffer buffer = BufferUtils.createByteBuffer(BYTES_PER_PIXEL);
+		buffer.put((byte) 0x80).put((byte) 0x80).put((byte) 0x80).put((byte) 0xFF);
+		buffer.flip();
+		final int textureID = GL11.glGenTextures();
+		GL11.glBindTexture(GL11.GL_TEXTURE_2D, textureID);
+		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_NEAREST);
+		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_NEAREST);
+		GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA8, 1, 1, 0, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, buffer);
 		return textureID;
 	}
 
+	/**
+	 * Uploads the textures that finished decoding since the last frame into the
+	 * IDs of their placeholders.
+	 */
+	private void swapInLoadedTextures() {
+		final Iterator<Map.Entry<Bitmap, TextureRequest>> iterator = pendingTextures.entrySet().iterator();
+		while (iterator.hasNext()) {
+			final Map.Entry<Bitmap, TextureRequest> entry = iterator.next();
+			final TextureRequest request = entry.getValue();
+			if (!request.isDone()) {
+				continue;
+			}
+			iterator.remove();
+			final Bitmap bitmap = entry.getKey();
+			final int placeholderID = textureMap.get(bitmap);
+			final GPUReadyTexture texture = request.take();
+			if (texture != null) {
+				uploadTexture(placeholderID, texture, bitmap);
+			} else {
+				GL11.glDeleteTextures(placeholderID);
+				if (request.getException() != null) {
+					if (LOG_EXCEPTIONS) {
+						request.getException().printStackTrace();
+					}
+					textureMap.remove(bitmap);
+				} else {
+					// same as loadTexture for a missing texture
+					textureMap.put(bitmap, -1);
+				}
+			}
+		}
+	}
+
 	private final class Particle2TextureInstance implements InternalResource, InternalInstance {
 		private final Bitmap bitmap;
 		private final ParticleEmitter2 particle;
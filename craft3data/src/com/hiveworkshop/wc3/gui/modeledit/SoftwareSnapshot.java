@@ -0,0 +1,343 @@
+package com.hiveworkshop.wc3.gui.modeledit;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.lwjgl.util.vector.Matrix4f;
+import org.lwjgl.util.vector.Vector3f;
+import org.lwjgl.util.vector.Vector4f;
+
+import com.hiveworkshop.wc3.gui.BLPHandler;
+import com.hiveworkshop.wc3.mdl.Bitmap;
+import com.hiveworkshop.wc3.mdl.Geoset;
+import com.hiveworkshop.wc3.mdl.GeosetVertex;
+import com.hiveworkshop.wc3.mdl.Layer;
+import com.hiveworkshop.wc3.mdl.Layer.FilterMode;
+import com.hiveworkshop.wc3.mdl.Normal;
+import com.hiveworkshop.wc3.mdl.TVertex;
+import com.hiveworkshop.wc3.mdl.Triangle;
+import com.hiveworkshop.wc3.mdl.Vertex;
+import com.hiveworkshop.wc3.mdl.render3d.SoftwareRasterizer;
+import com.hiveworkshop.wc3.mdl.v2.ModelView;
+
+/**
+ * Renders the same pictures as MDLSnapshot, but with SoftwareRasterizer instead
+ * of an LWJGL Pbuffer, so it works on machines without a GPU or display (batch
+ * thumbnails on a build server for example). The camera, lights and geoset
+ * colors follow MDLSnapshot; the layers are drawn opaque first and then
+ * translucent, with the filter modes of the animated viewport.
+ *
+ * Instances are not thread safe, but separate instances can render at the same
+ * time. Loaded textures are kept for the lifetime of the instance.
+ */
+public class SoftwareSnapshot {
+	private static final float FIELD_OF_VIEW = 45f;
+	private static final float NEAR_CLIP = 1.0f;
+	private static final float FAR_CLIP = 1500.0f;
+	private static final float AMBIENT = 0.2f;
+	private static final Vector4f LIGHT_POSITION_0 = new Vector4f(40.0f, 100.0f, 80.0f, 1f);
+	private static final float LIGHT_DIFFUSE_0 = 0.5f;
+	private static final Vector4f LIGHT_POSITION_1 = new Vector4f(-100.0f, 100.5f, 0.5f, 1f);
+	private static final float LIGHT_DIFFUSE_1 = 0.2f;
+	private static final float[] EDITABLE_COLOR = { 1f, 1f, 1f, 1f };
+	private static final float[] NOT_EDITABLE_COLOR = { 0.5882352941176471f, 0.5882352941176471f, 1f, 0.3f };
+
+	private final ModelView dispMDL;
+	private final int width;
+	private final int height;
+	private Vertex cameraPos = new Vertex(0, 0, 0);
+	private double zoom = 1;
+	private float xangle;
+	private float yangle;
+	private boolean drawBackground;
+	private boolean renderTextures = true;
+
+	private final Map<Bitmap, SoftwareRasterizer.Texture> textureMap = new HashMap<>();
+	private final SoftwareRasterizer rasterizer;
+
+	public SoftwareSnapshot(final ModelView dispMDL, final int width, final int height) {
+		this.dispMDL = dispMDL;
+		this.width = width;
+		this.height = height;
+		rasterizer = new SoftwareRasterizer(width, height);
+	}
+
+	public void setCameraPosition(final Vertex cameraPos) {
+		this.cameraPos = cameraPos;
+	}
+
+	public void setYangle(final float yangle) {
+		this.yangle = yangle;
+	}
+
+	public void setXangle(final float xangle) {
+		this.xangle = xangle;
+	}
+
+	public void setZoom(final double zoom) {
+		this.zoom = zoom;
+	}
+
+	public void setDrawBackground(final boolean drawBackground) {
+		this.drawBackground = drawBackground;
+	}
+
+	public void setRenderTextures(final boolean renderTextures) {
+		this.renderTextures = renderTextures;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public void zoomToFit() {
+		zoomToFit(VertexFilter.IDENTITY);
+	}
+
+	/**
+	 * Same framing as {@link MDLSnapshot#zoomToFit(VertexFilter)}.
+	 */
+	public void zoomToFit(final VertexFilter<? super GeosetVertex> filter) {
+		setYangle(35);
+		final List<Vertex> shapeData = new ArrayList<>();
+		for (final Geoset geo : dispMDL.getVisibleGeosets()) {
+			boolean isOnlyAdditive = true;
+			for (final Layer layer : geo.getMaterial().getLayers()) {
+				if (!layer.getFilterMode().toString().contains("Add")) {
+					isOnlyAdditive = false;
+				}
+			}
+			if (!isOnlyAdditive) {
+				for (final GeosetVertex vertex : geo.getVertices()) {
+					if (filter.isAccepted(vertex)) {
+						shapeData.add(vertex);
+					}
+				}
+			}
+		}
+		final Vertex center = Vertex.centerOfGroup(shapeData);
+		double maxDistance = 0;
+		for (final Vertex vertex : shapeData) {
+			final double distance = vertex.distance(center);
+			if (distance > maxDistance) {
+				maxDistance = distance;
+			}
+		}
+		final double zoom = 128 / maxDistance;
+		setCameraPosition(new Vertex(0, -Math.sqrt(maxDistance) * 1.3, maxDistance));
+		setZoom(zoom);
+	}
+
+	public BufferedImage getBufferedImage() {
+		return getBufferedImage(VertexFilter.IDENTITY);
+	}
+
+	/**
+	 * Renders the visible geosets. Triangles with a corner that the render mask
+	 * does not accept are left out.
+	 */
+	public BufferedImage getBufferedImage(final VertexFilter<? super GeosetVertex> renderMask) {
+		rasterizer.clear(drawBackground ? 0xFF505050 : 0);
+		final Matrix4f modelView = createModelViewMatrix();
+		final Matrix4f projection = createProjectionMatrix();
+		final Matrix4f modelViewProjection = Matrix4f.mul(projection, modelView, null);
+		final Vector4f lightPosition0 = Matrix4f.transform(modelView, LIGHT_POSITION_0, null);
+		final Vector4f lightPosition1 = Matrix4f.transform(modelView, LIGHT_POSITION_1, null);
+
+		final List<Geoset> geosets = new ArrayList<>();
+		for (final Geoset geo : dispMDL.getVisibleGeosets()) {
+			geosets.add(geo);
+		}
+		final Map<Geoset, GeosetData> geosetToData = new IdentityHashMap<>();
+		for (final Geoset geo : geosets) {
+			geosetToData.put(geo,
+					new GeosetData(geo, renderMask, modelView, modelViewProjection, lightPosition0, lightPosition1));
+		}
+		for (final boolean opaquePass : new boolean[] { true, false }) {
+			for (final Geoset geo : geosets) {
+				final GeosetData data = geosetToData.get(geo);
+				if (data.indexCount == 0) {
+					continue;
+				}
+				final boolean highlighted = dispMDL.getHighlightedGeoset() == geo;
+				final float[] baseColor = highlighted || dispMDL.getEditableGeosets().contains(geo) ? EDITABLE_COLOR
+						: NOT_EDITABLE_COLOR;
+				for (final Layer layer : geo.getMaterial().getLayers()) {
+					final FilterMode filterMode = layer.getFilterMode();
+					final boolean opaqueLayer = (filterMode == FilterMode.NONE)
+							|| (filterMode == FilterMode.TRANSPARENT);
+					if (opaqueLayer != opaquePass) {
+						continue;
+					}
+					final Bitmap bitmap = layer.firstTexture();
+					final SoftwareRasterizer.Texture texture = highlighted || !renderTextures ? null
+							: getTexture(bitmap);
+					final boolean depthWrite = opaqueLayer && !layer.isNoDepthSet();
+					final SoftwareRasterizer.DrawState state = new SoftwareRasterizer.DrawState(texture,
+							(bitmap == null) || bitmap.isWrapWidth(), (bitmap == null) || bitmap.isWrapHeight(),
+							filterMode, !layer.isTwoSided(), !layer.isNoDepthTest(), depthWrite);
+					rasterizer.drawTriangles(data.clipPositions, data.getTexCoords(layer.getCoordId()),
+							data.getColors(baseColor, layer.isUnshaded()), data.indices, data.indexCount, state);
+				}
+			}
+		}
+		rasterizer.render();
+		return rasterizer.toImage();
+	}
+
+	private SoftwareRasterizer.Texture getTexture(final Bitmap bitmap) {
+		if (bitmap == null) {
+			return null;
+		}
+		if (!textureMap.containsKey(bitmap)) {
+			SoftwareRasterizer.Texture texture = null;
+			try {
+				final BufferedImage image = BLPHandler.getImage(bitmap, dispMDL.getModel().getWrappedDataSource());
+				if (image != null) {
+					texture = new SoftwareRasterizer.Texture(image);
+				}
+			} catch (final Exception exc) {
+				exc.printStackTrace();
+			}
+			textureMap.put(bitmap, texture);
+		}
+		return textureMap.get(bitmap);
+	}
+
+	// the MDLSnapshot camera: translate, rotate around x then y, scale
+	private Matrix4f createModelViewMatrix() {
+		final Matrix4f matrix = new Matrix4f();
+		matrix.translate(new Vector3f((float) cameraPos.x * (float) zoom, -70f - ((float) cameraPos.y * (float) zoom),
+				-200f - ((float) cameraPos.z * (float) zoom)));
+		matrix.rotate((float) Math.toRadians(yangle), new Vector3f(1f, 0f, 0f));
+		matrix.rotate((float) Math.toRadians(xangle), new Vector3f(0f, 1f, 0f));
+		matrix.scale(new Vector3f((float) zoom, (float) zoom, (float) zoom));
+		return matrix;
+	}
+
+	// same as gluPerspective
+	private Matrix4f createProjectionMatrix() {
+		final float f = (float) (1 / Math.tan(Math.toRadians(FIELD_OF_VIEW) / 2));
+		final Matrix4f matrix = new Matrix4f();
+		matrix.setZero();
+		matrix.m00 = f / ((float) width / (float) height);
+		matrix.m11 = f;
+		matrix.m22 = (FAR_CLIP + NEAR_CLIP) / (NEAR_CLIP - FAR_CLIP);
+		matrix.m23 = -1;
+		matrix.m32 = (2 * FAR_CLIP * NEAR_CLIP) / (NEAR_CLIP - FAR_CLIP);
+		return matrix;
+	}
+
+	/**
+	 * Transformed vertices of one geoset, shared by all its layers.
+	 */
+	private static final class GeosetData {
+		private final GeosetVertex[] vertices;
+		private final float[] clipPositions;
+		private final float[] lighting;
+		private final int[] indices;
+		private int indexCount;
+
+		private GeosetData(final Geoset geo, final VertexFilter<? super GeosetVertex> renderMask,
+				final Matrix4f modelView, final Matrix4f modelViewProjection, final Vector4f lightPosition0,
+				final Vector4f lightPosition1) {
+			final Map<GeosetVertex, Integer> vertexToIndex = new IdentityHashMap<>();
+			final List<GeosetVertex> vertexList = new ArrayList<>();
+			indices = new int[geo.getTriangles().size() * 3];
+			for (final Triangle triangle : geo.getTriangles()) {
+				final GeosetVertex[] verts = triangle.getVerts();
+				if (!renderMask.isAccepted(verts[0]) || !renderMask.isAccepted(verts[1])
+						|| !renderMask.isAccepted(verts[2])) {
+					continue;
+				}
+				for (final GeosetVertex vertex : verts) {
+					Integer index = vertexToIndex.get(vertex);
+					if (index == null) {
+						index = vertexList.size();
+						vertexToIndex.put(vertex, index);
+						vertexList.add(vertex);
+					}
+					indices[indexCount++] = index;
+				}
+			}
+			vertices = vertexList.toArray(new GeosetVertex[vertexList.size()]);
+			clipPositions = new float[vertices.length * 4];
+			lighting = new float[vertices.length];
+			final Vector4f position = new Vector4f();
+			final Vector4f transformed = new Vector4f();
+			final Vector4f eyePosition = new Vector4f();
+			final Vector4f eyeNormal = new Vector4f();
+			for (int i = 0; i < vertices.length; i++) {
+				final GeosetVertex vertex = vertices[i];
+				position.set((float) vertex.y, (float) vertex.z, (float) vertex.x, 1);
+				Matrix4f.transform(modelViewProjection, position, transformed);
+				clipPositions[i * 4] = transformed.x;
+				clipPositions[(i * 4) + 1] = transformed.y;
+				clipPositions[(i * 4) + 2] = transformed.z;
+				clipPositions[(i * 4) + 3] = transformed.w;
+
+				float light = AMBIENT;
+				final Normal normal = vertex.getNormal();
+				if (normal != null) {
+					Matrix4f.transform(modelView, position, eyePosition);
+					eyeNormal.set((float) normal.y, (float) normal.z, (float) normal.x, 0);
+					Matrix4f.transform(modelView, eyeNormal, eyeNormal);
+					light += LIGHT_DIFFUSE_0 * diffuse(eyePosition, eyeNormal, lightPosition0);
+					light += LIGHT_DIFFUSE_1 * diffuse(eyePosition, eyeNormal, lightPosition1);
+				} else {
+					light += LIGHT_DIFFUSE_0 + LIGHT_DIFFUSE_1;
+				}
+				lighting[i] = light;
+			}
+		}
+
+		private static float diffuse(final Vector4f eyePosition, final Vector4f eyeNormal,
+				final Vector4f lightPosition) {
+			final float lx = lightPosition.x - eyePosition.x;
+			final float ly = lightPosition.y - eyePosition.y;
+			final float lz = lightPosition.z - eyePosition.z;
+			final float lightLength = (float) Math.sqrt((lx * lx) + (ly * ly) + (lz * lz));
+			final float normalLength = (float) Math.sqrt((eyeNormal.x * eyeNormal.x) + (eyeNormal.y * eyeNormal.y)
+					+ (eyeNormal.z * eyeNormal.z));
+			if ((lightLength == 0) || (normalLength == 0)) {
+				return 0;
+			}
+			final float dot = ((lx * eyeNormal.x) + (ly * eyeNormal.y) + (lz * eyeNormal.z))
+					/ (lightLength * normalLength);
+			return Math.max(0, dot);
+		}
+
+		private float[] getTexCoords(final int coordId) {
+			final float[] texCoords = new float[vertices.length * 2];
+			for (int i = 0; i < vertices.length; i++) {
+				final List<TVertex> tverts = vertices[i].getTverts();
+				if (!tverts.isEmpty()) {
+					final TVertex tvert = tverts.get(Math.min(coordId, tverts.size() - 1));
+					texCoords[i * 2] = (float) tvert.x;
+					texCoords[(i * 2) + 1] = (float) tvert.y;
+				}
+			}
+			return texCoords;
+		}
+
+		private float[] getColors(final float[] baseColor, final boolean unshaded) {
+			final float[] colors = new float[vertices.length * 4];
+			for (int i = 0; i < vertices.length; i++) {
+				final float light = unshaded ? 1 : lighting[i];
+				colors[i * 4] = baseColor[0] * light;
+				colors[(i * 4) + 1] = baseColor[1] * light;
+				colors[(i * 4) + 2] = baseColor[2] * light;
+				colors[(i * 4) + 3] = baseColor[3];
+			}
+			return colors;
+		}
+	}
+}
@@ -54,7 +54,9 @@ import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.JCheckBox;
 import javax.swing.JOptionPane;
@@ -68,11 +70,12 @@ import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL12;
 import org.lwjgl.opengl.Pbuffer;
 import org.lwjgl.opengl.PixelFormat;
-import org.lwjgl.util.vector.Matrix4f;
 import org.lwjgl.util.vector.Quaternion;
 import org.lwjgl.util.vector.Vector3f;
 import org.lwjgl.util.vector.Vector4f;
 
+import com.hiveworkshop.wc3.gui.AsyncTextureLoader;
+import com.hiveworkshop.wc3.gui.AsyncTextureLoader.TextureRequest;
 import com.hiveworkshop.wc3.gui.BLPHandler;
 import com.hiveworkshop.wc3.gui.ExceptionPopup;
 import com.hiveworkshop.wc3.gui.GPUReadyTexture;
@@ -83,20 +86,19 @@ import com.hiveworkshop.wc3.gui.lwjgl.BetterAWTGLCanvas;
 import com.hiveworkshop.wc3.gui.modelviewer.AnimationControllerListener.LoopType;
 import com.hiveworkshop.wc3.mdl.Animation;
 import com.hiveworkshop.wc3.mdl.Bitmap;
-import com.hiveworkshop.wc3.mdl.Bone;
 import com.hiveworkshop.wc3.mdl.CollisionShape;
 import com.hiveworkshop.wc3.mdl.ExtLog;
 import com.hiveworkshop.wc3.mdl.Geoset;
 import com.hiveworkshop.wc3.mdl.GeosetAnim;
-import com.hiveworkshop.wc3.mdl.GeosetVertex;
 import com.hiveworkshop.wc3.mdl.Layer;
 import com.hiveworkshop.wc3.mdl.Layer.FilterMode;
 import com.hiveworkshop.wc3.mdl.Material;
 import com.hiveworkshop.wc3.mdl.ParticleEmitter2;
-import com.hiveworkshop.wc3.mdl.Triangle;
 import com.hiveworkshop.wc3.mdl.Vertex;
+import com.hiveworkshop.wc3.mdl.render3d.GeosetBufferRenderer;
 import com.hiveworkshop.wc3.mdl.render3d.InternalInstance;
 import com.hiveworkshop.wc3.mdl.render3d.InternalResource;
+import com.hiveworkshop.wc3.mdl.render3d.RenderGeoset;
 import com.hiveworkshop.wc3.mdl.render3d.RenderModel;
 import com.hiveworkshop.wc3.mdl.render3d.RenderParticleEmitter2;
 import com.hiveworkshop.wc3.mdl.render3d.RenderResourceAllocator;
@@ -127,6 +129,7 @@ public class AnimatedPerspectiveViewport extends BetterAWTGLCanvas implements Mo
 
 	JCheckBox wireframe;
 	HashMap<Bitmap, Integer> textureMap = new HashMap<>();
+	private final Map<Bitmap, TextureRequest> pendingTextures = new HashMap<>();
 
 	Class<? extends Throwable> lastThrownErrorClass;
 	private final ProgramPreferences programPreferences;
@@ -354,6 +357,10 @@ public class AnimatedPerspectiveViewport extends BetterAWTGLCanvas implements Mo
 			GL11.glDeleteTextures(textureId);
 		}
 		textureMap.clear();
+		for (final TextureRequest request : pendingTextures.values()) {
+			request.cancel();
+		}
+		pendingTextures.clear();
 	}
 
 	public void loadToTexMap(final Layer layer, final Bitmap tex) {
@@ -388,13 +395,19 @@ public class AnimatedPerspectiveViewport extends BetterAWTGLCanvas implements Mo
 			Integer texture = null;
 			try {
 				final DataSource workingDirectory = modelView.getModel().getWrappedDataSource();
+				final String texturePath;
 				if ((programPreferences.getAllowLoadingNonBlpTextures() != null)
 						&& programPreferences.getAllowLoadingNonBlpTextures()) {
-					texture = loadTexture(BLPHandler.get().loadTexture(workingDirectory, path), tex, alpha,
-							formatVersion);
+					texturePath = path;
+				} else {
+					texturePath = path + ".blp";
+				}
+				final TextureRequest request = AsyncTextureLoader.get().request(workingDirectory, texturePath);
+				if (request.isDone()) {
+					texture = loadTexture(request.take(), tex, alpha, formatVersion);
 				} else {
-					texture = loadTexture(BLPHandler.get().loadTexture(workingDirectory, path + ".blp"), tex, alpha,
-							formatVersion);
+					texture = loadPlaceholderTexture();
+					pendingTextures.put(tex, request);
 				}
 			} catch (final Exception exc) {
 				if (LOG_EXCEPTIONS) {
@@ -450,6 +463,7 @@ public class AnimatedPerspectiveViewport extends BetterAWTGLCanvas implements Mo
 	@Override
 	public void initGL() {
 		try {
+			geosetRenderer.release();
 			if ((programPreferences == null) || programPreferences.textureModels()) {
 				texLoaded = true;
 				deleteAllTextures();
@@ -576,14 +590,10 @@ public class AnimatedPerspectiveViewport extends BetterAWTGLCanvas implements Mo
 		return texLoaded && ((programPreferences == null) || programPreferences.textureModels());
 	}
 
-	private final Vector4f vertexHeap = new Vector4f();
-	private final Vector4f appliedVertexHeap = new Vector4f();
-	private final Vector4f vertexSumHeap = new Vector4f();
-	private final Vector4f normalHeap = new Vector4f();
-	private final Vector4f appliedNormalHeap = new Vector4f();
-	private final Vector4f normalSumHeap = new Vector4f();
-	private final Matrix4f skinBonesMatrixHeap = new Matrix4f();
-	private final Matrix4f skinBonesMatrixSumHeap = new Matrix4f();
+	// bumped once per paint, so that each geoset is only skinned once per frame
+	// even though it is drawn in several passes
+	private int skinFrame;
+	private final GeosetBufferRenderer geosetRenderer = new GeosetBufferRenderer();
 
 	@Override
 	protected void exceptionOccurred(final LWJGLException exception) {
@@ -624,8 +634,12 @@ public class AnimatedPerspectiveViewport extends BetterAWTGLCanvas implements Mo
 			forceReloadTextures();
 			texLoaded = true;
 		}
+		swapInLoadedTextures();
 		try {
 			final int formatVersion = modelView.getModel().getFormatVersion();
+			skinFrame++;
+			renderModel.releaseRemovedGeosets();
+			geosetRenderer.releaseUnused(renderModel);
 			if (live) {
 				final long currentTimeMillis = System.currentTimeMillis();
 				if ((currentTimeMillis - lastExceptionTimeMillis) > 16) {
@@ -733,148 +747,33 @@ public class AnimatedPerspectiveViewport extends BetterAWTGLCanvas implements Mo
 							continue;
 						}
 					}
-					if ((ModelUtils.isTangentAndSkinSupported(formatVersion)) && (geo.getVertices().size() > 0)
-							&& (geo.getVertex(0).getSkinBones() != null)) {
-						for (final Triangle tri : geo.getTriangles()) {
-							for (final GeosetVertex v : tri.getVerts()) {
-								vertexHeap.x = (float) v.x;
-								vertexHeap.y = (float) v.y;
-								vertexHeap.z = (float) v.z;
-								vertexHeap.w = 1;
-								skinBonesMatrixSumHeap.setZero();
-								final Bone[] skinBones = v.getSkinBones();
-								final short[] skinBoneWeights = v.getSkinBoneWeights();
-								boolean processedBones = false;
-								for (int boneIndex = 0; boneIndex < 4; boneIndex++) {
-									final Bone skinBone = skinBones[boneIndex];
-									if (skinBone == null) {
-										continue;
-									}
-									processedBones = true;
-									final Matrix4f worldMatrix = renderModel.getRenderNode(skinBone).getWorldMatrix();
-									skinBonesMatrixHeap.load(worldMatrix);
-
-									skinBonesMatrixSumHeap.m00 += (skinBonesMatrixHeap.m00 * skinBoneWeights[boneIndex])
-											/ 255f;
-									skinBonesMatrixSumHeap.m01 += (skinBonesMatrixHeap.m01 * skinBoneWeights[boneIndex])
-											/ 255f;
-									skinBonesMatrixSumHeap.m02 += (skinBonesMatrixHeap.m02 * skinBoneWeights[boneIndex])
-											/ 255f;
-									skinBonesMatrixSumHeap.m03 += (skinBonesMatrixHeap.m03 * skinBoneWeights[boneIndex])
-											/ 255f;
-									skinBonesMatrixSumHeap.m10 += (skinBonesMatrixHeap.m10 * skinBoneWeights[boneIndex])
-											/ 255f;
-									skinBonesMatrixSumHeap.m11 += (skinBonesMatrixHeap.m11 * skinBoneWeights[boneIndex])
-											/ 255f;
-									skinBonesMatrixSumHeap.m12 += (skinBonesMatrixHeap.m12 * skinBoneWeights[boneIndex])
-											/ 255f;
-									skinBonesMatrixSumHeap.m13 += (skinBonesMatrixHeap.m13 * skinBoneWeights[boneIndex])
-											/ 255f;
-									skinBonesMatrixSumHeap.m20 += (skinBonesMatrixHeap.m20 * skinBoneWeights[boneIndex])
-											/ 255f;
-									skinBonesMatrixSumHeap.m21 += (skinBonesMatrixHeap.m21 * skinBoneWeights[boneIndex])
-											/ 255f;
-									skinBonesMatrixSumHeap.m22 += (skinBonesMatrixHeap.m22 * skinBoneWeights[boneIndex])
-											/ 255f;
-									skinBonesMatrixSumHeap.m23 += (skinBonesMatrixHeap.m23 * skinBoneWeights[boneIndex])
-											/ 255f;
-									skinBonesMatrixSumHeap.m30 += (skinBonesMatrixHeap.m30 * skinBoneWeights[boneIndex])
-											/ 255f;
-									skinBonesMatrixSumHeap.m31 += (skinBonesMatrixHeap.m31 * skinBoneWeights[boneIndex])
-											/ 255f;
-									skinBonesMatrixSumHeap.m32 += (skinBonesMatrixHeap.m32 * skinBoneWeights[boneIndex])
-											/ 255f;
-									skinBonesMatrixSumHeap.m33 += (skinBonesMatrixHeap.m33 * skinBoneWeights[boneIndex])
-											/ 255f;
-								}
-								if (!processedBones) {
-									skinBonesMatrixSumHeap.setIdentity();
-								}
-								Matrix4f.transform(skinBonesMatrixSumHeap, vertexHeap, vertexSumHeap);
-								if (v.getNormal() != null) {
-									normalHeap.x = (float) v.getNormal().x;
-									normalHeap.y = (float) v.getNormal().y;
-									normalHeap.z = (float) v.getNormal().z;
-									normalHeap.w = 0;
-									Matrix4f.transform(skinBonesMatrixSumHeap, normalHeap, normalSumHeap);
-
-									if (normalSumHeap.length() > 0) {
-										normalSumHeap.normalise();
-									} else {
-										normalSumHeap.set(0, 1, 0, 0);
-									}
-									if (Float.isNaN(normalSumHeap.x) || Float.isNaN(normalSumHeap.y)
-											|| Float.isNaN(normalSumHeap.z) || Float.isNaN(normalSumHeap.w)
-											|| Float.isInfinite(normalSumHeap.x) || Float.isInfinite(normalSumHeap.y)
-											|| Float.isInfinite(normalSumHeap.z) || Float.isInfinite(normalSumHeap.w)) {
-										continue;
-									}
-
-									GL11.glNormal3f(normalSumHeap.y, normalSumHeap.z, normalSumHeap.x);
-									GL11.glVertex3f(vertexSumHeap.y, vertexSumHeap.z, vertexSumHeap.x);
-
-									GL11.glNormal3f(normalSumHeap.y, normalSumHeap.z, normalSumHeap.x);
-									GL11.glVertex3f(vertexSumHeap.y + (float) ((normalSumHeap.y * 6) / m_zoom),
-											vertexSumHeap.z + (float) ((normalSumHeap.z * 6) / m_zoom),
-											vertexSumHeap.x + (float) ((normalSumHeap.x * 6) / m_zoom));
-								}
-							}
+					final RenderGeoset renderGeoset = renderModel.getRenderGeoset(geo);
+					renderGeoset.update(skinFrame, RenderGeoset.usesSkinBones(geo, formatVersion));
+					final float[] positions = renderGeoset.getPositions();
+					final float[] normals = renderGeoset.getNormals();
+					for (int vertexIndex = 0; vertexIndex < renderGeoset.getVertexCount(); vertexIndex++) {
+						if (!renderGeoset.hasNormal(vertexIndex)) {
+							continue;
 						}
-					} else {
-						for (final Triangle tri : geo.getTriangles()) {
-							for (final GeosetVertex v : tri.getVerts()) {
-
-								vertexHeap.x = (float) v.x;
-								vertexHeap.y = (float) v.y;
-								vertexHeap.z = (float) v.z;
-								vertexHeap.w = 1;
-								final int boneCount = v.getBones().size();
-								if (boneCount > 0) {
-									vertexSumHeap.set(0, 0, 0, 0);
-									for (final Bone bone : v.getBones()) {
-										Matrix4f.transform(renderModel.getRenderNode(bone).getWorldMatrix(), vertexHeap,
-												appliedVertexHeap);
-										Vector4f.add(vertexSumHeap, appliedVertexHeap, vertexSumHeap);
-									}
-									vertexSumHeap.x /= boneCount;
-									vertexSumHeap.y /= boneCount;
-									vertexSumHeap.z /= boneCount;
-									vertexSumHeap.w /= boneCount;
-								} else {
-									vertexSumHeap.set(vertexHeap);
-								}
-								if (v.getNormal() != null) {
-									normalHeap.x = (float) v.getNormal().x;
-									normalHeap.y = (float) v.getNormal().y;
-									normalHeap.z = (float) v.getNormal().z;
-									normalHeap.w = 0;
-									if (boneCount > 0) {
-										normalSumHeap.set(0, 0, 0, 0);
-										for (final Bone bone : v.getBones()) {
-											Matrix4f.transform(renderModel.getRenderNode(bone).getWorldMatrix(),
-													normalHeap, appliedNormalHeap);
-											Vector4f.add(normalSumHeap, appliedNormalHeap, normalSumHeap);
-										}
-									} else {
-										normalSumHeap.set(normalHeap);
-									}
-
-									if (normalSumHeap.length() > 0) {
-										normalSumHeap.normalise();
-									} else {
-										normalSumHeap.set(0, 1, 0, 0);
-									}
-
-									GL11.glNormal3f(normalSumHeap.y, normalSumHeap.z, normalSumHeap.x);
-									GL11.glVertex3f(vertexSumHeap.y, vertexSumHeap.z, vertexSumHeap.x);
-
-									GL11.glNormal3f(normalSumHeap.y, normalSumHeap.z, normalSumHeap.x);
-									GL11.glVertex3f(vertexSumHeap.y + (float) ((normalSumHeap.y * 6) / m_zoom),
-											vertexSumHeap.z + (float) ((normalSumHeap.z * 6) / m_zoom),
-											vertexSumHeap.x + (float) ((normalSumHeap.x * 6) / m_zoom));
-								}
-							}
+						final int offset = vertexIndex * 3;
+						final float normalX = normals[offset];
+						final float normalY = normals[offset + 1];
+						final float normalZ = normals[offset + 2];
+						if (Float.isNaN(normalX) || Float.isNaN(normalY) || Float.isNaN(normalZ)
+								|| Float.isInfinite(normalX) || Float.isInfinite(normalY)
+								|| Float.isInfinite(normalZ)) {
+							continue;
 						}
+						final float vertexX = positions[offset];
+						final float vertexY = positions[offset + 1];
+						final float vertexZ = positions[offset + 2];
+
+						GL11.glNormal3f(normalY, normalZ, normalX);
+						GL11.glVertex3f(vertexY, vertexZ, vertexX);
+
+						GL11.glNormal3f(normalY, normalZ, normalX);
+						GL11.glVertex3f(vertexY + (float) ((normalY * 6) / m_zoom),
+								vertexZ + (float) ((normalZ * 6) / m_zoom), vertexX + (float) ((normalX * 6) / m_zoom));
 					}
 				}
 				glEnd();
@@ -949,6 +848,15 @@ public class AnimatedPerspectiveViewport extends BetterAWTGLCanvas implements Mo
 	// }
 
 	public void render(final ArrayList<Geoset> geosets, final int formatVersion) {
+		// skin everything up front so that the geosets can be skinned in parallel,
+		// the draw calls below then only read the results
+		final List<Geoset> skinnedGeosets = new ArrayList<>(geosets.size());
+		for (final Geoset geo : geosets) {
+			if (!isHiddenLevelOfDetail(geo, formatVersion)) {
+				skinnedGeosets.add(geo);
+			}
+		}
+		renderModel.updateGeosets(skinnedGeosets, skinFrame, formatVersion);
 		for (final Geoset geo : geosets) {// .getMDL().getGeosets()
 			render(geo, true, formatVersion);
 		}
@@ -957,12 +865,14 @@ public class AnimatedPerspectiveViewport extends BetterAWTGLCanvas implements Mo
 		}
 	}
 
+	private boolean isHiddenLevelOfDetail(final Geoset geo, final int formatVersion) {
+		return (ModelUtils.isLevelOfDetailSupported(formatVersion)) && (geo.getLevelOfDetailName() != null)
+				&& (geo.getLevelOfDetailName().length() > 0) && (geo.getLevelOfDetail() != levelOfDetail);
+	}
+
 	public void render(final Geoset geo, final boolean renderOpaque, final int formatVersion) {
-		if ((ModelUtils.isLevelOfDetailSupported(formatVersion)) && (geo.getLevelOfDetailName() != null)
-				&& (geo.getLevelOfDetailName().length() > 0)) {
-			if (geo.getLevelOfDetail() != levelOfDetail) {
-				return;
-			}
+		if (isHiddenLevelOfDetail(geo, formatVersion)) {
+			return;
 		}
 		final GeosetAnim geosetAnim = geo.getGeosetAnim();
 		float geosetAnimVisibility = 1;
@@ -1016,152 +926,8 @@ public class AnimatedPerspectiveViewport extends BetterAWTGLCanvas implements Mo
 				final Bitmap tex = layer.getRenderTexture(this, modelView.getModel());
 				final Integer texture = textureMap.get(tex);
 				bindLayer(layer, tex, texture, formatVersion, material);
-				glBegin(GL11.GL_TRIANGLES);
-				if ((ModelUtils.isTangentAndSkinSupported(formatVersion)) && (geo.getVertices().size() > 0)
-						&& (geo.getVertex(0).getSkinBones() != null)) {
-					for (final Triangle tri : geo.getTriangles()) {
-						for (final GeosetVertex v : tri.getVerts()) {
-							vertexHeap.x = (float) v.x;
-							vertexHeap.y = (float) v.y;
-							vertexHeap.z = (float) v.z;
-							vertexHeap.w = 1;
-							skinBonesMatrixSumHeap.setZero();
-							final Bone[] skinBones = v.getSkinBones();
-							final short[] skinBoneWeights = v.getSkinBoneWeights();
-							vertexSumHeap.set(0, 0, 0, 0);
-							boolean processedBones = false;
-							for (int boneIndex = 0; boneIndex < 4; boneIndex++) {
-								final Bone skinBone = skinBones[boneIndex];
-								if (skinBone == null) {
-									continue;
-								}
-								processedBones = true;
-								final Matrix4f worldMatrix = renderModel.getRenderNode(skinBone).getWorldMatrix();
-								skinBonesMatrixHeap.load(worldMatrix);
-
-								skinBonesMatrixSumHeap.m00 += (skinBonesMatrixHeap.m00 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m01 += (skinBonesMatrixHeap.m01 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m02 += (skinBonesMatrixHeap.m02 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m03 += (skinBonesMatrixHeap.m03 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m10 += (skinBonesMatrixHeap.m10 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m11 += (skinBonesMatrixHeap.m11 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m12 += (skinBonesMatrixHeap.m12 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m13 += (skinBonesMatrixHeap.m13 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m20 += (skinBonesMatrixHeap.m20 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m21 += (skinBonesMatrixHeap.m21 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m22 += (skinBonesMatrixHeap.m22 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m23 += (skinBonesMatrixHeap.m23 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m30 += (skinBonesMatrixHeap.m30 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m31 += (skinBonesMatrixHeap.m31 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m32 += (skinBonesMatrixHeap.m32 * skinBoneWeights[boneIndex])
-										/ 255f;
-								skinBonesMatrixSumHeap.m33 += (skinBonesMatrixHeap.m33 * skinBoneWeights[boneIndex])
-										/ 255f;
-							}
-							if (!processedBones) {
-								skinBonesMatrixSumHeap.setIdentity();
-							}
-							Matrix4f.transform(skinBonesMatrixSumHeap, vertexHeap, vertexSumHeap);
-							if (v.getNormal() != null) {
-								normalHeap.x = (float) v.getNormal().x;
-								normalHeap.y = (float) v.getNormal().y;
-								normalHeap.z = (float) v.getNormal().z;
-								normalHeap.w = 0;
-								Matrix4f.transform(skinBonesMatrixSumHeap, normalHeap, normalSumHeap);
-
-								if (normalSumHeap.length() > 0) {
-									normalSumHeap.normalise();
-								} else {
-									normalSumHeap.set(0, 1, 0, 0);
-								}
-
-								GL11.glNormal3f(normalSumHeap.y, normalSumHeap.z, normalSumHeap.x);
-							}
-							int coordId = layer.getCoordId();
-							if (coordId >= v.getTverts().size()) {
-								coordId = v.getTverts().size() - 1;
-							}
-							GL11.glTexCoord2f((float) v.getTverts().get(coordId).x,
-									(float) v.getTverts().get(coordId).y);
-							GL11.glVertex3f(vertexSumHeap.y, vertexSumHeap.z, vertexSumHeap.x);
-						}
-					}
-				} else {
-					for (final Triangle tri : geo.getTriangles()) {
-						for (final GeosetVertex v : tri.getVerts()) {
-
-							vertexHeap.x = (float) v.x;
-							vertexHeap.y = (float) v.y;
-							vertexHeap.z = (float) v.z;
-							vertexHeap.w = 1;
-							final int boneCount = v.getBones().size();
-							if (boneCount > 0) {
-								vertexSumHeap.set(0, 0, 0, 0);
-								for (final Bone bone : v.getBones()) {
-									Matrix4f.transform(renderModel.getRenderNode(bone).getWorldMatrix(), vertexHeap,
-											appliedVertexHeap);
-									Vector4f.add(vertexSumHeap, appliedVertexHeap, vertexSumHeap);
-								}
-								vertexSumHeap.x /= boneCount;
-								vertexSumHeap.y /= boneCount;
-								vertexSumHeap.z /= boneCount;
-								vertexSumHeap.w /= boneCount;
-							} else {
-								vertexSumHeap.set(vertexHeap);
-							}
-							if (v.getNormal() != null) {
-								normalHeap.x = (float) v.getNormal().x;
-								normalHeap.y = (float) v.getNormal().y;
-								normalHeap.z = (float) v.getNormal().z;
-								normalHeap.w = 0;
-								if (boneCount > 0) {
-									normalSumHeap.set(0, 0, 0, 0);
-									for (final Bone bone : v.getBones()) {
-										Matrix4f.transform(renderModel.getRenderNode(bone).getWorldMatrix(), normalHeap,
-												appliedNormalHeap);
-										Vector4f.add(normalSumHeap, appliedNormalHeap, normalSumHeap);
-									}
-								} else {
-									normalSumHeap.set(normalHeap);
-								}
-
-								if (normalSumHeap.length() > 0) {
-									normalSumHeap.normalise();
-								} else {
-									normalSumHeap.set(0, 1, 0, 0);
-								}
-
-								GL11.glNormal3f(normalSumHeap.y, normalSumHeap.z, normalSumHeap.x);
-							}
-							int coordId = layer.getCoordId();
-							if (coordId >= v.getTverts().size()) {
-								coordId = v.getTverts().size() - 1;
-							}
-							GL11.glTexCoord2f((float) v.getTverts().get(coordId).x,
-									(float) v.getTverts().get(coordId).y);
-							GL11.glVertex3f(vertexSumHeap.y, vertexSumHeap.z, vertexSumHeap.x);
-						}
-					}
-				}
-				// if( texture != null )
-				// {
-				// texture.release();
-				// }
-				glEnd();
+				geosetRenderer.draw(renderModel.getRenderGeoset(geo), skinFrame,
+						RenderGeoset.usesSkinBones(geo, formatVersion), layer.getCoordId());
 			}
 		}
 
@@ -1555,12 +1321,23 @@ public class AnimatedPerspectiveViewport extends BetterAWTGLCanvas implements Mo
 		if (texture == null) {
 			return -1;
 		}
+		final int textureID = GL11.glGenTextures(); // Generate texture ID
+		uploadTexture(textureID, texture, bitmap);
+
+		// Return the texture ID so we can bind it later again
+		return textureID;
+	}
+
+	/**
+	 * Replaces the pixels of an existing texture ID and gives back the reference
+	 * to the GPUReadyTexture.
+	 */
+	private static void uploadTexture(final int textureID, final GPUReadyTexture texture, final Bitmap bitmap) {
 		final ByteBuffer buffer = texture.getBuffer();
 		// You now have a ByteBuffer filled with the color data of each pixel.
 		// Now just create a texture ID and bind it. Then you can load it using
 		// whatever OpenGL method you want, for example:
 
-		final int textureID = GL11.glGenTextures(); // Generate texture ID
 		GL11.glBindTexture(GL11.GL_TEXTURE_2D, textureID); // Bind texture ID
 
 		// Setup wrap mode
@@ -1576,11 +1353,58 @@ public class AnimatedPerspectiveViewport extends BetterAWTGLCanvas implements Mo
 		// Send texel data to OpenGL
 		GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA8, texture.getWidth(), texture.getHeight(), 0,
 				GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, buffer);
+		texture.release();
+	}
 
-		// Return the texture ID so we can bind it later again
+	/**
+	 * A one pixel grey texture drawn while the real one is still being decoded,
+	 * see swapInLoadedTextures.
+	 */
+	private static int loadPlaceholderTexture() {
+		final ByteBuffer buffer = BufferUtils.createByteBuffer(BYTES_PER_PIXEL);
+		buffer.put((byte) 0x80).put((byte) 0x80).put((byte) 0x80).put((byte) 0xFF);
+		buffer.flip();
+		final int textureID = GL11.glGenTextures();
+		GL11.glBindTexture(GL11.GL_TEXTURE_2D, textureID);
+		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_NEAREST);
+		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_NEAREST);
+		GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA8, 1, 1, 0, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, buffer);
 		return textureID;
 	}
 
+	/**
+	 * Uploads the textures that finished decoding since the last frame into the
+	 * IDs of their placeholders.
+	 */
+	private void swapInLoadedTextures() {
+		final Iterator<Map.Entry<Bitmap, TextureRequest>> iterator = pendingTextures.entrySet().iterator();
+		while (iterator.hasNext()) {
+			final Map.Entry<Bitmap, TextureRequest> entry = iterator.next();
+			final TextureRequest request = entry.getValue();
+			if (!request.isDone()) {
+				continue;
+			}
+			iterator.remove();
+			final Bitmap bitmap = entry.getKey();
+			final int placeholderID = textureMap.get(bitmap);
+			final GPUReadyTexture texture = request.take();
+			if (texture != null) {
+				uploadTexture(placeholderID, texture, bitmap);
+			} else {
+				GL11.glDeleteTextures(placeholderID);
+				if (request.getException() != null) {
+					if (LOG_EXCEPTIONS) {
+						request.getException().printStackTrace();
+					}
+					textureMap.remove(bitmap);
+				} else {
+					// same as loadTexture for a missing texture
+					textureMap.put(bitmap, -1);
+				}
+			}
+		}
+	}
+
 	@Override
 	public int getAnimationTime() {
 		return animationTime;
@@ -11,6 +11,7 @@ import com.hiveworkshop.wc3.gui.animedit.TimeEnvironmentImpl;
 import com.hiveworkshop.wc3.gui.modeledit.CoordinateSystem;
 import com.hiveworkshop.wc3.gui.modeledit.actions.newsys.ModelStructureChangeListener;
 import com.hiveworkshop.wc3.gui.modeledit.newstuff.actions.animation.AddKeyframeAction;
+import com.hiveworkshop.wc3.gui.modelviewer.AnimatedRenderEnvironment;
 import com.hiveworkshop.wc3.mdl.render3d.RenderModel;
 import com.hiveworkshop.wc3.mdl.render3d.RenderNode;
 
@@ -23,6 +24,8 @@ public abstract class AbstractAnimatedNode implements AnimatedNode {
 
 	private static final Vector3f IDENTITY = new Vector3f(0, 0, 0);
 
+	private final TimelineChannelIndex timelineChannelIndex = new TimelineChannelIndex();
+
 	@Override
 	public AddKeyframeAction createTranslationKeyframe(final RenderModel renderModel, final AnimFlag translationFlag,
 			final ModelStructureChangeListener structureChangeListener) {
@@ -605,6 +608,40 @@ public abstract class AbstractAnimatedNode implements AnimatedNode {
 
 	}
 
+	@Override
+	public boolean getRenderTranslation(final AnimatedRenderEnvironment animatedRenderEnvironment,
+			final AnimFlagSampler sampler, final float[] out) {
+		return sampleTimeline(TimelineChannel.TRANSLATION, animatedRenderEnvironment, sampler, out);
+	}
+
+	@Override
+	public boolean getRenderRotation(final AnimatedRenderEnvironment animatedRenderEnvironment,
+			final AnimFlagSampler sampler, final float[] out) {
+		return sampleTimeline(TimelineChannel.ROTATION, animatedRenderEnvironment, sampler, out);
+	}
+
+	@Override
+	public boolean getRenderScale(final AnimatedRenderEnvironment animatedRenderEnvironment,
+			final AnimFlagSampler sampler, final float[] out) {
+		return sampleTimeline(TimelineChannel.SCALING, animatedRenderEnvironment, sampler, out);
+	}
+
+	protected boolean sampleTimeline(final TimelineChannel channel,
+			final AnimatedRenderEnvironment animatedRenderEnvironment, final AnimFlagSampler sampler,
+			final float[] out) {
+		final AnimFlag timeline = getTimeline(channel);
+		if (timeline == null) {
+			return false;
+		}
+		sampler.sample(timeline, animatedRenderEnvironment, out);
+		return true;
+	}
+
+	@Override
+	public AnimFlag getTimeline(final TimelineChannel channel) {
+		return timelineChannelIndex.get(getAnimFlags(), channel);
+	}
+
 	protected abstract List<AnimFlag> getAnimFlags();
 
 }
@@ -10,6 +10,7 @@ import javax.swing.JOptionPane;
 import com.hiveworkshop.wc3.gui.animedit.BasicTimeBoundProvider;
 import com.hiveworkshop.wc3.gui.modelviewer.AnimatedRenderEnvironment;
 import com.hiveworkshop.wc3.mdl.v2.timelines.InterpolationType;
+import com.hiveworkshop.wc3.mdl.v2.timelines.KeyframeTrack;
 import com.hiveworkshop.wc3.mdx.AttachmentVisibility;
 import com.hiveworkshop.wc3.mdx.CameraPositionTranslation;
 import com.hiveworkshop.wc3.mdx.CameraRotation;
@@ -149,10 +150,20 @@ public class AnimFlag {
 	int globalSeqId = -1;
 	boolean hasGlobalSeq = false;
 	ArrayList<Integer> times = new ArrayList<>();
-	ArrayList values = new ArrayList();
-	ArrayList inTans = new ArrayList();
-	ArrayList outTans = new ArrayList();
+	ArrayList<Object> values = new ArrayList<>();
+	ArrayList<Object> inTans = new ArrayList<>();
+	ArrayList<Object> outTans = new ArrayList<>();
 	int typeid = 0;
+	/**
+	 * Packed primitive copy of the keyframes for the render path, see
+	 * {@link #getTrack()}. addEntry, setEntry and deleteAt update it in place,
+	 * other edits drop it and it is built again when it is next needed.
+	 * Volatile because render models may sample nodes on several threads.
+	 */
+	private volatile KeyframeTrack track;
+	// whether key i of the track is entry i of the lists, which holds while the
+	// times in the lists are sorted, so that entries can be edited by index
+	private boolean trackInListOrder;
 
 	public boolean equals(final AnimFlag o) {
 		boolean does = o instanceof AnimFlag;
@@ -1340,6 +1351,7 @@ public class AnimFlag {
 	}
 
 	public void setInterpType(final InterpolationType interpolationType) {
+		invalidateTrack();
 		System.err.println("Unsafe call to setInterpType, please rewrite code in AnimFlag class");
 		tags.clear();// we're pretty sure this is just interp type now
 		switch (interpolationType) {
@@ -1391,10 +1403,12 @@ public class AnimFlag {
 	}
 
 	public void addTag(final String tag) {
+		invalidateTrack();
 		tags.add(tag);
 	}
 
 	public void generateTypeId() {
+		invalidateTrack();
 		typeid = 0;
 		if (title.equals("Scaling")) {
 			typeid = 1;
@@ -1433,6 +1447,7 @@ public class AnimFlag {
 	public void addEntry(final Integer time, final Object value) {
 		times.add(time);
 		values.add(value);
+		trackAdded(time, value, null, null);
 	}
 
 	public void addEntry(final Integer time, final Object value, final Object inTan, final Object outTan) {
@@ -1440,6 +1455,7 @@ public class AnimFlag {
 		values.add(value);
 		inTans.add(inTan);
 		outTans.add(outTan);
+		trackAdded(time, value, inTan, outTan);
 	}
 
 	public void setEntry(final Integer time, final Object value) {
@@ -1450,6 +1466,12 @@ public class AnimFlag {
 					inTans.set(index, value);
 					outTans.set(index, value);
 				}
+				final KeyframeTrack track = trackToEdit(keyCount());
+				if (track != null) {
+					final float[] packed = new float[track.getStride()];
+					pack(value, packed);
+					track.set(index, packed, packed, packed);
+				}
 			}
 		}
 	}
@@ -1566,6 +1588,7 @@ public class AnimFlag {
 	}
 
 	public void setValuesTo(final AnimFlag af) {
+		invalidateTrack();
 		title = af.title;
 		tags = af.tags;
 		globalSeq = af.globalSeq;
@@ -1647,8 +1670,7 @@ public class AnimFlag {
 		} else if (aflg.title.equals("Translation")) {
 			typeid = 3;
 		} else if (!aflg.title.equals("Alpha")) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Unable to parse \"" + aflg.title + "\": Missing or unrecognized open statement.");
+			MDLReader.warn("Unable to parse \"" + aflg.title + "\": Missing or unrecognized open statement.");
 		}
 		aflg.typeid = typeid;
 		for (int i = 1; i < line.length; i++) {
@@ -1709,7 +1731,7 @@ public class AnimFlag {
 					aflg.globalSeqId = MDLReader.readInt(line[i]);
 					aflg.hasGlobalSeq = true;
 				} else {
-					JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(), "Error while parsing " + aflg.title
+					MDLReader.warn("Error while parsing " + aflg.title
 							+ ": More than one Global Sequence Id is present in the same " + aflg.title + "!");
 				}
 			} else {
@@ -1752,6 +1774,10 @@ public class AnimFlag {
 			// entries
 		}
 		aflg.typeid = typeid;
+		if (mdl instanceof MdlTokenReader) {
+			aflg.readEntries((MdlTokenReader) mdl);
+			return aflg;
+		}
 		String line = "";
 		while (!(line = MDLReader.nextLine(mdl)).contains("\t}")) {
 			if (line.contains("Tan")) {
@@ -1843,7 +1869,7 @@ public class AnimFlag {
 					aflg.globalSeqId = MDLReader.readInt(line);
 					aflg.hasGlobalSeq = true;
 				} else {
-					JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(), "Error while parsing " + aflg.title
+					MDLReader.warn("Error while parsing " + aflg.title
 							+ ": More than one Global Sequence Id is present in the same " + aflg.title + "!");
 				}
 			} else {
@@ -1853,6 +1879,63 @@ public class AnimFlag {
 		return aflg;
 	}
 
+	/**
+	 * Reads the entries of the block up to its closing brace: the tags, the
+	 * GlobalSeqId and the keyframes with their tangents.
+	 */
+	private void readEntries(final MdlTokenReader tokens) {
+		while (!tokens.atBlockEnd()) {
+			if (tokens.nextIsNumber()) {
+				times.add(tokens.readInt());
+				values.add(readValue(tokens));
+			} else {
+				final String word = tokens.readWord();
+				if (word.equals("InTan")) {
+					inTans.add(readValue(tokens));
+				} else if (word.equals("OutTan")) {
+					outTans.add(readValue(tokens));
+				} else if (word.equals("GlobalSeqId")) {
+					if (!hasGlobalSeq) {
+						globalSeqId = tokens.readInt();
+						hasGlobalSeq = true;
+					} else {
+						tokens.warn("More than one Global Sequence Id is present in the same " + title + "!");
+						tokens.readInt();
+					}
+				} else {
+					tags.add(word);
+				}
+			}
+		}
+		tokens.endBlock();
+	}
+
+	private Object readValue(final MdlTokenReader tokens) {
+		switch (typeid) {
+		case 1: // Scaling
+		case 3: // Translation
+		case 4: // Color
+			tokens.expect('{');
+			final Vertex vertex = new Vertex(tokens.readDouble(), tokens.readDouble(), tokens.readDouble());
+			tokens.expect('}');
+			return vertex;
+		case 2: // Rotation
+			if (tokens.nextIs('{')) {
+				tokens.expect('{');
+				final QuaternionRotation rotation = new QuaternionRotation(tokens.readDouble(), tokens.readDouble(),
+						tokens.readDouble(), tokens.readDouble());
+				tokens.expect('}');
+				return rotation;
+			}
+			// a camera rotation is a single number
+			return new Double(tokens.readDouble());
+		case 5: // TextureID
+			return new Integer(tokens.readInt());
+		default:
+			return new Double(tokens.readDouble());
+		}
+	}
+
 	public void updateGlobalSeqRef(final EditableModel mdlr) {
 		if (hasGlobalSeq) {
 			globalSeq = mdlr.getGlobalSeq(globalSeqId);
@@ -1875,7 +1958,25 @@ public class AnimFlag {
 		}
 	}
 
+	/**
+	 * Prints the text of flagToString(o) without building it.
+	 */
+	public void printFlag(final PrintWriter writer, final Object o) {
+		if (o.getClass() == Double.class) {
+			MdlWriter.printNumber(writer, ((Double) o).doubleValue());
+		} else if (o.getClass() == Integer.class) {
+			MdlWriter.printInt(writer, ((Integer) o).intValue());
+		} else if (o instanceof Vertex) {
+			((Vertex) o).printTo(writer);
+		} else if (o.getClass() == QuaternionRotation.class) {
+			((QuaternionRotation) o).printTo(writer);
+		} else {
+			writer.write(o.toString());
+		}
+	}
+
 	public void flipOver(final byte axis) {
+		invalidateTrack();
 		if (typeid == 2) {
 			// Rotation
 			for (int k = 0; k < values.size(); k++) {
@@ -2031,10 +2132,21 @@ public class AnimFlag {
 				tans = true;
 			}
 			for (int i = 0; i < times.size(); i++) {
-				writer.println(tabs + "\t" + times.get(i) + ": " + flagToString(values.get(i)) + ",");
+				writer.write(tabs);
+				writer.write('\t');
+				MdlWriter.printInt(writer, times.get(i));
+				writer.write(": ");
+				printFlag(writer, values.get(i));
+				writer.println(',');
 				if (tans) {
-					writer.println(tabs + "\t\tInTan " + flagToString(inTans.get(i)) + ",");
-					writer.println(tabs + "\t\tOutTan " + flagToString(outTans.get(i)) + ",");
+					writer.write(tabs);
+					writer.write("\t\tInTan ");
+					printFlag(writer, inTans.get(i));
+					writer.println(',');
+					writer.write(tabs);
+					writer.write("\t\tOutTan ");
+					printFlag(writer, outTans.get(i));
+					writer.println(',');
 				}
 			}
 			// switch (typeid )
@@ -2184,6 +2296,7 @@ public class AnimFlag {
 	}
 
 	public void linearize() {
+		invalidateTrack();
 		if (tags.remove("Bezier") || tags.remove("Hermite")) {
 			tags.add("Linear");
 			inTans.clear();
@@ -2192,6 +2305,7 @@ public class AnimFlag {
 	}
 
 	public void copyFrom(final AnimFlag source) {
+		invalidateTrack();
 		times.addAll(source.times);
 		values.addAll(source.values);
 		final boolean stans = source.tans();
@@ -2211,6 +2325,7 @@ public class AnimFlag {
 	}
 
 	public void deleteAnim(final Animation anim) {
+		invalidateTrack();
 		if (!hasGlobalSeq) {
 			final boolean tans = tans();
 			for (int index = times.size() - 1; index >= 0; index--) {
@@ -2242,6 +2357,10 @@ public class AnimFlag {
 			inTans.remove(index);
 			outTans.remove(index);
 		}
+		final KeyframeTrack track = trackToEdit(keyCount() + 1);
+		if (track != null) {
+			track.remove(index);
+		}
 	}
 
 	/**
@@ -2258,6 +2377,7 @@ public class AnimFlag {
 	 */
 	public void copyFrom(final AnimFlag source, final int sourceStart, final int sourceEnd, final int newStart,
 			final int newEnd) {
+		invalidateTrack();
 		// Timescales a part of the AnimFlag from the source into the new time
 		// "newStart" to "newEnd"
 		boolean tans = source.tans();
@@ -2291,6 +2411,7 @@ public class AnimFlag {
 	}
 
 	public void timeScale(final int start, final int end, final int newStart, final int newEnd) {
+		invalidateTrack();
 		// Timescales a part of the AnimFlag from section "start" to "end" into
 		// the new time "newStart" to "newEnd"
 		// if( newEnd > newStart )
@@ -2327,6 +2448,7 @@ public class AnimFlag {
 	}
 
 	public void sort() {
+		invalidateTrack();
 		final int low = 0;
 		final int high = times.size() - 1;
 		if (size() > 1) {
@@ -2394,7 +2516,12 @@ public class AnimFlag {
 		}
 	}
 
+	/**
+	 * Callers edit both the returned list and the Vertex/QuaternionRotation
+	 * objects inside of it, so handing it out throws away the packed track.
+	 */
 	public ArrayList getValues() {
+		invalidateTrack();
 		return values;
 	}
 
@@ -2403,10 +2530,12 @@ public class AnimFlag {
 	}
 
 	public ArrayList getInTans() {
+		invalidateTrack();
 		return inTans;
 	}
 
 	public ArrayList getOutTans() {
+		invalidateTrack();
 		return outTans;
 	}
 
@@ -2778,7 +2907,353 @@ public class AnimFlag {
 		throw new IllegalStateException();
 	}
 
+	/**
+	 * Marks the packed {@link KeyframeTrack} as stale. Everything in here that
+	 * edits keyframes already calls this, code that edits the keyframe lists or
+	 * the values inside of them some other way must call it too.
+	 */
+	public void invalidateTrack() {
+		track = null;
+	}
+
+	/**
+	 * Returns the keyframes of this flag packed into primitive arrays, building
+	 * them if the flag was edited since the last call.
+	 */
+	public KeyframeTrack getTrack() {
+		KeyframeTrack track = this.track;
+		if (track == null) {
+			track = buildTrack();
+			trackInListOrder = true;
+			for (int i = 1; i < track.size(); i++) {
+				if (times.get(i - 1) > times.get(i)) {
+					trackInListOrder = false;
+					break;
+				}
+			}
+			this.track = track;
+		}
+		return track;
+	}
+
+	/**
+	 * Adds the entry that was just appended to the lists to the track, which
+	 * places it by its time the same way buildTrack would.
+	 */
+	private void trackAdded(final int time, final Object value, final Object inTan, final Object outTan) {
+		final int keyCount = keyCount();
+		final KeyframeTrack track = trackToEdit(keyCount - 1);
+		if (track == null) {
+			return;
+		}
+		if ((keyCount > 1) && (time < times.get(keyCount - 2))) {
+			trackInListOrder = false;
+		}
+		final int stride = track.getStride();
+		final float[] packedValue = new float[stride];
+		pack(value, packedValue);
+		float[] packedInTan = null;
+		float[] packedOutTan = null;
+		if (track.hasTangents()) {
+			packedInTan = new float[stride];
+			packedOutTan = new float[stride];
+			pack(inTan, packedInTan);
+			pack(outTan, packedOutTan);
+		}
+		track.insert(time, packedValue, packedInTan, packedOutTan);
+	}
+
+	/**
+	 * Called after the lists were edited by index.
+	 *
+	 * @param trackSize the number of keys the track must have for the edit to be
+	 *                  applied to it
+	 * @return the track to apply the edit to, or null if there is none or it was
+	 *         dropped because it no longer matches the lists
+	 */
+	private KeyframeTrack trackToEdit(final int trackSize) {
+		final KeyframeTrack track = this.track;
+		if (track == null) {
+			return null;
+		}
+		if (!trackInListOrder || (track.size() != trackSize) || (track.getKind() != trackKind())
+				|| (track.hasTangents() != hasPackedTangents(keyCount()))) {
+			invalidateTrack();
+			return null;
+		}
+		return track;
+	}
+
+	private int keyCount() {
+		return Math.min(times.size(), values.size());
+	}
+
+	private boolean hasPackedTangents(final int size) {
+		return tans() && (inTans.size() >= size) && (outTans.size() >= size);
+	}
+
+	private KeyframeTrack buildTrack() {
+		final KeyframeTrack.Kind kind = trackKind();
+		final int stride = kind.getStride();
+		final int size = keyCount();
+		final boolean tangents = hasPackedTangents(size);
+		final KeyframeTrack track = new KeyframeTrack(kind, getInterpTypeAsEnum(), tangents, size);
+		final float[] value = new float[stride];
+		final float[] inTan = new float[stride];
+		final float[] outTan = new float[stride];
+		for (int i = 0; i < size; i++) {
+			pack(values.get(i), value);
+			if (tangents) {
+				pack(inTans.get(i), inTan);
+				pack(outTans.get(i), outTan);
+			}
+			track.insert(times.get(i), value, inTan, outTan);
+		}
+		return track;
+	}
+
+	private KeyframeTrack.Kind trackKind() {
+		final Object sample = values.isEmpty() ? null : values.get(0);
+		if (sample instanceof QuaternionRotation) {
+			return KeyframeTrack.Kind.QUATERNION;
+		} else if (sample instanceof Vertex) {
+			return KeyframeTrack.Kind.VECTOR;
+		} else if (sample instanceof Integer) {
+			return KeyframeTrack.Kind.INTEGER;
+		} else if (sample instanceof Number) {
+			// includes the magic Camera rotation, which is a Double
+			return KeyframeTrack.Kind.SCALAR;
+		}
+		switch (typeid) {
+		case ROTATION:
+			return KeyframeTrack.Kind.QUATERNION;
+		case TRANSLATION:
+		case SCALING:
+		case COLOR:
+			return KeyframeTrack.Kind.VECTOR;
+		case TEXTUREID:
+			return KeyframeTrack.Kind.INTEGER;
+		default:
+			return KeyframeTrack.Kind.SCALAR;
+		}
+	}
+
+	private static void pack(final Object value, final float[] out) {
+		if (value instanceof Vertex) {
+			final Vertex vertex = (Vertex) value;
+			out[0] = (float) vertex.x;
+			out[1] = (float) vertex.y;
+			out[2] = (float) vertex.z;
+		} else if (value instanceof QuaternionRotation) {
+			final QuaternionRotation rotation = (QuaternionRotation) value;
+			out[0] = (float) rotation.a;
+			out[1] = (float) rotation.b;
+			out[2] = (float) rotation.c;
+			out[3] = (float) rotation.d;
+		} else if (value instanceof Number) {
+			out[0] = ((Number) value).floatValue();
+		} else {
+			for (int i = 0; i < out.length; i++) {
+				out[i] = 0;
+			}
+		}
+	}
+
+	private static final float[] SCALAR_IDENTITY = { 1 };
+	private static final float[] INTEGER_IDENTITY = { 0 };
+	private static final float[] TRANSLATE_IDENTITY_PACKED = { 0, 0, 0 };
+	private static final float[] SCALE_IDENTITY_PACKED = { 1, 1, 1 };
+	private static final float[] ROTATE_IDENTITY_PACKED = { 0, 0, 0, 1 };
+
+	private float[] packedIdentity(final KeyframeTrack.Kind kind) {
+		switch (kind) {
+		case QUATERNION:
+			return ROTATE_IDENTITY_PACKED;
+		case VECTOR:
+			return typeid == TRANSLATION ? TRANSLATE_IDENTITY_PACKED : SCALE_IDENTITY_PACKED;
+		case INTEGER:
+			return INTEGER_IDENTITY;
+		case SCALAR:
+		default:
+			return SCALAR_IDENTITY;
+		}
+	}
+
+	/**
+	 * Allocation free version of {@link #interpolateAt(AnimatedRenderEnvironment)}
+	 * for the render path. Writes the packed components of the interpolated value
+	 * (1 for scalars and texture IDs, 3 for Vertex values, 4 for quaternions in
+	 * x, y, z, w order) into the start of <code>out</code>, using the same
+	 * sequence wrapping rules as interpolateAt.
+	 *
+	 * This does its keyframe lookups from scratch on every call, things that
+	 * sample the same flag every frame should use an {@link AnimFlagSampler}.
+	 *
+	 * @return the number of components written
+	 */
+	public int interpolateInto(final AnimatedRenderEnvironment animatedRenderEnvironment, final float[] out) {
+		final KeyframeTrack track = getTrack();
+		if ((animatedRenderEnvironment == null) || (animatedRenderEnvironment.getCurrentAnimation() == null)
+				|| track.isEmpty()) {
+			return interpolateStatic(track, out);
+		}
+		if (hasGlobalSeq() && (getGlobalSeq() >= 0)) {
+			final int time = animatedRenderEnvironment.getGlobalSeqTime(getGlobalSeq());
+			return interpolateGlobalSeq(track, time, track.floorIndex(time), Math.max(0, track.floorIndex(1)), out);
+		} else {
+			final BasicTimeBoundProvider animation = animatedRenderEnvironment.getCurrentAnimation();
+			final int animationStart = animation.getStart();
+			final int animationEnd = animation.getEnd();
+			final int time = animationStart + animatedRenderEnvironment.getAnimationTime();
+			return interpolateAnimation(track, animationStart, animationEnd, time, track.floorIndex(time),
+					Math.max(0, track.floorIndex(animationStart + 1)), Math.max(0, track.floorIndex(animationEnd)),
+					track.ceilIndex(animationStart), out);
+		}
+	}
+
+	/**
+	 * No animation playing, or nothing to play: the first keyframe or identity.
+	 */
+	int interpolateStatic(final KeyframeTrack track, final float[] out) {
+		final int stride = track.getStride();
+		if (track.size() > 0) {
+			track.getValue(0, out, 0);
+		} else {
+			System.arraycopy(packedIdentity(track.getKind()), 0, out, 0, stride);
+		}
+		return stride;
+	}
+
+	/**
+	 * The ceil index that interpolateAt ends up with after fixing repeated
+	 * keyframes, which for a sorted track follows directly from the floor index.
+	 */
+	static int ceilIndexFromFloor(final KeyframeTrack track, final int floorIndex, final int time) {
+		if ((floorIndex >= 0) && (track.getTime(floorIndex) == time)) {
+			return floorIndex;
+		}
+		return Math.min(floorIndex + 1, track.size() - 1);
+	}
+
+	/**
+	 * Global sequence half of interpolateInto, with the keyframe lookups already
+	 * done by the caller.
+	 *
+	 * @param rawFloorIndex       the floor index of the time, may be -1
+	 * @param floorAnimStartIndex max(0, floorIndex(1))
+	 */
+	int interpolateGlobalSeq(final KeyframeTrack track, final int time, final int rawFloorIndex,
+			final int floorAnimStartIndex, final float[] out) {
+		final float[] identity = packedIdentity(track.getKind());
+		final int stride = track.getStride();
+		final int[] times = track.getTimes();
+		final int globalSeqLength = getGlobalSeq();
+		final int floorIndex = Math.max(0, rawFloorIndex);
+		int ceilIndex = Math.max(floorIndex, ceilIndexFromFloor(track, rawFloorIndex, time));
+		float[] floorSource = track.getValues();
+		int floorSourceIndex = floorIndex;
+		float[] floorOutTanSource = track.hasTangents() ? track.getOutTans() : floorSource;
+		int floorOutTanIndex = floorIndex;
+		final int floorIndexTime = times[floorIndex];
+		final int ceilIndexTime = times[ceilIndex];
+		final float timeBetweenFrames = ceilIndexTime - floorIndexTime;
+		if (ceilIndexTime < 0) {
+			System.arraycopy(identity, 0, out, 0, stride);
+			return stride;
+		}
+		if (floorIndexTime > globalSeqLength) {
+			// out of range global sequences end up just using the higher value keyframe
+			track.getValue(floorIndex, out, 0);
+			return stride;
+		}
+		if ((floorIndexTime < 0) && (ceilIndexTime > globalSeqLength)) {
+			System.arraycopy(identity, 0, out, 0, stride);
+			return stride;
+		} else if (floorIndexTime < 0) {
+			floorSource = floorOutTanSource = identity;
+			floorSourceIndex = floorOutTanIndex = 0;
+		} else if (ceilIndexTime > globalSeqLength) {
+			ceilIndex = floorAnimStartIndex;
+		}
+		if (floorIndex == ceilIndex) {
+			System.arraycopy(floorSource, floorSourceIndex * stride, out, 0, stride);
+			return stride;
+		}
+		track.interpolate(out, 0, floorSource, floorSourceIndex, floorOutTanSource, floorOutTanIndex, ceilIndex,
+				(time - floorIndexTime) / timeBetweenFrames);
+		return stride;
+	}
+
+	/**
+	 * Animation half of interpolateInto, with the keyframe lookups already done
+	 * by the caller.
+	 *
+	 * @param floorIndex          the raw floor index of the time, may be -1
+	 * @param floorAnimStartIndex max(0, floorIndex(animationStart + 1))
+	 * @param floorAnimEndIndex   max(0, floorIndex(animationEnd))
+	 * @param startCeilIndex      ceilIndex(animationStart)
+	 */
+	int interpolateAnimation(final KeyframeTrack track, final int animationStart, final int animationEnd,
+			final int time, final int floorIndex, final int floorAnimStartIndex, final int floorAnimEndIndex,
+			final int startCeilIndex, final float[] out) {
+		final float[] identity = packedIdentity(track.getKind());
+		final int stride = track.getStride();
+		final int[] times = track.getTimes();
+		final float[] values = track.getValues();
+		int ceilIndex = Math.max(floorIndex, ceilIndexFromFloor(track, floorIndex, time));
+		int ceilIndexTime = times[ceilIndex];
+		if (ceilIndexTime < animationStart) {
+			System.arraycopy(identity, 0, out, 0, stride);
+			return stride;
+		}
+		final int lookupFloorIndex = Math.max(0, floorIndex);
+		int floorSourceIndex = lookupFloorIndex;
+		float[] floorOutTanSource = track.hasTangents() ? track.getOutTans() : values;
+		int floorOutTanIndex = lookupFloorIndex;
+		int floorIndexTime = times[lookupFloorIndex];
+		final float timeBetweenFrames;
+		if (floorIndexTime > animationEnd) {
+			System.arraycopy(identity, 0, out, 0, stride);
+			return stride;
+		}
+		if ((floorIndexTime < animationStart) && (ceilIndexTime > animationEnd)) {
+			System.arraycopy(identity, 0, out, 0, stride);
+			return stride;
+		} else if ((floorIndex == -1) || (floorIndexTime < animationStart)) {
+			floorSourceIndex = floorAnimEndIndex;
+			floorIndexTime = times[floorAnimStartIndex];
+			if (track.hasTangents()) {
+				// interpolateAt reads both of these from the in tangents
+				floorOutTanSource = track.getInTans();
+				floorOutTanIndex = floorAnimEndIndex;
+			}
+			timeBetweenFrames = times[floorAnimEndIndex] - animationStart;
+		} else if ((ceilIndexTime > animationEnd) || ((ceilIndexTime < time) && (times[floorAnimEndIndex] < time))) {
+			if (times[floorAnimStartIndex] == animationStart) {
+				ceilIndex = floorAnimStartIndex;
+				ceilIndexTime = animationEnd;
+				timeBetweenFrames = ceilIndexTime - floorIndexTime;
+			} else {
+				ceilIndex = startCeilIndex;
+				ceilIndexTime = animationEnd;
+				timeBetweenFrames = animationEnd - animationStart;
+			}
+			// NOTE: we just let it be in this case, based on
+			// Water Elemental's birth
+		} else {
+			timeBetweenFrames = ceilIndexTime - floorIndexTime;
+		}
+		if (floorIndex == ceilIndex) {
+			track.getValue(floorSourceIndex, out, 0);
+			return stride;
+		}
+		track.interpolate(out, 0, values, floorSourceIndex, floorOutTanSource, floorOutTanIndex, ceilIndex,
+				(time - floorIndexTime) / timeBetweenFrames);
+		return stride;
+	}
+
 	public void removeKeyframe(final int trackTime) {
+		invalidateTrack();
 		final int keyframeIndex = floorIndex(trackTime);
 		if ((keyframeIndex >= size()) || (times.get(keyframeIndex) != trackTime)) {
 			throw new IllegalStateException("Attempted to remove keyframe, but no keyframe was found (" + keyframeIndex
@@ -2794,6 +3269,7 @@ public class AnimFlag {
 	}
 
 	public void addKeyframe(final int trackTime, final Object value) {
+		invalidateTrack();
 		int keyframeIndex = ceilIndex(trackTime);
 		if (keyframeIndex == (times.size() - 1)) {
 			if (times.isEmpty()) {
@@ -2807,6 +3283,7 @@ public class AnimFlag {
 	}
 
 	public void addKeyframe(final int trackTime, final Object value, final Object inTan, final Object outTan) {
+		invalidateTrack();
 		int keyframeIndex = ceilIndex(trackTime);
 		if (keyframeIndex == (times.size() - 1)) {
 			if (times.isEmpty()) {
@@ -2822,6 +3299,7 @@ public class AnimFlag {
 	}
 
 	public void setKeyframe(final Integer time, final Object value) {
+		invalidateTrack();
 		if (tans()) {
 			throw new IllegalStateException();
 		}
@@ -2834,6 +3312,7 @@ public class AnimFlag {
 	}
 
 	public void setKeyframe(final Integer time, final Object value, final Object inTan, final Object outTan) {
+		invalidateTrack();
 		if (!tans()) {
 			throw new IllegalStateException();
 		}
@@ -2847,6 +3326,7 @@ public class AnimFlag {
 	}
 
 	public void slideKeyframe(final int startTrackTime, final int endTrackTime) {
+		invalidateTrack();
 		if (times.size() < 1) {
 			throw new IllegalStateException("Unable to slide keyframe: no frames exist");
 		}
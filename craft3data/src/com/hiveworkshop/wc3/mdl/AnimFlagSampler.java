@@ -0,0 +1,118 @@
+package com.hiveworkshop.wc3.mdl;
+
+import com.hiveworkshop.wc3.gui.animedit.BasicTimeBoundProvider;
+import com.hiveworkshop.wc3.gui.modelviewer.AnimatedRenderEnvironment;
+import com.hiveworkshop.wc3.mdl.v2.timelines.KeyframeTrack;
+
+/**
+ * Samples one AnimFlag during playback of one sequence (an Animation, or the
+ * flag's global sequence). The keyframe range of the sequence is looked up once
+ * when the sampler is bound, and a cursor remembers the last floor keyframe so
+ * that playback moving forward in time finds the next keyframes by stepping
+ * instead of doing binary searches on every frame.
+ *
+ * A sampler rebinds itself when it is handed a different flag, when the
+ * current animation (or its bounds) changes, or when the flag's keyframes were
+ * edited, which is detected by {@link AnimFlag#getTrack()} handing out a new
+ * track after {@link AnimFlag#invalidateTrack()}. Each viewport should have its
+ * own samplers, since they hold playback state.
+ */
+public final class AnimFlagSampler {
+	// beyond this it is cheaper to binary search, which also handles looping back
+	private static final int MAX_CURSOR_STEPS = 4;
+
+	private AnimFlag flag;
+	private KeyframeTrack track;
+	private BasicTimeBoundProvider animation;
+	private int animationStart;
+	private int animationEnd;
+	private Integer globalSeq;
+
+	private int floorAnimStartIndex;
+	private int floorAnimEndIndex;
+	private int startCeilIndex;
+	private int cursor;
+
+	/**
+	 * Writes the value of the flag at the current time of the environment into
+	 * the start of <code>out</code>, see
+	 * {@link AnimFlag#interpolateInto(AnimatedRenderEnvironment, float[])}.
+	 *
+	 * @return the number of components written
+	 */
+	public int sample(final AnimFlag flag, final AnimatedRenderEnvironment animatedRenderEnvironment,
+			final float[] out) {
+		final KeyframeTrack track = flag.getTrack();
+		if ((animatedRenderEnvironment == null) || (animatedRenderEnvironment.getCurrentAnimation() == null)
+				|| track.isEmpty()) {
+			return flag.interpolateStatic(track, out);
+		}
+		final BasicTimeBoundProvider animation = animatedRenderEnvironment.getCurrentAnimation();
+		if (flag.hasGlobalSeq() && (flag.getGlobalSeq() >= 0)) {
+			if ((flag != this.flag) || (track != this.track) || !flag.getGlobalSeq().equals(globalSeq)) {
+				bindGlobalSeq(flag, track);
+			}
+			final int time = animatedRenderEnvironment.getGlobalSeqTime(globalSeq);
+			return flag.interpolateGlobalSeq(track, time, floorIndex(time), floorAnimStartIndex, out);
+		} else {
+			if ((flag != this.flag) || (track != this.track) || (globalSeq != null) || (animation != this.animation)
+					|| (animation.getStart() != animationStart) || (animation.getEnd() != animationEnd)) {
+				bindAnimation(flag, track, animation);
+			}
+			final int time = animationStart + animatedRenderEnvironment.getAnimationTime();
+			return flag.interpolateAnimation(track, animationStart, animationEnd, time, floorIndex(time),
+					floorAnimStartIndex, floorAnimEndIndex, startCeilIndex, out);
+		}
+	}
+
+	/**
+	 * Forgets the bound flag, so the next sample starts over.
+	 */
+	public void reset() {
+		flag = null;
+		track = null;
+		animation = null;
+		globalSeq = null;
+	}
+
+	private void bindGlobalSeq(final AnimFlag flag, final KeyframeTrack track) {
+		this.flag = flag;
+		this.track = track;
+		this.animation = null;
+		this.globalSeq = flag.getGlobalSeq();
+		floorAnimStartIndex = Math.max(0, track.floorIndex(1));
+		cursor = -1;
+	}
+
+	private void bindAnimation(final AnimFlag flag, final KeyframeTrack track,
+			final BasicTimeBoundProvider animation) {
+		this.flag = flag;
+		this.track = track;
+		this.animation = animation;
+		this.globalSeq = null;
+		animationStart = animation.getStart();
+		animationEnd = animation.getEnd();
+		floorAnimStartIndex = Math.max(0, track.floorIndex(animationStart + 1));
+		floorAnimEndIndex = Math.max(0, track.floorIndex(animationEnd));
+		startCeilIndex = track.ceilIndex(animationStart);
+		cursor = -1;
+	}
+
+	private int floorIndex(final int time) {
+		final int[] times = track.getTimes();
+		final int size = track.size();
+		int index = cursor;
+		if ((index < 0) || (times[index] <= time)) {
+			for (int step = 0; step < MAX_CURSOR_STEPS; step++) {
+				if (((index + 1) >= size) || (times[index + 1] > time)) {
+					cursor = index;
+					return index;
+				}
+				index++;
+			}
+		}
+		index = track.floorIndex(time);
+		cursor = index;
+		return index;
+	}
+}
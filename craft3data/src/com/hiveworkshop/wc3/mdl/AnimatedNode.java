@@ -60,4 +60,20 @@ public interface AnimatedNode extends TimelineContainer {
 	public QuaternionRotation getRenderRotation(AnimatedRenderEnvironment animatedRenderEnvironment);
 
 	public Vertex getRenderScale(AnimatedRenderEnvironment animatedRenderEnvironment);
+
+	/*
+	 * Allocation free versions of the three above for animation playback. They
+	 * write the packed components (x, y, z or x, y, z, w for rotation) into the
+	 * start of "out" and return false if there is no such timeline on the node,
+	 * in which case "out" is left alone. The sampler carries the keyframe cursor
+	 * for the channel between frames, one per node per channel per viewport.
+	 */
+	public boolean getRenderTranslation(AnimatedRenderEnvironment animatedRenderEnvironment,
+			AnimFlagSampler sampler, float[] out);
+
+	public boolean getRenderRotation(AnimatedRenderEnvironment animatedRenderEnvironment, AnimFlagSampler sampler,
+			float[] out);
+
+	public boolean getRenderScale(AnimatedRenderEnvironment animatedRenderEnvironment, AnimFlagSampler sampler,
+			float[] out);
 }
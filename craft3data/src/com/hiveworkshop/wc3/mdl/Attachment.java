@@ -111,8 +111,7 @@ public class Attachment extends IdObject implements VisibilitySource {
 			}
 			return at;
 		} else {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Unable to parse Attachment: Missing or unrecognized open statement.");
+			MDLReader.warn("Unable to parse Attachment: Missing or unrecognized open statement.");
 		}
 		return null;
 	}
@@ -268,7 +267,7 @@ public class Attachment extends IdObject implements VisibilitySource {
 
 	@Override
 	public Vertex getRenderTranslation(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Translation");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.TRANSLATION);
 		if (translationFlag != null) {
 			return (Vertex) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -277,7 +276,7 @@ public class Attachment extends IdObject implements VisibilitySource {
 
 	@Override
 	public QuaternionRotation getRenderRotation(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Rotation");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.ROTATION);
 		if (translationFlag != null) {
 			return (QuaternionRotation) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -286,7 +285,7 @@ public class Attachment extends IdObject implements VisibilitySource {
 
 	@Override
 	public Vertex getRenderScale(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Scaling");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.SCALING);
 		if (translationFlag != null) {
 			return (Vertex) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
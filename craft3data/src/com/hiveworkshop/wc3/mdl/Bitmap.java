@@ -4,8 +4,6 @@ import java.io.BufferedReader;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 
-import javax.swing.JOptionPane;
-
 import com.hiveworkshop.wc3.mdx.TextureChunk;
 
 /**
@@ -190,14 +188,12 @@ public class Bitmap {
 				} else if (line.contains("WrapHeight")) {
 					tex.setWrapHeight(true);
 				} else {
-					JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-							"Error parsing Bitmap: Unrecognized statement '" + line + "'.");
+					MDLReader.warn("Error parsing Bitmap: Unrecognized statement '" + line + "'.");
 				}
 			}
 			return tex;
 		} else {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Unable to parse Bitmap: Missing or unrecognized open statement.");
+			MDLReader.warn("Unable to parse Bitmap: Missing or unrecognized open statement.");
 		}
 		return null;
 	}
@@ -5,8 +5,6 @@ import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.swing.JOptionPane;
-
 import com.hiveworkshop.wc3.gui.modeledit.CoordinateSystem;
 import com.hiveworkshop.wc3.gui.modelviewer.AnimatedRenderEnvironment;
 import com.hiveworkshop.wc3.mdl.v2.visitor.IdObjectVisitor;
@@ -92,8 +90,7 @@ public class Bone extends IdObject {
 						if (field.equals("Multiple")) {
 							b.multiGeoId = true;
 						} else {
-							JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-									"Error while parsing: Could not interpret integer from: " + line);
+							MDLReader.warn("Error while parsing: Could not interpret integer from: " + line);
 						}
 					}
 				} else if (line.contains("GeosetAnimId")) {
@@ -106,8 +103,7 @@ public class Bone extends IdObject {
 						if (field.equals("None")) {
 							b.geosetAnim = null;
 						} else {
-							JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-									"Error while parsing: Could not interpret integer from: " + line);
+							MDLReader.warn("Error while parsing: Could not interpret integer from: " + line);
 						}
 					}
 				} else if (line.contains("Parent")) {
@@ -126,8 +122,7 @@ public class Bone extends IdObject {
 			}
 			return b;
 		} else {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Unable to parse Bone: Missing or unrecognized open statement.");
+			MDLReader.warn("Unable to parse Bone: Missing or unrecognized open statement.");
 		}
 		return null;
 	}
@@ -365,7 +360,7 @@ public class Bone extends IdObject {
 
 	@Override
 	public Vertex getRenderTranslation(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Translation");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.TRANSLATION);
 		if (translationFlag != null) {
 			return (Vertex) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -374,7 +369,7 @@ public class Bone extends IdObject {
 
 	@Override
 	public QuaternionRotation getRenderRotation(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Rotation");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.ROTATION);
 		if (translationFlag != null) {
 			return (QuaternionRotation) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -383,7 +378,7 @@ public class Bone extends IdObject {
 
 	@Override
 	public Vertex getRenderScale(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Scaling");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.SCALING);
 		if (translationFlag != null) {
 			return (Vertex) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -6,8 +6,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
-import javax.swing.JOptionPane;
-
 import com.hiveworkshop.wc3.gui.modelviewer.AnimatedRenderEnvironment;
 import com.hiveworkshop.wc3.mdl.IdObject.NodeFlags;
 import com.hiveworkshop.wc3.mdx.CameraChunk;
@@ -106,14 +104,14 @@ public class Camera implements Named {
 							MDLReader.reset(mdl);
 							c.targetAnimFlags.add(AnimFlag.read(mdl));
 						} else {
-							JOptionPane.showMessageDialog(null, "Camera target did not recognize data at: " + line
+							MDLReader.warn("Camera target did not recognize data at: " + line
 									+ "\nThis is probably not a major issue?");
 						}
 						MDLReader.mark(mdl);
 						line = MDLReader.nextLine(mdl);
 					}
 				} else {
-					JOptionPane.showMessageDialog(null,
+					MDLReader.warn(
 							"Camera did not recognize data at: " + line + "\nThis is probably not a major issue?");
 				}
 
@@ -122,8 +120,7 @@ public class Camera implements Named {
 			}
 			return c;
 		} else {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Unable to parse Camera: Missing or unrecognized open statement.");
+			MDLReader.warn("Unable to parse Camera: Missing or unrecognized open statement.");
 		}
 		return null;
 	}
@@ -277,7 +274,7 @@ public class Camera implements Named {
 
 		@Override
 		public Vertex getRenderTranslation(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-			final AnimFlag translationFlag = AnimFlag.find(getAnimFlags(), "Translation");
+			final AnimFlag translationFlag = getTimeline(TimelineChannel.TRANSLATION);
 			if (translationFlag != null) {
 				return (Vertex) translationFlag.interpolateAt(animatedRenderEnvironment);
 			}
@@ -286,7 +283,7 @@ public class Camera implements Named {
 
 		@Override
 		public QuaternionRotation getRenderRotation(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-			final AnimFlag translationFlag = AnimFlag.find(getAnimFlags(), "Rotation");
+			final AnimFlag translationFlag = getTimeline(TimelineChannel.ROTATION);
 			if (translationFlag != null) {
 				final Object interpolated = translationFlag.interpolateAt(animatedRenderEnvironment);
 				if (interpolated instanceof Double) {
@@ -308,7 +305,7 @@ public class Camera implements Named {
 		}
 
 		public Double getRenderRotationScalar(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-			final AnimFlag translationFlag = AnimFlag.find(getAnimFlags(), "Rotation");
+			final AnimFlag translationFlag = getTimeline(TimelineChannel.ROTATION);
 			if (translationFlag != null) {
 				final Object interpolated = translationFlag.interpolateAt(animatedRenderEnvironment);
 				if (interpolated instanceof Double) {
@@ -325,6 +322,28 @@ public class Camera implements Named {
 		public Vertex getRenderScale(final AnimatedRenderEnvironment animatedRenderEnvironment) {
 			return AnimFlag.SCALE_IDENTITY;
 		}
+
+		@Override
+		public boolean getRenderRotation(final AnimatedRenderEnvironment animatedRenderEnvironment,
+				final AnimFlagSampler sampler, final float[] out) {
+			// cameras are rare enough that the magic scalar rotation keeps using the old path
+			final QuaternionRotation rotation = getRenderRotation(animatedRenderEnvironment);
+			if (rotation == null) {
+				return false;
+			}
+			out[0] = (float) rotation.a;
+			out[1] = (float) rotation.b;
+			out[2] = (float) rotation.c;
+			out[3] = (float) rotation.d;
+			return true;
+		}
+
+		@Override
+		public boolean getRenderScale(final AnimatedRenderEnvironment animatedRenderEnvironment,
+				final AnimFlagSampler sampler, final float[] out) {
+			out[0] = out[1] = out[2] = 1;
+			return true;
+		}
 	}
 
 	public static final class TargetNode extends AbstractAnimatedNode {
@@ -381,7 +400,7 @@ public class Camera implements Named {
 
 		@Override
 		public Vertex getRenderTranslation(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-			final AnimFlag translationFlag = AnimFlag.find(getAnimFlags(), "Translation");
+			final AnimFlag translationFlag = getTimeline(TimelineChannel.TRANSLATION);
 			if (translationFlag != null) {
 				return (Vertex) translationFlag.interpolateAt(animatedRenderEnvironment);
 			}
@@ -397,6 +416,21 @@ public class Camera implements Named {
 		public Vertex getRenderScale(final AnimatedRenderEnvironment animatedRenderEnvironment) {
 			return AnimFlag.SCALE_IDENTITY;
 		}
+
+		@Override
+		public boolean getRenderRotation(final AnimatedRenderEnvironment animatedRenderEnvironment,
+				final AnimFlagSampler sampler, final float[] out) {
+			out[0] = out[1] = out[2] = 0;
+			out[3] = 1;
+			return true;
+		}
+
+		@Override
+		public boolean getRenderScale(final AnimatedRenderEnvironment animatedRenderEnvironment,
+				final AnimFlagSampler sampler, final float[] out) {
+			out[0] = out[1] = out[2] = 1;
+			return true;
+		}
 	}
 
 	public void setBindPose(final float[] bindPose) {
@@ -7,12 +7,16 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -59,7 +63,6 @@ import com.hiveworkshop.wc3.util.MathUtils;
 import com.hiveworkshop.wc3.util.ModelUtils;
 import com.hiveworkshop.wc3.util.ModelUtils.Mesh;
 
-import de.wc3data.stream.BlizzardDataInputStream;
 import de.wc3data.stream.BlizzardDataOutputStream;
 
 /**
@@ -453,8 +456,7 @@ public class EditableModel implements Named {
 					Double.parseDouble(entries[1]),
 					Double.parseDouble(entries[2].substring(0, entries[2].length() - 1))));
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error (on line " + c + "): Vertex coordinates could not be interpreted.");
+			MDLReader.warn("Error (on line " + c + "): Vertex coordinates could not be interpreted.");
 		}
 	}
 
@@ -473,7 +475,7 @@ public class EditableModel implements Named {
 				g.addTriangle(new Triangle(Integer.parseInt(s[t]), Integer.parseInt(s[t + 1]),
 						Integer.parseInt(s[t + 2]), g));
 			} catch (final NumberFormatException e) {
-				JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
+				MDLReader.warn(
 						"Error: Unable to interpret information in Triangles: " + s[t] + ", " + s[t + 1] + ", or "
 								+ s[t + 2]);
 			}
@@ -485,7 +487,7 @@ public class EditableModel implements Named {
 		try {
 			output = reader.readLine();
 		} catch (final IOException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(), "Error reading file.");
+			MDLReader.warn("Error reading file.");
 		}
 		c++;
 		if (output == null) {
@@ -945,8 +947,10 @@ public class EditableModel implements Named {
 	public static EditableModel read(final File f) {
 		if (f.getPath().toLowerCase().endsWith(".mdx")) {
 			// f = MDXHandler.convert(f);
-			try (BlizzardDataInputStream in = new BlizzardDataInputStream(new FileInputStream(f))) {
-				final EditableModel mdl = new EditableModel(MdxUtils.loadModel(in));
+			try {
+				// the whole file in one buffer, the chunks are read from it without a stream
+				final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(f.toPath()));
+				final EditableModel mdl = new EditableModel(MdxUtils.loadModel(buffer));
 				mdl.setFileRef(f);
 				return mdl;
 			} catch (final FileNotFoundException e) {
@@ -975,237 +979,260 @@ public class EditableModel implements Named {
 
 	public static EditableModel read(final InputStream f) {
 		try {
-			MDLReader.clearLineId();
-			BufferedReader mdl;
-			// try
-			// {
-			mdl = new BufferedReader(new InputStreamReader(f));
-			// }
-			// catch (final IOException e)
-			// {
-			// JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),"Attempted
-			// to read file, but file was not found.");
-			// return null;
-			// }
-			final EditableModel mdlr = new EditableModel();
-			String line = "";
-			while ((line = MDLReader.nextLineSpecial(mdl)).startsWith("//")) {
-				if (!line.contains("// Saved by Retera's MDL Toolkit on ")) {
-					mdlr.addToHeader(line);
-				}
-			}
-			if (!line.contains("Version")) {
-				JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(), "The file version is missing!");
-			}
-			line = MDLReader.nextLine(mdl);
-			mdlr.formatVersion = MDLReader.readInt(line);
-			if ((mdlr.formatVersion != 800) && (mdlr.formatVersion != 900) && (mdlr.formatVersion != 1000)) {
-				JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(), "The format version was confusing!");
-			}
-			line = MDLReader.nextLine(mdl);// this is "}" for format version
-			if (!line.startsWith("}")) // now I'll prove it
-			{ // gotta have that sense of humor, right?
-				JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-						"Model could not be understood. Program does not understand this type of file.");
-			}
-			line = MDLReader.nextLine(mdl);
-			mdlr.setName(MDLReader.readName(line));
-			MDLReader.mark(mdl);
-			while (!(line = MDLReader.nextLine(mdl)).startsWith("}")) {
-				if (line.contains("BlendTime")) {
-					mdlr.BlendTime = MDLReader.readInt(line);
-				} else if (line.contains("Extent")) {
-					MDLReader.reset(mdl);
-					mdlr.extents = ExtLog.read(mdl);
-				}
-				MDLReader.mark(mdl);
-			}
-			MDLReader.mark(mdl);
-			mdlr.anims = Sequences.read(mdl);
+			return parseMDL(f);
+		} catch (final Exception e) {
+			e.printStackTrace();
+			ExceptionPopup.display(e);
+			// pane.getStyledDocument().
+			// JOptionPane.showMessageDialog(null,newJTextPane(e));
+		}
+		return null;
+	}
 
-			// GlobalSequences
-			if (mdlr.anims.size() < 1) {
+	/**
+	 * Reads an MDL model without showing any dialogs, so that it can be called
+	 * from any thread. Problems the parser could work around are added to
+	 * warnings, the others are thrown.
+	 */
+	public static EditableModel read(final InputStream f, final List<String> warnings) throws IOException {
+		final MDLReader.ParseContext context = MDLReader.beginParse();
+		try {
+			return parseMDL(f);
+		} catch (final RuntimeException e) {
+			throw new IOException("Unable to parse model near line " + context.getLine() + ": " + e, e);
+		} finally {
+			warnings.addAll(context.getWarnings());
+			MDLReader.endParse(context);
+		}
+	}
+
+	private static EditableModel parseMDL(final InputStream f) {
+		MDLReader.clearLineId();
+		MdlTokenReader mdl;
+		// try
+		// {
+		mdl = new MdlTokenReader(f);
+		// }
+		// catch (final IOException e)
+		// {
+		// JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),"Attempted
+		// to read file, but file was not found.");
+		// return null;
+		// }
+		final EditableModel mdlr = new EditableModel();
+		String line = "";
+		while ((line = MDLReader.nextLineSpecial(mdl)).startsWith("//")) {
+			if (!line.contains("// Saved by Retera's MDL Toolkit on ")) {
+				mdlr.addToHeader(line);
+			}
+		}
+		if (!line.contains("Version")) {
+			MDLReader.warn("The file version is missing!");
+		}
+		line = MDLReader.nextLine(mdl);
+		mdlr.formatVersion = MDLReader.readInt(line);
+		if ((mdlr.formatVersion != 800) && (mdlr.formatVersion != 900) && (mdlr.formatVersion != 1000)) {
+			MDLReader.warn("The format version was confusing!");
+		}
+		line = MDLReader.nextLine(mdl);// this is "}" for format version
+		if (!line.startsWith("}")) // now I'll prove it
+		{ // gotta have that sense of humor, right?
+			MDLReader.warn("Model could not be understood. Program does not understand this type of file.");
+		}
+		line = MDLReader.nextLine(mdl);
+		mdlr.setName(MDLReader.readName(line));
+		MDLReader.mark(mdl);
+		while (!(line = MDLReader.nextLine(mdl)).startsWith("}")) {
+			if (line.contains("BlendTime")) {
+				mdlr.BlendTime = MDLReader.readInt(line);
+			} else if (line.contains("Extent")) {
 				MDLReader.reset(mdl);
+				mdlr.extents = ExtLog.read(mdl);
 			}
 			MDLReader.mark(mdl);
-			if ((line = MDLReader.nextLine(mdl)).contains("GlobalSequences")) {
-				while (!(line = MDLReader.nextLine(mdl)).startsWith("}")) {
-					if (line.contains("Duration")) {
-						mdlr.globalSeqs.add(new Integer(MDLReader.readInt(line)));
-					}
+		}
+		MDLReader.mark(mdl);
+		mdlr.anims = Sequences.read(mdl);
+
+		// GlobalSequences
+		if (mdlr.anims.size() < 1) {
+			MDLReader.reset(mdl);
+		}
+		MDLReader.mark(mdl);
+		if ((line = MDLReader.nextLine(mdl)).contains("GlobalSequences")) {
+			while (!(line = MDLReader.nextLine(mdl)).startsWith("}")) {
+				if (line.contains("Duration")) {
+					mdlr.globalSeqs.add(new Integer(MDLReader.readInt(line)));
 				}
-			} else {
-				MDLReader.reset(mdl);
 			}
-			mdlr.textures = Bitmap.readAll(mdl);
-			mdlr.materials = Material.readAll(mdl, mdlr);
-			mdlr.texAnims = TextureAnim.readAll(mdl);
-			if (mdlr.materials != null) {
-				final int sz = mdlr.materials.size();
-				for (int i = 0; i < sz; i++) {
-					mdlr.materials.get(i).updateTextureAnims(mdlr.texAnims);
-				}
+		} else {
+			MDLReader.reset(mdl);
+		}
+		mdlr.textures = Bitmap.readAll(mdl);
+		mdlr.materials = Material.readAll(mdl, mdlr);
+		mdlr.texAnims = TextureAnim.readAll(mdl);
+		if (mdlr.materials != null) {
+			final int sz = mdlr.materials.size();
+			for (int i = 0; i < sz; i++) {
+				mdlr.materials.get(i).updateTextureAnims(mdlr.texAnims);
 			}
+		}
+		MDLReader.mark(mdl);
+		boolean hadGeosets = false;
+		line = MDLReader.nextLine(mdl);
+		while (line.contains("Geoset ")) {
+			hadGeosets = true;
+			MDLReader.reset(mdl);
+			mdlr.addGeoset(Geoset.read(mdl));
 			MDLReader.mark(mdl);
-			boolean hadGeosets = false;
 			line = MDLReader.nextLine(mdl);
-			while (line.contains("Geoset ")) {
-				hadGeosets = true;
-				MDLReader.reset(mdl);
-				mdlr.addGeoset(Geoset.read(mdl));
-				MDLReader.mark(mdl);
-				line = MDLReader.nextLine(mdl);
-			}
-			// if( hadGeosets )
+		}
+		// if( hadGeosets )
+		MDLReader.reset(mdl);
+		MDLReader.mark(mdl);
+		boolean hadGeosetAnims = false;
+		while ((line = MDLReader.nextLine(mdl)).contains("GeosetAnim ")) {
+			hadGeosetAnims = true;
 			MDLReader.reset(mdl);
+			mdlr.addGeosetAnim(GeosetAnim.read(mdl));
 			MDLReader.mark(mdl);
-			boolean hadGeosetAnims = false;
-			while ((line = MDLReader.nextLine(mdl)).contains("GeosetAnim ")) {
-				hadGeosetAnims = true;
+		}
+		// if( hadGeosetAnims )
+		MDLReader.reset(mdl);
+		line = MDLReader.nextLine(mdl);
+		while ((line.length() > 1) && !line.equals("COMPLETED PARSING")) {
+			if (line.startsWith("Bone ")) {
 				MDLReader.reset(mdl);
-				mdlr.addGeosetAnim(GeosetAnim.read(mdl));
+				mdlr.addIdObject(Bone.read(mdl));
 				MDLReader.mark(mdl);
-			}
-			// if( hadGeosetAnims )
-			MDLReader.reset(mdl);
-			line = MDLReader.nextLine(mdl);
-			while ((line.length() > 1) && !line.equals("COMPLETED PARSING")) {
-				if (line.startsWith("Bone ")) {
-					MDLReader.reset(mdl);
-					mdlr.addIdObject(Bone.read(mdl));
-					MDLReader.mark(mdl);
-				} else if (line.contains("Light ")) {
-					MDLReader.reset(mdl);
-					mdlr.addIdObject(Light.read(mdl));
-					MDLReader.mark(mdl);
-				} else if (line.contains("Helper ")) {
-					MDLReader.reset(mdl);
-					mdlr.addIdObject(Helper.read(mdl));
-					MDLReader.mark(mdl);
-				} else if (line.contains("Attachment ")) {
-					MDLReader.reset(mdl);
-					mdlr.addIdObject(Attachment.read(mdl));
-					MDLReader.mark(mdl);
-				} else if (line.contains("ParticleEmitter ")) {
-					MDLReader.reset(mdl);
-					mdlr.addIdObject(ParticleEmitter.read(mdl));
-					MDLReader.mark(mdl);
-				} else if (line.contains("ParticleEmitter2 ")) {
-					MDLReader.reset(mdl);
-					final ParticleEmitter2 temp = ParticleEmitter2.read(mdl);
-					mdlr.addIdObject(temp);
-					temp.updateTextureRef(mdlr.textures);
-					MDLReader.mark(mdl);
-				} else if (line.contains("RibbonEmitter ")) {
-					MDLReader.reset(mdl);
-					final RibbonEmitter temp = RibbonEmitter.read(mdl);
-					mdlr.addIdObject(temp);
-					temp.updateMaterialRef(mdlr.materials);
-					MDLReader.mark(mdl);
-				} else if (line.contains("PopcornFxEmitter ") || line.contains("ParticleEmitterPopcorn ")) {
-					MDLReader.reset(mdl);
-					mdlr.addIdObject(ParticleEmitterPopcorn.read(mdl));
-					MDLReader.mark(mdl);
-				} else if (line.contains("Camera ")) {
-					MDLReader.reset(mdl);
-					mdlr.addCamera(Camera.read(mdl));
-					MDLReader.mark(mdl);
-				} else if (line.contains("EventObject ")) {
-					MDLReader.reset(mdl);
-					mdlr.addIdObject(EventObject.read(mdl));
-					MDLReader.mark(mdl);
-				} else if (line.contains("CollisionShape ")) {
-					MDLReader.reset(mdl);
-					mdlr.addIdObject(CollisionShape.read(mdl));
-					MDLReader.mark(mdl);
-				} else if (line.contains("PivotPoints ")) {
-					while (!(line = MDLReader.nextLine(mdl)).startsWith("}")) {
-						mdlr.addPivotPoint(Vertex.parseText(line));
+			} else if (line.contains("Light ")) {
+				MDLReader.reset(mdl);
+				mdlr.addIdObject(Light.read(mdl));
+				MDLReader.mark(mdl);
+			} else if (line.contains("Helper ")) {
+				MDLReader.reset(mdl);
+				mdlr.addIdObject(Helper.read(mdl));
+				MDLReader.mark(mdl);
+			} else if (line.contains("Attachment ")) {
+				MDLReader.reset(mdl);
+				mdlr.addIdObject(Attachment.read(mdl));
+				MDLReader.mark(mdl);
+			} else if (line.contains("ParticleEmitter ")) {
+				MDLReader.reset(mdl);
+				mdlr.addIdObject(ParticleEmitter.read(mdl));
+				MDLReader.mark(mdl);
+			} else if (line.contains("ParticleEmitter2 ")) {
+				MDLReader.reset(mdl);
+				final ParticleEmitter2 temp = ParticleEmitter2.read(mdl);
+				mdlr.addIdObject(temp);
+				temp.updateTextureRef(mdlr.textures);
+				MDLReader.mark(mdl);
+			} else if (line.contains("RibbonEmitter ")) {
+				MDLReader.reset(mdl);
+				final RibbonEmitter temp = RibbonEmitter.read(mdl);
+				mdlr.addIdObject(temp);
+				temp.updateMaterialRef(mdlr.materials);
+				MDLReader.mark(mdl);
+			} else if (line.contains("PopcornFxEmitter ") || line.contains("ParticleEmitterPopcorn ")) {
+				MDLReader.reset(mdl);
+				mdlr.addIdObject(ParticleEmitterPopcorn.read(mdl));
+				MDLReader.mark(mdl);
+			} else if (line.contains("Camera ")) {
+				MDLReader.reset(mdl);
+				mdlr.addCamera(Camera.read(mdl));
+				MDLReader.mark(mdl);
+			} else if (line.contains("EventObject ")) {
+				MDLReader.reset(mdl);
+				mdlr.addIdObject(EventObject.read(mdl));
+				MDLReader.mark(mdl);
+			} else if (line.contains("CollisionShape ")) {
+				MDLReader.reset(mdl);
+				mdlr.addIdObject(CollisionShape.read(mdl));
+				MDLReader.mark(mdl);
+			} else if (line.contains("PivotPoints ")) {
+				final double[] xyz = new double[3];
+				while (!mdl.atBlockEnd()) {
+					mdl.readVector(xyz);
+					mdlr.addPivotPoint(new Vertex(xyz[0], xyz[1], xyz[2]));
+				}
+				mdl.endBlock();
+				MDLReader.mark(mdl);
+			} else if (line.contains("FaceEffects ")) {
+				// This "FaceEffects " branch is for 2019-2020 RMS MDL format that was not
+				// consistent with Blizzard's format, and was invented to give us a way to edit
+				// models as text prior to obtaining the official version.
+				final FaceEffectsChunk.FaceEffect faceEffect = new FaceEffectsChunk.FaceEffect();
+				mdlr.faceEffects.add(faceEffect);
+				while (!(line = MDLReader.nextLine(mdl)).startsWith("}")) {
+					final String trimmedLine = line.trim();
+					if (trimmedLine.startsWith("Target")) {
+						faceEffect.faceEffectTarget = MDLReader.readName(line);
+					} else if (trimmedLine.startsWith("Path")) {
+						faceEffect.faceEffect = MDLReader.readName(line);
 					}
-					MDLReader.mark(mdl);
-				} else if (line.contains("FaceEffects ")) {
-					// This "FaceEffects " branch is for 2019-2020 RMS MDL format that was not
-					// consistent with Blizzard's format, and was invented to give us a way to edit
-					// models as text prior to obtaining the official version.
-					final FaceEffectsChunk.FaceEffect faceEffect = new FaceEffectsChunk.FaceEffect();
-					mdlr.faceEffects.add(faceEffect);
-					while (!(line = MDLReader.nextLine(mdl)).startsWith("}")) {
-						final String trimmedLine = line.trim();
-						if (trimmedLine.startsWith("Target")) {
-							faceEffect.faceEffectTarget = MDLReader.readName(line);
-						} else if (trimmedLine.startsWith("Path")) {
-							faceEffect.faceEffect = MDLReader.readName(line);
+				}
+				MDLReader.mark(mdl);
+			} else if (line.contains("FaceFX ")) {
+				MDLReader.reset(mdl);
+				mdlr.addFaceEffect(FaceEffect.read(mdl));
+				MDLReader.mark(mdl);
+			} else if (line.contains("BindPose ")) {
+				mdlr.bindPoseChunk = new BindPoseChunk();
+				final List<float[]> bindPoseElements = new ArrayList<>();
+				while (!(line = MDLReader.nextLine(mdl)).startsWith("}")) {
+					final String trimmedLine = line.trim();
+					if (trimmedLine.startsWith("Matrix")) {
+						final float[] matrix = new float[12];
+						for (int i = 0; i < 3; i++) {
+							parse4FloatBPos(MDLReader.nextLine(mdl), matrix, i);
 						}
-					}
-					MDLReader.mark(mdl);
-				} else if (line.contains("FaceFX ")) {
-					MDLReader.reset(mdl);
-					mdlr.addFaceEffect(FaceEffect.read(mdl));
-					MDLReader.mark(mdl);
-				} else if (line.contains("BindPose ")) {
-					mdlr.bindPoseChunk = new BindPoseChunk();
-					final List<float[]> bindPoseElements = new ArrayList<>();
-					while (!(line = MDLReader.nextLine(mdl)).startsWith("}")) {
-						final String trimmedLine = line.trim();
-						if (trimmedLine.startsWith("Matrix")) {
+						MDLReader.nextLine(mdl);
+						bindPoseElements.add(matrix);
+					} else if (trimmedLine.startsWith("Matrices")) {
+						while (!(line = MDLReader.nextLine(mdl)).trim().startsWith("}")) {
 							final float[] matrix = new float[12];
-							for (int i = 0; i < 3; i++) {
-								parse4FloatBPos(MDLReader.nextLine(mdl), matrix, i);
-							}
-							MDLReader.nextLine(mdl);
+							parse12FloatBPos(line, matrix);
 							bindPoseElements.add(matrix);
-						} else if (trimmedLine.startsWith("Matrices")) {
-							while (!(line = MDLReader.nextLine(mdl)).trim().startsWith("}")) {
-								final float[] matrix = new float[12];
-								parse12FloatBPos(line, matrix);
-								bindPoseElements.add(matrix);
-							}
-						} else {
-							throw new IllegalStateException("Bad tokens in BindPose chunk: " + line);
 						}
+					} else {
+						throw new IllegalStateException("Bad tokens in BindPose chunk: " + line);
 					}
-					mdlr.bindPoseChunk.bindPose = new float[bindPoseElements.size()][];
-					for (int i = 0; i < bindPoseElements.size(); i++) {
-						mdlr.bindPoseChunk.bindPose[i] = bindPoseElements.get(i);
-					}
-					MDLReader.mark(mdl);
 				}
-				line = MDLReader.nextLine(mdl);
-			}
-			mdlr.updateIdObjectReferences();
-			for (final Geoset geo : mdlr.geosets) {
-				geo.updateToObjects(mdlr);
-			}
-			for (final GeosetAnim geoAnim : mdlr.geosetAnims) {
-				if (geoAnim.geosetId != -1) {
-					geoAnim.geoset = mdlr.getGeoset(geoAnim.geosetId);
-					geoAnim.geoset.geosetAnim = geoAnim;// YEAH THIS MAKES SENSE
-				}
-			}
-			final List<AnimFlag> animFlags = mdlr.getAllAnimFlags();// laggggg!
-			for (final AnimFlag af : animFlags) {
-				af.updateGlobalSeqRef(mdlr);
-				if (!af.getName().equals("Scaling") && !af.getName().equals("Translation")
-						&& !af.getName().equals("Rotation")) {
+				mdlr.bindPoseChunk.bindPose = new float[bindPoseElements.size()][];
+				for (int i = 0; i < bindPoseElements.size(); i++) {
+					mdlr.bindPoseChunk.bindPose[i] = bindPoseElements.get(i);
 				}
+				MDLReader.mark(mdl);
 			}
-			final List<EventObject> evtObjs = mdlr.sortedIdObjects(EventObject.class);
-			for (final EventObject af : evtObjs) {
-				af.updateGlobalSeqRef(mdlr);
+			line = MDLReader.nextLine(mdl);
+		}
+		mdlr.updateIdObjectReferences();
+		for (final Geoset geo : mdlr.geosets) {
+			geo.updateToObjects(mdlr);
+		}
+		for (final GeosetAnim geoAnim : mdlr.geosetAnims) {
+			if (geoAnim.geosetId != -1) {
+				geoAnim.geoset = mdlr.getGeoset(geoAnim.geosetId);
+				geoAnim.geoset.geosetAnim = geoAnim;// YEAH THIS MAKES SENSE
 			}
-			try {
-				mdl.close();
-			} catch (final Exception e) {
-
+		}
+		final List<AnimFlag> animFlags = mdlr.getAllAnimFlags();// laggggg!
+		for (final AnimFlag af : animFlags) {
+			af.updateGlobalSeqRef(mdlr);
+			if (!af.getName().equals("Scaling") && !af.getName().equals("Translation")
+					&& !af.getName().equals("Rotation")) {
 			}
-			return mdlr;
+		}
+		final List<EventObject> evtObjs = mdlr.sortedIdObjects(EventObject.class);
+		for (final EventObject af : evtObjs) {
+			af.updateGlobalSeqRef(mdlr);
+		}
+		try {
+			mdl.close();
 		} catch (final Exception e) {
-			e.printStackTrace();
-			ExceptionPopup.display(e);
-			// pane.getStyledDocument().
-			// JOptionPane.showMessageDialog(null,newJTextPane(e));
+
 		}
-		return null;
+		return mdlr;
 	}
 
 	public static void parse4FloatBPos(final String input, final float[] output, final int offset) {
@@ -1213,22 +1240,19 @@ public class EditableModel implements Named {
 		try {
 			output[offset] = Float.parseFloat(entries[0].split("\\{")[1].trim());
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: BindPose Matrix could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: BindPose Matrix could not be interpreted.");
 		}
 		for (int i = 1; i < 3; i++) {
 			try {
 				output[offset + (i * 3)] = Float.parseFloat(entries[i].trim());
 			} catch (final NumberFormatException e) {
-				JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-						"Error {" + input + "}: BindPose Matrix could not be interpreted.");
+				MDLReader.warn("Error {" + input + "}: BindPose Matrix could not be interpreted.");
 			}
 		}
 		try {
 			output[offset + (3 * 3)] = Float.parseFloat(entries[3].split("}")[0].trim());
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: BindPose Matrix could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: BindPose Matrix could not be interpreted.");
 		}
 	}
 
@@ -1237,22 +1261,19 @@ public class EditableModel implements Named {
 		try {
 			output[0] = Float.parseFloat(entries[0].split("\\{")[1].trim());
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: BindPose Matrix could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: BindPose Matrix could not be interpreted.");
 		}
 		for (int i = 1; i < 11; i++) {
 			try {
 				output[i] = Float.parseFloat(entries[i].trim());
 			} catch (final NumberFormatException e) {
-				JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-						"Error {" + input + "}: BindPose Matrix could not be interpreted.");
+				MDLReader.warn("Error {" + input + "}: BindPose Matrix could not be interpreted.");
 			}
 		}
 		try {
 			output[11] = Float.parseFloat(entries[11].split("}")[0].trim());
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: BindPose Matrix could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: BindPose Matrix could not be interpreted.");
 		}
 	}
 
@@ -1327,8 +1348,9 @@ public class EditableModel implements Named {
 			}
 		}
 		try {
-			printTo(new FileOutputStream(baseFile));
-		} catch (final FileNotFoundException e) {
+			printTo(FileChannel.open(baseFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING));
+		} catch (final IOException e) {
 			throw new RuntimeException(e);
 		}
 
@@ -1338,16 +1360,18 @@ public class EditableModel implements Named {
 	}
 
 	public void printTo(final OutputStream outputStream) {
+		printTo(Channels.newChannel(outputStream));
+	}
+
+	/**
+	 * Writes the model as MDL text through an MdlWriter, and closes the channel.
+	 */
+	public void printTo(final WritableByteChannel channel) {
 		rebuildLists();
 		// If rebuilding the lists is to crash, then we want to crash the thread
 		// BEFORE clearing the file
 
-		PrintWriter writer = null;
-		try {
-			writer = new PrintWriter(outputStream);
-		} catch (final Exception e) {
-			JOptionPane.showMessageDialog(null, "Unable to save MDL to file.");
-		}
+		final PrintWriter writer = new MdlWriter(channel);
 
 		for (final String s : header) {
 			writer.println(s);
@@ -1535,7 +1559,9 @@ public class EditableModel implements Named {
 					|| (obj.getClass() == CollisionShape.class))) {
 				writer.println("PivotPoints " + pivots.size() + " {");
 				for (int p = 0; p < pivots.size(); p++) {
-					writer.println("\t" + pivots.get(p).toString() + ",");
+					writer.write('\t');
+					pivots.get(p).printTo(writer);
+					writer.println(',');
 				}
 				writer.println("}");
 				pivotsPrinted = true;
@@ -1553,7 +1579,9 @@ public class EditableModel implements Named {
 		if (!pivotsPrinted) {
 			writer.println("PivotPoints " + pivots.size() + " {");
 			for (int p = 0; p < pivots.size(); p++) {
-				writer.println("\t" + pivots.get(p).toString() + ",");
+				writer.write('\t');
+				pivots.get(p).printTo(writer);
+				writer.println(',');
 			}
 			writer.println("}");
 		}
@@ -5,8 +5,6 @@ import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.swing.JOptionPane;
-
 import com.hiveworkshop.wc3.gui.modeledit.CoordinateSystem;
 import com.hiveworkshop.wc3.gui.modelviewer.AnimatedRenderEnvironment;
 import com.hiveworkshop.wc3.mdl.v2.visitor.IdObjectVisitor;
@@ -128,7 +126,7 @@ public class EventObject extends IdObject {
 						e.globalSeqId = MDLReader.readInt(line);
 						e.hasGlobalSeq = true;
 					} else {
-						JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
+						MDLReader.warn(
 								"Error while parsing event object: More than one Global Sequence Id is present in the same object!");
 					}
 				} else if (!line.contains("{") && !line.contains("}")) {
@@ -139,8 +137,7 @@ public class EventObject extends IdObject {
 			}
 			return e;
 		} else {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Unable to parse EventObject: Missing or unrecognized open statement.");
+			MDLReader.warn("Unable to parse EventObject: Missing or unrecognized open statement.");
 		}
 		return null;
 	}
@@ -392,7 +389,7 @@ public class EventObject extends IdObject {
 
 	@Override
 	public Vertex getRenderTranslation(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Translation");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.TRANSLATION);
 		if (translationFlag != null) {
 			return (Vertex) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -401,7 +398,7 @@ public class EventObject extends IdObject {
 
 	@Override
 	public QuaternionRotation getRenderRotation(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Rotation");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.ROTATION);
 		if (translationFlag != null) {
 			return (QuaternionRotation) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -410,7 +407,7 @@ public class EventObject extends IdObject {
 
 	@Override
 	public Vertex getRenderScale(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Scaling");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.SCALING);
 		if (translationFlag != null) {
 			return (Vertex) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
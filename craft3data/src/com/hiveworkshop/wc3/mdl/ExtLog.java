@@ -3,8 +3,6 @@ package com.hiveworkshop.wc3.mdl;
 import java.io.BufferedReader;
 import java.io.PrintWriter;
 
-import javax.swing.JOptionPane;
-
 import com.hiveworkshop.wc3.mdx.GeosetChunk;
 
 /**
@@ -83,18 +81,15 @@ public class ExtLog {
 					try {
 						extLog.setBounds(Double.parseDouble(s));
 					} catch (final NumberFormatException e) {
-						JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-								"Error {" + s + "}: BoundsRadius could not be interpreted.");
+						MDLReader.warn("Error {" + s + "}: BoundsRadius could not be interpreted.");
 					}
 				} else {
-					JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-							"Unable to parse ExtLog; unrecognized input: " + line[i]);
+					MDLReader.warn("Unable to parse ExtLog; unrecognized input: " + line[i]);
 				}
 			}
 			return extLog;
 		} else {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Unable to parse ExtLog: Missing or unrecognized open statement.");
+			MDLReader.warn("Unable to parse ExtLog: Missing or unrecognized open statement.");
 		}
 		return null;
 	}
@@ -116,12 +111,10 @@ public class ExtLog {
 					try {
 						extLog.setBounds(Double.parseDouble(s));
 					} catch (final NumberFormatException e) {
-						JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-								"Error {" + s + "}: BoundsRadius could not be interpreted.");
+						MDLReader.warn("Error {" + s + "}: BoundsRadius could not be interpreted.");
 					}
 				} else {
-					JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-							"Unable to parse ExtLog; unrecognized input: " + line);
+					MDLReader.warn("Unable to parse ExtLog; unrecognized input: " + line);
 				}
 				MDLReader.mark(mdl);
 				line = MDLReader.nextLine(mdl);
@@ -129,8 +122,7 @@ public class ExtLog {
 			MDLReader.reset(mdl);
 			return extLog;
 		} else {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Unable to parse ExtLog: Missing or unrecognized open statement: " + line);
+			MDLReader.warn("Unable to parse ExtLog: Missing or unrecognized open statement: " + line);
 		}
 		return null;
 	}
@@ -355,22 +355,19 @@ public class Geoset implements Named, VisibilitySource {
 		try {
 			temp[0] = (byte) Short.parseShort(entries[0].split("\\{")[1].trim());
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: Skin data could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: Skin data could not be interpreted.");
 		}
 		for (int i = 1; i < 7; i++) {
 			try {
 				temp[i] = (byte) Short.parseShort(entries[i].trim());
 			} catch (final NumberFormatException e) {
-				JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-						"Error {" + input + "}: Skin data could not be interpreted.");
+				MDLReader.warn("Error {" + input + "}: Skin data could not be interpreted.");
 			}
 		}
 		try {
 			temp[7] = (byte) Short.parseShort(entries[7].split("}")[0].trim());
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: Skin data could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: Skin data could not be interpreted.");
 		}
 		return temp;
 	}
@@ -381,44 +378,100 @@ public class Geoset implements Named, VisibilitySource {
 		try {
 			temp[0] = Float.parseFloat(entries[0].split("\\{")[1].trim());
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: Tangent data could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: Tangent data could not be interpreted.");
 		}
 		for (int i = 1; i < 3; i++) {
 			try {
 				temp[i] = Float.parseFloat(entries[i].trim());
 			} catch (final NumberFormatException e) {
-				JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-						"Error {" + input + "}: Tangent data could not be interpreted.");
+				MDLReader.warn("Error {" + input + "}: Tangent data could not be interpreted.");
 			}
 		}
 		try {
 			temp[3] = Float.parseFloat(entries[3].split("}")[0].trim());
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: Tangent data could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: Tangent data could not be interpreted.");
 		}
 		return temp;
 	}
 
+	private static ArrayList<float[]> readTangents(final BufferedReader mdl, final MdlTokenReader tokens) {
+		final ArrayList<float[]> tangents = new ArrayList<>();
+		if (tokens != null) {
+			while (!tokens.atBlockEnd()) {
+				final float[] tangent = new float[4];
+				tokens.readVector(tangent);
+				tangents.add(tangent);
+			}
+			tokens.endBlock();
+		} else {
+			String line;
+			while (!((line = MDLReader.nextLine(mdl)).contains("\t}"))) {
+				tangents.add(parse4FloatTangent(line));
+			}
+		}
+		return tangents;
+	}
+
+	private static ArrayList<byte[]> readSkin(final BufferedReader mdl, final MdlTokenReader tokens) {
+		final ArrayList<byte[]> skin = new ArrayList<>();
+		if (tokens != null) {
+			while (!tokens.atBlockEnd()) {
+				final byte[] entry = new byte[8];
+				tokens.expect('{');
+				for (int i = 0; i < entry.length; i++) {
+					entry[i] = (byte) tokens.readInt();
+				}
+				tokens.expect('}');
+				skin.add(entry);
+			}
+			tokens.endBlock();
+		} else {
+			String line;
+			while (!((line = MDLReader.nextLine(mdl)).contains("\t}"))) {
+				skin.add(parse8ByteSkin(line));
+			}
+		}
+		return skin;
+	}
+
 	public static Geoset read(final BufferedReader mdl) {
+		// the bulk of the geoset is read as tokens if the reader can
+		final MdlTokenReader tokens = mdl instanceof MdlTokenReader ? (MdlTokenReader) mdl : null;
 		String line = MDLReader.nextLine(mdl);
 		if (line.contains("Geoset")) {
 			line = MDLReader.nextLine(mdl);
 			final Geoset geo = new Geoset();
 			if (!line.contains("Vertices")) {
-				JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-						"Error: Vertices not found at beginning of Geoset!");
+				MDLReader.warn("Error: Vertices not found at beginning of Geoset!");
 			}
-			while (!((line = MDLReader.nextLine(mdl)).contains("\t}"))) {
-				geo.addVertex(GeosetVertex.parseText(line));
+			if (tokens != null) {
+				final double[] xyz = new double[3];
+				while (!tokens.atBlockEnd()) {
+					tokens.readVector(xyz);
+					geo.addVertex(new GeosetVertex(xyz[0], xyz[1], xyz[2]));
+				}
+				tokens.endBlock();
+			} else {
+				while (!((line = MDLReader.nextLine(mdl)).contains("\t}"))) {
+					geo.addVertex(GeosetVertex.parseText(line));
+				}
 			}
 			MDLReader.mark(mdl);
 			line = MDLReader.nextLine(mdl);
 			if (line.contains("Normals")) {
 				// If we have normals:
-				while (!((line = MDLReader.nextLine(mdl)).contains("\t}"))) {
-					geo.addNormal(Normal.parseText(line));
+				if (tokens != null) {
+					final double[] xyz = new double[3];
+					while (!tokens.atBlockEnd()) {
+						tokens.readVector(xyz);
+						geo.addNormal(new Normal(xyz[0], xyz[1], xyz[2]));
+					}
+					tokens.endBlock();
+				} else {
+					while (!((line = MDLReader.nextLine(mdl)).contains("\t}"))) {
+						geo.addNormal(Normal.parseText(line));
+					}
 				}
 			} else {
 				MDLReader.reset(mdl);
@@ -428,67 +481,61 @@ public class Geoset implements Named, VisibilitySource {
 			}
 			if (line.contains("Tangents")) {
 				// If we have v900 tangents:
-				geo.tangents = new ArrayList<>();
-				while (!((line = MDLReader.nextLine(mdl)).contains("\t}"))) {
-					geo.tangents.add(parse4FloatTangent(line));
-				}
+				geo.tangents = readTangents(mdl, tokens);
 				MDLReader.mark(mdl);
 				line = MDLReader.nextLine(mdl);
 			}
 			if (line.contains("Skin")) {
 				// If we have v900 skin:
-				geo.skin = new ArrayList<>();
-				while (!((line = MDLReader.nextLine(mdl)).contains("\t}"))) {
-					geo.skin.add(parse8ByteSkin(line));
-				}
+				geo.skin = readSkin(mdl, tokens);
 				MDLReader.mark(mdl);
 				line = MDLReader.nextLine(mdl);
 			}
 			if (!line.contains("VertexGroup")) {
-				JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-						"Error: VertexGroups missing or invalid!");
+				MDLReader.warn("Error: VertexGroups missing or invalid!");
 			}
 			int i = 0;
-			while (!((line = MDLReader.nextLine(mdl)).contains("\t}"))) {
-				geo.getVertex(i).setVertexGroup(MDLReader.readInt(line));
-				i++;
+			if (tokens != null) {
+				while (!tokens.atBlockEnd()) {
+					geo.getVertex(i).setVertexGroup(tokens.readInt());
+					i++;
+				}
+				tokens.endBlock();
+			} else {
+				while (!((line = MDLReader.nextLine(mdl)).contains("\t}"))) {
+					geo.getVertex(i).setVertexGroup(MDLReader.readInt(line));
+					i++;
+				}
 			}
 			line = MDLReader.nextLine(mdl);
 
 			if (line.contains("Tangents")) {
 				// If we have v900 tangents:
-				geo.tangents = new ArrayList<>();
-				while (!((line = MDLReader.nextLine(mdl)).contains("\t}"))) {
-					geo.tangents.add(parse4FloatTangent(line));
-				}
+				geo.tangents = readTangents(mdl, tokens);
 				MDLReader.mark(mdl);
 				line = MDLReader.nextLine(mdl);
 			}
 			if (line.contains("Skin")) {
 				// If we have v900 skin:
-				geo.skin = new ArrayList<>();
-				while (!((line = MDLReader.nextLine(mdl)).contains("\t}"))) {
-					geo.skin.add(parse8ByteSkin(line));
-				}
+				geo.skin = readSkin(mdl, tokens);
 				MDLReader.mark(mdl);
 				line = MDLReader.nextLine(mdl);
 			}
 
 			if (!line.contains("Faces")) {
-				JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(), "Error: Faces missing or invalid!");
+				MDLReader.warn("Error: Faces missing or invalid!");
 			}
 			line = MDLReader.nextLine(mdl);
 			if (!line.contains("Triangles")) {
 				System.out.println("No triangles: " + line);
-				JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(), "Error: Triangles missing or invalid!");
+				MDLReader.warn("Error: Triangles missing or invalid!");
 			}
 			geo.setTriangles(Triangle.read(mdl, geo));
 			line = MDLReader.nextLine(mdl);// Throw away the \t} closer for
 											// faces
 			line = MDLReader.nextLine(mdl);
 			if (!line.contains("Groups")) {
-				JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-						"Error: Groups (Matrices) missing or invalid!");
+				MDLReader.warn("Error: Groups (Matrices) missing or invalid!");
 			}
 			while (!((line = MDLReader.nextLine(mdl)).contains("\t}"))) {
 				geo.addMatrix(Matrix.parseText(line));
@@ -526,8 +573,7 @@ public class Geoset implements Named, VisibilitySource {
 
 			return geo;
 		} else {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Unable to parse Geoset: Missing or unrecognized open statement '" + line + "'.");
+			MDLReader.warn("Unable to parse Geoset: Missing or unrecognized open statement '" + line + "'.");
 		}
 		return null;
 	}
@@ -574,7 +620,7 @@ public class Geoset implements Named, VisibilitySource {
 				try {
 					gv.addTVertex(uvlayers.get(l).getTVertex(i));
 				} catch (final Exception e) {
-					JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
+					MDLReader.warn(
 							"Error: Length of TVertices and Vertices chunk differ (Or some other unknown error has occurred)!");
 				}
 			}
@@ -610,7 +656,7 @@ public class Geoset implements Named, VisibilitySource {
 		try {
 			material = mdlr.getMaterial(materialID);
 		} catch (final ArrayIndexOutOfBoundsException e) {
-			JOptionPane.showMessageDialog(null, "Error: Material index out of bounds for geoset!");
+			MDLReader.warn("Error: Material index out of bounds for geoset!");
 		}
 		parentModel = mdlr;
 	}
@@ -712,7 +758,9 @@ public class Geoset implements Named, VisibilitySource {
 			uvlayers.add(new UVLayer());
 		}
 		for (int i = 0; i < vertex.size(); i++) {
-			writer.println(tabs + vertex.get(i).toString() + ",");
+			writer.write(tabs);
+			vertex.get(i).printTo(writer);
+			writer.println(',');
 			if (vertex.get(i).getNormal() != null) {
 				normals.add(vertex.get(i).getNormal());
 			}
@@ -738,7 +786,9 @@ public class Geoset implements Named, VisibilitySource {
 			}
 			writer.println("\tNormals " + normals.size() + " {");
 			for (int i = 0; i < normals.size(); i++) {
-				writer.println(tabs + normals.get(i).toString() + ",");
+				writer.write(tabs);
+				normals.get(i).printTo(writer);
+				writer.println(',');
 			}
 			writer.println("\t}");
 		}
@@ -799,65 +849,58 @@ public class Geoset implements Named, VisibilitySource {
 		if (!printTangentsToFile) {
 			for (int i = 0; i < vertex.size(); i++) {
 				final GeosetVertex geosetVertex = vertex.get(i);
-				writer.println(tabs + geosetVertex.VertexGroup + ",");
+				writer.write(tabs);
+				MdlWriter.printInt(writer, geosetVertex.VertexGroup);
+				writer.println(',');
 			}
 		}
 		writer.println("\t}");
 		if (printTangentsToFile) {
 			writer.println("\tTangents " + vertex.size() + " {");
-			final StringBuilder tangentBuilder = new StringBuilder();
 			for (int i = 0; i < vertex.size(); i++) {
-				tangentBuilder.setLength(0);
-				for (int j = 0; j < 3; j++) {
-					tangentBuilder.append(MDLReader.doubleToString(vertex.get(i).getTangent()[j]));
-					tangentBuilder.append(", ");
-				}
-				tangentBuilder.append(MDLReader.doubleToString(vertex.get(i).getTangent()[3]));
-				writer.println(tabs + "{ " + tangentBuilder.toString() + " },");
+				final float[] tangent = vertex.get(i).getTangent();
+				writer.write(tabs);
+				MdlWriter.printVector(writer, tangent[0], tangent[1], tangent[2], tangent[3]);
+				writer.println(',');
 			}
 			writer.println("\t}");
 			writer.println("\tSkinWeights " + vertex.size() + " {");
-			final StringBuilder skinBuilder = new StringBuilder();
 			for (int i = 0; i < vertex.size(); i++) {
-				skinBuilder.setLength(0);
+				writer.write(tabs);
+				writer.write("{ ");
 				for (int j = 0; j < 4; j++) {
-					short skinBoneIndex = vertex.get(i).getSkinBoneIndexes()[j];
-					if (skinBoneIndex < 0) {
-						skinBoneIndex += 256;
-					}
-					skinBuilder.append(skinBoneIndex);
-					skinBuilder.append(", ");
+					MdlWriter.printInt(writer, vertex.get(i).getSkinBoneIndexes()[j] & 0xFF);
+					writer.write(", ");
 				}
 				for (int j = 0; j < 3; j++) {
-					skinBuilder.append(vertex.get(i).getSkinBoneWeights()[j]);
-					skinBuilder.append(", ");
+					MdlWriter.printInt(writer, vertex.get(i).getSkinBoneWeights()[j]);
+					writer.write(", ");
 				}
-				skinBuilder.append(vertex.get(i).getSkinBoneWeights()[3]);
-				writer.println(tabs + "{ " + skinBuilder.toString() + " },");
+				MdlWriter.printInt(writer, vertex.get(i).getSkinBoneWeights()[3]);
+				writer.println(" },");
 			}
 			writer.println("\t}");
 		}
 		if (trianglesTogether) {
 			writer.println("\tFaces 1 " + (triangles.size() * 3) + " {");
 			writer.println("\t\tTriangles {");
-			String triangleOut = "\t\t\t{ ";
+			// streamed, the whole list is one line that can be megabytes long
+			writer.write("\t\t\t{ ");
 			for (int i = 0; i < triangles.size(); i++) {
 				triangles.get(i).updateVertexIds(this);
-				if (i != (triangles.size() - 1)) {
-					triangleOut = triangleOut + triangles.get(i).toString() + ", ";
-				} else {
-					triangleOut = triangleOut + triangles.get(i).toString() + " ";
-				}
+				triangles.get(i).printTo(writer);
+				writer.write(i != (triangles.size() - 1) ? ", " : " ");
 			}
-			writer.println(triangleOut + "},");
+			writer.println("},");
 			writer.println("\t\t}");
 		} else {
 			writer.println("\tFaces " + triangles.size() + " " + (triangles.size() * 3) + " {");
 			writer.println("\t\tTriangles {");
-			final String triangleOut = "\t\t\t{ ";
 			for (int i = 0; i < triangles.size(); i++) {
 				triangles.get(i).updateVertexIds(this);
-				writer.println(triangleOut + triangles.get(i).toString() + " },");
+				writer.write("\t\t\t{ ");
+				triangles.get(i).printTo(writer);
+				writer.println(" },");
 			}
 			writer.println("\t\t}");
 		}
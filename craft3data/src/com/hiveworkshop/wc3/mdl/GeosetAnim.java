@@ -103,8 +103,7 @@ public class GeosetAnim implements VisibilitySource, Named {
 			}
 			return geo;
 		} else {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Unable to parse GeosetAnim: Missing or unrecognized open statement.");
+			MDLReader.warn("Unable to parse GeosetAnim: Missing or unrecognized open statement.");
 		}
 		return null;
 	}
@@ -3,8 +3,6 @@ package com.hiveworkshop.wc3.mdl;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.swing.JOptionPane;
-
 /**
  * GeosetVertex is a extended version of the Vertex class, for use strictly
  * inside of Geosets. The idea is that a Vertex object is used all over this
@@ -146,8 +144,7 @@ public class GeosetVertex extends Vertex {
 		try {
 			matrixRef = list.get(VertexGroup);
 		} catch (final Exception e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error in Matrices: VertexGroup does not reference a real matrix id!");
+			MDLReader.warn("Error in Matrices: VertexGroup does not reference a real matrix id!");
 		}
 	}
 
@@ -172,20 +169,17 @@ public class GeosetVertex extends Vertex {
 		try {
 			x = Double.parseDouble(entries[0].split("\\{")[1]);
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: Vertex coordinates could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: Vertex coordinates could not be interpreted.");
 		}
 		try {
 			y = Double.parseDouble(entries[1]);
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: Vertex coordinates could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: Vertex coordinates could not be interpreted.");
 		}
 		try {
 			z = Double.parseDouble(entries[2].split("}")[0]);
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: Vertex coordinates could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: Vertex coordinates could not be interpreted.");
 		}
 		temp = new GeosetVertex(x, y, z);
 		return temp;
@@ -2,8 +2,6 @@ package com.hiveworkshop.wc3.mdl;
 
 import java.io.BufferedReader;
 
-import javax.swing.JOptionPane;
-
 import com.hiveworkshop.wc3.mdl.v2.visitor.IdObjectVisitor;
 import com.hiveworkshop.wc3.mdx.HelperChunk;
 
@@ -65,8 +63,7 @@ public class Helper extends Bone// Haha blizz
 						if (field.equals("Multiple")) {
 							b.multiGeoId = true;
 						} else {
-							JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-									"Error while parsing: Could not interpret integer from: " + line);
+							MDLReader.warn("Error while parsing: Could not interpret integer from: " + line);
 						}
 					}
 				} else if (line.contains("GeosetAnimId")) {
@@ -79,8 +76,7 @@ public class Helper extends Bone// Haha blizz
 						if (field.equals("None")) {
 							b.geosetAnim = null;
 						} else {
-							JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-									"Error while parsing: Could not interpret integer from: " + line);
+							MDLReader.warn("Error while parsing: Could not interpret integer from: " + line);
 						}
 					}
 				} else if (line.contains("Parent")) {
@@ -99,8 +95,7 @@ public class Helper extends Bone// Haha blizz
 			}
 			return b;
 		} else {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Unable to parse Bone: Missing or unrecognized open statement.");
+			MDLReader.warn("Unable to parse Bone: Missing or unrecognized open statement.");
 		}
 		return null;
 	}
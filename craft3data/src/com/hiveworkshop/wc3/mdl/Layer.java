@@ -452,6 +452,7 @@ public class Layer implements Named, VisibilitySource, LayerView {
 				txFlag.values.set(i, newerTextureId);
 				ridiculouslyWrongTextureIDToTexture.put(newerTextureId, textureFoundFromDirtyId);
 			}
+			txFlag.invalidateTrack();
 		}
 	}
 
@@ -540,8 +541,7 @@ public class Layer implements Named, VisibilitySource, LayerView {
 			}
 			return lay;
 		} else {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Unable to parse Layer: Missing or unrecognized open statement.");
+			MDLReader.warn("Unable to parse Layer: Missing or unrecognized open statement.");
 		}
 		return null;
 	}
@@ -4,15 +4,77 @@ import java.awt.Component;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 import javax.swing.JOptionPane;
 
 public class MDLReader {
-	static int c = 0;
-	static int markc = 0;
-	static int lastMark = 0;
-	static int followMarks = 0;
+	private static final ThreadLocal<ParseContext> CONTEXT = ThreadLocal
+			.withInitial(() -> new ParseContext(null, null));
+
+	/**
+	 * The state of one MDL parse: the line counters used by mark and reset, and
+	 * the warnings found so far. Every thread has its own context, so models can
+	 * be parsed on several threads at once.
+	 */
+	public static final class ParseContext {
+		private final ParseContext previous;
+		private final List<String> warnings;
+		private int c = 0;
+		private int markc = 0;
+		private int lastMark = 0;
+		private int followMarks = 0;
+
+		private ParseContext(final ParseContext previous, final List<String> warnings) {
+			this.previous = previous;
+			this.warnings = warnings;
+		}
+
+		/**
+		 * @return the number of lines read so far
+		 */
+		public int getLine() {
+			return c;
+		}
+
+		public List<String> getWarnings() {
+			return warnings == null ? Collections.<String>emptyList() : Collections.unmodifiableList(warnings);
+		}
+	}
+
+	/**
+	 * Starts a parse on the current thread that collects its warnings instead of
+	 * showing them in dialogs. Has to be followed by {@link #endParse(ParseContext)}.
+	 */
+	public static ParseContext beginParse() {
+		final ParseContext context = new ParseContext(CONTEXT.get(), new ArrayList<String>());
+		CONTEXT.set(context);
+		return context;
+	}
+
+	/**
+	 * Ends a parse started with {@link #beginParse()}, the enclosing parse (if
+	 * any) continues where it was.
+	 */
+	public static void endParse(final ParseContext context) {
+		CONTEXT.set(context.previous);
+	}
+
+	/**
+	 * Reports a problem with the data being parsed. During a parse started with
+	 * {@link #beginParse()} the message is collected, otherwise it is shown to the
+	 * user as before.
+	 */
+	public static void warn(final String message) {
+		final ParseContext context = CONTEXT.get();
+		if (context.warnings != null) {
+			context.warnings.add(message);
+		} else {
+			JOptionPane.showMessageDialog(getDefaultContainer(), message);
+		}
+	}
 
 	public static String readName(final String line) {
 		// Obtains quoted information from a line
@@ -87,8 +149,7 @@ public class MDLReader {
 		try {
 			out = Double.parseDouble(ex[ex.length - 1].split(",")[0]);
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error while parsing: Could not interpret double from: " + line);
+			MDLReader.warn("Error while parsing: Could not interpret double from: " + line);
 		}
 		return out;
 	}
@@ -188,14 +249,15 @@ public class MDLReader {
 	}
 
 	public static String nextLineSpecial(final BufferedReader reader) {
-		c++;
+		CONTEXT.get().c++;
 		String output = "";
 		try {
 			output = reader.readLine();
 //             System.out.println(output);
 		} catch (final IOException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(), "Error reading file.");
+			MDLReader.warn("Error reading file.");
 		}
+		syncLine(reader);
 		if (output == null) {
 			output = "COMPLETED PARSING";
 		}
@@ -203,14 +265,15 @@ public class MDLReader {
 	}
 
 	public static String nextLine(final BufferedReader reader) {
-		c++;
+		CONTEXT.get().c++;
 		String output = "";
 		try {
 			output = reader.readLine();
 //             System.out.println(output);
 		} catch (final IOException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(), "Error reading file.");
+			MDLReader.warn("Error reading file.");
 		}
+		syncLine(reader);
 		if (output == null) {
 			output = "COMPLETED PARSING";
 		} else if (output.contains("//")) {
@@ -219,13 +282,28 @@ public class MDLReader {
 		return output;
 	}
 
+	/**
+	 * A token reader also reads lines without nextLine, the line count is taken
+	 * from it so that it stays right.
+	 */
+	private static void syncLine(final BufferedReader reader) {
+		if (reader instanceof MdlTokenReader) {
+			setLine(((MdlTokenReader) reader).getLine());
+		}
+	}
+
+	static void setLine(final int line) {
+		CONTEXT.get().c = line;
+	}
+
 	public static void reset(final BufferedReader reader) {
+		final ParseContext context = CONTEXT.get();
 		// System.out.println("Line reset from line "+c+" back to line "+markc);
-		if ((c == (markc + 1)) && (markc == lastMark)) {
-			lastMark = markc;
-			followMarks++;
+		if ((context.c == (context.markc + 1)) && (context.markc == context.lastMark)) {
+			context.lastMark = context.markc;
+			context.followMarks++;
 		} else {
-			followMarks = 0;
+			context.followMarks = 0;
 		}
 //		if (followMarks > 30) {
 //			throw new RuntimeException(
@@ -234,21 +312,21 @@ public class MDLReader {
 		try {
 			reader.reset();
 		} catch (final IOException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Critical error in IO: Maybe length between line " + markc + " and line " + c
-							+ " got longer than expected?\nPortions of model data will be lost.");
+			MDLReader.warn("Critical error in IO: Maybe length between line " + context.markc + " and line "
+					+ context.c + " got longer than expected?\nPortions of model data will be lost.");
 			System.out.println("Line reset error: " + e);
 		}
-		c = markc;
+		context.c = context.markc;
 	}
 
 	public static void mark(final BufferedReader reader, final int m) {
 		// System.out.println("Line mark at line "+c+" of size "+m);
-		markc = c;
+		final ParseContext context = CONTEXT.get();
+		context.markc = context.c;
 		try {
 			reader.mark(m);
 		} catch (final IOException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
+			MDLReader.warn(
 					"Critical error: Read/write abilities lost. Loading will possibly be severely damaged and disfunctional.");
 			System.out.println("Mark error: " + e);
 //             System.out.println(e);
@@ -264,8 +342,9 @@ public class MDLReader {
 	}
 
 	public static void clearLineId() {
-		c = 0;
-		markc = 0;
+		final ParseContext context = CONTEXT.get();
+		context.c = 0;
+		context.markc = 0;
 	}
 
 	public static int[] splitToIntsMath(final String s) {
@@ -455,7 +534,7 @@ public class MDLReader {
 	public static String doubleToString(final double n) {
 		String base = ((float) n + "").toLowerCase();
 		if (base.equals("nan")) {
-			JOptionPane.showMessageDialog(null, "Major problems with numeric data.");
+			warn("Major problems with numeric data.");
 			new Exception().printStackTrace();
 			base = "0";
 		}
@@ -8,8 +8,6 @@ import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.swing.JOptionPane;
-
 import com.hiveworkshop.wc3.gui.BLPHandler;
 import com.hiveworkshop.wc3.gui.datachooser.DataSource;
 import com.hiveworkshop.wc3.mdl.v2.MaterialView;
@@ -267,8 +265,7 @@ public class Material implements MaterialView {
 			}
 			return mat;
 		} else {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Unable to parse Material: Missing or unrecognized open statement.");
+			MDLReader.warn("Unable to parse Material: Missing or unrecognized open statement.");
 		}
 		return null;
 	}
@@ -157,22 +157,19 @@ public class Matrix {
 			try {
 				boneId[0] = (int) Long.parseLong(entries[0].split("\\{")[1].split("}")[0].split(" ")[1]);
 			} catch (final NumberFormatException e) {
-				JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-						"Error \"" + input + "\": Matrix data could not be interpreted.");
+				MDLReader.warn("Error \"" + input + "\": Matrix data could not be interpreted.");
 			}
 		} else {
 			try {
 				boneId[0] = (int) Long.parseLong(entries[0].split("\\{")[1].split(" ")[1]);
 			} catch (final NumberFormatException e) {
-				JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-						"Error \"" + input + "\": Matrix data could not be interpreted.");
+				MDLReader.warn("Error \"" + input + "\": Matrix data could not be interpreted.");
 			}
 			for (int i = 1; i < size; i++) {
 				try {
 					boneId[i] = (int) Long.parseLong(entries[i].split(" ")[1]);
 				} catch (final NumberFormatException e) {
-					JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-							"Error \"" + input + "\": Matrix data could not be interpreted.");
+					MDLReader.warn("Error \"" + input + "\": Matrix data could not be interpreted.");
 				}
 			}
 		}
@@ -0,0 +1,698 @@
+package com.hiveworkshop.wc3.mdl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads MDL text straight from the bytes of a stream. The chunk parsers still
+ * read most of a file line by line through readLine, mark and reset, but the
+ * bulk of a model (vertices, faces, keyframes) is read with the token methods,
+ * which parse numbers from the byte buffer without making a String per line or
+ * per number. Tokens are separated by whitespace, commas and colons, and "//"
+ * comments are skipped. Problems are reported with the line and column where
+ * they were found.
+ *
+ * The Reader methods decode the same buffer as readLine does and share its
+ * position and line count with the token methods, so they can be mixed at any
+ * point. The BufferedReader this extends is never read from; it only lets the
+ * reader be passed to the parsers that take a BufferedReader. The token methods
+ * throw an UncheckedIOException if the stream cannot be read, so that they can
+ * be used from the chunk parsers.
+ */
+public class MdlTokenReader extends BufferedReader {
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final int MAX_EXACT_DOUBLE_POWER = 22;
+	private static final int MAX_EXACT_FLOAT_POWER = 10;
+	private static final long MAX_EXACT_DOUBLE_MANTISSA = 1L << 53;
+	private static final long MAX_EXACT_FLOAT_MANTISSA = 1L << 24;
+	private static final double[] DOUBLE_POWERS_OF_TEN = new double[MAX_EXACT_DOUBLE_POWER + 1];
+	private static final float[] FLOAT_POWERS_OF_TEN = new float[MAX_EXACT_FLOAT_POWER + 1];
+	static {
+		DOUBLE_POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < DOUBLE_POWERS_OF_TEN.length; i++) {
+			DOUBLE_POWERS_OF_TEN[i] = DOUBLE_POWERS_OF_TEN[i - 1] * 10;
+		}
+		FLOAT_POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < FLOAT_POWERS_OF_TEN.length; i++) {
+			FLOAT_POWERS_OF_TEN[i] = FLOAT_POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+
+	private final InputStream in;
+	private final Charset charset;
+	private byte[] buffer = new byte[BUFFER_SIZE];
+	private int position;
+	private int limit;
+	private int line;
+	private int lineStart;
+
+	private int markPosition = -1;
+	private int markLimit;
+	private int markLine;
+	private int markLineStart;
+	private int markLowSurrogate;
+
+	// the second char of a surrogate pair decoded by read, returned by the next read
+	private int lowSurrogate = -1;
+	private CharsetDecoder decoder;
+	private final char[] decoded = new char[2];
+
+	// the last number token, filled by scanNumber
+	private long mantissa;
+	private int exponent;
+	private boolean negative;
+	private boolean exact;
+	private int tokenStart;
+	private int tokenEnd;
+
+	/**
+	 * Decodes lines in the platform charset, like the InputStreamReader used to
+	 * read MDL files before.
+	 */
+	public MdlTokenReader(final InputStream in) {
+		this(in, Charset.defaultCharset());
+	}
+
+	public MdlTokenReader(final InputStream in, final Charset charset) {
+		super(new StringReader(""));
+		this.in = in;
+		this.charset = charset;
+	}
+
+	/**
+	 * @return the number of lines read so far
+	 */
+	public int getLine() {
+		return line;
+	}
+
+	/**
+	 * @return the line and column of the next byte to be read, both counted
+	 *         from 1
+	 */
+	public String getPosition() {
+		return "line " + (line + 1) + ", column " + ((position - lineStart) + 1);
+	}
+
+	/**
+	 * Reports a problem at the current position through MDLReader.warn.
+	 */
+	public void warn(final String message) {
+		MDLReader.warn("Line " + (line + 1) + ", column " + ((position - lineStart) + 1) + ": " + message);
+	}
+
+	@Override
+	public String readLine() throws IOException {
+		if (lowSurrogate >= 0) {
+			final char c = (char) lowSurrogate;
+			lowSurrogate = -1;
+			final String rest = readLine();
+			return rest == null ? String.valueOf(c) : c + rest;
+		}
+		if (!ensure(1)) {
+			return null;
+		}
+		int end = position;
+		int highBits = 0;
+		while (true) {
+			if (end == limit) {
+				// filling moves the bytes, the line starts at position
+				final int scanned = end - position;
+				if (!fill()) {
+					end = limit;
+					break;
+				}
+				end = position + scanned;
+				continue;
+			}
+			final byte b = buffer[end];
+			if ((b == '\n') || (b == '\r')) {
+				break;
+			}
+			highBits |= b;
+			end++;
+		}
+		final int lineBegin = position;
+		final int length = end - position;
+		final String text = highBits < 0 ? new String(buffer, lineBegin, length, charset)
+				: new String(buffer, lineBegin, length, StandardCharsets.ISO_8859_1);
+		position = end;
+		if (ensure(1)) {
+			if (buffer[position] == '\r') {
+				position++;
+				if (ensure(1) && (buffer[position] == '\n')) {
+					position++;
+				}
+			} else {
+				position++;
+			}
+		}
+		newLine();
+		return text;
+	}
+
+	@Override
+	public void mark(final int readAheadLimit) {
+		markPosition = position;
+		markLimit = readAheadLimit;
+		markLine = line;
+		markLineStart = lineStart;
+		markLowSurrogate = lowSurrogate;
+	}
+
+	@Override
+	public void reset() throws IOException {
+		if (markPosition < 0) {
+			throw new IOException("Mark invalid");
+		}
+		position = markPosition;
+		line = markLine;
+		lineStart = markLineStart;
+		lowSurrogate = markLowSurrogate;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return true;
+	}
+
+	@Override
+	public boolean ready() throws IOException {
+		return (position < limit) || (in.available() > 0);
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (lowSurrogate >= 0) {
+			final int c = lowSurrogate;
+			lowSurrogate = -1;
+			return c;
+		}
+		if (!ensure(1)) {
+			return -1;
+		}
+		final byte b = buffer[position];
+		if (b < 0) {
+			return decodeCharacter();
+		}
+		position++;
+		// "\r\n" is one line end, counted at the '\n' like readLine does
+		if ((b == '\n') || ((b == '\r') && (peek() != '\n'))) {
+			newLine();
+		}
+		return b;
+	}
+
+	@Override
+	public int read(final char[] cbuf, final int off, final int len) throws IOException {
+		if ((off < 0) || (len < 0) || (len > (cbuf.length - off))) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (len == 0) {
+			return 0;
+		}
+		int count = 0;
+		while (count < len) {
+			// after the first char only what is already buffered, like BufferedReader
+			if ((count > 0) && (lowSurrogate < 0) && (position == limit)) {
+				break;
+			}
+			final int c = read();
+			if (c < 0) {
+				break;
+			}
+			cbuf[off + count] = (char) c;
+			count++;
+		}
+		return count == 0 ? -1 : count;
+	}
+
+	@Override
+	public long skip(final long n) throws IOException {
+		if (n < 0) {
+			throw new IllegalArgumentException("skip value is negative");
+		}
+		long skipped = 0;
+		while ((skipped < n) && (read() >= 0)) {
+			skipped++;
+		}
+		return skipped;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	/**
+	 * Skips separators and comments.
+	 *
+	 * @return whether the next token closes a block with "}", which is not read
+	 */
+	public boolean atBlockEnd() {
+		final int c = skipSeparators();
+		if (c < 0) {
+			throw syntaxError("Unexpected end of file, a block is not closed");
+		}
+		return c == '}';
+	}
+
+	/**
+	 * Reads the "}" that closes a block and the rest of its line, so that
+	 * readLine continues with the next line.
+	 */
+	public void endBlock() {
+		expect('}');
+		skipLine();
+	}
+
+	/**
+	 * Skips separators and comments and reads c.
+	 */
+	public void expect(final char c) {
+		final int next = skipSeparators();
+		if (next != c) {
+			throw syntaxError("Expected '" + c + "' but found " + describe(next));
+		}
+		position++;
+	}
+
+	/**
+	 * Skips separators and comments.
+	 *
+	 * @return whether the next byte is c, which is not read
+	 */
+	public boolean nextIs(final char c) {
+		return skipSeparators() == c;
+	}
+
+	/**
+	 * Skips separators and comments.
+	 *
+	 * @return whether the next token starts like a number
+	 */
+	public boolean nextIsNumber() {
+		final int c = skipSeparators();
+		return ((c >= '0') && (c <= '9')) || (c == '-') || (c == '+') || (c == '.');
+	}
+
+	/**
+	 * Reads a word such as a flag or a tag, up to the next separator or brace.
+	 */
+	public String readWord() {
+		skipSeparators();
+		final int end = scanToken();
+		final int start = position;
+		if (end == start) {
+			throw syntaxError("Expected a word but found " + describe(peek()));
+		}
+		final String word = new String(buffer, start, end - start, charset);
+		position = end;
+		return word;
+	}
+
+	/**
+	 * Reads a number. Numbers that are not written in a plain decimal format are
+	 * handed to Double.parseDouble, and a token that is not a number at all is
+	 * reported and read as 0.
+	 */
+	public double readDouble() {
+		if (!scanNumber()) {
+			return parseToken();
+		}
+		double value;
+		if (mantissa == 0) {
+			value = 0;
+		} else if (exact && (mantissa <= MAX_EXACT_DOUBLE_MANTISSA) && (exponent >= -MAX_EXACT_DOUBLE_POWER)
+				&& (exponent <= MAX_EXACT_DOUBLE_POWER)) {
+			// both operands are exact, so the one rounding is the one of parseDouble
+			value = exponent < 0 ? mantissa / DOUBLE_POWERS_OF_TEN[-exponent]
+					: mantissa * DOUBLE_POWERS_OF_TEN[exponent];
+		} else {
+			return parseToken();
+		}
+		position = tokenEnd;
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Reads a number as Float.parseFloat would.
+	 */
+	public float readFloat() {
+		if (!scanNumber()) {
+			return (float) parseToken();
+		}
+		float value;
+		if (mantissa == 0) {
+			value = 0;
+		} else if (exact && (mantissa <= MAX_EXACT_FLOAT_MANTISSA) && (exponent >= -MAX_EXACT_FLOAT_POWER)
+				&& (exponent <= MAX_EXACT_FLOAT_POWER)) {
+			value = exponent < 0 ? mantissa / FLOAT_POWERS_OF_TEN[-exponent]
+					: mantissa * FLOAT_POWERS_OF_TEN[exponent];
+		} else {
+			final String token = new String(buffer, tokenStart, tokenEnd - tokenStart, StandardCharsets.ISO_8859_1);
+			position = tokenEnd;
+			return Float.parseFloat(token);
+		}
+		position = tokenEnd;
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Reads an integer, a number with a fraction is cut to its integer part like
+	 * MDLReader.readInt does.
+	 */
+	public int readInt() {
+		if (scanNumber() && exact && (exponent == 0)) {
+			position = tokenEnd;
+			return (int) (negative ? -mantissa : mantissa);
+		}
+		return (int) readDouble();
+	}
+
+	/**
+	 * Reads "{ a, b, ... }" into values, one number per element. Values past
+	 * the length of values are reported and skipped, as the line parsers
+	 * ignored them.
+	 */
+	public void readVector(final double[] values) {
+		expect('{');
+		for (int i = 0; i < values.length; i++) {
+			values[i] = readDouble();
+		}
+		closeVector();
+	}
+
+	/**
+	 * Reads "{ a, b, ... }" into values, one number per element.
+	 */
+	public void readVector(final float[] values) {
+		expect('{');
+		for (int i = 0; i < values.length; i++) {
+			values[i] = readFloat();
+		}
+		closeVector();
+	}
+
+	/**
+	 * Reads the rest of the current line.
+	 */
+	public void skipLine() {
+		while (true) {
+			final int c = peek();
+			if (c < 0) {
+				return;
+			}
+			position++;
+			if (c == '\n') {
+				newLine();
+				return;
+			}
+			if (c == '\r') {
+				if (peek() == '\n') {
+					position++;
+				}
+				newLine();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @return an exception for a problem at the current position that the
+	 *         parser cannot work around
+	 */
+	public IllegalStateException syntaxError(final String message) {
+		MDLReader.setLine(line + 1);
+		return new IllegalStateException(
+				"Line " + (line + 1) + ", column " + ((position - lineStart) + 1) + ": " + message);
+	}
+
+	private void closeVector() {
+		if (!nextIs('}')) {
+			warn("Too many values, the values up to '}' are ignored");
+			int c;
+			while ((c = skipSeparators()) != '}') {
+				if ((c < 0) || (c == '{')) {
+					throw syntaxError("Expected '}' but found " + describe(c));
+				}
+				position = scanToken();
+			}
+		}
+		position++;
+	}
+
+	private int skipSeparators() {
+		while (true) {
+			final int c = peek();
+			if ((c == ' ') || (c == '\t') || (c == ',') || (c == ':')) {
+				position++;
+			} else if ((c == '\n') || (c == '\r')) {
+				skipLine();
+			} else if ((c == '/') && (peek(1) == '/')) {
+				skipLine();
+			} else {
+				return c;
+			}
+		}
+	}
+
+	/**
+	 * @return the end of the token that starts at the current position
+	 */
+	private int scanToken() {
+		int length = 0;
+		while (true) {
+			if (!ensure(length + 1)) {
+				return position + length;
+			}
+			final int c = buffer[position + length];
+			if ((c == ' ') || (c == '\t') || (c == ',') || (c == ':') || (c == '\n') || (c == '\r') || (c == '{')
+					|| (c == '}')) {
+				return position + length;
+			}
+			length++;
+		}
+	}
+
+	/**
+	 * Skips separators and scans a number token [+-]digits[.digits][e[+-]digits]
+	 * without reading it. The digits are kept in mantissa and exponent, exact is
+	 * false if there were too many digits to keep.
+	 *
+	 * @return whether the token is a number in that format
+	 */
+	private boolean scanNumber() {
+		final int c = skipSeparators();
+		if (c < 0) {
+			throw syntaxError("Expected a number but found the end of the file");
+		}
+		if ((c == '{') || (c == '}')) {
+			throw syntaxError("Expected a number but found " + describe(c));
+		}
+		tokenEnd = scanToken();
+		tokenStart = position;
+		int i = tokenStart;
+		negative = false;
+		if ((buffer[i] == '-') || (buffer[i] == '+')) {
+			negative = buffer[i] == '-';
+			i++;
+		}
+		mantissa = 0;
+		exponent = 0;
+		exact = true;
+		int digits = 0;
+		boolean fraction = false;
+		for (; i < tokenEnd; i++) {
+			final int b = buffer[i];
+			if ((b >= '0') && (b <= '9')) {
+				digits++;
+				if (mantissa < (Long.MAX_VALUE / 10)) {
+					mantissa = (mantissa * 10) + (b - '0');
+					if (fraction) {
+						exponent--;
+					}
+				} else {
+					exact = false;
+					if (!fraction) {
+						exponent++;
+					}
+				}
+			} else if ((b == '.') && !fraction) {
+				fraction = true;
+			} else {
+				break;
+			}
+		}
+		if (digits == 0) {
+			return false;
+		}
+		if ((i < tokenEnd) && ((buffer[i] == 'e') || (buffer[i] == 'E'))) {
+			i++;
+			boolean negativeExponent = false;
+			if ((i < tokenEnd) && ((buffer[i] == '-') || (buffer[i] == '+'))) {
+				negativeExponent = buffer[i] == '-';
+				i++;
+			}
+			if (i == tokenEnd) {
+				return false;
+			}
+			int writtenExponent = 0;
+			for (; i < tokenEnd; i++) {
+				final int b = buffer[i];
+				if ((b < '0') || (b > '9')) {
+					return false;
+				}
+				if (writtenExponent < 10000) {
+					writtenExponent = (writtenExponent * 10) + (b - '0');
+				}
+			}
+			exponent += negativeExponent ? -writtenExponent : writtenExponent;
+		}
+		return i == tokenEnd;
+	}
+
+	/**
+	 * Reads the scanned token with Double.parseDouble, or reports it and gives 0
+	 * if it is not a number.
+	 */
+	private double parseToken() {
+		final String token = new String(buffer, tokenStart, tokenEnd - tokenStart, charset);
+		try {
+			final double value = Double.parseDouble(token);
+			position = tokenEnd;
+			return value;
+		} catch (final NumberFormatException e) {
+			warn("\"" + token + "\" is not a number");
+			position = tokenEnd;
+			return 0;
+		}
+	}
+
+	/**
+	 * Decodes the character that starts with the byte at the current position,
+	 * which is not ASCII, trying longer byte sequences until the charset makes a
+	 * character of them. A byte that does not start one is decoded on its own,
+	 * which gives the replacement character as new String does.
+	 */
+	private int decodeCharacter() {
+		if (decoder == null) {
+			decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		}
+		final CharBuffer chars = CharBuffer.wrap(decoded);
+		for (int length = 1; (length <= 4) && ensure(length); length++) {
+			final ByteBuffer bytes = ByteBuffer.wrap(buffer, position, length);
+			decoder.reset();
+			chars.clear();
+			decoder.decode(bytes, chars, false);
+			if (chars.position() > 0) {
+				position = bytes.position();
+				return takeDecoded(chars);
+			}
+		}
+		final ByteBuffer bytes = ByteBuffer.wrap(buffer, position, 1);
+		decoder.reset();
+		chars.clear();
+		decoder.decode(bytes, chars, true);
+		decoder.flush(chars);
+		position++;
+		return chars.position() > 0 ? takeDecoded(chars) : 0xFFFD;
+	}
+
+	private int takeDecoded(final CharBuffer chars) {
+		if (chars.position() > 1) {
+			lowSurrogate = decoded[1];
+		}
+		return decoded[0];
+	}
+
+	private String describe(final int c) {
+		if (c < 0) {
+			return "the end of the file";
+		}
+		if ((c == '\n') || (c == '\r')) {
+			return "the end of the line";
+		}
+		return "'" + (char) c + "'";
+	}
+
+	private int peek() {
+		if (!ensure(1)) {
+			return -1;
+		}
+		return buffer[position] & 0xFF;
+	}
+
+	private int peek(final int offset) {
+		if (!ensure(offset + 1)) {
+			return -1;
+		}
+		return buffer[position + offset] & 0xFF;
+	}
+
+	private void newLine() {
+		line++;
+		lineStart = position;
+	}
+
+	/**
+	 * @return whether count bytes from the current position are in the buffer
+	 */
+	private boolean ensure(final int count) {
+		while ((limit - position) < count) {
+			if (!fill()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads more of the stream into the buffer. The bytes from the mark on are
+	 * kept while the mark is within its read ahead limit, like in
+	 * BufferedReader, otherwise those from the current position on.
+	 *
+	 * @return false at the end of the stream
+	 */
+	private boolean fill() {
+		if ((markPosition >= 0) && ((position - markPosition) > markLimit)) {
+			markPosition = -1;
+		}
+		final int keep = markPosition >= 0 ? markPosition : position;
+		if (keep > 0) {
+			System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+			limit -= keep;
+			position -= keep;
+			lineStart -= keep;
+			if (markPosition >= 0) {
+				markPosition -= keep;
+				markLineStart -= keep;
+			}
+		}
+		if (limit == buffer.length) {
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		}
+		final int read;
+		try {
+			read = in.read(buffer, limit, buffer.length - limit);
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (read <= 0) {
+			return false;
+		}
+		limit += read;
+		return true;
+	}
+}
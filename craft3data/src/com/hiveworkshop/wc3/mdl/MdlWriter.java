@@ -0,0 +1,335 @@
+package com.hiveworkshop.wc3.mdl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * A PrintWriter for MDL text that streams to a channel. Characters are
+ * collected in one reusable char buffer and encoded into one reusable byte
+ * buffer, and the static print methods format numbers straight into the writer
+ * instead of building a String per number and per line, so the bulk of a
+ * model (vertices, faces, keyframes) is saved without allocating.
+ */
+public class MdlWriter extends PrintWriter {
+	private static final int CHAR_BUFFER_SIZE = 8192;
+	private static final int BYTE_BUFFER_SIZE = 1 << 16;
+	private static final int MAX_NUMBER_LENGTH = 32;
+	private static final int MAX_FLOAT_DIGITS = 9;
+	private static final double[] POWERS_OF_TEN = new double[23];
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+	private static final ThreadLocal<char[]> SCRATCH = ThreadLocal
+			.withInitial(() -> new char[MAX_NUMBER_LENGTH]);
+
+	private final char[] scratch = new char[MAX_NUMBER_LENGTH];
+
+	/**
+	 * Writes text in the platform charset, like the PrintWriter used to save
+	 * MDL files before. Closing the writer closes the channel.
+	 */
+	public MdlWriter(final WritableByteChannel channel) {
+		super(new ChannelWriter(channel, Charset.defaultCharset()));
+	}
+
+	public MdlWriter(final OutputStream outputStream) {
+		this(Channels.newChannel(outputStream));
+	}
+
+	@Override
+	public void print(final int i) {
+		printInt(this, i);
+	}
+
+	/**
+	 * Prints n in the format of MDLReader.doubleToString(n): the number is
+	 * rounded to float and printed with the fewest digits that read back as the
+	 * same float. This is the same text as doubleToString except for some very
+	 * large and very small numbers, where Float.toString (before Java 19) gives
+	 * more digits than needed.
+	 */
+	public static void printNumber(final PrintWriter writer, final double n) {
+		final float value = (float) n;
+		if (value == 0) {
+			// also -0, which doubleToString prints as 0
+			writer.write('0');
+			return;
+		}
+		if (Float.isNaN(value) || Float.isInfinite(value)) {
+			writer.write(MDLReader.doubleToString(n));
+			return;
+		}
+		final char[] out = scratch(writer);
+		final int length = formatFloat(value, out);
+		if (length < 0) {
+			writer.write(MDLReader.doubleToString(n));
+			return;
+		}
+		writer.write(out, 0, length);
+	}
+
+	public static void printInt(final PrintWriter writer, final int i) {
+		if (i == Integer.MIN_VALUE) {
+			writer.write(Integer.toString(i));
+			return;
+		}
+		final char[] out = scratch(writer);
+		int value = Math.abs(i);
+		int start = out.length;
+		do {
+			out[--start] = (char) ('0' + (value % 10));
+			value /= 10;
+		} while (value != 0);
+		if (i < 0) {
+			out[--start] = '-';
+		}
+		writer.write(out, start, out.length - start);
+	}
+
+	/**
+	 * Prints "{ x, y }", the format of TVertex.toString().
+	 */
+	public static void printVector(final PrintWriter writer, final double x, final double y) {
+		writer.write("{ ");
+		printNumber(writer, x);
+		writer.write(", ");
+		printNumber(writer, y);
+		writer.write(" }");
+	}
+
+	/**
+	 * Prints "{ x, y, z }", the format of Vertex.toString().
+	 */
+	public static void printVector(final PrintWriter writer, final double x, final double y, final double z) {
+		writer.write("{ ");
+		printNumber(writer, x);
+		writer.write(", ");
+		printNumber(writer, y);
+		writer.write(", ");
+		printNumber(writer, z);
+		writer.write(" }");
+	}
+
+	/**
+	 * Prints "{ a, b, c, d }", the format of QuaternionRotation.toString().
+	 */
+	public static void printVector(final PrintWriter writer, final double a, final double b, final double c,
+			final double d) {
+		writer.write("{ ");
+		printNumber(writer, a);
+		writer.write(", ");
+		printNumber(writer, b);
+		writer.write(", ");
+		printNumber(writer, c);
+		writer.write(", ");
+		printNumber(writer, d);
+		writer.write(" }");
+	}
+
+	private static char[] scratch(final PrintWriter writer) {
+		if (writer instanceof MdlWriter) {
+			return ((MdlWriter) writer).scratch;
+		}
+		return SCRATCH.get();
+	}
+
+	/**
+	 * Finds the shortest digits that read back as value by rounding it to 1, 2,
+	 * ... 9 significant digits, then lays them out the way doubleToString does:
+	 * plain for 0.001 <= |value| < 10000000, otherwise as a mantissa with a three
+	 * digit exponent.
+	 *
+	 * @return the length written to out, or -1 if value is too large or too small
+	 *         to be scaled exactly
+	 */
+	private static int formatFloat(final float value, final char[] out) {
+		final double magnitude = Math.abs((double) value);
+		int exponent = (int) Math.floor(Math.log10(magnitude));
+		if (power(exponent) > magnitude) {
+			exponent--;
+		} else if (power(exponent + 1) <= magnitude) {
+			exponent++;
+		}
+		long digits = 0;
+		int scale = 0;
+		boolean found = false;
+		for (int precision = 1; (precision <= MAX_FLOAT_DIGITS) && !found; precision++) {
+			scale = (exponent - precision) + 1;
+			if ((scale < -22) || (scale > 22)) {
+				return -1;
+			}
+			// ties go to the even digit, as in Float.toString
+			digits = (long) Math
+					.rint(scale < 0 ? magnitude * POWERS_OF_TEN[-scale] : magnitude / POWERS_OF_TEN[scale]);
+			final double candidate = scale < 0 ? digits / POWERS_OF_TEN[-scale] : digits * POWERS_OF_TEN[scale];
+			found = (float) candidate == (float) magnitude;
+		}
+		if (!found) {
+			return -1;
+		}
+		while ((digits % 10) == 0) {
+			digits /= 10;
+			scale++;
+		}
+		int digitCount = 0;
+		final int digitsStart = out.length - MAX_FLOAT_DIGITS - 1;
+		for (long rest = digits; rest != 0; rest /= 10) {
+			digitCount++;
+		}
+		long rest = digits;
+		for (int i = digitCount - 1; i >= 0; i--) {
+			out[digitsStart + i] = (char) ('0' + (rest % 10));
+			rest /= 10;
+		}
+		// value is d.ddd * 10^leadExponent
+		final int leadExponent = (scale + digitCount) - 1;
+
+		int length = 0;
+		if (value < 0) {
+			out[length++] = '-';
+		}
+		if ((leadExponent >= 0) && (leadExponent < 7)) {
+			for (int i = 0; i <= leadExponent; i++) {
+				out[length++] = i < digitCount ? out[digitsStart + i] : '0';
+			}
+			if (digitCount > (leadExponent + 1)) {
+				out[length++] = '.';
+				for (int i = leadExponent + 1; i < digitCount; i++) {
+					out[length++] = out[digitsStart + i];
+				}
+			}
+		} else if ((leadExponent < 0) && (leadExponent >= -3)) {
+			out[length++] = '0';
+			out[length++] = '.';
+			for (int i = -1; i > leadExponent; i--) {
+				out[length++] = '0';
+			}
+			for (int i = 0; i < digitCount; i++) {
+				out[length++] = out[digitsStart + i];
+			}
+		} else {
+			out[length++] = out[digitsStart];
+			if (digitCount > 1) {
+				out[length++] = '.';
+				for (int i = 1; i < digitCount; i++) {
+					out[length++] = out[digitsStart + i];
+				}
+			}
+			out[length++] = 'e';
+			out[length++] = leadExponent < 0 ? '-' : '+';
+			final int exponentDigits = Math.abs(leadExponent);
+			out[length++] = (char) ('0' + (exponentDigits / 100));
+			out[length++] = (char) ('0' + ((exponentDigits / 10) % 10));
+			out[length++] = (char) ('0' + (exponentDigits % 10));
+		}
+		return length;
+	}
+
+	private static double power(final int exponent) {
+		if ((exponent >= 0) && (exponent < POWERS_OF_TEN.length)) {
+			return POWERS_OF_TEN[exponent];
+		}
+		return Math.pow(10, exponent);
+	}
+
+	private static final class ChannelWriter extends Writer {
+		private final WritableByteChannel channel;
+		private final CharsetEncoder encoder;
+		private final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+		private final ByteBuffer bytes = ByteBuffer.allocate(BYTE_BUFFER_SIZE);
+
+		private ChannelWriter(final WritableByteChannel channel, final Charset charset) {
+			this.channel = channel;
+			this.encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		}
+
+		@Override
+		public void write(final int c) throws IOException {
+			if (!chars.hasRemaining()) {
+				encode(false);
+			}
+			chars.put((char) c);
+		}
+
+		@Override
+		public void write(final char[] cbuf, int off, int len) throws IOException {
+			while (len > 0) {
+				if (!chars.hasRemaining()) {
+					encode(false);
+				}
+				final int count = Math.min(len, chars.remaining());
+				chars.put(cbuf, off, count);
+				off += count;
+				len -= count;
+			}
+		}
+
+		@Override
+		public void write(final String str, int off, int len) throws IOException {
+			while (len > 0) {
+				if (!chars.hasRemaining()) {
+					encode(false);
+				}
+				final int count = Math.min(len, chars.remaining());
+				str.getChars(off, off + count, chars.array(), chars.position());
+				chars.position(chars.position() + count);
+				off += count;
+				len -= count;
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			encode(false);
+			drain();
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				encode(true);
+				while (encoder.flush(bytes).isOverflow()) {
+					drain();
+				}
+				drain();
+			} finally {
+				channel.close();
+			}
+		}
+
+		private void encode(final boolean endOfInput) throws IOException {
+			chars.flip();
+			CoderResult result;
+			while ((result = encoder.encode(chars, bytes, endOfInput)).isOverflow()) {
+				drain();
+			}
+			if (result.isError()) {
+				result.throwException();
+			}
+			// an unpaired high surrogate at the end stays for the next write
+			chars.compact();
+		}
+
+		private void drain() throws IOException {
+			bytes.flip();
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+			bytes.clear();
+		}
+	}
+}
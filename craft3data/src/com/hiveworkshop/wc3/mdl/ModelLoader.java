@@ -0,0 +1,125 @@
+package com.hiveworkshop.wc3.mdl;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.google.common.io.ByteStreams;
+import com.hiveworkshop.wc3.gui.datachooser.DataSource;
+import com.hiveworkshop.wc3.mdx.MdxUtils;
+
+/**
+ * Loads many MDX and MDL models at once on an executor. Every model is parsed
+ * in its own MDLReader parse, so the tasks share nothing and the problems found
+ * in a model are returned with it instead of being shown in dialogs. A model
+ * that cannot be read at all fails its future with the exception.
+ */
+public final class ModelLoader {
+	public static final class LoadedModel {
+		private final String path;
+		private final EditableModel model;
+		private final List<String> warnings;
+
+		public LoadedModel(final String path, final EditableModel model, final List<String> warnings) {
+			this.path = path;
+			this.model = model;
+			this.warnings = Collections.unmodifiableList(warnings);
+		}
+
+		public String getPath() {
+			return path;
+		}
+
+		public EditableModel getModel() {
+			return model;
+		}
+
+		/**
+		 * @return the problems the parser worked around, empty for a clean model
+		 */
+		public List<String> getWarnings() {
+			return warnings;
+		}
+	}
+
+	/**
+	 * Submits one task per file to the executor. A finished future keeps its
+	 * model reachable, so remove each entry from the map once it is read when
+	 * loading many models.
+	 *
+	 * @return the futures in the order of files
+	 */
+	public static Map<File, Future<LoadedModel>> loadAll(final Collection<File> files,
+			final ExecutorService executor) {
+		final Map<File, Future<LoadedModel>> results = new LinkedHashMap<>();
+		for (final File file : files) {
+			results.put(file, executor.submit(() -> {
+				final LoadedModel loaded = load(file.getPath(), Files.readAllBytes(file.toPath()));
+				loaded.getModel().setFileRef(file);
+				return loaded;
+			}));
+		}
+		return results;
+	}
+
+	/**
+	 * Submits one task per path to the executor, the files are read from the
+	 * data source by the tasks. As with the files version, remove each entry
+	 * once it is read so that the models already checked can be collected.
+	 *
+	 * @return the futures in the order of paths
+	 */
+	public static Map<String, Future<LoadedModel>> loadAll(final DataSource dataSource,
+			final Collection<String> paths, final ExecutorService executor) {
+		final Map<String, Future<LoadedModel>> results = new LinkedHashMap<>();
+		for (final String path : paths) {
+			results.put(path, executor.submit(() -> {
+				final byte[] data;
+				try (InputStream stream = dataSource.getResourceAsStream(path)) {
+					if (stream == null) {
+						throw new FileNotFoundException(path);
+					}
+					data = ByteStreams.toByteArray(stream);
+				}
+				return load(path, data);
+			}));
+		}
+		return results;
+	}
+
+	/**
+	 * Parses a whole model file on the current thread, as MDX or MDL depending on
+	 * the extension of path.
+	 */
+	public static LoadedModel load(final String path, final byte[] data) throws IOException {
+		final List<String> warnings = new ArrayList<>();
+		final EditableModel model;
+		if (path.toLowerCase().endsWith(".mdx")) {
+			final MDLReader.ParseContext context = MDLReader.beginParse();
+			try {
+				model = new EditableModel(MdxUtils.loadModel(ByteBuffer.wrap(data)));
+			} finally {
+				warnings.addAll(context.getWarnings());
+				MDLReader.endParse(context);
+			}
+		} else {
+			model = EditableModel.read(new ByteArrayInputStream(data), warnings);
+		}
+		return new LoadedModel(path, model, warnings);
+	}
+
+	private ModelLoader() {
+	}
+}
@@ -1,7 +1,5 @@
 package com.hiveworkshop.wc3.mdl;
 
-import javax.swing.JOptionPane;
-
 public class Normal extends Vertex {
 	public Normal(final double x, final double y, final double z) {
 		super(x, y, z);
@@ -20,20 +18,17 @@ public class Normal extends Vertex {
 		try {
 			x = Double.parseDouble(entries[0].split("\\{")[1]);
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: Vertex coordinates could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: Vertex coordinates could not be interpreted.");
 		}
 		try {
 			y = Double.parseDouble(entries[1]);
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: Vertex coordinates could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: Vertex coordinates could not be interpreted.");
 		}
 		try {
 			z = Double.parseDouble(entries[2].split("}")[0]);
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: Vertex coordinates could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: Vertex coordinates could not be interpreted.");
 		}
 		temp = new Normal(x, y, z);
 		return temp;
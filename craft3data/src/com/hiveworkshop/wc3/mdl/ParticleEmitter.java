@@ -209,8 +209,7 @@ public class ParticleEmitter extends EmitterIdObject implements VisibilitySource
 			}
 			return pe;
 		} else {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Unable to parse ParticleEmitter: Missing or unrecognized open statement.");
+			MDLReader.warn("Unable to parse ParticleEmitter: Missing or unrecognized open statement.");
 		}
 		return null;
 	}
@@ -468,7 +467,7 @@ public class ParticleEmitter extends EmitterIdObject implements VisibilitySource
 
 	@Override
 	public Vertex getRenderTranslation(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Translation");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.TRANSLATION);
 		if (translationFlag != null) {
 			return (Vertex) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -477,7 +476,7 @@ public class ParticleEmitter extends EmitterIdObject implements VisibilitySource
 
 	@Override
 	public QuaternionRotation getRenderRotation(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Rotation");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.ROTATION);
 		if (translationFlag != null) {
 			return (QuaternionRotation) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -486,7 +485,7 @@ public class ParticleEmitter extends EmitterIdObject implements VisibilitySource
 
 	@Override
 	public Vertex getRenderScale(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Scaling");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.SCALING);
 		if (translationFlag != null) {
 			return (Vertex) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -494,7 +493,7 @@ public class ParticleEmitter extends EmitterIdObject implements VisibilitySource
 	}
 
 	public double getRenderSpeed(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "InitVelocity");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.INIT_VELOCITY);
 		if (translationFlag != null) {
 			return (Double) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -502,7 +501,7 @@ public class ParticleEmitter extends EmitterIdObject implements VisibilitySource
 	}
 
 	public double getRenderLatitude(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Latitude");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.LATITUDE);
 		if (translationFlag != null) {
 			return (Double) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -510,7 +509,7 @@ public class ParticleEmitter extends EmitterIdObject implements VisibilitySource
 	}
 
 	public double getRenderLongitude(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Longitude");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.LONGITUDE);
 		if (translationFlag != null) {
 			return (Double) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -518,7 +517,7 @@ public class ParticleEmitter extends EmitterIdObject implements VisibilitySource
 	}
 
 	public double getRenderLifeSpan(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "LifeSpan");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.LIFE_SPAN);
 		if (translationFlag != null) {
 			return (Double) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -526,7 +525,7 @@ public class ParticleEmitter extends EmitterIdObject implements VisibilitySource
 	}
 
 	public double getRenderGravity(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Gravity");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.GRAVITY);
 		if (translationFlag != null) {
 			return (Double) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -534,7 +533,7 @@ public class ParticleEmitter extends EmitterIdObject implements VisibilitySource
 	}
 
 	public double getRenderEmissionRate(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "EmissionRate");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.EMISSION_RATE);
 		if (translationFlag != null) {
 			return (Double) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -421,8 +421,7 @@ public class ParticleEmitter2 extends EmitterIdObject implements VisibilitySourc
 			}
 			return pe;
 		} else {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Unable to parse ParticleEmitter2: Missing or unrecognized open statement.");
+			MDLReader.warn("Unable to parse ParticleEmitter2: Missing or unrecognized open statement.");
 		}
 		return null;
 	}
@@ -909,7 +908,7 @@ public class ParticleEmitter2 extends EmitterIdObject implements VisibilitySourc
 
 	@Override
 	public Vertex getRenderTranslation(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Translation");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.TRANSLATION);
 		if (translationFlag != null) {
 			return (Vertex) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -918,7 +917,7 @@ public class ParticleEmitter2 extends EmitterIdObject implements VisibilitySourc
 
 	@Override
 	public QuaternionRotation getRenderRotation(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Rotation");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.ROTATION);
 		if (translationFlag != null) {
 			return (QuaternionRotation) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -927,7 +926,7 @@ public class ParticleEmitter2 extends EmitterIdObject implements VisibilitySourc
 
 	@Override
 	public Vertex getRenderScale(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Scaling");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.SCALING);
 		if (translationFlag != null) {
 			return (Vertex) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -935,7 +934,7 @@ public class ParticleEmitter2 extends EmitterIdObject implements VisibilitySourc
 	}
 
 	public double getRenderWidth(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Width");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.WIDTH);
 		if (translationFlag != null) {
 			return (Double) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -943,7 +942,7 @@ public class ParticleEmitter2 extends EmitterIdObject implements VisibilitySourc
 	}
 
 	public double getRenderLength(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Length");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.LENGTH);
 		if (translationFlag != null) {
 			return (Double) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -951,7 +950,7 @@ public class ParticleEmitter2 extends EmitterIdObject implements VisibilitySourc
 	}
 
 	public double getRenderLatitude(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Latitude");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.LATITUDE);
 		if (translationFlag != null) {
 			return (Double) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -959,7 +958,7 @@ public class ParticleEmitter2 extends EmitterIdObject implements VisibilitySourc
 	}
 
 	public double getRenderVariation(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Variation");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.VARIATION);
 		if (translationFlag != null) {
 			return (Double) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -967,7 +966,7 @@ public class ParticleEmitter2 extends EmitterIdObject implements VisibilitySourc
 	}
 
 	public double getRenderSpeed(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Speed");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.SPEED);
 		if (translationFlag != null) {
 			return (Double) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -975,7 +974,7 @@ public class ParticleEmitter2 extends EmitterIdObject implements VisibilitySourc
 	}
 
 	public double getRenderGravity(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Gravity");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.GRAVITY);
 		if (translationFlag != null) {
 			return (Double) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -983,7 +982,7 @@ public class ParticleEmitter2 extends EmitterIdObject implements VisibilitySourc
 	}
 
 	public double getRenderEmissionRate(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "EmissionRate");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.EMISSION_RATE);
 		if (translationFlag != null) {
 			return (Double) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -204,8 +204,7 @@ public class ParticleEmitterPopcorn extends IdObject implements VisibilitySource
 		} else
 
 		{
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Unable to parse ParticleEmitterPopcorn: Missing or unrecognized open statement.");
+			MDLReader.warn("Unable to parse ParticleEmitterPopcorn: Missing or unrecognized open statement.");
 		}
 		return null;
 	}
@@ -440,7 +439,7 @@ public class ParticleEmitterPopcorn extends IdObject implements VisibilitySource
 
 	@Override
 	public Vertex getRenderTranslation(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Translation");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.TRANSLATION);
 		if (translationFlag != null) {
 			return (Vertex) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -449,7 +448,7 @@ public class ParticleEmitterPopcorn extends IdObject implements VisibilitySource
 
 	@Override
 	public QuaternionRotation getRenderRotation(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Rotation");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.ROTATION);
 		if (translationFlag != null) {
 			return (QuaternionRotation) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -458,7 +457,7 @@ public class ParticleEmitterPopcorn extends IdObject implements VisibilitySource
 
 	@Override
 	public Vertex getRenderScale(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Scaling");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.SCALING);
 		if (translationFlag != null) {
 			return (Vertex) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -466,7 +465,7 @@ public class ParticleEmitterPopcorn extends IdObject implements VisibilitySource
 	}
 
 	public double getRenderEmissionRate(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "EmissionRate");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.EMISSION_RATE);
 		if (translationFlag != null) {
 			return (Double) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -1,6 +1,6 @@
 package com.hiveworkshop.wc3.mdl;
 
-import javax.swing.JOptionPane;
+import java.io.PrintWriter;
 
 /**
  * Quaternions are the most useless thing I've ever heard of. Nevertheless, I
@@ -247,26 +247,22 @@ public class QuaternionRotation {
 		try {
 			a = Double.parseDouble(str[1]);
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: QuaternionRotation coordinates could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: QuaternionRotation coordinates could not be interpreted.");
 		}
 		try {
 			b = Double.parseDouble(entries[1]);
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: QuaternionRotation coordinates could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: QuaternionRotation coordinates could not be interpreted.");
 		}
 		try {
 			c = Double.parseDouble(entries[2]);
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: QuaternionRotation coordinates could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: QuaternionRotation coordinates could not be interpreted.");
 		}
 		try {
 			d = Double.parseDouble(entries[3].split("}")[0]);
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: QuaternionRotation coordinates could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: QuaternionRotation coordinates could not be interpreted.");
 		}
 		temp = new QuaternionRotation(a, b, c, d);
 		return temp;
@@ -373,6 +369,13 @@ public class QuaternionRotation {
 				+ MDLReader.doubleToString(c) + ", " + MDLReader.doubleToString(d) + " }";
 	}
 
+	/**
+	 * Prints the text of toString() without building it.
+	 */
+	public void printTo(final PrintWriter writer) {
+		MdlWriter.printVector(writer, a, b, c, d);
+	}
+
 	public static void main(final String[] args) {
 		QuaternionRotation rot = new QuaternionRotation(0.241689, 0.152046, -0.372562, 0.882987);
 		Vertex euler = rot.toEuler();
@@ -195,7 +195,7 @@ public class RibbonEmitter extends IdObject implements VisibilitySource {
 					}
 				}
 				if (!foundType) {
-					JOptionPane.showMessageDialog(null, "Ribbon emitter did not recognize data at: " + line
+					MDLReader.warn("Ribbon emitter did not recognize data at: " + line
 							+ "\nThis is probably not a major issue?");
 				}
 
@@ -204,8 +204,7 @@ public class RibbonEmitter extends IdObject implements VisibilitySource {
 			}
 			return pe;
 		} else {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Unable to parse RibbonEmitter: Missing or unrecognized open statement.");
+			MDLReader.warn("Unable to parse RibbonEmitter: Missing or unrecognized open statement.");
 		}
 		return null;
 	}
@@ -500,7 +499,7 @@ public class RibbonEmitter extends IdObject implements VisibilitySource {
 
 	@Override
 	public Vertex getRenderTranslation(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Translation");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.TRANSLATION);
 		if (translationFlag != null) {
 			return (Vertex) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -509,7 +508,7 @@ public class RibbonEmitter extends IdObject implements VisibilitySource {
 
 	@Override
 	public QuaternionRotation getRenderRotation(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Rotation");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.ROTATION);
 		if (translationFlag != null) {
 			return (QuaternionRotation) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -518,7 +517,7 @@ public class RibbonEmitter extends IdObject implements VisibilitySource {
 
 	@Override
 	public Vertex getRenderScale(final AnimatedRenderEnvironment animatedRenderEnvironment) {
-		final AnimFlag translationFlag = AnimFlag.find(animFlags, "Scaling");
+		final AnimFlag translationFlag = getTimeline(TimelineChannel.SCALING);
 		if (translationFlag != null) {
 			return (Vertex) translationFlag.interpolateAt(animatedRenderEnvironment);
 		}
@@ -3,8 +3,6 @@ package com.hiveworkshop.wc3.mdl;
 import java.io.BufferedReader;
 import java.util.ArrayList;
 
-import javax.swing.JOptionPane;
-
 /**
  * The overarching sequence parser for Animations.
  *
@@ -29,8 +27,7 @@ public class Sequences {
 					final Animation an = Animation.read(mdl);
 					seqs.add(an);
 				} else {
-					JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-							"Unable to parse sequences: Confused by anim opener line '" + line + "'.");
+					MDLReader.warn("Unable to parse sequences: Confused by anim opener line '" + line + "'.");
 				}
 				MDLReader.mark(mdl);
 				line = MDLReader.nextLine(mdl);
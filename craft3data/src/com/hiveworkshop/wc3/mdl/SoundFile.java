@@ -3,8 +3,6 @@ package com.hiveworkshop.wc3.mdl;
 import java.io.BufferedReader;
 import java.io.PrintWriter;
 
-import javax.swing.JOptionPane;
-
 public class SoundFile {
 	String path;
 	double volume;
@@ -62,8 +60,7 @@ public class SoundFile {
 			}
 			return lay;
 		} else {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Unable to parse SoundFile: Missing or unrecognized open statement.");
+			MDLReader.warn("Unable to parse SoundFile: Missing or unrecognized open statement.");
 		}
 		return null;
 	}
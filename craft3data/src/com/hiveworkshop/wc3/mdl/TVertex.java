@@ -1,9 +1,8 @@
 package com.hiveworkshop.wc3.mdl;
 
+import java.io.PrintWriter;
 import java.util.Collection;
 
-import javax.swing.JOptionPane;
-
 public class TVertex {
 	public static final TVertex ORIGIN = new TVertex(0, 0);
 	GeosetVertex parent;
@@ -176,14 +175,12 @@ public class TVertex {
 		try {
 			x = Double.parseDouble(entries[0].split("\\{")[1]);
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: Vertex coordinates could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: Vertex coordinates could not be interpreted.");
 		}
 		try {
 			y = Double.parseDouble(entries[1].split("}")[0]);
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: Vertex coordinates could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: Vertex coordinates could not be interpreted.");
 		}
 		temp = new TVertex(x, y);
 		return temp;
@@ -194,6 +191,13 @@ public class TVertex {
 		return "{ " + MDLReader.doubleToString(x) + ", " + MDLReader.doubleToString(y) + " }";
 	}
 
+	/**
+	 * Prints the text of toString() without building it.
+	 */
+	public void printTo(final PrintWriter writer) {
+		MdlWriter.printVector(writer, x, y);
+	}
+
 	public static TVertex centerOfGroup(final Collection<? extends TVertex> group) {
 		double xTot = 0;
 		double yTot = 0;
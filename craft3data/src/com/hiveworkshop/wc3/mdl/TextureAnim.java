@@ -4,8 +4,6 @@ import java.io.BufferedReader;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 
-import javax.swing.JOptionPane;
-
 import com.hiveworkshop.wc3.mdx.TextureAnimationChunk;
 
 /**
@@ -64,8 +62,7 @@ public class TextureAnim {
 			}
 			return tan;
 		} else {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Unable to parse TextureAnim: Missing or unrecognized open statement.");
+			MDLReader.warn("Unable to parse TextureAnim: Missing or unrecognized open statement.");
 		}
 		return null;
 	}
@@ -0,0 +1,43 @@
+package com.hiveworkshop.wc3.mdl;
+
+/**
+ * The timelines that are looked up every frame while rendering, so that they
+ * can be resolved through a {@link TimelineChannelIndex} instead of comparing
+ * names with {@link AnimFlag#find(java.util.List, String)}.
+ */
+public enum TimelineChannel {
+	TRANSLATION("Translation"), ROTATION("Rotation"), SCALING("Scaling"),
+	// emitters
+	EMISSION_RATE("EmissionRate"), SPEED("Speed"), VARIATION("Variation"), LATITUDE("Latitude"),
+	LONGITUDE("Longitude"), GRAVITY("Gravity"), WIDTH("Width"), LENGTH("Length"), LIFE_SPAN("LifeSpan"),
+	INIT_VELOCITY("InitVelocity");
+
+	private static final TimelineChannel[] VALUES = values();
+
+	private final String flagName;
+
+	private TimelineChannel(final String flagName) {
+		this.flagName = flagName;
+	}
+
+	public String getFlagName() {
+		return flagName;
+	}
+
+	/**
+	 * @return the channel of an AnimFlag with the given name, or null if it is
+	 *         not one of the indexed ones
+	 */
+	public static TimelineChannel fromFlagName(final String name) {
+		for (final TimelineChannel channel : VALUES) {
+			if (channel.flagName.equals(name)) {
+				return channel;
+			}
+		}
+		return null;
+	}
+
+	static int count() {
+		return VALUES.length;
+	}
+}
@@ -0,0 +1,54 @@
+package com.hiveworkshop.wc3.mdl;
+
+import java.util.List;
+
+/**
+ * Slot array from {@link TimelineChannel} to the first AnimFlag with that name
+ * in a list of timelines, same answer as
+ * {@link AnimFlag#find(java.util.List, String)} without the string compares.
+ *
+ * A lot of code still edits the animFlags lists of the nodes directly rather
+ * than going through {@link TimelineContainer#add(AnimFlag)}, so instead of
+ * relying on add/remove the index checks that the list it was built from is the
+ * same instance, has the same size and still has the indexed flag at the
+ * indexed position (and with the same name), and rebuilds itself otherwise.
+ * Those checks are a couple of field reads per lookup.
+ */
+public final class TimelineChannelIndex {
+	private final AnimFlag[] flags = new AnimFlag[TimelineChannel.count()];
+	private final int[] positions = new int[TimelineChannel.count()];
+	private List<AnimFlag> source;
+	private int sourceSize = -1;
+
+	public AnimFlag get(final List<AnimFlag> timelines, final TimelineChannel channel) {
+		if ((timelines != source) || (timelines.size() != sourceSize)) {
+			rebuild(timelines);
+		}
+		final int slot = channel.ordinal();
+		final AnimFlag flag = flags[slot];
+		if ((flag != null) && ((timelines.get(positions[slot]) != flag)
+				|| !channel.getFlagName().equals(flag.getName()))) {
+			rebuild(timelines);
+			return flags[slot];
+		}
+		return flag;
+	}
+
+	private void rebuild(final List<AnimFlag> timelines) {
+		for (int i = 0; i < flags.length; i++) {
+			flags[i] = null;
+			positions[i] = -1;
+		}
+		final int size = timelines.size();
+		for (int i = 0; i < size; i++) {
+			final AnimFlag flag = timelines.get(i);
+			final TimelineChannel channel = TimelineChannel.fromFlagName(flag.getName());
+			if ((channel != null) && (flags[channel.ordinal()] == null)) {
+				flags[channel.ordinal()] = flag;
+				positions[channel.ordinal()] = i;
+			}
+		}
+		source = timelines;
+		sourceSize = size;
+	}
+}
@@ -4,4 +4,11 @@ public interface TimelineContainer {
 	void add(AnimFlag timeline);
 
 	void remove(AnimFlag timeline);
+
+	/**
+	 * Same as AnimFlag.find on the timelines of this container, but resolved
+	 * through a {@link TimelineChannelIndex} so that it is cheap enough for the
+	 * render loop.
+	 */
+	AnimFlag getTimeline(TimelineChannel channel);
 }
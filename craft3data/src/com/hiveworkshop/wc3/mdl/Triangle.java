@@ -1,9 +1,9 @@
 package com.hiveworkshop.wc3.mdl;
 
 import java.io.BufferedReader;
+import java.io.PrintWriter;
 import java.util.ArrayList;
-
-import javax.swing.JOptionPane;
+import java.util.List;
 
 public class Triangle {
 	GeosetVertex[] verts = new GeosetVertex[3];
@@ -215,7 +215,7 @@ public class Triangle {
 					output.add(new Triangle(Integer.parseInt(s[t]), Integer.parseInt(s[t + 1]),
 							Integer.parseInt(s[t + 2])));
 				} catch (final NumberFormatException e) {
-					JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
+					MDLReader.warn(
 							"Error: Unable to interpret information in Triangles: " + s[t] + ", " + s[t + 1] + ", or "
 									+ s[t + 2]);
 				}
@@ -245,7 +245,7 @@ public class Triangle {
 					output.add(new Triangle(Integer.parseInt(s[t]), Integer.parseInt(s[t + 1]),
 							Integer.parseInt(s[t + 2])));
 				} catch (final NumberFormatException e) {
-					JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
+					MDLReader.warn(
 							"Error: Unable to interpret information in Triangles: " + s[t] + ", " + s[t + 1] + ", or "
 									+ s[t + 2]);
 				}
@@ -258,6 +258,10 @@ public class Triangle {
 		// Usually triangles come in a single entry with all of them, so we
 		// parse the input into an ArrayList
 		final ArrayList<Triangle> output = new ArrayList<>();
+		if (mdl instanceof MdlTokenReader) {
+			readTokens((MdlTokenReader) mdl, geoRef, output);
+			return output;
+		}
 		String line = "";
 		while (!(line = MDLReader.nextLine(mdl)).contains("\t}")) {
 			// System.out.println("Interpreting "+line+" for Triangles");
@@ -275,7 +279,7 @@ public class Triangle {
 					output.add(new Triangle(Integer.parseInt(s[t]), Integer.parseInt(s[t + 1]),
 							Integer.parseInt(s[t + 2]), geoRef));
 				} catch (final NumberFormatException e) {
-					JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
+					MDLReader.warn(
 							"Error: Unable to interpret information in Triangles: " + s[t] + ", " + s[t + 1] + ", or "
 									+ s[t + 2]);
 				}
@@ -284,11 +288,47 @@ public class Triangle {
 		return output;
 	}
 
+	/**
+	 * Reads the "{ a, b, c, ... }" entries of a Triangles block up to its closing
+	 * brace, three vertex ids per triangle.
+	 */
+	private static void readTokens(final MdlTokenReader tokens, final Geoset geoRef, final List<Triangle> output) {
+		while (!tokens.atBlockEnd()) {
+			tokens.expect('{');
+			while (!tokens.nextIs('}')) {
+				final int a = tokens.readInt();
+				if (tokens.nextIs('}')) {
+					tokens.warn("Triangles entry ends in the middle of a triangle");
+					break;
+				}
+				final int b = tokens.readInt();
+				if (tokens.nextIs('}')) {
+					tokens.warn("Triangles entry ends in the middle of a triangle");
+					break;
+				}
+				output.add(new Triangle(a, b, tokens.readInt(), geoRef));
+			}
+			tokens.expect('}');
+		}
+		tokens.endBlock();
+	}
+
 	@Override
 	public String toString() {
 		return vertIds[0] + ", " + vertIds[1] + ", " + vertIds[2];
 	}
 
+	/**
+	 * Prints the text of toString() without building it.
+	 */
+	public void printTo(final PrintWriter writer) {
+		MdlWriter.printInt(writer, vertIds[0]);
+		writer.write(", ");
+		MdlWriter.printInt(writer, vertIds[1]);
+		writer.write(", ");
+		MdlWriter.printInt(writer, vertIds[2]);
+	}
+
 	/**
 	 * Flips the triangle's orientation, and optionally the normal vectors for all the triangle's components.
 	 */
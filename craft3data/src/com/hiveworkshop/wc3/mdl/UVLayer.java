@@ -30,6 +30,18 @@ public class UVLayer
     public static UVLayer read(BufferedReader mdl)
     {
         UVLayer temp = new UVLayer();
+        if( mdl instanceof MdlTokenReader )
+        {
+            final MdlTokenReader tokens = (MdlTokenReader)mdl;
+            final double[] xy = new double[2];
+            while( !tokens.atBlockEnd() )
+            {
+                tokens.readVector(xy);
+                temp.addTVertex(new TVertex(xy[0], xy[1]));
+            }
+            tokens.endBlock();
+            return temp;
+        }
         String line = "";
         while( !((line = MDLReader.nextLine(mdl)).contains("\t}") ) )
         {
@@ -54,7 +66,9 @@ public class UVLayer
         }
         for( int i = 0; i < tverts.size(); i++ )
         {
-            writer.println(inTabs+tverts.get(i).toString()+",");
+            writer.write(inTabs);
+            tverts.get(i).printTo(writer);
+            writer.println(',');
         }
        
         if( addHeader )
@@ -1,9 +1,8 @@
 package com.hiveworkshop.wc3.mdl;
 
+import java.io.PrintWriter;
 import java.util.Collection;
 
-import javax.swing.JOptionPane;
-
 import org.lwjgl.util.vector.Vector4f;
 
 public class Vertex {
@@ -140,20 +139,17 @@ public class Vertex {
 		try {
 			x = Double.parseDouble(entries[0].split("\\{")[1]);
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: Vertex coordinates could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: Vertex coordinates could not be interpreted.");
 		}
 		try {
 			y = Double.parseDouble(entries[1]);
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: Vertex coordinates could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: Vertex coordinates could not be interpreted.");
 		}
 		try {
 			z = Double.parseDouble(entries[2].split("}")[0]);
 		} catch (final NumberFormatException e) {
-			JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-					"Error {" + input + "}: Vertex coordinates could not be interpreted.");
+			MDLReader.warn("Error {" + input + "}: Vertex coordinates could not be interpreted.");
 		}
 		temp = new Vertex(x, y, z);
 		return temp;
@@ -165,6 +161,13 @@ public class Vertex {
 				+ MDLReader.doubleToString(z) + " }";
 	}
 
+	/**
+	 * Prints the text of toString() without building it.
+	 */
+	public void printTo(final PrintWriter writer) {
+		MdlWriter.printVector(writer, x, y, z);
+	}
+
 	public String toStringLessSpace() {
 		return "{" + MDLReader.doubleToString(x) + ", " + MDLReader.doubleToString(y) + ", "
 				+ MDLReader.doubleToString(z) + "}";
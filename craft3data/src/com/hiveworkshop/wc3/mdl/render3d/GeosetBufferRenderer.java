@@ -0,0 +1,208 @@
+package com.hiveworkshop.wc3.mdl.render3d;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GLContext;
+
+/**
+ * Draws RenderGeosets from retained vertex buffers instead of glBegin/glEnd.
+ * The index buffer is uploaded once per geoset layout, the texture coordinates
+ * when they change, the skinned positions and normals once per frame, and every
+ * layer is then a single glDrawElements call. The buffer objects of a geoset
+ * are kept for its lifetime and refilled in place.
+ *
+ * One instance belongs to one GL context, call {@link #release()} with that
+ * context current when it is reinitialized so the buffer objects are not leaked,
+ * and {@link #releaseUnused(RenderModel)} once per frame so that the buffers of
+ * removed geosets are deleted. Drivers without OpenGL 1.5 get the same buffers
+ * as plain client arrays.
+ */
+public final class GeosetBufferRenderer {
+	private static final int FLOAT_BYTES = 4;
+
+	private final Map<RenderGeoset, Entry> renderGeosetToEntry = new IdentityHashMap<>();
+	private Boolean useBufferObjects;
+
+	/**
+	 * Draws the triangles of the geoset with the texture coordinates of the given
+	 * layer coord id. Material state (texture, blending, color) is left to the
+	 * caller.
+	 */
+	public void draw(final RenderGeoset renderGeoset, final int frame, final boolean hdSkin, final int coordId) {
+		Entry entry = renderGeosetToEntry.get(renderGeoset);
+		if (entry == null) {
+			entry = new Entry(new GeosetVertexBuffer(renderGeoset));
+			renderGeosetToEntry.put(renderGeoset, entry);
+		}
+		final GeosetVertexBuffer buffer = entry.buffer;
+		final boolean vertexDataChanged = buffer.update(frame, hdSkin);
+		if (buffer.getIndexCount() == 0) {
+			return;
+		}
+		if (useBufferObjects == null) {
+			useBufferObjects = GLContext.getCapabilities().OpenGL15;
+		}
+		GL11.glEnableClientState(GL11.GL_VERTEX_ARRAY);
+		GL11.glEnableClientState(GL11.GL_NORMAL_ARRAY);
+		GL11.glEnableClientState(GL11.GL_TEXTURE_COORD_ARRAY);
+		if (useBufferObjects) {
+			drawBufferObjects(entry, vertexDataChanged, coordId);
+		} else {
+			drawClientArrays(buffer, coordId);
+		}
+		GL11.glDisableClientState(GL11.GL_VERTEX_ARRAY);
+		GL11.glDisableClientState(GL11.GL_NORMAL_ARRAY);
+		GL11.glDisableClientState(GL11.GL_TEXTURE_COORD_ARRAY);
+	}
+
+	private void drawBufferObjects(final Entry entry, final boolean vertexDataChanged, final int coordId) {
+		final GeosetVertexBuffer buffer = entry.buffer;
+		if (entry.vertexBufferId == 0) {
+			entry.vertexBufferId = GL15.glGenBuffers();
+			entry.indexBufferId = GL15.glGenBuffers();
+		}
+		GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, entry.vertexBufferId);
+		GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, entry.indexBufferId);
+		if (entry.uploadedStructureVersion != buffer.getStructureVersion()) {
+			entry.indexBytes = upload(GL15.GL_ELEMENT_ARRAY_BUFFER, buffer.getIndices(), entry.indexBytes);
+			entry.vertexBytes = upload(GL15.GL_ARRAY_BUFFER, buffer.getVertexData(), entry.vertexBytes,
+					GL15.GL_STREAM_DRAW);
+			entry.uploadedStructureVersion = buffer.getStructureVersion();
+		} else if (vertexDataChanged) {
+			entry.vertexBytes = upload(GL15.GL_ARRAY_BUFFER, buffer.getVertexData(), entry.vertexBytes,
+					GL15.GL_STREAM_DRAW);
+		}
+		final int strideBytes = GeosetVertexBuffer.VERTEX_STRIDE * FLOAT_BYTES;
+		GL11.glVertexPointer(3, GL11.GL_FLOAT, strideBytes, 0);
+		GL11.glNormalPointer(GL11.GL_FLOAT, strideBytes, GeosetVertexBuffer.NORMAL_OFFSET * FLOAT_BYTES);
+
+		TexCoordBuffer texCoordBuffer = entry.coordIdToTexCoordBuffer.get(coordId);
+		if (texCoordBuffer == null) {
+			texCoordBuffer = new TexCoordBuffer(GL15.glGenBuffers());
+			entry.coordIdToTexCoordBuffer.put(coordId, texCoordBuffer);
+		}
+		GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, texCoordBuffer.id);
+		final int texCoordsVersion = buffer.getTexCoordsVersion(coordId);
+		if (texCoordBuffer.uploadedVersion != texCoordsVersion) {
+			texCoordBuffer.bytes = upload(GL15.GL_ARRAY_BUFFER, buffer.getTexCoords(coordId), texCoordBuffer.bytes,
+					GL15.GL_STATIC_DRAW);
+			texCoordBuffer.uploadedVersion = texCoordsVersion;
+		}
+		GL11.glTexCoordPointer(2, GL11.GL_FLOAT, 0, 0);
+
+		GL11.glDrawElements(GL11.GL_TRIANGLES, buffer.getIndexCount(), GL11.GL_UNSIGNED_INT, 0);
+		GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+		GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
+	}
+
+	/**
+	 * Refills the bound buffer in place if the data has the size it already has,
+	 * otherwise respecifies its storage.
+	 *
+	 * @return the size of the buffer in bytes
+	 */
+	private static int upload(final int target, final FloatBuffer data, final int currentBytes, final int usage) {
+		final int bytes = data.remaining() * FLOAT_BYTES;
+		if (bytes == currentBytes) {
+			GL15.glBufferSubData(target, 0, data);
+		} else {
+			GL15.glBufferData(target, data, usage);
+		}
+		return bytes;
+	}
+
+	private static int upload(final int target, final IntBuffer data, final int currentBytes) {
+		final int bytes = data.remaining() * 4;
+		if (bytes == currentBytes) {
+			GL15.glBufferSubData(target, 0, data);
+		} else {
+			GL15.glBufferData(target, data, GL15.GL_STATIC_DRAW);
+		}
+		return bytes;
+	}
+
+	private void drawClientArrays(final GeosetVertexBuffer buffer, final int coordId) {
+		final FloatBuffer vertexData = buffer.getVertexData();
+		final int strideBytes = GeosetVertexBuffer.VERTEX_STRIDE * FLOAT_BYTES;
+		vertexData.position(0);
+		GL11.glVertexPointer(3, strideBytes, vertexData);
+		vertexData.position(GeosetVertexBuffer.NORMAL_OFFSET);
+		GL11.glNormalPointer(strideBytes, vertexData);
+		vertexData.position(0);
+		GL11.glTexCoordPointer(2, 0, buffer.getTexCoords(coordId));
+		GL11.glDrawElements(GL11.GL_TRIANGLES, buffer.getIndices());
+	}
+
+	/**
+	 * Deletes all the buffer objects. Needs the GL context of this renderer to be
+	 * current.
+	 */
+	public void release() {
+		for (final Entry entry : renderGeosetToEntry.values()) {
+			entry.deleteBuffers();
+		}
+		renderGeosetToEntry.clear();
+		useBufferObjects = null;
+	}
+
+	/**
+	 * Deletes the buffers of every RenderGeoset that renderModel no longer uses,
+	 * either because its geoset left the model or because it belongs to a
+	 * RenderModel that was replaced. Needs the GL context of this renderer to be
+	 * current.
+	 */
+	public void releaseUnused(final RenderModel renderModel) {
+		final Iterator<Entry> iterator = renderGeosetToEntry.values().iterator();
+		while (iterator.hasNext()) {
+			final Entry entry = iterator.next();
+			if (!renderModel.isCurrent(entry.buffer.getRenderGeoset())) {
+				entry.deleteBuffers();
+				iterator.remove();
+			}
+		}
+	}
+
+	private static final class Entry {
+		private final GeosetVertexBuffer buffer;
+		private int vertexBufferId;
+		private int indexBufferId;
+		private int vertexBytes;
+		private int indexBytes;
+		private int uploadedStructureVersion;
+		private final Map<Integer, TexCoordBuffer> coordIdToTexCoordBuffer = new HashMap<>();
+
+		private Entry(final GeosetVertexBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		private void deleteBuffers() {
+			if (vertexBufferId != 0) {
+				GL15.glDeleteBuffers(vertexBufferId);
+				GL15.glDeleteBuffers(indexBufferId);
+				vertexBufferId = 0;
+				indexBufferId = 0;
+			}
+			for (final TexCoordBuffer texCoordBuffer : coordIdToTexCoordBuffer.values()) {
+				GL15.glDeleteBuffers(texCoordBuffer.id);
+			}
+			coordIdToTexCoordBuffer.clear();
+		}
+	}
+
+	private static final class TexCoordBuffer {
+		private final int id;
+		private int bytes;
+		private int uploadedVersion = -1;
+
+		private TexCoordBuffer(final int id) {
+			this.id = id;
+		}
+	}
+}
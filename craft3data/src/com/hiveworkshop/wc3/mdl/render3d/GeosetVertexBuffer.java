@@ -0,0 +1,209 @@
+package com.hiveworkshop.wc3.mdl.render3d;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.lwjgl.BufferUtils;
+
+import com.hiveworkshop.wc3.mdl.TVertex;
+
+/**
+ * Client side copy of the vertex buffers for one RenderGeoset, ready to be
+ * handed to glDrawElements. This class does not make any GL calls, so it can be
+ * built and checked without a GL context; GeosetBufferRenderer does the
+ * uploading and drawing.
+ *
+ * The index buffer only changes when the RenderGeoset rebuilds itself, the
+ * interleaved position/normal buffer is refreshed from the skinned arrays every
+ * frame, and the texture coordinates (one buffer per coord id) are compared with
+ * the geoset once per frame, because the editor moves them in place. The
+ * direct buffers are kept and only grown, never reallocated for a rebuild of the
+ * same size. Everything is stored on the GL axes (y, z, x of the model).
+ */
+public final class GeosetVertexBuffer {
+	/** Floats per vertex in the interleaved buffer: position xyz, normal xyz */
+	public static final int VERTEX_STRIDE = 6;
+	public static final int NORMAL_OFFSET = 3;
+	public static final int TEXCOORD_STRIDE = 2;
+
+	private final RenderGeoset renderGeoset;
+
+	private int builtVersion = -1;
+	private int structureVersion;
+	private int lastUpdateFrame;
+	private int vertexCount;
+	private int indexCount;
+
+	private FloatBuffer vertexData = BufferUtils.createFloatBuffer(0);
+	private IntBuffer indices = BufferUtils.createIntBuffer(0);
+	private final Map<Integer, TexCoords> coordIdToTexCoords = new HashMap<>();
+
+	public GeosetVertexBuffer(final RenderGeoset renderGeoset) {
+		this.renderGeoset = renderGeoset;
+	}
+
+	public RenderGeoset getRenderGeoset() {
+		return renderGeoset;
+	}
+
+	/**
+	 * Skins the geoset (if not done for this frame already) and refreshes the
+	 * buffers from it.
+	 *
+	 * @return true if the vertex data changed since the last call, false if the
+	 *         frame was already copied
+	 */
+	public boolean update(final int frame, final boolean hdSkin) {
+		renderGeoset.update(frame, hdSkin);
+		final boolean structureChanged = renderGeoset.getBuildVersion() != builtVersion;
+		if (structureChanged) {
+			rebuildStructure();
+		} else if (frame == lastUpdateFrame) {
+			return false;
+		}
+		lastUpdateFrame = frame;
+		copySkinnedVertices();
+		return true;
+	}
+
+	private void rebuildStructure() {
+		vertexCount = renderGeoset.getVertexCount();
+		indexCount = renderGeoset.getTriangleCount() * 3;
+		if (vertexData.capacity() < (vertexCount * VERTEX_STRIDE)) {
+			vertexData = BufferUtils.createFloatBuffer(vertexCount * VERTEX_STRIDE);
+		}
+		if (indices.capacity() < indexCount) {
+			indices = BufferUtils.createIntBuffer(indexCount);
+		}
+		indices.clear();
+		indices.put(renderGeoset.getTriangleVertexIndices(), 0, indexCount);
+		indices.flip();
+		builtVersion = renderGeoset.getBuildVersion();
+		structureVersion++;
+	}
+
+	private void copySkinnedVertices() {
+		final float[] positions = renderGeoset.getPositions();
+		final float[] normals = renderGeoset.getNormals();
+		vertexData.clear();
+		for (int i = 0; i < vertexCount; i++) {
+			final int offset = i * 3;
+			vertexData.put(positions[offset + 1]);
+			vertexData.put(positions[offset + 2]);
+			vertexData.put(positions[offset]);
+			if (renderGeoset.hasNormal(i)) {
+				vertexData.put(normals[offset + 1]);
+				vertexData.put(normals[offset + 2]);
+				vertexData.put(normals[offset]);
+			} else {
+				// GL's default normal
+				vertexData.put(0);
+				vertexData.put(0);
+				vertexData.put(1);
+			}
+		}
+		vertexData.flip();
+	}
+
+	/**
+	 * Bumped whenever the index and texture coordinate buffers are rebuilt, so
+	 * that the renderer knows to upload them again.
+	 */
+	public int getStructureVersion() {
+		return structureVersion;
+	}
+
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	public int getIndexCount() {
+		return indexCount;
+	}
+
+	/**
+	 * Interleaved position/normal data, {@link #VERTEX_STRIDE} floats per vertex.
+	 */
+	public FloatBuffer getVertexData() {
+		return vertexData;
+	}
+
+	public IntBuffer getIndices() {
+		return indices;
+	}
+
+	/**
+	 * Texture coordinates for a layer, u v per vertex. Vertices with fewer
+	 * coordinate sets than the coord id use their last one, like the old
+	 * immediate mode code did.
+	 */
+	public FloatBuffer getTexCoords(final int coordId) {
+		return refreshTexCoords(coordId).buffer;
+	}
+
+	/**
+	 * Bumped whenever the texture coordinates of the coord id change, so that the
+	 * renderer knows to upload them again.
+	 */
+	public int getTexCoordsVersion(final int coordId) {
+		return refreshTexCoords(coordId).version;
+	}
+
+	private TexCoords refreshTexCoords(final int coordId) {
+		TexCoords texCoords = coordIdToTexCoords.get(coordId);
+		if (texCoords == null) {
+			texCoords = new TexCoords();
+			coordIdToTexCoords.put(coordId, texCoords);
+		} else if ((texCoords.checkedFrame == lastUpdateFrame)
+				&& (texCoords.checkedStructureVersion == structureVersion)) {
+			return texCoords;
+		}
+		texCoords.checkedFrame = lastUpdateFrame;
+		texCoords.checkedStructureVersion = structureVersion;
+		final int length = vertexCount * TEXCOORD_STRIDE;
+		boolean changed = texCoords.length != length;
+		if (texCoords.values.length < length) {
+			texCoords.values = new float[length];
+		}
+		texCoords.length = length;
+		final float[] values = texCoords.values;
+		for (int i = 0; i < vertexCount; i++) {
+			final List<TVertex> tverts = renderGeoset.getVertex(i).getTverts();
+			float u = 0;
+			float v = 0;
+			if (!tverts.isEmpty()) {
+				final TVertex tvert = tverts.get(Math.min(coordId, tverts.size() - 1));
+				u = (float) tvert.x;
+				v = (float) tvert.y;
+			}
+			final int offset = i * TEXCOORD_STRIDE;
+			if ((values[offset] != u) || (values[offset + 1] != v)) {
+				values[offset] = u;
+				values[offset + 1] = v;
+				changed = true;
+			}
+		}
+		if (changed) {
+			if (texCoords.buffer.capacity() < length) {
+				texCoords.buffer = BufferUtils.createFloatBuffer(length);
+			}
+			texCoords.buffer.clear();
+			texCoords.buffer.put(values, 0, length);
+			texCoords.buffer.flip();
+			texCoords.version++;
+		}
+		return texCoords;
+	}
+
+	private static final class TexCoords {
+		private FloatBuffer buffer = BufferUtils.createFloatBuffer(0);
+		private float[] values = new float[0];
+		private int length = -1;
+		private int version;
+		private int checkedFrame;
+		private int checkedStructureVersion = -1;
+	}
+}
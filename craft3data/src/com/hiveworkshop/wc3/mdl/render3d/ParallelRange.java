@@ -0,0 +1,57 @@
+package com.hiveworkshop.wc3.mdl.render3d;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs a body over an index range on the common fork/join pool, splitting the
+ * range in halves until the pieces are at most grainSize long. Small ranges
+ * (and machines with one core) just run on the calling thread. The call returns
+ * once the whole range is done.
+ */
+final class ParallelRange {
+	interface Body {
+		void run(int start, int end);
+	}
+
+	static void run(final int count, final int grainSize, final Body body) {
+		if (count <= 0) {
+			return;
+		}
+		if ((count <= grainSize) || (ForkJoinPool.getCommonPoolParallelism() <= 1)) {
+			body.run(0, count);
+			return;
+		}
+		ForkJoinPool.commonPool().invoke(new RangeAction(body, 0, count, Math.max(1, grainSize)));
+	}
+
+	private static final class RangeAction extends RecursiveAction {
+		private static final long serialVersionUID = 5483777514714011974L;
+
+		private final Body body;
+		private final int start;
+		private final int end;
+		private final int grainSize;
+
+		private RangeAction(final Body body, final int start, final int end, final int grainSize) {
+			this.body = body;
+			this.start = start;
+			this.end = end;
+			this.grainSize = grainSize;
+		}
+
+		@Override
+		protected void compute() {
+			if ((end - start) <= grainSize) {
+				body.run(start, end);
+			} else {
+				final int middle = (start + end) >>> 1;
+				invokeAll(new RangeAction(body, start, middle, grainSize),
+						new RangeAction(body, middle, end, grainSize));
+			}
+		}
+	}
+
+	private ParallelRange() {
+	}
+}
@@ -0,0 +1,367 @@
+package com.hiveworkshop.wc3.mdl.render3d;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.lwjgl.util.vector.Matrix4f;
+
+import com.hiveworkshop.wc3.mdl.Bone;
+import com.hiveworkshop.wc3.mdl.Geoset;
+import com.hiveworkshop.wc3.mdl.GeosetVertex;
+import com.hiveworkshop.wc3.mdl.Normal;
+import com.hiveworkshop.wc3.mdl.Triangle;
+import com.hiveworkshop.wc3.util.ModelUtils;
+
+/**
+ * CPU skinning cache for one geoset in one render model. The triangles are
+ * flattened to vertex indices and the bones of every vertex are resolved to
+ * RenderNodes when the cache is built, and then {@link #update(int, boolean)}
+ * skins each vertex once per frame into packed position/normal arrays that the
+ * draw code indexes by triangle corner.
+ *
+ * The bone assignments are only read when building, the vertex positions and
+ * normals are read live every frame. The cache rebuilds itself when the
+ * vertices of the geoset or the vertices of its triangles are no longer the
+ * ones it was built from, which is checked by identity once per frame. Edits to
+ * the bone assignments should call {@link #invalidate()} (RenderModel does that
+ * in refreshFromEditor).
+ */
+public final class RenderGeoset {
+	private final RenderModel renderModel;
+	private final Geoset geoset;
+
+	private boolean valid;
+	private boolean builtForSkin;
+	private List<Triangle> builtTriangles;
+	private int builtTriangleCount;
+	private int builtVertexCount;
+	private int lastUpdateFrame;
+	private int buildVersion;
+
+	private GeosetVertex[] builtGeosetVertices = new GeosetVertex[0];
+	private GeosetVertex[] vertices = new GeosetVertex[0];
+	private int vertexCount;
+	private int[] triangleVertexIndices = new int[0];
+	private int triangleCount;
+
+	// per vertex influences, vertex i uses influenceStart[i] until
+	// influenceStart[i+1]
+	private RenderNode[] nodes = new RenderNode[0];
+	private int[] influenceStart = new int[1];
+	private int[] influenceNode = new int[0];
+	private float[] influenceWeight = new float[0];
+
+	private float[] positions = new float[0];
+	private float[] normals = new float[0];
+	private boolean[] hasNormal = new boolean[0];
+
+	public RenderGeoset(final RenderModel renderModel, final Geoset geoset) {
+		this.renderModel = renderModel;
+		this.geoset = geoset;
+	}
+
+	/**
+	 * Whether the geoset is skinned with the SkinBones/SkinBoneWeights of its
+	 * vertices rather than with matrix groups.
+	 */
+	public static boolean usesSkinBones(final Geoset geoset, final int formatVersion) {
+		return ModelUtils.isTangentAndSkinSupported(formatVersion) && (geoset.getVertices().size() > 0)
+				&& (geoset.getVertex(0).getSkinBones() != null);
+	}
+
+	public Geoset getGeoset() {
+		return geoset;
+	}
+
+	public RenderModel getRenderModel() {
+		return renderModel;
+	}
+
+	public void invalidate() {
+		valid = false;
+	}
+
+	/**
+	 * Skins the geoset for the current node matrices, unless it was already done
+	 * for this frame number.
+	 *
+	 * @param frame  caller supplied frame counter, repeated calls with the same
+	 *               value only skin once
+	 * @param hdSkin true to use the SkinBones/SkinBoneWeights of the vertices
+	 *               (800+ models), false to average the matrix group bones
+	 */
+	public void update(final int frame, final boolean hdSkin) {
+		if (prepare(frame, hdSkin)) {
+			skin(0, vertexCount);
+		}
+	}
+
+	/**
+	 * Rebuilds the cache if needed and marks it as skinned for the frame.
+	 *
+	 * @return true if the caller must still run {@link #skin(int, int)} over all
+	 *         the vertices for this frame
+	 */
+	boolean prepare(final int frame, final boolean hdSkin) {
+		final boolean sameShape = valid && (hdSkin == builtForSkin) && (geoset.getTriangles() == builtTriangles)
+				&& (geoset.getTriangles().size() == builtTriangleCount)
+				&& (geoset.getVertices().size() == builtVertexCount);
+		if (sameShape && (frame == lastUpdateFrame)) {
+			// the layout was already checked and the vertices skinned for this frame
+			return false;
+		}
+		if (!sameShape || layoutChanged()) {
+			build(hdSkin);
+		}
+		lastUpdateFrame = frame;
+		return true;
+	}
+
+	/**
+	 * The editor replaces vertices and flips or rewires triangles in place without
+	 * telling anyone, so the vertices are compared with the ones the cache was
+	 * built from. This allocates nothing and runs at most once per frame, before
+	 * the skinning which touches every vertex anyway.
+	 */
+	private boolean layoutChanged() {
+		final List<GeosetVertex> geosetVertices = geoset.getVertices();
+		for (int i = 0; i < builtVertexCount; i++) {
+			if (geosetVertices.get(i) != builtGeosetVertices[i]) {
+				return true;
+			}
+		}
+		final List<Triangle> triangles = geoset.getTriangles();
+		int corner = 0;
+		for (int i = 0; i < builtTriangleCount; i++) {
+			for (final GeosetVertex vertex : triangles.get(i).getVerts()) {
+				if (vertex != vertices[triangleVertexIndices[corner++]]) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Skins the vertices in [start, end). Disjoint ranges only write disjoint
+	 * parts of the output arrays, so they can run on different threads.
+	 */
+	void skin(final int start, final int end) {
+		for (int i = start; i < end; i++) {
+			final GeosetVertex vertex = vertices[i];
+			final int first = influenceStart[i];
+			final int last = influenceStart[i + 1];
+			float m00, m01, m02, m10, m11, m12, m20, m21, m22, m30, m31, m32;
+			if (first == last) {
+				m00 = m11 = m22 = 1;
+				m01 = m02 = m10 = m12 = m20 = m21 = m30 = m31 = m32 = 0;
+			} else {
+				m00 = m01 = m02 = m10 = m11 = m12 = m20 = m21 = m22 = m30 = m31 = m32 = 0;
+				for (int j = first; j < last; j++) {
+					final Matrix4f worldMatrix = nodes[influenceNode[j]].getWorldMatrix();
+					final float weight = influenceWeight[j];
+					m00 += worldMatrix.m00 * weight;
+					m01 += worldMatrix.m01 * weight;
+					m02 += worldMatrix.m02 * weight;
+					m10 += worldMatrix.m10 * weight;
+					m11 += worldMatrix.m11 * weight;
+					m12 += worldMatrix.m12 * weight;
+					m20 += worldMatrix.m20 * weight;
+					m21 += worldMatrix.m21 * weight;
+					m22 += worldMatrix.m22 * weight;
+					m30 += worldMatrix.m30 * weight;
+					m31 += worldMatrix.m31 * weight;
+					m32 += worldMatrix.m32 * weight;
+				}
+			}
+			final float x = (float) vertex.x;
+			final float y = (float) vertex.y;
+			final float z = (float) vertex.z;
+			final int offset = i * 3;
+			positions[offset] = (m00 * x) + (m10 * y) + (m20 * z) + m30;
+			positions[offset + 1] = (m01 * x) + (m11 * y) + (m21 * z) + m31;
+			positions[offset + 2] = (m02 * x) + (m12 * y) + (m22 * z) + m32;
+			final Normal normal = vertex.getNormal();
+			hasNormal[i] = normal != null;
+			if (normal != null) {
+				final float nx = (float) normal.x;
+				final float ny = (float) normal.y;
+				final float nz = (float) normal.z;
+				float sx = (m00 * nx) + (m10 * ny) + (m20 * nz);
+				float sy = (m01 * nx) + (m11 * ny) + (m21 * nz);
+				float sz = (m02 * nx) + (m12 * ny) + (m22 * nz);
+				final float length = (float) Math.sqrt((sx * sx) + (sy * sy) + (sz * sz));
+				if (length > 0) {
+					sx /= length;
+					sy /= length;
+					sz /= length;
+				} else {
+					sx = 0;
+					sy = 1;
+					sz = 0;
+				}
+				normals[offset] = sx;
+				normals[offset + 1] = sy;
+				normals[offset + 2] = sz;
+			}
+		}
+	}
+
+	private void build(final boolean hdSkin) {
+		final List<GeosetVertex> geosetVertices = geoset.getVertices();
+		final List<Triangle> triangles = geoset.getTriangles();
+		if (builtGeosetVertices.length < geosetVertices.size()) {
+			builtGeosetVertices = new GeosetVertex[geosetVertices.size()];
+		}
+		geosetVertices.toArray(builtGeosetVertices);
+		final Map<GeosetVertex, Integer> vertexToIndex = new IdentityHashMap<>();
+		final List<GeosetVertex> vertexList = new ArrayList<>(geosetVertices.size());
+		for (final GeosetVertex vertex : geosetVertices) {
+			if (!vertexToIndex.containsKey(vertex)) {
+				vertexToIndex.put(vertex, vertexList.size());
+				vertexList.add(vertex);
+			}
+		}
+		triangleCount = triangles.size();
+		if (triangleVertexIndices.length < (triangleCount * 3)) {
+			triangleVertexIndices = new int[triangleCount * 3];
+		}
+		int corner = 0;
+		for (final Triangle triangle : triangles) {
+			for (final GeosetVertex vertex : triangle.getVerts()) {
+				Integer index = vertexToIndex.get(vertex);
+				if (index == null) {
+					// triangle pointing at a vertex that is not in the geoset, skin it anyway
+					index = vertexList.size();
+					vertexToIndex.put(vertex, index);
+					vertexList.add(vertex);
+				}
+				triangleVertexIndices[corner++] = index;
+			}
+		}
+
+		vertexCount = vertexList.size();
+		vertices = vertexList.toArray(new GeosetVertex[vertexCount]);
+		if (positions.length < (vertexCount * 3)) {
+			positions = new float[vertexCount * 3];
+			normals = new float[vertexCount * 3];
+			hasNormal = new boolean[vertexCount];
+		}
+		if (influenceStart.length < (vertexCount + 1)) {
+			influenceStart = new int[vertexCount + 1];
+		}
+
+		final Map<RenderNode, Integer> nodeToIndex = new IdentityHashMap<>();
+		final List<RenderNode> nodeList = new ArrayList<>();
+		int influenceCount = 0;
+		for (int i = 0; i < vertexCount; i++) {
+			final GeosetVertex vertex = vertices[i];
+			influenceStart[i] = influenceCount;
+			if (hdSkin) {
+				final Bone[] skinBones = vertex.getSkinBones();
+				final short[] skinBoneWeights = vertex.getSkinBoneWeights();
+				for (int boneIndex = 0; boneIndex < 4; boneIndex++) {
+					final Bone skinBone = skinBones[boneIndex];
+					if (skinBone == null) {
+						continue;
+					}
+					influenceCount = addInfluence(influenceCount, nodeIndex(skinBone, nodeToIndex, nodeList),
+							skinBoneWeights[boneIndex] / 255f);
+				}
+			} else {
+				final List<Bone> bones = vertex.getBones();
+				final float weight = 1f / bones.size();
+				for (final Bone bone : bones) {
+					influenceCount = addInfluence(influenceCount, nodeIndex(bone, nodeToIndex, nodeList), weight);
+				}
+			}
+		}
+		influenceStart[vertexCount] = influenceCount;
+		nodes = nodeList.toArray(new RenderNode[nodeList.size()]);
+
+		valid = true;
+		builtForSkin = hdSkin;
+		builtTriangles = triangles;
+		builtTriangleCount = triangles.size();
+		builtVertexCount = geosetVertices.size();
+		buildVersion++;
+	}
+
+	private int nodeIndex(final Bone bone, final Map<RenderNode, Integer> nodeToIndex,
+			final List<RenderNode> nodeList) {
+		final RenderNode node = renderModel.getRenderNode(bone);
+		Integer index = nodeToIndex.get(node);
+		if (index == null) {
+			index = nodeList.size();
+			nodeToIndex.put(node, index);
+			nodeList.add(node);
+		}
+		return index;
+	}
+
+	private int addInfluence(final int influenceCount, final int node, final float weight) {
+		if (influenceCount >= influenceNode.length) {
+			final int newLength = Math.max(16, influenceCount * 2);
+			final int[] newInfluenceNode = new int[newLength];
+			final float[] newInfluenceWeight = new float[newLength];
+			System.arraycopy(influenceNode, 0, newInfluenceNode, 0, influenceCount);
+			System.arraycopy(influenceWeight, 0, newInfluenceWeight, 0, influenceCount);
+			influenceNode = newInfluenceNode;
+			influenceWeight = newInfluenceWeight;
+		}
+		influenceNode[influenceCount] = node;
+		influenceWeight[influenceCount] = weight;
+		return influenceCount + 1;
+	}
+
+	/**
+	 * Bumped every time the vertex/triangle layout is rebuilt, anything derived
+	 * from the layout (like a GeosetVertexBuffer) can compare this to know when to
+	 * rebuild itself.
+	 */
+	public int getBuildVersion() {
+		return buildVersion;
+	}
+
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	public GeosetVertex getVertex(final int index) {
+		return vertices[index];
+	}
+
+	public int getTriangleCount() {
+		return triangleCount;
+	}
+
+	/**
+	 * Three vertex indices per triangle, in the order of geoset.getTriangles().
+	 * Only the first getTriangleCount() * 3 entries are valid.
+	 */
+	public int[] getTriangleVertexIndices() {
+		return triangleVertexIndices;
+	}
+
+	/**
+	 * Skinned positions, x y z per vertex, in model space (not swizzled to the
+	 * GL axes).
+	 */
+	public float[] getPositions() {
+		return positions;
+	}
+
+	/**
+	 * Skinned unit normals, x y z per vertex. Only meaningful where
+	 * {@link #hasNormal(int)}.
+	 */
+	public float[] getNormals() {
+		return normals;
+	}
+
+	public boolean hasNormal(final int vertexIndex) {
+		return hasNormal[vertexIndex];
+	}
+}
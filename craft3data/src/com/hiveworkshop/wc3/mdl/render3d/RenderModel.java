@@ -1,10 +1,13 @@
 package com.hiveworkshop.wc3.mdl.render3d;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.lwjgl.util.vector.Matrix4f;
 import org.lwjgl.util.vector.Quaternion;
@@ -17,11 +20,10 @@ import com.hiveworkshop.wc3.mdl.Bone;
 import com.hiveworkshop.wc3.mdl.Camera;
 import com.hiveworkshop.wc3.mdl.Camera.SourceNode;
 import com.hiveworkshop.wc3.mdl.Camera.TargetNode;
+import com.hiveworkshop.wc3.mdl.Geoset;
 import com.hiveworkshop.wc3.mdl.IdObject;
 import com.hiveworkshop.wc3.mdl.EditableModel;
 import com.hiveworkshop.wc3.mdl.ParticleEmitter2;
-import com.hiveworkshop.wc3.mdl.QuaternionRotation;
-import com.hiveworkshop.wc3.mdl.Vertex;
 import com.hiveworkshop.wc3.mdl.v2.ModelView;
 import com.hiveworkshop.wc3.util.MathUtils;
 
@@ -42,6 +44,8 @@ public final class RenderModel {
 
 	private final Map<AnimatedNode, RenderNode> objectToRenderNode = new HashMap<>();
 	private final Map<ParticleEmitter2, RenderParticleEmitter2View> emitterToRenderer = new HashMap<>();
+	private final Map<Geoset, RenderGeoset> geosetToRenderGeoset = new HashMap<>();
+	private final Set<Geoset> liveGeosets = Collections.newSetFromMap(new IdentityHashMap<Geoset, Boolean>());
 	private final List<RenderParticleEmitter2> particleEmitters2 = new ArrayList<>();// TODO one per model, not instance
 	private final List<RenderParticleEmitter2View> particleEmitterViews2 = new ArrayList<>();// TODO one per model, not
 																								// instance
@@ -52,6 +56,24 @@ public final class RenderModel {
 	private boolean spawnParticles = true;
 	private boolean allowInanimateParticles = false;
 	private static final Matrix4f billboardUpdatesMatrixHeap = new Matrix4f();
+	// packed output of AnimFlag.interpolateInto, big enough for a quaternion
+	private final float[] interpolationHeap = new float[4];
+
+	// Below this many nodes the update pipeline stays on the calling thread
+	private static final int PARALLEL_NODE_THRESHOLD = 64;
+	private static final int NODE_GRAIN_SIZE = 16;
+	private static final int SKIN_CHUNK_SIZE = 1024;
+	private boolean parallelUpdates = true;
+
+	// sortedNodes flattened for the update pipeline, and the sorted indices
+	// grouped by depth in the hierarchy (level i is levelOrder[levelStarts[i]]
+	// until levelOrder[levelStarts[i + 1]])
+	private RenderNode[] sortedRenderNodes = new RenderNode[0];
+	private RenderNode[] sortedParentRenderNodes = new RenderNode[0];
+	private boolean[] sortedNodeIsIdObject = new boolean[0];
+	private boolean[] sortedObjectVisible = new boolean[0];
+	private int[] levelOrder = new int[0];
+	private int[] levelStarts = new int[1];
 
 	// These guys form the corners of a 2x2 rectangle, for use in Ghostwolf particle
 	// emitter algorithm
@@ -88,6 +110,88 @@ public final class RenderModel {
 		return renderNode;
 	}
 
+	public RenderGeoset getRenderGeoset(final Geoset geoset) {
+		RenderGeoset renderGeoset = geosetToRenderGeoset.get(geoset);
+		if (renderGeoset == null) {
+			renderGeoset = new RenderGeoset(this, geoset);
+			geosetToRenderGeoset.put(geoset, renderGeoset);
+		}
+		return renderGeoset;
+	}
+
+	/**
+	 * Drops the RenderGeosets of geosets that are no longer in the model, so that
+	 * deleted, split or reimported geosets can be garbage collected. Viewports
+	 * call this once per frame, and then GeosetBufferRenderer.releaseUnused to
+	 * delete the buffers that were drawn for them.
+	 */
+	public void releaseRemovedGeosets() {
+		if (geosetToRenderGeoset.isEmpty()) {
+			return;
+		}
+		liveGeosets.addAll(model.getGeosets());
+		geosetToRenderGeoset.keySet().retainAll(liveGeosets);
+		liveGeosets.clear();
+	}
+
+	/**
+	 * @return whether renderGeoset is the one this model currently uses for its
+	 *         geoset
+	 */
+	public boolean isCurrent(final RenderGeoset renderGeoset) {
+		return (renderGeoset.getRenderModel() == this)
+				&& (geosetToRenderGeoset.get(renderGeoset.getGeoset()) == renderGeoset);
+	}
+
+	/**
+	 * Skins the given geosets for the frame, splitting the vertices across the
+	 * fork/join common pool when there are enough of them. Geosets that were
+	 * already skinned for this frame number are skipped.
+	 */
+	public void updateGeosets(final List<Geoset> geosets, final int frame, final int formatVersion) {
+		final List<RenderGeoset> toSkin = new ArrayList<>();
+		int chunkCount = 0;
+		for (final Geoset geoset : geosets) {
+			final RenderGeoset renderGeoset = getRenderGeoset(geoset);
+			if (renderGeoset.prepare(frame, RenderGeoset.usesSkinBones(geoset, formatVersion))) {
+				toSkin.add(renderGeoset);
+				chunkCount += chunkCount(renderGeoset);
+			}
+		}
+		if (!parallelUpdates || (chunkCount <= 1)) {
+			for (final RenderGeoset renderGeoset : toSkin) {
+				renderGeoset.skin(0, renderGeoset.getVertexCount());
+			}
+			return;
+		}
+		// one entry per chunk of vertices, so that small geosets are spread across
+		// threads as well as big ones
+		final RenderGeoset[] chunkGeosets = new RenderGeoset[chunkCount];
+		final int[] chunkStarts = new int[chunkCount];
+		int chunk = 0;
+		for (final RenderGeoset renderGeoset : toSkin) {
+			for (int i = 0; i < chunkCount(renderGeoset); i++) {
+				chunkGeosets[chunk] = renderGeoset;
+				chunkStarts[chunk] = i * SKIN_CHUNK_SIZE;
+				chunk++;
+			}
+		}
+		ParallelRange.run(chunkCount, 1, new ParallelRange.Body() {
+			@Override
+			public void run(final int start, final int end) {
+				for (int i = start; i < end; i++) {
+					final RenderGeoset renderGeoset = chunkGeosets[i];
+					renderGeoset.skin(chunkStarts[i],
+							Math.min(chunkStarts[i] + SKIN_CHUNK_SIZE, renderGeoset.getVertexCount()));
+				}
+			}
+		});
+	}
+
+	private static int chunkCount(final RenderGeoset renderGeoset) {
+		return ((renderGeoset.getVertexCount() + SKIN_CHUNK_SIZE) - 1) / SKIN_CHUNK_SIZE;
+	}
+
 	public RenderNode getRenderNodeByObjectId(final int objectId) {
 		return getRenderNode(model.getIdObject(objectId));
 	}
@@ -152,6 +256,52 @@ public final class RenderModel {
 		for (final AnimatedNode node : sortedNodes) {
 			getRenderNode(node).refreshFromEditor();
 		}
+		buildUpdateOrder();
+		for (final RenderGeoset renderGeoset : geosetToRenderGeoset.values()) {
+			renderGeoset.invalidate();
+		}
+	}
+
+	private void buildUpdateOrder() {
+		final int nodeCount = sortedNodes.size();
+		sortedRenderNodes = new RenderNode[nodeCount];
+		sortedParentRenderNodes = new RenderNode[nodeCount];
+		sortedNodeIsIdObject = new boolean[nodeCount];
+		sortedObjectVisible = new boolean[nodeCount];
+		final int[] depths = new int[nodeCount];
+		final Map<AnimatedNode, Integer> nodeToSortedIndex = new HashMap<>();
+		int maxDepth = -1;
+		for (int i = 0; i < nodeCount; i++) {
+			final AnimatedNode idObject = sortedNodes.get(i);
+			final AnimatedNode idObjectParent = idObject.getParent();
+			sortedRenderNodes[i] = getRenderNode(idObject);
+			sortedParentRenderNodes[i] = idObjectParent == null ? null : getRenderNode(idObjectParent);
+			sortedNodeIsIdObject[i] = idObject instanceof IdObject;
+			final Integer parentIndex = idObjectParent == null ? null : nodeToSortedIndex.get(idObjectParent);
+			depths[i] = parentIndex == null ? 0 : depths[parentIndex] + 1;
+			maxDepth = Math.max(maxDepth, depths[i]);
+			nodeToSortedIndex.put(idObject, i);
+		}
+		levelStarts = new int[maxDepth + 2];
+		for (int i = 0; i < nodeCount; i++) {
+			levelStarts[depths[i] + 1]++;
+		}
+		for (int level = 1; level < levelStarts.length; level++) {
+			levelStarts[level] += levelStarts[level - 1];
+		}
+		levelOrder = new int[nodeCount];
+		final int[] levelFill = new int[maxDepth + 1];
+		for (int i = 0; i < nodeCount; i++) {
+			levelOrder[levelStarts[depths[i]] + levelFill[depths[i]]++] = i;
+		}
+	}
+
+	/**
+	 * Whether large models may update their nodes and skin their geosets on the
+	 * fork/join common pool.
+	 */
+	public void setParallelUpdates(final boolean parallelUpdates) {
+		this.parallelUpdates = parallelUpdates;
 	}
 
 	private void setupHierarchy(final IdObject parent) {
@@ -179,159 +329,206 @@ public final class RenderModel {
 			}
 			return;
 		}
-		for (final AnimatedNode idObject : sortedNodes) {
-			final RenderNode node = getRenderNode(idObject);
-			final AnimatedNode idObjectParent = idObject.getParent();
-			final RenderNode parent = idObjectParent == null ? null : getRenderNode(idObjectParent);
-			final boolean objectVisible = idObject
-					.getRenderVisibility(animatedRenderEnvironment) >= MAGIC_RENDER_SHOW_CONSTANT;
-			final boolean nodeVisible = forced || (((parent == null) || parent.visible) && objectVisible);
-
-			node.visible = nodeVisible;
-
-			// Every node only needs to be updated if this is a forced update, or if both
-			// the parent node and the
-			// generic object corresponding to this node are visible.
-			// Incoming messy code for optimizations!
-			// --- All copied from Ghostwolf
-			if (nodeVisible) {
-				boolean wasDirty = false;
-				// TODO variants
-				final Vector3f localLocation = node.localLocation;
-				final Quaternion localRotation = node.localRotation;
-				final Vector3f localScale = node.localScale;
-
-				// Only update the local data if there is a need to
-				if (forced || true /* variants */) {
-					wasDirty = true;
-
-					// Translation
-					if (forced || true /* variants */) {
-						final Vertex renderTranslation = idObject.getRenderTranslation(animatedRenderEnvironment);
-						if (renderTranslation != null) {
-							localLocation.x = (float) renderTranslation.x;
-							localLocation.y = (float) renderTranslation.y;
-							localLocation.z = (float) renderTranslation.z;
-						} else {
-							localLocation.set(0, 0, 0);
-						}
-					}
+		final int nodeCount = sortedRenderNodes.length;
+		final boolean parallel = parallelUpdates && (nodeCount >= PARALLEL_NODE_THRESHOLD);
 
-					// Rotation
-					if (forced || true /* variants */) {
-						final QuaternionRotation renderRotation = idObject.getRenderRotation(animatedRenderEnvironment);
-						if (renderRotation != null) {
-							localRotation.x = (float) renderRotation.a;
-							localRotation.y = (float) renderRotation.b;
-							localRotation.z = (float) renderRotation.c;
-							localRotation.w = (float) renderRotation.d;
-						} else {
-							localRotation.set(0, 0, 0, 1);
-						}
+		// Visibility of the generic objects, these don't depend on each other
+		runNodeRange(nodeCount, parallel, new ParallelRange.Body() {
+			@Override
+			public void run(final int start, final int end) {
+				for (int i = start; i < end; i++) {
+					if (sortedNodeIsIdObject[i]) {
+						updateObjectVisibility(i);
 					}
+				}
+			}
+		});
+		// Every node only needs to be updated if this is a forced update, or if both
+		// the parent node and the generic object corresponding to this node are
+		// visible. Parents come first in the sorted nodes.
+		for (int i = 0; i < nodeCount; i++) {
+			if (!sortedNodeIsIdObject[i]) {
+				updateObjectVisibility(i);
+			}
+			final RenderNode parent = sortedParentRenderNodes[i];
+			sortedRenderNodes[i].visible = forced
+					|| (((parent == null) || parent.visible) && sortedObjectVisible[i]);
+		}
 
-					// Scale
-					if (forced || true /* variants */) {
-						final Vertex renderScale = idObject.getRenderScale(animatedRenderEnvironment);
-						if (renderScale != null) {
-							localScale.x = (float) renderScale.x;
-							localScale.y = (float) renderScale.y;
-							localScale.z = (float) renderScale.z;
-						} else {
-							localScale.set(1, 1, 1);
-						}
+		// Local translation/rotation/scale of the visible nodes, each node has its own
+		// keyframe samplers so these are independent too. The camera nodes still use
+		// the old interpolation code with static scratch objects, so they stay on
+		// this thread.
+		runNodeRange(nodeCount, parallel, new ParallelRange.Body() {
+			@Override
+			public void run(final int start, final int end) {
+				final float[] interpolationHeap = new float[4];
+				for (int i = start; i < end; i++) {
+					if (sortedNodeIsIdObject[i] && sortedRenderNodes[i].visible) {
+						updateLocalTransformation(i, interpolationHeap);
 					}
-					node.dirty = true;
 				}
+			}
+		});
+		for (int i = 0; i < nodeCount; i++) {
+			if (!sortedNodeIsIdObject[i] && sortedRenderNodes[i].visible) {
+				updateLocalTransformation(i, interpolationHeap);
+			}
+		}
 
-				// Billboarding
-				// If the instance is not attached to any scene, this is meaningless
-				if (node.billboarded || node.billboardedX) {
-					wasDirty = true;
-
-					// Cancel the parent's rotation;
-					if (parent != null) {
-						localRotation.set(parent.inverseWorldRotation);
-					} else {
-						localRotation.setIdentity();
+		// World matrices, one level of the hierarchy at a time so that every parent
+		// is final before its children read it.
+		for (int level = 0; level < (levelStarts.length - 1); level++) {
+			final int levelStart = levelStarts[level];
+			final int levelEnd = levelStarts[level + 1];
+			runNodeRange(levelEnd - levelStart, parallel, new ParallelRange.Body() {
+				@Override
+				public void run(final int start, final int end) {
+					for (int i = levelStart + start; i < (levelStart + end); i++) {
+						updateWorldTransformation(levelOrder[i]);
 					}
+				}
+			});
+		}
 
-					Quaternion.mul(localRotation, inverseCameraRotation, localRotation);
-				} else if (node.billboardedY) {
-					// To solve billboard Y, you must rotate to face camera
-					// in node local space only around the node-local version of the Y axis.
-					// Imagine that we have a vector facing outward from the plane that represents
-					// where the front of the plane will face after we apply the node's rotation.
-					// We can easily do "billboarding", which is to say we can construct a rotation
-					// that turns this facing to face the camera. However, for BillboardLockY, we
-					// must
-					// instead take the projection of the vector that would result from this --
-					// "facing camera"
-					// vector, and take the projection of that vector onto the plane perpendicular
-					// to the billboard lock axis.
-
-					wasDirty = true;
-
-					// Cancel the parent's rotation;
-					localRotation.setIdentity();
-					Quaternion.mul(localRotation, inverseCameraRotationYSpin, localRotation);
-//					if (parent != null) {
-//						Quaternion.mul(localRotation, localRotation, parent.inverseWorldRotation);
-//					}
-
-					// TODO face camera, TODO have a camera
-				} else if (node.billboardedZ) {
-					wasDirty = true;
-
-					// Cancel the parent's rotation;
-					if (parent != null) {
-						localRotation.set(parent.inverseWorldRotation);
-					} else {
-						localRotation.setIdentity();
+		// If there is an emitter associated with this node, and the node is
+		// visible (which might not be the case for a forced update!), fill it.
+		// TODO instanced rendering in 2090
+		if (particles) {
+			for (int i = 0; i < nodeCount; i++) {
+				if (sortedRenderNodes[i].visible && sortedObjectVisible[i]) {
+					final RenderParticleEmitter2View renderer = emitterToRenderer.get(sortedNodes.get(i));
+					if (renderer != null) {
+						if ((modelView == null)
+								|| modelView.getEditableIdObjects().contains((IdObject) sortedNodes.get(i))) {
+							renderer.fill();
+						}
 					}
+				}
+			}
+			updateParticles();
+		}
 
-					Quaternion.mul(localRotation, inverseCameraRotationZSpin, localRotation);
+	}
 
-					// TODO face camera, TODO have a camera
-				}
+	private static void runNodeRange(final int count, final boolean parallel, final ParallelRange.Body body) {
+		if (parallel) {
+			ParallelRange.run(count, NODE_GRAIN_SIZE, body);
+		} else {
+			body.run(0, count);
+		}
+	}
 
-				final boolean wasReallyDirty = forced || wasDirty || (parent == null) || parent.wasDirty;
-				node.wasDirty = wasReallyDirty;
+	private void updateObjectVisibility(final int sortedIndex) {
+		sortedObjectVisible[sortedIndex] = sortedNodes.get(sortedIndex)
+				.getRenderVisibility(animatedRenderEnvironment) >= MAGIC_RENDER_SHOW_CONSTANT;
+	}
 
-				// If this is a forced upate, or this node's local data was updated, or the
-				// parent node updated, do
-				// a full world update.
+	private void updateLocalTransformation(final int sortedIndex, final float[] interpolationHeap) {
+		final AnimatedNode idObject = sortedNodes.get(sortedIndex);
+		final RenderNode node = sortedRenderNodes[sortedIndex];
+		// TODO variants
+		final Vector3f localLocation = node.localLocation;
+		final Quaternion localRotation = node.localRotation;
+		final Vector3f localScale = node.localScale;
+
+		// Translation
+		if (idObject.getRenderTranslation(animatedRenderEnvironment, node.translationSampler, interpolationHeap)) {
+			localLocation.x = interpolationHeap[0];
+			localLocation.y = interpolationHeap[1];
+			localLocation.z = interpolationHeap[2];
+		} else {
+			localLocation.set(0, 0, 0);
+		}
 
-				if (wasReallyDirty) {
-					node.recalculateTransformation();
-				}
+		// Rotation
+		if (idObject.getRenderRotation(animatedRenderEnvironment, node.rotationSampler, interpolationHeap)) {
+			localRotation.x = interpolationHeap[0];
+			localRotation.y = interpolationHeap[1];
+			localRotation.z = interpolationHeap[2];
+			localRotation.w = interpolationHeap[3];
+		} else {
+			localRotation.set(0, 0, 0, 1);
+		}
 
-				// If there is an instance object associated with this node, and the node is
-				// visible (which might
-				// not be the case for a forced update!), update the object.
-				// This includes attachments and emitters.
-
-				// TODO instanced rendering in 2090
-				// let object = node.object;
-				if (objectVisible) {
-					node.update();
-					if (particles) {
-						final RenderParticleEmitter2View renderer = emitterToRenderer.get(idObject);
-						if (renderer != null) {
-							if ((modelView == null) || modelView.getEditableIdObjects().contains((IdObject) idObject)) {
-								renderer.fill();
-							}
-						}
-					}
-				}
+		// Scale
+		if (idObject.getRenderScale(animatedRenderEnvironment, node.scaleSampler, interpolationHeap)) {
+			localScale.x = interpolationHeap[0];
+			localScale.y = interpolationHeap[1];
+			localScale.z = interpolationHeap[2];
+		} else {
+			localScale.set(1, 1, 1);
+		}
+		node.dirty = true;
+	}
 
-				node.updateChildren();
+	private void updateWorldTransformation(final int sortedIndex) {
+		final RenderNode node = sortedRenderNodes[sortedIndex];
+		final RenderNode parent = sortedParentRenderNodes[sortedIndex];
+		if (!node.visible) {
+			// Hidden nodes keep their last local transformation but still follow
+			// their parent
+			if ((parent != null) && parent.wasDirty) {
+				node.dirty = true;
+				node.wasDirty = true;
+				node.recalculateTransformation();
+			} else {
+				node.wasDirty = false;
 			}
+			return;
 		}
-		if (particles) {
-			updateParticles();
+		final Quaternion localRotation = node.localRotation;
+
+		// Billboarding
+		// If the instance is not attached to any scene, this is meaningless
+		if (node.billboarded || node.billboardedX) {
+			// Cancel the parent's rotation;
+			if (parent != null) {
+				localRotation.set(parent.inverseWorldRotation);
+			} else {
+				localRotation.setIdentity();
+			}
+
+			Quaternion.mul(localRotation, inverseCameraRotation, localRotation);
+		} else if (node.billboardedY) {
+			// To solve billboard Y, you must rotate to face camera
+			// in node local space only around the node-local version of the Y axis.
+			// Imagine that we have a vector facing outward from the plane that represents
+			// where the front of the plane will face after we apply the node's rotation.
+			// We can easily do "billboarding", which is to say we can construct a rotation
+			// that turns this facing to face the camera. However, for BillboardLockY, we
+			// must
+			// instead take the projection of the vector that would result from this --
+			// "facing camera"
+			// vector, and take the projection of that vector onto the plane perpendicular
+			// to the billboard lock axis.
+
+			// Cancel the parent's rotation;
+			localRotation.setIdentity();
+			Quaternion.mul(localRotation, inverseCameraRotationYSpin, localRotation);
+//			if (parent != null) {
+//				Quaternion.mul(localRotation, localRotation, parent.inverseWorldRotation);
+//			}
+
+			// TODO face camera, TODO have a camera
+		} else if (node.billboardedZ) {
+			// Cancel the parent's rotation;
+			if (parent != null) {
+				localRotation.set(parent.inverseWorldRotation);
+			} else {
+				localRotation.setIdentity();
+			}
+
+			Quaternion.mul(localRotation, inverseCameraRotationZSpin, localRotation);
+
+			// TODO face camera, TODO have a camera
 		}
 
+		// The local data is resampled on every update (no variants yet), so visible
+		// nodes always do a full world update.
+		node.wasDirty = true;
+		node.dirty = true;
+		node.recalculateTransformation();
 	}
 
 	private void updateParticles() {
@@ -386,4 +583,4 @@ public final class RenderModel {
 	public boolean allowParticleSpawn() {
 		return spawnParticles;
 	}
-}
\ No newline at end of file
+}
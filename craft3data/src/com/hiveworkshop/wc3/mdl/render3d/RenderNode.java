@@ -5,6 +5,7 @@ import org.lwjgl.util.vector.Quaternion;
 import org.lwjgl.util.vector.Vector3f;
 import org.lwjgl.util.vector.Vector4f;
 
+import com.hiveworkshop.wc3.mdl.AnimFlagSampler;
 import com.hiveworkshop.wc3.mdl.AnimatedNode;
 import com.hiveworkshop.wc3.mdl.IdObject;
 import com.hiveworkshop.wc3.mdl.IdObject.NodeFlags;
@@ -20,10 +21,12 @@ public final class RenderNode {
 	boolean billboardedX;
 	boolean billboardedY;
 	boolean billboardedZ;
-	private static final Vector3f locationHeap = new Vector3f();
-	private static final Vector3f scalingHeap = new Vector3f();
-	private static final Vector3f pivotHeap = new Vector3f();
-	private static final Vector4f vector4Heap = new Vector4f();
+	// per node rather than static, RenderModel may update the nodes of a level on
+	// several threads
+	private final Vector3f locationHeap = new Vector3f();
+	private final Vector3f scalingHeap = new Vector3f();
+	private final Vector3f pivotHeap = new Vector3f();
+	private final Vector4f vector4Heap = new Vector4f();
 
 	protected final Vector3f localLocation = new Vector3f();
 	protected final Quaternion localRotation = new Quaternion();
@@ -43,6 +46,11 @@ public final class RenderNode {
 
 	protected boolean visible;
 
+	// keyframe cursors for playback of this node in this render model
+	protected final AnimFlagSampler translationSampler = new AnimFlagSampler();
+	protected final AnimFlagSampler rotationSampler = new AnimFlagSampler();
+	protected final AnimFlagSampler scaleSampler = new AnimFlagSampler();
+
 	private final RenderModel model;
 
 	public RenderNode(final RenderModel model, final AnimatedNode idObject) {
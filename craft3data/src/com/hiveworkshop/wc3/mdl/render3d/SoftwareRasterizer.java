@@ -0,0 +1,438 @@
+package com.hiveworkshop.wc3.mdl.render3d;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import com.hiveworkshop.wc3.mdl.Layer.FilterMode;
+
+/**
+ * Pure Java triangle rasterizer for rendering model previews without a GL
+ * context. Triangles are queued with {@link #drawTriangles} in clip space (the
+ * output of projection * modelview, like gl_Position) and drawn by
+ * {@link #render()}, which bins them into square tiles and fills the tiles on
+ * the fork/join pool. Every tile walks its triangles in submission order, so the
+ * result is the same as drawing everything on one thread.
+ *
+ * The fragment stage copies the fixed function state the viewports use: the
+ * texture is modulated by the per vertex color, depth test is LEQUAL, and the
+ * layer filter modes map to the same blend functions and alpha test as
+ * AnimatedPerspectiveViewport.bindLayer. Triangles with a corner behind the
+ * near plane are dropped instead of clipped, which is fine for preview cameras
+ * looking at a whole model.
+ */
+public final class SoftwareRasterizer {
+	public static final int TILE_SIZE = 32;
+
+	// screen space vertex: x, y, depth, 1/w, u/w, v/w, r, g, b, a
+	private static final int SCREEN_STRIDE = 10;
+
+	private final int width;
+	private final int height;
+	private final int tilesX;
+	private final int tilesY;
+	private final int[] colorBuffer;
+	private final float[] depthBuffer;
+
+	private DrawCall[] drawCalls = new DrawCall[8];
+	private int drawCallCount;
+
+	// queued triangles, by global index
+	private int[] triangleDrawCall = new int[64];
+	private int[] triangleVertices = new int[64 * 3];
+	private int triangleCount;
+
+	private final int[][] tileBins;
+	private final int[] tileBinSizes;
+
+	public SoftwareRasterizer(final int width, final int height) {
+		if ((width <= 0) || (height <= 0)) {
+			throw new IllegalArgumentException("Bad raster size: " + width + "x" + height);
+		}
+		this.width = width;
+		this.height = height;
+		tilesX = ((width + TILE_SIZE) - 1) / TILE_SIZE;
+		tilesY = ((height + TILE_SIZE) - 1) / TILE_SIZE;
+		colorBuffer = new int[width * height];
+		depthBuffer = new float[width * height];
+		tileBins = new int[tilesX * tilesY][16];
+		tileBinSizes = new int[tilesX * tilesY];
+		clear(0);
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Fills the color buffer with the given ARGB color and resets the depth
+	 * buffer. Anything queued and not yet rendered is dropped.
+	 */
+	public void clear(final int argb) {
+		Arrays.fill(colorBuffer, argb);
+		Arrays.fill(depthBuffer, 1f);
+		resetQueue();
+	}
+
+	private void resetQueue() {
+		Arrays.fill(drawCalls, 0, drawCallCount, null);
+		drawCallCount = 0;
+		triangleCount = 0;
+		Arrays.fill(tileBinSizes, 0);
+	}
+
+	/**
+	 * Queues an indexed triangle list.
+	 *
+	 * @param clipPositions x y z w per vertex, in clip space
+	 * @param texCoords     u v per vertex, may be null when texture is null
+	 * @param colors        r g b a per vertex, in 0..1
+	 * @param indices       three vertex indices per triangle
+	 * @param state         texture and blending for these triangles
+	 */
+	public void drawTriangles(final float[] clipPositions, final float[] texCoords, final float[] colors,
+			final int[] indices, final int indexCount, final DrawState state) {
+		final int vertexCount = clipPositions.length / 4;
+		final float[] screen = new float[vertexCount * SCREEN_STRIDE];
+		final boolean[] behindCamera = new boolean[vertexCount];
+		for (int i = 0; i < vertexCount; i++) {
+			final float w = clipPositions[(i * 4) + 3];
+			if (w <= 1e-6f) {
+				behindCamera[i] = true;
+				continue;
+			}
+			final float invW = 1f / w;
+			final int offset = i * SCREEN_STRIDE;
+			screen[offset] = ((clipPositions[i * 4] * invW) + 1) * 0.5f * width;
+			screen[offset + 1] = (1 - (clipPositions[(i * 4) + 1] * invW)) * 0.5f * height;
+			screen[offset + 2] = ((clipPositions[(i * 4) + 2] * invW) + 1) * 0.5f;
+			screen[offset + 3] = invW;
+			if (texCoords != null) {
+				screen[offset + 4] = texCoords[i * 2] * invW;
+				screen[offset + 5] = texCoords[(i * 2) + 1] * invW;
+			}
+			System.arraycopy(colors, i * 4, screen, offset + 6, 4);
+		}
+		final int drawCallIndex = drawCallCount;
+		if (drawCallCount >= drawCalls.length) {
+			drawCalls = Arrays.copyOf(drawCalls, drawCalls.length * 2);
+		}
+		drawCalls[drawCallCount++] = new DrawCall(screen, state);
+
+		for (int corner = 0; (corner + 2) < indexCount; corner += 3) {
+			int v0 = indices[corner];
+			int v1 = indices[corner + 1];
+			int v2 = indices[corner + 2];
+			if (behindCamera[v0] || behindCamera[v1] || behindCamera[v2]) {
+				continue;
+			}
+			final float area = signedArea(screen, v0, v1, v2);
+			if (area == 0) {
+				continue;
+			}
+			// counter clockwise in GL's y up is negative here, since the raster is y down
+			if ((area > 0) && state.cullBackFaces) {
+				continue;
+			}
+			if (area < 0) {
+				final int swap = v1;
+				v1 = v2;
+				v2 = swap;
+			}
+			addTriangle(drawCallIndex, v0, v1, v2);
+		}
+	}
+
+	private static float signedArea(final float[] screen, final int v0, final int v1, final int v2) {
+		final int o0 = v0 * SCREEN_STRIDE, o1 = v1 * SCREEN_STRIDE, o2 = v2 * SCREEN_STRIDE;
+		return ((screen[o1] - screen[o0]) * (screen[o2 + 1] - screen[o0 + 1]))
+				- ((screen[o2] - screen[o0]) * (screen[o1 + 1] - screen[o0 + 1]));
+	}
+
+	private void addTriangle(final int drawCallIndex, final int v0, final int v1, final int v2) {
+		final float[] screen = drawCalls[drawCallIndex].screen;
+		final int o0 = v0 * SCREEN_STRIDE, o1 = v1 * SCREEN_STRIDE, o2 = v2 * SCREEN_STRIDE;
+		final float minX = Math.min(screen[o0], Math.min(screen[o1], screen[o2]));
+		final float maxX = Math.max(screen[o0], Math.max(screen[o1], screen[o2]));
+		final float minY = Math.min(screen[o0 + 1], Math.min(screen[o1 + 1], screen[o2 + 1]));
+		final float maxY = Math.max(screen[o0 + 1], Math.max(screen[o1 + 1], screen[o2 + 1]));
+		if ((maxX < 0) || (maxY < 0) || (minX >= width) || (minY >= height)) {
+			return;
+		}
+		if (triangleCount >= triangleDrawCall.length) {
+			triangleDrawCall = Arrays.copyOf(triangleDrawCall, triangleDrawCall.length * 2);
+			triangleVertices = Arrays.copyOf(triangleVertices, triangleVertices.length * 2);
+		}
+		final int triangle = triangleCount++;
+		triangleDrawCall[triangle] = drawCallIndex;
+		triangleVertices[triangle * 3] = v0;
+		triangleVertices[(triangle * 3) + 1] = v1;
+		triangleVertices[(triangle * 3) + 2] = v2;
+
+		final int firstTileX = Math.max(0, (int) minX / TILE_SIZE);
+		final int lastTileX = Math.min(tilesX - 1, (int) maxX / TILE_SIZE);
+		final int firstTileY = Math.max(0, (int) minY / TILE_SIZE);
+		final int lastTileY = Math.min(tilesY - 1, (int) maxY / TILE_SIZE);
+		for (int tileY = firstTileY; tileY <= lastTileY; tileY++) {
+			for (int tileX = firstTileX; tileX <= lastTileX; tileX++) {
+				final int tile = (tileY * tilesX) + tileX;
+				int[] bin = tileBins[tile];
+				if (tileBinSizes[tile] >= bin.length) {
+					bin = Arrays.copyOf(bin, bin.length * 2);
+					tileBins[tile] = bin;
+				}
+				bin[tileBinSizes[tile]++] = triangle;
+			}
+		}
+	}
+
+	/**
+	 * Rasterizes everything queued since the last clear or render, tiles in
+	 * parallel, and empties the queue.
+	 */
+	public void render() {
+		ParallelRange.run(tilesX * tilesY, 1, new ParallelRange.Body() {
+			@Override
+			public void run(final int start, final int end) {
+				for (int tile = start; tile < end; tile++) {
+					renderTile(tile);
+				}
+			}
+		});
+		resetQueue();
+	}
+
+	private void renderTile(final int tile) {
+		final int tileMinX = (tile % tilesX) * TILE_SIZE;
+		final int tileMinY = (tile / tilesX) * TILE_SIZE;
+		final int tileMaxX = Math.min(width, tileMinX + TILE_SIZE) - 1;
+		final int tileMaxY = Math.min(height, tileMinY + TILE_SIZE) - 1;
+		final int[] bin = tileBins[tile];
+		final int binSize = tileBinSizes[tile];
+		for (int i = 0; i < binSize; i++) {
+			final int triangle = bin[i];
+			final DrawCall drawCall = drawCalls[triangleDrawCall[triangle]];
+			rasterizeTriangle(drawCall, triangleVertices[triangle * 3] * SCREEN_STRIDE,
+					triangleVertices[(triangle * 3) + 1] * SCREEN_STRIDE,
+					triangleVertices[(triangle * 3) + 2] * SCREEN_STRIDE, tileMinX, tileMinY, tileMaxX, tileMaxY);
+		}
+	}
+
+	private void rasterizeTriangle(final DrawCall drawCall, final int o0, final int o1, final int o2,
+			final int tileMinX, final int tileMinY, final int tileMaxX, final int tileMaxY) {
+		final float[] s = drawCall.screen;
+		final DrawState state = drawCall.state;
+		final float x0 = s[o0], y0 = s[o0 + 1];
+		final float x1 = s[o1], y1 = s[o1 + 1];
+		final float x2 = s[o2], y2 = s[o2 + 1];
+		final int minX = Math.max(tileMinX, (int) Math.floor(Math.min(x0, Math.min(x1, x2))));
+		final int maxX = Math.min(tileMaxX, (int) Math.ceil(Math.max(x0, Math.max(x1, x2))));
+		final int minY = Math.max(tileMinY, (int) Math.floor(Math.min(y0, Math.min(y1, y2))));
+		final int maxY = Math.min(tileMaxY, (int) Math.ceil(Math.max(y0, Math.max(y1, y2))));
+		final float area = ((x1 - x0) * (y2 - y0)) - ((x2 - x0) * (y1 - y0));
+		final float invArea = 1f / area;
+
+		// Edge i is the one opposite vertex i. Every edge function is evaluated from
+		// the end point of the edge that comes first in y then x, so the two
+		// triangles that share an edge get exactly opposite values on it, and a
+		// pixel center on the edge goes to the triangle for which it is a top or
+		// left edge (the fill rule of GL and D3D). Without that, shared edges were
+		// shaded twice and translucent layers were blended twice along them.
+		final boolean flip0 = precedes(x2, y2, x1, y1);
+		final float a0x = flip0 ? x2 : x1, a0y = flip0 ? y2 : y1;
+		final float d0x = flip0 ? x1 - x2 : x2 - x1, d0y = flip0 ? y1 - y2 : y2 - y1;
+		final float sign0 = flip0 ? -1 : 1;
+		final boolean topLeft0 = isTopLeft(x1, y1, x2, y2);
+		final boolean flip1 = precedes(x0, y0, x2, y2);
+		final float a1x = flip1 ? x0 : x2, a1y = flip1 ? y0 : y2;
+		final float d1x = flip1 ? x2 - x0 : x0 - x2, d1y = flip1 ? y2 - y0 : y0 - y2;
+		final float sign1 = flip1 ? -1 : 1;
+		final boolean topLeft1 = isTopLeft(x2, y2, x0, y0);
+		final boolean flip2 = precedes(x1, y1, x0, y0);
+		final float a2x = flip2 ? x1 : x0, a2y = flip2 ? y1 : y0;
+		final float d2x = flip2 ? x0 - x1 : x1 - x0, d2y = flip2 ? y0 - y1 : y1 - y0;
+		final float sign2 = flip2 ? -1 : 1;
+		final boolean topLeft2 = isTopLeft(x0, y0, x1, y1);
+
+		for (int y = minY; y <= maxY; y++) {
+			final float py = y + 0.5f;
+			for (int x = minX; x <= maxX; x++) {
+				final float px = x + 0.5f;
+				final float e0 = sign0 * ((d0x * (py - a0y)) - (d0y * (px - a0x)));
+				final float e1 = sign1 * ((d1x * (py - a1y)) - (d1y * (px - a1x)));
+				final float e2 = sign2 * ((d2x * (py - a2y)) - (d2y * (px - a2x)));
+				if ((e0 < 0) || (e1 < 0) || (e2 < 0) || ((e0 == 0) && !topLeft0) || ((e1 == 0) && !topLeft1)
+						|| ((e2 == 0) && !topLeft2)) {
+					continue;
+				}
+				final float b0 = e0 * invArea;
+				final float b1 = e1 * invArea;
+				final float b2 = e2 * invArea;
+				final int pixel = (y * width) + x;
+				final float depth = (b0 * s[o0 + 2]) + (b1 * s[o1 + 2]) + (b2 * s[o2 + 2]);
+				if (state.depthTest && (depth > depthBuffer[pixel])) {
+					continue;
+				}
+
+				float r = (b0 * s[o0 + 6]) + (b1 * s[o1 + 6]) + (b2 * s[o2 + 6]);
+				float g = (b0 * s[o0 + 7]) + (b1 * s[o1 + 7]) + (b2 * s[o2 + 7]);
+				float b = (b0 * s[o0 + 8]) + (b1 * s[o1 + 8]) + (b2 * s[o2 + 8]);
+				float a = (b0 * s[o0 + 9]) + (b1 * s[o1 + 9]) + (b2 * s[o2 + 9]);
+				if (state.texture != null) {
+					final float invW = (b0 * s[o0 + 3]) + (b1 * s[o1 + 3]) + (b2 * s[o2 + 3]);
+					final float u = ((b0 * s[o0 + 4]) + (b1 * s[o1 + 4]) + (b2 * s[o2 + 4])) / invW;
+					final float v = ((b0 * s[o0 + 5]) + (b1 * s[o1 + 5]) + (b2 * s[o2 + 5])) / invW;
+					final int texel = state.texture.sample(u, v, state.wrapU, state.wrapV);
+					r *= ((texel >>> 16) & 0xFF) / 255f;
+					g *= ((texel >>> 8) & 0xFF) / 255f;
+					b *= (texel & 0xFF) / 255f;
+					a *= (texel >>> 24) / 255f;
+				}
+				if ((state.filterMode == FilterMode.TRANSPARENT) && (a <= 0.75f)) {
+					continue;
+				}
+				colorBuffer[pixel] = blend(state.filterMode, clamp(r), clamp(g), clamp(b), clamp(a),
+						colorBuffer[pixel]);
+				if (state.depthWrite) {
+					depthBuffer[pixel] = depth;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return whether (ax, ay) comes before (bx, by) in y, then in x
+	 */
+	private static boolean precedes(final float ax, final float ay, final float bx, final float by) {
+		return (ay < by) || ((ay == by) && (ax < bx));
+	}
+
+	/**
+	 * Triangles reach the rasterizer wound clockwise on the y down screen, so a
+	 * top edge runs to the right along a row and a left edge runs up.
+	 */
+	private static boolean isTopLeft(final float ax, final float ay, final float bx, final float by) {
+		return ((ay == by) && (bx > ax)) || (by < ay);
+	}
+
+	private static int blend(final FilterMode filterMode, final float r, final float g, final float b,
+			final float a, final int destination) {
+		final float dr = ((destination >>> 16) & 0xFF) / 255f;
+		final float dg = ((destination >>> 8) & 0xFF) / 255f;
+		final float db = (destination & 0xFF) / 255f;
+		final float da = (destination >>> 24) / 255f;
+		switch (filterMode) {
+		case BLEND:
+			return pack((r * a) + (dr * (1 - a)), (g * a) + (dg * (1 - a)), (b * a) + (db * (1 - a)),
+					(a * a) + (da * (1 - a)));
+		case ADDITIVE:
+		case ADDALPHA:
+			return pack((r * a) + dr, (g * a) + dg, (b * a) + db, (a * a) + da);
+		case MODULATE:
+			return pack(dr * r, dg * g, db * b, da * a);
+		case MODULATE2X:
+			return pack(2 * dr * r, 2 * dg * g, 2 * db * b, 2 * da * a);
+		case NONE:
+		case TRANSPARENT:
+		default:
+			return pack(r, g, b, a);
+		}
+	}
+
+	private static float clamp(final float value) {
+		return value < 0 ? 0 : (value > 1 ? 1 : value);
+	}
+
+	private static int pack(final float r, final float g, final float b, final float a) {
+		return (toByte(a) << 24) | (toByte(r) << 16) | (toByte(g) << 8) | toByte(b);
+	}
+
+	private static int toByte(final float value) {
+		return (int) ((clamp(value) * 255f) + 0.5f);
+	}
+
+	/**
+	 * Copies the color buffer into a new TYPE_INT_ARGB image (not premultiplied,
+	 * top row first).
+	 */
+	public BufferedImage toImage() {
+		final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		image.setRGB(0, 0, width, height, colorBuffer, 0, width);
+		return image;
+	}
+
+	/**
+	 * Texture, blending and depth settings for one draw call, the software
+	 * equivalent of what bindLayer sets up in GL.
+	 */
+	public static final class DrawState {
+		private final Texture texture;
+		private final boolean wrapU;
+		private final boolean wrapV;
+		private final FilterMode filterMode;
+		private final boolean cullBackFaces;
+		private final boolean depthTest;
+		private final boolean depthWrite;
+
+		public DrawState(final Texture texture, final boolean wrapU, final boolean wrapV,
+				final FilterMode filterMode, final boolean cullBackFaces, final boolean depthTest,
+				final boolean depthWrite) {
+			this.texture = texture;
+			this.wrapU = wrapU;
+			this.wrapV = wrapV;
+			this.filterMode = filterMode;
+			this.cullBackFaces = cullBackFaces;
+			this.depthTest = depthTest;
+			this.depthWrite = depthWrite;
+		}
+	}
+
+	/**
+	 * ARGB texels of an image, sampled nearest neighbour.
+	 */
+	public static final class Texture {
+		private final int width;
+		private final int height;
+		private final int[] texels;
+
+		public Texture(final BufferedImage image) {
+			width = image.getWidth();
+			height = image.getHeight();
+			texels = image.getRGB(0, 0, width, height, null, 0, width);
+		}
+
+		int sample(final float u, final float v, final boolean wrapU, final boolean wrapV) {
+			final int x = texelIndex(u, width, wrapU);
+			final int y = texelIndex(v, height, wrapV);
+			return texels[(y * width) + x];
+		}
+
+		private static int texelIndex(final float coordinate, final int size, final boolean wrap) {
+			int index = (int) Math.floor(coordinate * size);
+			if (wrap) {
+				index %= size;
+				if (index < 0) {
+					index += size;
+				}
+			} else if (index < 0) {
+				index = 0;
+			} else if (index >= size) {
+				index = size - 1;
+			}
+			return index;
+		}
+	}
+
+	private static final class DrawCall {
+		private final float[] screen;
+		private final DrawState state;
+
+		private DrawCall(final float[] screen, final DrawState state) {
+			this.screen = screen;
+			this.state = state;
+		}
+	}
+}
@@ -0,0 +1,283 @@
+package com.hiveworkshop.wc3.mdl.v2.timelines;
+
+import java.util.Arrays;
+
+import com.hiveworkshop.wc3.util.MathUtils;
+
+/**
+ * Primitive keyframe storage for a single timeline. Times are kept sorted in
+ * an int[], and the value/tangent components of every key are packed into
+ * float[] arrays with a fixed stride based on the {@link Kind} of the track, so
+ * that a track with thousands of keys is a handful of arrays instead of
+ * thousands of boxed Integer/Double/Vertex/QuaternionRotation objects.
+ *
+ * The interpolation functions in here write into caller supplied buffers, so
+ * that animation playback does not need to allocate.
+ */
+public final class KeyframeTrack {
+	public enum Kind {
+		SCALAR(1), INTEGER(1), VECTOR(3), QUATERNION(4);
+
+		private final int stride;
+
+		private Kind(final int stride) {
+			this.stride = stride;
+		}
+
+		public int getStride() {
+			return stride;
+		}
+	}
+
+	private static final int DEFAULT_CAPACITY = 4;
+
+	private final Kind kind;
+	private final int stride;
+	private final InterpolationType interpolationType;
+	private final boolean tangents;
+	private int[] times;
+	private float[] values;
+	private float[] inTans;
+	private float[] outTans;
+	private int size;
+
+	public KeyframeTrack(final Kind kind, final InterpolationType interpolationType, final boolean tangents,
+			final int capacity) {
+		this.kind = kind;
+		this.stride = kind.getStride();
+		this.interpolationType = interpolationType;
+		this.tangents = tangents;
+		final int initialCapacity = Math.max(capacity, DEFAULT_CAPACITY);
+		times = new int[initialCapacity];
+		values = new float[initialCapacity * stride];
+		if (tangents) {
+			inTans = new float[initialCapacity * stride];
+			outTans = new float[initialCapacity * stride];
+		}
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public int getStride() {
+		return stride;
+	}
+
+	public InterpolationType getInterpolationType() {
+		return interpolationType;
+	}
+
+	public boolean hasTangents() {
+		return tangents;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int getTime(final int index) {
+		return times[index];
+	}
+
+	/**
+	 * Backing arrays, only the first {@link #size()} keys are valid. These are
+	 * exposed for samplers on the render path, do not modify them.
+	 */
+	public int[] getTimes() {
+		return times;
+	}
+
+	public float[] getValues() {
+		return values;
+	}
+
+	public float[] getInTans() {
+		return inTans;
+	}
+
+	public float[] getOutTans() {
+		return outTans;
+	}
+
+	/**
+	 * Inserts a key, keeping the times sorted. A key inserted at a time that
+	 * already exists is placed after the existing keys at that time.
+	 *
+	 * @param time
+	 * @param value  stride components read from index 0
+	 * @param inTan  stride components, ignored (may be null) if the track has no
+	 *               tangents
+	 * @param outTan stride components, ignored (may be null) if the track has no
+	 *               tangents
+	 * @return the index of the new key
+	 */
+	public int insert(final int time, final float[] value, final float[] inTan, final float[] outTan) {
+		ensureCapacity(size + 1);
+		final int index = floorIndex(time) + 1;
+		if (index < size) {
+			System.arraycopy(times, index, times, index + 1, size - index);
+			System.arraycopy(values, index * stride, values, (index + 1) * stride, (size - index) * stride);
+			if (tangents) {
+				System.arraycopy(inTans, index * stride, inTans, (index + 1) * stride, (size - index) * stride);
+				System.arraycopy(outTans, index * stride, outTans, (index + 1) * stride, (size - index) * stride);
+			}
+		}
+		size++;
+		times[index] = time;
+		set(index, value, inTan, outTan);
+		return index;
+	}
+
+	public void set(final int index, final float[] value, final float[] inTan, final float[] outTan) {
+		if ((index < 0) || (index >= size)) {
+			throw new IndexOutOfBoundsException("Keyframe index " + index + " of " + size);
+		}
+		System.arraycopy(value, 0, values, index * stride, stride);
+		if (tangents) {
+			copyOrClear(inTan, inTans, index * stride);
+			copyOrClear(outTan, outTans, index * stride);
+		}
+	}
+
+	public void remove(final int index) {
+		if ((index < 0) || (index >= size)) {
+			throw new IndexOutOfBoundsException("Keyframe index " + index + " of " + size);
+		}
+		final int moved = size - index - 1;
+		if (moved > 0) {
+			System.arraycopy(times, index + 1, times, index, moved);
+			System.arraycopy(values, (index + 1) * stride, values, index * stride, moved * stride);
+			if (tangents) {
+				System.arraycopy(inTans, (index + 1) * stride, inTans, index * stride, moved * stride);
+				System.arraycopy(outTans, (index + 1) * stride, outTans, index * stride, moved * stride);
+			}
+		}
+		size--;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Same contract as {@code AnimFlag.floorIndex}: the index of the last key at
+	 * or before the time, or -1 if there is none.
+	 */
+	public int floorIndex(final int time) {
+		int lo = 0;
+		int hi = size - 1;
+		while (lo <= hi) {
+			final int mid = (lo + hi) >>> 1;
+			if (times[mid] <= time) {
+				lo = mid + 1;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return hi;
+	}
+
+	/**
+	 * Same contract as {@code AnimFlag.ceilIndex}: the index of the first key at
+	 * or after the time, or the last index if there is none (0 when empty).
+	 */
+	public int ceilIndex(final int time) {
+		if (size == 0) {
+			return 0;
+		}
+		int lo = 0;
+		int hi = size - 1;
+		while (lo <= hi) {
+			final int mid = (lo + hi) >>> 1;
+			if (times[mid] < time) {
+				lo = mid + 1;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return lo == size ? size - 1 : lo;
+	}
+
+	public void getValue(final int index, final float[] out, final int outOffset) {
+		System.arraycopy(values, index * stride, out, outOffset, stride);
+	}
+
+	/**
+	 * Interpolates between a floor and a ceil key and writes {@link #getStride()}
+	 * components to the output. The floor value and floor out tangent are passed
+	 * as (array, key index) pairs rather than plain indices because the animation
+	 * wrapping rules in AnimFlag sometimes substitute an identity value or a
+	 * different key for them.
+	 */
+	public void interpolate(final float[] out, final int outOffset, final float[] floorSource, final int floorIndex,
+			final float[] floorOutTanSource, final int floorOutTanIndex, final int ceilIndex, final float t) {
+		final int floorOffset = floorIndex * stride;
+		final int ceilOffset = ceilIndex * stride;
+		InterpolationType interpolationType = this.interpolationType;
+		if ((kind == Kind.INTEGER) || (interpolationType == InterpolationType.DONT_INTERP)) {
+			System.arraycopy(floorSource, floorOffset, out, outOffset, stride);
+			return;
+		}
+		if (!tangents && (interpolationType != InterpolationType.LINEAR)) {
+			interpolationType = InterpolationType.LINEAR;
+		}
+		final int floorOutTanOffset = floorOutTanIndex * stride;
+		if (kind == Kind.QUATERNION) {
+			switch (interpolationType) {
+			case BEZIER:
+			case HERMITE:
+				MathUtils.squad(out, outOffset, floorSource, floorOffset, floorOutTanSource, floorOutTanOffset, inTans,
+						ceilOffset, values, ceilOffset, t);
+				break;
+			case LINEAR:
+			default:
+				MathUtils.slerp(out, outOffset, floorSource, floorOffset, values, ceilOffset, t);
+				break;
+			}
+			return;
+		}
+		for (int i = 0; i < stride; i++) {
+			final float previous = floorSource[floorOffset + i];
+			final float next = values[ceilOffset + i];
+			switch (interpolationType) {
+			case BEZIER:
+				out[outOffset + i] = (float) MathUtils.bezier(previous, floorOutTanSource[floorOutTanOffset + i],
+						inTans[ceilOffset + i], next, t);
+				break;
+			case HERMITE:
+				out[outOffset + i] = (float) MathUtils.hermite(previous, floorOutTanSource[floorOutTanOffset + i],
+						inTans[ceilOffset + i], next, t);
+				break;
+			case LINEAR:
+			default:
+				out[outOffset + i] = (float) MathUtils.lerp(previous, next, t);
+				break;
+			}
+		}
+	}
+
+	private void ensureCapacity(final int capacity) {
+		if (capacity > times.length) {
+			final int newCapacity = Math.max(capacity, times.length + (times.length >> 1));
+			times = Arrays.copyOf(times, newCapacity);
+			values = Arrays.copyOf(values, newCapacity * stride);
+			if (tangents) {
+				inTans = Arrays.copyOf(inTans, newCapacity * stride);
+				outTans = Arrays.copyOf(outTans, newCapacity * stride);
+			}
+		}
+	}
+
+	private void copyOrClear(final float[] source, final float[] destination, final int offset) {
+		if (source != null) {
+			System.arraycopy(source, 0, destination, offset, stride);
+		} else {
+			Arrays.fill(destination, offset, offset + stride, 0);
+		}
+	}
+}
@@ -5,8 +5,6 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.swing.JOptionPane;
-
 import com.hiveworkshop.wc3.mdl.MDLReader;
 
 import de.wc3data.stream.BlizzardDataInputStream;
@@ -76,8 +74,7 @@ public class FaceEffectsChunk {
 				}
 				return e;
 			} else {
-				JOptionPane.showMessageDialog(MDLReader.getDefaultContainer(),
-						"Unable to parse FaceEffect: Missing or unrecognized open statement.");
+				MDLReader.warn("Unable to parse FaceEffect: Missing or unrecognized open statement.");
 			}
 			return null;
 		}
@@ -1,8 +1,14 @@
 package com.hiveworkshop.wc3.mdx;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import com.hiveworkshop.wc3.mdl.AnimFlag;
 import com.hiveworkshop.wc3.mdl.Attachment;
@@ -25,6 +31,7 @@ import com.hiveworkshop.wc3.mdx.FaceEffectsChunk.FaceEffect;
 import com.hiveworkshop.wc3.mdx.SequenceChunk.Sequence;
 import com.hiveworkshop.wc3.util.ModelUtils;
 
+import de.wc3data.stream.BlizzardDataBufferInputStream;
 import de.wc3data.stream.BlizzardDataInputStream;
 import de.wc3data.stream.BlizzardDataOutputStream;
 
@@ -314,73 +321,7 @@ public class MdxModel {
 				versionChunk = new VersionChunk();
 				versionChunk.load(in);
 				version = versionChunk.version;
-			} else if (MdxUtils.checkOptionalId(in, ModelChunk.key)) {
-				modelChunk = new ModelChunk();
-				modelChunk.load(in, version);
-			} else if (MdxUtils.checkOptionalId(in, SequenceChunk.key)) {
-				sequenceChunk = new SequenceChunk();
-				sequenceChunk.load(in);
-			} else if (MdxUtils.checkOptionalId(in, GlobalSequenceChunk.key)) {
-				globalSequenceChunk = new GlobalSequenceChunk();
-				globalSequenceChunk.load(in);
-			} else if (MdxUtils.checkOptionalId(in, MaterialChunk.key)) {
-				materialChunk = new MaterialChunk();
-				materialChunk.load(in, version);
-			} else if (MdxUtils.checkOptionalId(in, TextureChunk.key)) {
-				textureChunk = new TextureChunk();
-				textureChunk.load(in);
-			} else if (MdxUtils.checkOptionalId(in, TextureAnimationChunk.key)) {
-				textureAnimationChunk = new TextureAnimationChunk();
-				textureAnimationChunk.load(in);
-			} else if (MdxUtils.checkOptionalId(in, GeosetChunk.key)) {
-				geosetChunk = new GeosetChunk();
-				geosetChunk.load(in, version);
-			} else if (MdxUtils.checkOptionalId(in, GeosetAnimationChunk.key)) {
-				geosetAnimationChunk = new GeosetAnimationChunk();
-				geosetAnimationChunk.load(in);
-			} else if (MdxUtils.checkOptionalId(in, BoneChunk.key)) {
-				boneChunk = new BoneChunk();
-				boneChunk.load(in);
-			} else if (MdxUtils.checkOptionalId(in, LightChunk.key)) {
-				lightChunk = new LightChunk();
-				lightChunk.load(in);
-			} else if (MdxUtils.checkOptionalId(in, HelperChunk.key)) {
-				helperChunk = new HelperChunk();
-				helperChunk.load(in);
-			} else if (MdxUtils.checkOptionalId(in, AttachmentChunk.key)) {
-				attachmentChunk = new AttachmentChunk();
-				attachmentChunk.load(in);
-			} else if (MdxUtils.checkOptionalId(in, PivotPointChunk.key)) {
-				pivotPointChunk = new PivotPointChunk();
-				pivotPointChunk.load(in);
-			} else if (MdxUtils.checkOptionalId(in, ParticleEmitterChunk.key)) {
-				particleEmitterChunk = new ParticleEmitterChunk();
-				particleEmitterChunk.load(in);
-			} else if (MdxUtils.checkOptionalId(in, ParticleEmitter2Chunk.key)) {
-				particleEmitter2Chunk = new ParticleEmitter2Chunk();
-				particleEmitter2Chunk.load(in);
-			} else if (MdxUtils.checkOptionalId(in, CornChunk.key)) {
-				cornChunk = new CornChunk();
-				cornChunk.load(in);
-			} else if (MdxUtils.checkOptionalId(in, RibbonEmitterChunk.key)) {
-				ribbonEmitterChunk = new RibbonEmitterChunk();
-				ribbonEmitterChunk.load(in);
-			} else if (MdxUtils.checkOptionalId(in, EventObjectChunk.key)) {
-				eventObjectChunk = new EventObjectChunk();
-				eventObjectChunk.load(in);
-			} else if (MdxUtils.checkOptionalId(in, CameraChunk.key)) {
-				cameraChunk = new CameraChunk();
-				cameraChunk.load(in);
-			} else if (MdxUtils.checkOptionalId(in, CollisionShapeChunk.key)) {
-				collisionShapeChunk = new CollisionShapeChunk();
-				collisionShapeChunk.load(in);
-			} else if (MdxUtils.checkOptionalId(in, FaceEffectsChunk.key)) {
-				faceEffectsChunk = new FaceEffectsChunk();
-				faceEffectsChunk.load(in);
-			} else if (MdxUtils.checkOptionalId(in, BindPoseChunk.key)) {
-				bindPoseChunk = new BindPoseChunk();
-				bindPoseChunk.load(in);
-			} else {
+			} else if (!loadChunk(in, version)) {
 				final int available = in.available();
 				if (available > 0) {
 					boolean alpha = true;
@@ -400,6 +341,198 @@ public class MdxModel {
 		}
 	}
 
+	/**
+	 * Loads the chunk the stream is at, if it is one of the chunks besides VERS
+	 * that a model can have.
+	 *
+	 * @return false if the chunk is not known, in which case nothing was read
+	 */
+	private boolean loadChunk(final BlizzardDataInputStream in, final int version) throws IOException {
+		if (MdxUtils.checkOptionalId(in, ModelChunk.key)) {
+			modelChunk = new ModelChunk();
+			modelChunk.load(in, version);
+		} else if (MdxUtils.checkOptionalId(in, SequenceChunk.key)) {
+			sequenceChunk = new SequenceChunk();
+			sequenceChunk.load(in);
+		} else if (MdxUtils.checkOptionalId(in, GlobalSequenceChunk.key)) {
+			globalSequenceChunk = new GlobalSequenceChunk();
+			globalSequenceChunk.load(in);
+		} else if (MdxUtils.checkOptionalId(in, MaterialChunk.key)) {
+			materialChunk = new MaterialChunk();
+			materialChunk.load(in, version);
+		} else if (MdxUtils.checkOptionalId(in, TextureChunk.key)) {
+			textureChunk = new TextureChunk();
+			textureChunk.load(in);
+		} else if (MdxUtils.checkOptionalId(in, TextureAnimationChunk.key)) {
+			textureAnimationChunk = new TextureAnimationChunk();
+			textureAnimationChunk.load(in);
+		} else if (MdxUtils.checkOptionalId(in, GeosetChunk.key)) {
+			geosetChunk = new GeosetChunk();
+			geosetChunk.load(in, version);
+		} else if (MdxUtils.checkOptionalId(in, GeosetAnimationChunk.key)) {
+			geosetAnimationChunk = new GeosetAnimationChunk();
+			geosetAnimationChunk.load(in);
+		} else if (MdxUtils.checkOptionalId(in, BoneChunk.key)) {
+			boneChunk = new BoneChunk();
+			boneChunk.load(in);
+		} else if (MdxUtils.checkOptionalId(in, LightChunk.key)) {
+			lightChunk = new LightChunk();
+			lightChunk.load(in);
+		} else if (MdxUtils.checkOptionalId(in, HelperChunk.key)) {
+			helperChunk = new HelperChunk();
+			helperChunk.load(in);
+		} else if (MdxUtils.checkOptionalId(in, AttachmentChunk.key)) {
+			attachmentChunk = new AttachmentChunk();
+			attachmentChunk.load(in);
+		} else if (MdxUtils.checkOptionalId(in, PivotPointChunk.key)) {
+			pivotPointChunk = new PivotPointChunk();
+			pivotPointChunk.load(in);
+		} else if (MdxUtils.checkOptionalId(in, ParticleEmitterChunk.key)) {
+			particleEmitterChunk = new ParticleEmitterChunk();
+			particleEmitterChunk.load(in);
+		} else if (MdxUtils.checkOptionalId(in, ParticleEmitter2Chunk.key)) {
+			particleEmitter2Chunk = new ParticleEmitter2Chunk();
+			particleEmitter2Chunk.load(in);
+		} else if (MdxUtils.checkOptionalId(in, CornChunk.key)) {
+			cornChunk = new CornChunk();
+			cornChunk.load(in);
+		} else if (MdxUtils.checkOptionalId(in, RibbonEmitterChunk.key)) {
+			ribbonEmitterChunk = new RibbonEmitterChunk();
+			ribbonEmitterChunk.load(in);
+		} else if (MdxUtils.checkOptionalId(in, EventObjectChunk.key)) {
+			eventObjectChunk = new EventObjectChunk();
+			eventObjectChunk.load(in);
+		} else if (MdxUtils.checkOptionalId(in, CameraChunk.key)) {
+			cameraChunk = new CameraChunk();
+			cameraChunk.load(in);
+		} else if (MdxUtils.checkOptionalId(in, CollisionShapeChunk.key)) {
+			collisionShapeChunk = new CollisionShapeChunk();
+			collisionShapeChunk.load(in);
+		} else if (MdxUtils.checkOptionalId(in, FaceEffectsChunk.key)) {
+			faceEffectsChunk = new FaceEffectsChunk();
+			faceEffectsChunk.load(in);
+		} else if (MdxUtils.checkOptionalId(in, BindPoseChunk.key)) {
+			bindPoseChunk = new BindPoseChunk();
+			bindPoseChunk.load(in);
+		} else {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Loads a model that is entirely in memory using the pool. The file is
+	 * scanned for its chunks first, then the chunks are decoded at the same time,
+	 * every geoset on its own, since no chunk refers to another while it is being
+	 * read. The references between them are resolved later by EditableModel.
+	 * Reads the same chunks as {@link #load(BlizzardDataInputStream)}, but throws
+	 * on data that one would skip over or misread.
+	 */
+	public void loadParallel(final ByteBuffer buffer, final ForkJoinPool pool) throws IOException {
+		final ByteBuffer data = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+		MdxUtils.checkId(new BlizzardDataBufferInputStream(range(data, 0, Math.min(4, data.limit()))), "MDLX");
+		int version = 800;
+		// by tag, a chunk that is in the file twice replaces the first one like in load
+		final Map<String, ForkJoinTask<?>> chunkTasks = new LinkedHashMap<>();
+		int position = 4;
+		for (int i = 0; (i < 23) && ((data.limit() - position) >= 8); i++) {
+			final String tag = readTag(data, position);
+			final int chunkSize = data.getInt(position + 4);
+			if ((chunkSize < 0) || (chunkSize > (data.limit() - position - 8))) {
+				throw new IOException("Chunk " + tag + " at offset " + position + " is larger than the file");
+			}
+			final ByteBuffer chunkData = range(data, position, position + 8 + chunkSize);
+			if (tag.equals(VersionChunk.key)) {
+				versionChunk = new VersionChunk();
+				versionChunk.load(new BlizzardDataBufferInputStream(chunkData));
+				version = versionChunk.version;
+			} else {
+				final int chunkVersion = version;
+				ForkJoinTask<?> task = null;
+				if (tag.equals(GeosetChunk.key)) {
+					task = createGeosetChunkTask(chunkData, chunkVersion);
+				}
+				if (task == null) {
+					task = ForkJoinTask
+							.adapt(() -> loadChunk(new BlizzardDataBufferInputStream(chunkData), chunkVersion));
+				}
+				chunkTasks.put(tag, task);
+			}
+			position += 8 + chunkSize;
+		}
+		try {
+			pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(chunkTasks.values())));
+		} catch (final RuntimeException e) {
+			for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				}
+			}
+			throw e;
+		}
+		for (final Map.Entry<String, ForkJoinTask<?>> chunkTask : chunkTasks.entrySet()) {
+			// load stops at an unknown chunk that is not all letters
+			if (Boolean.FALSE.equals(chunkTask.getValue().getRawResult())) {
+				for (final char c : chunkTask.getKey().toCharArray()) {
+					if (!Character.isAlphabetic(c)) {
+						throw new IOException("Unreadable chunk tag " + chunkTask.getKey());
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return a task that decodes every geoset of the chunk separately, or null
+	 *         if the geoset sizes do not add up to the chunk
+	 */
+	private ForkJoinTask<?> createGeosetChunkTask(final ByteBuffer chunkData, final int version) {
+		final GeosetChunk chunk = new GeosetChunk();
+		final List<ForkJoinTask<?>> geosetTasks = new ArrayList<>();
+		final List<GeosetChunk.Geoset> geosets = new ArrayList<>();
+		int position = 8;
+		while (position < chunkData.limit()) {
+			if ((chunkData.limit() - position) < 4) {
+				return null;
+			}
+			final int inclusiveSize = chunkData.getInt(position);
+			if ((inclusiveSize <= 0) || (inclusiveSize > (chunkData.limit() - position))) {
+				return null;
+			}
+			final ByteBuffer geosetData = range(chunkData, position, position + inclusiveSize);
+			final GeosetChunk.Geoset geoset = chunk.new Geoset();
+			geosets.add(geoset);
+			geosetTasks.add(ForkJoinTask.adapt(() -> {
+				geoset.load(new BlizzardDataBufferInputStream(geosetData), version);
+				if (geoset.getSize(version) != inclusiveSize) {
+					throw new IOException("Geoset size does not match its contents");
+				}
+				return null;
+			}));
+			position += inclusiveSize;
+		}
+		return ForkJoinTask.adapt(() -> {
+			ForkJoinTask.invokeAll(geosetTasks);
+			chunk.geoset = geosets.toArray(new GeosetChunk.Geoset[geosets.size()]);
+			geosetChunk = chunk;
+		});
+	}
+
+	private static ByteBuffer range(final ByteBuffer data, final int start, final int end) {
+		final ByteBuffer range = data.duplicate();
+		range.limit(end);
+		range.position(start);
+		return range.slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static String readTag(final ByteBuffer data, final int position) {
+		final char[] tag = new char[4];
+		for (int i = 0; i < 4; i++) {
+			tag[i] = (char) (data.get(position + i) & 0xFF);
+		}
+		return new String(tag);
+	}
+
 	public void save(final BlizzardDataOutputStream out) throws IOException {
 		out.writeNByteString("MDLX", 4);
 		if (versionChunk != null) {
@@ -1,7 +1,10 @@
 package com.hiveworkshop.wc3.mdx;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
 
+import de.wc3data.stream.BlizzardDataBufferInputStream;
 import de.wc3data.stream.BlizzardDataInputStream;
 import de.wc3data.stream.BlizzardDataOutputStream;
 
@@ -25,6 +28,32 @@ public class MdxUtils {
 		return model;
 	}
 
+	/**
+	 * Models at least this big have their chunks decoded in parallel by
+	 * {@link #loadModel(ByteBuffer)}, for smaller ones the tasks cost more than
+	 * they save.
+	 */
+	public static final int PARALLEL_LOAD_THRESHOLD = 1 << 20;
+
+	/**
+	 * Loads a model that is already in memory, such as a whole MDX file, reading
+	 * it with absolute little endian gets instead of through a stream.
+	 */
+	public static MdxModel loadModel(final ByteBuffer buffer) throws IOException {
+		if (buffer.remaining() >= PARALLEL_LOAD_THRESHOLD) {
+			final MdxModel model = new MdxModel();
+			try {
+				model.loadParallel(buffer, ForkJoinPool.commonPool());
+				return model;
+			} catch (final IOException e) {
+				// loadParallel rejects a damaged or unusual layout that the stream reader may still
+				// cope with, read it front to back which reads it or fails the way it always has.
+				// Anything else is a bug and is thrown as it is.
+			}
+		}
+		return loadModel(new BlizzardDataBufferInputStream(buffer));
+	}
+
 	public static boolean checkOptionalId(final BlizzardDataInputStream in, final String name) throws IOException {
 
 		in.mark(8);
@@ -83,10 +112,7 @@ public class MdxUtils {
 
 	public static float[] loadFloatArray(final BlizzardDataInputStream in, final int size) throws IOException {
 		final float array[] = new float[size];
-
-		for (int i = 0; i < size; i++) {
-			array[i] = in.readFloat();
-		}
+		in.readFloats(array);
 		return array;
 	}
 
@@ -95,30 +121,19 @@ public class MdxUtils {
 			return new int[0];
 		}
 		final int array[] = new int[size];
-
-		for (int i = 0; i < size; i++) {
-			array[i] = in.readInt();
-		}
-
+		in.readInts(array);
 		return array;
 	}
 
 	public static short[] loadShortArray(final BlizzardDataInputStream in, final int size) throws IOException {
 		final short array[] = new short[size];
-
-		for (int i = 0; i < size; i++) {
-			array[i] = (short) (in.readShort() & 0xFFFF);
-		}
-
+		in.readShorts(array);
 		return array;
 	}
 
 	public static byte[] loadByteArray(final BlizzardDataInputStream in, final int size) throws IOException {
 		final byte array[] = new byte[size];
-
-		for (int i = 0; i < size; i++) {
-			array[i] = in.readByte();
-		}
+		in.readBytes(array);
 		return array;
 	}
 
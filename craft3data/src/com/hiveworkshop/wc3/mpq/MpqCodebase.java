@@ -7,9 +7,9 @@ import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.etheller.collections.HashSet;
 import com.etheller.collections.Set;
@@ -17,6 +17,7 @@ import com.etheller.collections.SetView;
 import com.etheller.util.CollectionUtils;
 import com.hiveworkshop.wc3.gui.datachooser.DataSource;
 import com.hiveworkshop.wc3.gui.datachooser.DataSourceDescriptor;
+import com.hiveworkshop.wc3.gui.datachooser.DataSourcePathIndex;
 import com.hiveworkshop.wc3.gui.datachooser.MpqDataSourceDescriptor;
 import com.hiveworkshop.wc3.user.SaveProfile;
 
@@ -37,7 +38,8 @@ public class MpqCodebase implements Codebase, DataSource {
 		}
 	}
 
-	Map<String, File> cache = new HashMap<>();
+	Map<String, File> cache = new ConcurrentHashMap<>();
+	private final DataSourcePathIndex pathIndex = new DataSourcePathIndex();
 
 	@Override
 	public File getFile(final String filepath) {
@@ -45,7 +47,7 @@ public class MpqCodebase implements Codebase, DataSource {
 			return cache.get(filepath);
 		}
 		try {
-			for (int i = mpqList.size() - 1; i >= 0; i--) {
+			for (int i = pathIndex.firstCandidate(mpqList, filepath); i >= 0; i--) {
 				final DataSource mpq = mpqList.get(i);
 				final File tempProduct = mpq.getFile(filepath);
 				if (tempProduct != null) {
@@ -63,7 +65,7 @@ public class MpqCodebase implements Codebase, DataSource {
 	@Override
 	public InputStream getResourceAsStream(final String filepath) {
 		try {
-			for (int i = mpqList.size() - 1; i >= 0; i--) {
+			for (int i = pathIndex.firstCandidate(mpqList, filepath); i >= 0; i--) {
 				final DataSource mpq = mpqList.get(i);
 				final InputStream resourceAsStream = mpq.getResourceAsStream(filepath);
 				if (resourceAsStream != null) {
@@ -80,7 +82,7 @@ public class MpqCodebase implements Codebase, DataSource {
 	@Override
 	public ByteBuffer read(final String path) throws IOException {
 		try {
-			for (int i = mpqList.size() - 1; i >= 0; i--) {
+			for (int i = pathIndex.firstCandidate(mpqList, path); i >= 0; i--) {
 				final DataSource mpq = mpqList.get(i);
 				final ByteBuffer resourceAsStream = mpq.read(path);
 				if (resourceAsStream != null) {
@@ -99,13 +101,7 @@ public class MpqCodebase implements Codebase, DataSource {
 		if (cache.containsKey(filepath)) {
 			return true;
 		}
-		for (int i = mpqList.size() - 1; i >= 0; i--) {
-			final DataSource mpq = mpqList.get(i);
-			if (mpq.has(filepath)) {
-				return true;
-			}
-		}
-		return false;
+		return pathIndex.resolve(mpqList, filepath) != DataSourcePathIndex.NOT_FOUND;
 	}
 
 	public void refresh(final List<DataSourceDescriptor> dataSourceDescriptors) {
@@ -120,6 +116,7 @@ public class MpqCodebase implements Codebase, DataSource {
 		}
 		cache.clear();
 		mpqList.clear();
+		pathIndex.invalidate();
 		if (dataSourceDescriptors != null) {
 			for (final DataSourceDescriptor descriptor : dataSourceDescriptors) {
 				mpqList.add(descriptor.createDataSource());
@@ -130,10 +127,12 @@ public class MpqCodebase implements Codebase, DataSource {
 	public LoadedMPQ loadMPQ(final Path path) throws IOException, MPQException {
 		final DataSource mpqDataSource = new MpqDataSourceDescriptor(path.toString()).createDataSource();
 		mpqList.add(mpqDataSource);
+		pathIndex.invalidate();
 		return new LoadedMPQ() {
 			@Override
 			public void unload() {
 				mpqList.remove(mpqDataSource);
+				pathIndex.invalidate();
 				try {
 					mpqDataSource.close();
 				} catch (final IOException e) {
@@ -185,11 +184,9 @@ public class MpqCodebase implements Codebase, DataSource {
 
 	@Override
 	public boolean allowDownstreamCaching(final String filepath) {
-		for (int i = this.mpqList.size() - 1; i >= 0; i--) {
-			final DataSource mpq = this.mpqList.get(i);
-			if (mpq.has(filepath)) {
-				return mpq.allowDownstreamCaching(filepath);
-			}
+		final int index = pathIndex.resolve(this.mpqList, filepath);
+		if (index != DataSourcePathIndex.NOT_FOUND) {
+			return this.mpqList.get(index).allowDownstreamCaching(filepath);
 		}
 		return false;
 	}
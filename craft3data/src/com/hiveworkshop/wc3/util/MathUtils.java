@@ -61,6 +61,59 @@ public class MathUtils {
 		return (a * factor1) + (aOutTan * factor2) + (bInTan * factor3) + (b * factor4);
 	}
 
+	/**
+	 * Packed float version of QuaternionRotation.slerp, reads and writes 4
+	 * components (x, y, z, w) at the given offsets. The output may alias either
+	 * input.
+	 */
+	public static void slerp(final float[] out, final int outOffset, final float[] a, final int aOffset,
+			final float[] b, final int bOffset, final float t) {
+		slerp(out, outOffset, a[aOffset], a[aOffset + 1], a[aOffset + 2], a[aOffset + 3], b[bOffset],
+				b[bOffset + 1], b[bOffset + 2], b[bOffset + 3], t);
+	}
+
+	public static void slerp(final float[] out, final int outOffset, final double ax, final double ay,
+			final double az, final double aw, double bx, double by, double bz, double bw, final float t) {
+		final double scale0, scale1;
+		double cosom = (ax * bx) + (ay * by) + (az * bz) + (aw * bw);
+		if (cosom < 0) {
+			cosom = -cosom;
+			bx = -bx;
+			by = -by;
+			bz = -bz;
+			bw = -bw;
+		}
+		if ((1.0 - cosom) > 0.000001) {
+			final double omega = Math.acos(cosom);
+			final double sinom = Math.sin(omega);
+			scale0 = Math.sin((1.0 - t) * omega) / sinom;
+			scale1 = Math.sin(t * omega) / sinom;
+		} else {
+			scale0 = 1.0 - t;
+			scale1 = t;
+		}
+		out[outOffset] = (float) ((scale0 * ax) + (scale1 * bx));
+		out[outOffset + 1] = (float) ((scale0 * ay) + (scale1 * by));
+		out[outOffset + 2] = (float) ((scale0 * az) + (scale1 * bz));
+		out[outOffset + 3] = (float) ((scale0 * aw) + (scale1 * bw));
+	}
+
+	/**
+	 * Packed float version of QuaternionRotation.ghostwolfSquad. Unlike that one
+	 * this does not use any static scratch quaternions, the intermediate results
+	 * are staged in the output slot.
+	 */
+	public static void squad(final float[] out, final int outOffset, final float[] a, final int aOffset,
+			final float[] aOutTan, final int aOutTanOffset, final float[] bInTan, final int bInTanOffset,
+			final float[] b, final int bOffset, final float t) {
+		slerp(out, outOffset, aOutTan, aOutTanOffset, bInTan, bInTanOffset, t);
+		final float tanX = out[outOffset], tanY = out[outOffset + 1], tanZ = out[outOffset + 2],
+				tanW = out[outOffset + 3];
+		slerp(out, outOffset, a, aOffset, b, bOffset, t);
+		slerp(out, outOffset, out[outOffset], out[outOffset + 1], out[outOffset + 2], out[outOffset + 3], tanX,
+				tanY, tanZ, tanW, 2 * t * (1 - t));
+	}
+
 	// copied from ghostwolf and
 	// https://www.blend4web.com/api_doc/libs_gl-matrix2.js.html
 	public static void fromRotationTranslationScaleOrigin(final Quaternion q, final Vector3f v, final Vector3f s,
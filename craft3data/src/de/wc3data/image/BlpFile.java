@@ -1,13 +1,311 @@
 package de.wc3data.image;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Iterator;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
+/**
+ * BLP texture files. The static methods go through the ImageIO plugin, an
+ * instance decodes a BLP1 or BLP2 file by itself straight into ARGB ints or
+ * RGBA bytes, without the ImageIO color model and the sRGB copy that
+ * BLPHandler has to do afterwards.
+ *
+ * JPEG and paletted content are supported, as well as uncompressed BGRA in
+ * BLP2. Anything else (DXT compressed BLP2, BLP0 with external mipmaps) is
+ * rejected with an IOException, callers can fall back to ImageIO for those.
+ */
 public class BlpFile {
+	private static final int MAGIC_BLP1 = 0x31504C42;
+	private static final int MAGIC_BLP2 = 0x32504C42;
+	private static final int CONTENT_JPEG = 0;
+	private static final int BLP2_ENCODING_PALETTE = 1;
+	private static final int BLP2_ENCODING_BGRA = 3;
+	private static final int MAX_MIPMAPS = 16;
+	private static final int PALETTE_SIZE = 256;
+	private static final int BLP1_TABLES_OFFSET = 28;
+	private static final int BLP2_TABLES_OFFSET = 20;
+
+	private final ByteBuffer data;
+	private final boolean jpeg;
+	private final boolean bgra;
+	private final int alphaBits;
+	private final int width;
+	private final int height;
+	private final int mipmapCount;
+	private final int[] mipmapOffsets = new int[MAX_MIPMAPS];
+	private final int[] mipmapSizes = new int[MAX_MIPMAPS];
+	private final int[] palette = new int[PALETTE_SIZE];
+	private final int jpegHeaderOffset;
+	private final int jpegHeaderSize;
+
+	/**
+	 * Reads the header of a BLP file. The buffer is used as is (from its current
+	 * position) and must not change while this instance decodes from it.
+	 */
+	public BlpFile(final ByteBuffer blpData) throws IOException {
+		data = blpData.slice().order(ByteOrder.LITTLE_ENDIAN);
+		if (data.remaining() < (BLP1_TABLES_OFFSET + (MAX_MIPMAPS * 8))) {
+			throw new IOException("BLP file is too short");
+		}
+		final int magic = data.getInt(0);
+		final int content = data.getInt(4);
+		final boolean hasMipmaps;
+		final int tablesOffset;
+		if (magic == MAGIC_BLP1) {
+			alphaBits = data.getInt(8);
+			width = data.getInt(12);
+			height = data.getInt(16);
+			hasMipmaps = data.getInt(24) != 0;
+			tablesOffset = BLP1_TABLES_OFFSET;
+			bgra = false;
+		} else if (magic == MAGIC_BLP2) {
+			final int encoding = data.get(8) & 0xFF;
+			alphaBits = data.get(9) & 0xFF;
+			hasMipmaps = data.get(11) != 0;
+			width = data.getInt(12);
+			height = data.getInt(16);
+			tablesOffset = BLP2_TABLES_OFFSET;
+			if ((content != CONTENT_JPEG) && (encoding != BLP2_ENCODING_PALETTE)
+					&& (encoding != BLP2_ENCODING_BGRA)) {
+				throw new IOException("Unsupported BLP2 encoding: " + encoding);
+			}
+			bgra = (content != CONTENT_JPEG) && (encoding == BLP2_ENCODING_BGRA);
+		} else {
+			throw new IOException("Not a BLP1 or BLP2 file");
+		}
+		jpeg = content == CONTENT_JPEG;
+		if ((width <= 0) || (height <= 0) || (width > 65535) || (height > 65535)) {
+			throw new IOException("Bad BLP size: " + width + "x" + height);
+		}
+		if ((alphaBits != 0) && (alphaBits != 1) && (alphaBits != 4) && (alphaBits != 8)) {
+			throw new IOException("Unsupported BLP alpha bits: " + alphaBits);
+		}
+		for (int i = 0; i < MAX_MIPMAPS; i++) {
+			mipmapOffsets[i] = data.getInt(tablesOffset + (i * 4));
+			mipmapSizes[i] = data.getInt(tablesOffset + (MAX_MIPMAPS * 4) + (i * 4));
+		}
+		final int extraOffset = tablesOffset + (MAX_MIPMAPS * 8);
+		if (jpeg) {
+			jpegHeaderSize = data.getInt(extraOffset);
+			jpegHeaderOffset = extraOffset + 4;
+			checkRange(jpegHeaderOffset, jpegHeaderSize);
+		} else {
+			jpegHeaderSize = 0;
+			jpegHeaderOffset = 0;
+			if (!bgra) {
+				checkRange(extraOffset, PALETTE_SIZE * 4);
+				for (int i = 0; i < PALETTE_SIZE; i++) {
+					// BGRA bytes, the alpha of the palette is not used
+					palette[i] = data.getInt(extraOffset + (i * 4)) & 0xFFFFFF;
+				}
+			}
+		}
+		int count = 0;
+		final int maxCount = hasMipmaps ? MAX_MIPMAPS : 1;
+		while ((count < maxCount) && (mipmapSizes[count] > 0) && (mipmapOffsets[count] > 0)
+				&& (((width >> count) > 0) || ((height >> count) > 0))) {
+			count++;
+		}
+		if (count == 0) {
+			throw new IOException("BLP file has no image data");
+		}
+		mipmapCount = count;
+	}
+
+	private void checkRange(final int offset, final int length) throws IOException {
+		if ((offset < 0) || (length < 0) || (offset > (data.limit() - length))) {
+			throw new IOException("BLP data out of bounds: " + offset + "+" + length);
+		}
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getMipmapCount() {
+		return mipmapCount;
+	}
+
+	public int getWidth(final int mipmapLevel) {
+		return Math.max(1, width >> mipmapLevel);
+	}
+
+	public int getHeight(final int mipmapLevel) {
+		return Math.max(1, height >> mipmapLevel);
+	}
+
+	public boolean hasAlpha() {
+		return alphaBits != 0;
+	}
+
+	/**
+	 * Decodes a mipmap level into TYPE_INT_ARGB pixels (not premultiplied), row
+	 * by row starting at the given offset.
+	 */
+	public void decode(final int mipmapLevel, final int[] argb, final int offset) throws IOException {
+		if ((offset < 0) || (argb.length < (offset + (getWidth(mipmapLevel) * getHeight(mipmapLevel))))) {
+			throw new IllegalArgumentException("Destination is too small for mipmap " + mipmapLevel);
+		}
+		decode(mipmapLevel, argb, offset, null);
+	}
+
+	/**
+	 * Decodes a mipmap level into RGBA bytes (the layout glTexImage2D takes with
+	 * GL_RGBA/GL_UNSIGNED_BYTE), starting at the position of the buffer and
+	 * leaving the position after the last pixel.
+	 */
+	public void decode(final int mipmapLevel, final ByteBuffer rgba) throws IOException {
+		if (rgba.remaining() < (getWidth(mipmapLevel) * getHeight(mipmapLevel) * 4)) {
+			throw new IllegalArgumentException("Destination is too small for mipmap " + mipmapLevel);
+		}
+		decode(mipmapLevel, null, 0, rgba);
+	}
+
+	public BufferedImage toBufferedImage(final int mipmapLevel) throws IOException {
+		final BufferedImage image = new BufferedImage(getWidth(mipmapLevel), getHeight(mipmapLevel),
+				BufferedImage.TYPE_INT_ARGB);
+		decode(mipmapLevel, ((DataBufferInt) image.getRaster().getDataBuffer()).getData(), 0);
+		return image;
+	}
+
+	/**
+	 * Writes to exactly one of argb and rgba, one row at a time.
+	 */
+	private void decode(final int mipmapLevel, final int[] argb, final int argbOffset, final ByteBuffer rgba)
+			throws IOException {
+		if ((mipmapLevel < 0) || (mipmapLevel >= mipmapCount)) {
+			throw new IllegalArgumentException("No mipmap " + mipmapLevel + " in BLP with " + mipmapCount);
+		}
+		final int mipWidth = getWidth(mipmapLevel);
+		final int mipHeight = getHeight(mipmapLevel);
+		final int offset = mipmapOffsets[mipmapLevel];
+		final int size = mipmapSizes[mipmapLevel];
+		checkRange(offset, size);
+		final int[] row = argb == null ? new int[mipWidth] : argb;
+		final ByteBuffer rgbaInts = rgba == null ? null : rgba.duplicate().order(ByteOrder.BIG_ENDIAN);
+		if (jpeg) {
+			final Raster raster = readJpegRaster(offset, size);
+			final int bands = raster.getNumBands();
+			if ((bands < 3) || (raster.getWidth() < mipWidth) || (raster.getHeight() < mipHeight)) {
+				throw new IOException("Unexpected JPEG content in BLP");
+			}
+			final int[] samples = new int[mipWidth * bands];
+			final boolean jpegAlpha = (alphaBits != 0) && (bands > 3);
+			for (int y = 0; y < mipHeight; y++) {
+				raster.getPixels(raster.getMinX(), raster.getMinY() + y, mipWidth, 1, samples);
+				final int rowStart = argb == null ? 0 : argbOffset + (y * mipWidth);
+				for (int x = 0; x < mipWidth; x++) {
+					final int sample = x * bands;
+					// the JPEG holds BGRA without any color transform
+					final int alpha = jpegAlpha ? samples[sample + 3] : 0xFF;
+					row[rowStart + x] = (alpha << 24) | (samples[sample + 2] << 16) | (samples[sample + 1] << 8)
+							| samples[sample];
+				}
+				writeRow(row, rgbaInts, mipWidth);
+			}
+		} else if (bgra) {
+			if (size < (mipWidth * mipHeight * 4)) {
+				throw new IOException("BLP mipmap " + mipmapLevel + " is truncated");
+			}
+			for (int y = 0; y < mipHeight; y++) {
+				final int rowStart = argb == null ? 0 : argbOffset + (y * mipWidth);
+				for (int x = 0; x < mipWidth; x++) {
+					final int pixel = data.getInt(offset + (((y * mipWidth) + x) * 4));
+					row[rowStart + x] = alphaBits == 0 ? (pixel | 0xFF000000) : pixel;
+				}
+				writeRow(row, rgbaInts, mipWidth);
+			}
+		} else {
+			final int pixelCount = mipWidth * mipHeight;
+			if (size < (pixelCount + (((pixelCount * alphaBits) + 7) / 8))) {
+				throw new IOException("BLP mipmap " + mipmapLevel + " is truncated");
+			}
+			final int alphaOffset = offset + pixelCount;
+			for (int y = 0; y < mipHeight; y++) {
+				final int rowStart = argb == null ? 0 : argbOffset + (y * mipWidth);
+				for (int x = 0; x < mipWidth; x++) {
+					final int index = (y * mipWidth) + x;
+					row[rowStart + x] = (getAlpha(alphaOffset, index) << 24)
+							| palette[data.get(offset + index) & 0xFF];
+				}
+				writeRow(row, rgbaInts, mipWidth);
+			}
+		}
+		if (rgba != null) {
+			rgba.position(rgbaInts.position());
+		}
+	}
+
+	private int getAlpha(final int alphaOffset, final int index) {
+		switch (alphaBits) {
+		case 1:
+			return ((data.get(alphaOffset + (index >> 3)) >> (index & 7)) & 1) * 0xFF;
+		case 4:
+			return ((data.get(alphaOffset + (index >> 1)) >> ((index & 1) * 4)) & 0xF) * 0x11;
+		case 8:
+			return data.get(alphaOffset + index) & 0xFF;
+		default:
+			return 0xFF;
+		}
+	}
+
+	/**
+	 * Appends a row of ARGB pixels as RGBA bytes, if decoding into a buffer.
+	 */
+	private static void writeRow(final int[] row, final ByteBuffer rgbaInts, final int rowWidth) {
+		if (rgbaInts == null) {
+			return;
+		}
+		for (int x = 0; x < rowWidth; x++) {
+			final int pixel = row[x];
+			rgbaInts.putInt((pixel << 8) | (pixel >>> 24));
+		}
+	}
+
+	/**
+	 * The JPEG of a mipmap is the shared header followed by the mipmap data.
+	 * Reading it as a raster skips the YCbCr conversion, BLP JPEGs do not use it.
+	 */
+	private Raster readJpegRaster(final int offset, final int size) throws IOException {
+		final byte[] jpegData = new byte[jpegHeaderSize + size];
+		final ByteBuffer source = data.duplicate();
+		source.position(jpegHeaderOffset);
+		source.get(jpegData, 0, jpegHeaderSize);
+		source.position(offset);
+		source.get(jpegData, jpegHeaderSize, size);
+		final Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName("jpeg");
+		ImageReader reader = null;
+		while (readers.hasNext() && (reader == null)) {
+			final ImageReader candidate = readers.next();
+			if (candidate.canReadRaster()) {
+				reader = candidate;
+			}
+		}
+		if (reader == null) {
+			throw new IOException("No JPEG reader that can read rasters");
+		}
+		try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(jpegData))) {
+			reader.setInput(input, true, true);
+			return reader.readRaster(0, null);
+		} finally {
+			reader.dispose();
+		}
+	}
 
 	public static void writeJpgBLP(final BufferedImage imageData, final File imageFileBLP, final boolean b,
 			final float f) {
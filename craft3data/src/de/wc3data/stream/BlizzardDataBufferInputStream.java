@@ -0,0 +1,187 @@
+package de.wc3data.stream;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A BlizzardDataInputStream over data that is already in memory, such as a
+ * whole model file. Values are read with little endian gets straight from the
+ * buffer and arrays are filled with bulk gets, so reading does not allocate.
+ * The buffer is read from its position to its limit.
+ */
+public class BlizzardDataBufferInputStream
+        extends BlizzardDataInputStream {
+
+    private final ByteBuffer buffer;
+    private int markPosition = -1;
+
+    public BlizzardDataBufferInputStream(final ByteBuffer buffer) {
+        super(new ByteArrayInputStream(new byte[0]));
+        this.buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * @return the buffer being read, its position is the read position
+     */
+    public ByteBuffer getBuffer() {
+        return this.buffer;
+    }
+
+    @Override
+    public long getOffset() {
+        return this.buffer.position();
+    }
+
+    @Override
+    public int read() {
+        if (!this.buffer.hasRemaining()) {
+            return -1;
+        }
+        return this.buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b) {
+        return read(b, 0, b.length);
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) {
+        if (len == 0) {
+            return 0;
+        }
+        final int count = Math.min(len, this.buffer.remaining());
+        if (count == 0) {
+            return -1;
+        }
+        this.buffer.get(b, off, count);
+        return count;
+    }
+
+    @Override
+    public long skip(final long n) {
+        final int count = (int) Math.max(0, Math.min(n, this.buffer.remaining()));
+        this.buffer.position(this.buffer.position() + count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return this.buffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void mark(final int readlimit) {
+        this.markPosition = this.buffer.position();
+    }
+
+    @Override
+    public void reset()
+            throws IOException {
+        if (this.markPosition < 0) {
+            throw new IOException("Resetting to invalid mark");
+        }
+        this.buffer.position(this.markPosition);
+    }
+
+    @Override
+    public byte readByte()
+            throws IOException {
+        try {
+            return this.buffer.get();
+        } catch (final BufferUnderflowException e) {
+            throw endOfData();
+        }
+    }
+
+    @Override
+    public short readShort()
+            throws IOException {
+        try {
+            return this.buffer.getShort();
+        } catch (final BufferUnderflowException e) {
+            throw endOfData();
+        }
+    }
+
+    @Override
+    public int readInt()
+            throws IOException {
+        try {
+            return this.buffer.getInt();
+        } catch (final BufferUnderflowException e) {
+            throw endOfData();
+        }
+    }
+
+    @Override
+    public float readFloat()
+            throws IOException {
+        try {
+            return this.buffer.getFloat();
+        } catch (final BufferUnderflowException e) {
+            throw endOfData();
+        }
+    }
+
+    @Override
+    public char readChar() {
+        // same as the stream, which gives (char) -1 past the end
+        return (char) read();
+    }
+
+    @Override
+    public void readFloats(final float[] array)
+            throws IOException {
+        require(array.length * 4);
+        this.buffer.asFloatBuffer().get(array);
+        this.buffer.position(this.buffer.position() + (array.length * 4));
+    }
+
+    @Override
+    public void readInts(final int[] array)
+            throws IOException {
+        require(array.length * 4);
+        this.buffer.asIntBuffer().get(array);
+        this.buffer.position(this.buffer.position() + (array.length * 4));
+    }
+
+    @Override
+    public void readShorts(final short[] array)
+            throws IOException {
+        require(array.length * 2);
+        this.buffer.asShortBuffer().get(array);
+        this.buffer.position(this.buffer.position() + (array.length * 2));
+    }
+
+    @Override
+    public void readBytes(final byte[] array)
+            throws IOException {
+        require(array.length);
+        this.buffer.get(array);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void require(final int byteCount)
+            throws EOFException {
+        if ((byteCount < 0) || (this.buffer.remaining() < byteCount)) {
+            throw endOfData();
+        }
+    }
+
+    private EOFException endOfData() {
+        return new EOFException("Unexpected end of data at offset " + getOffset());
+    }
+}
@@ -8,6 +8,7 @@ public class BlizzardDataInputStream
         extends BufferedInputStream {
 
     private long offset = 0L;
+    private final byte[] scratch = new byte[4];
 
     public BlizzardDataInputStream(final InputStream in) {
         super(in);
@@ -28,16 +29,6 @@ public class BlizzardDataInputStream
         return result;
     }
 
-    private static short convertToShort(final byte[] b) {
-        int result = 0;
-
-        for (int i = 0; i < b.length; i++) {
-            result |= (b[i] & 0xFF) << i * 8;
-        }
-        return (short) result;
-        // return (short)(b[0] << 8 | b[1] & 0xFF);
-    }
-
     /*public long skip(long count)
      throws IOException
      {
@@ -50,10 +41,8 @@ public class BlizzardDataInputStream
 
     public byte readByte()
             throws IOException {
-        final byte[] b = new byte[1];
         this.offset += 1L;
-        read(b);
-        return b[0];
+        return (byte) read();
     }
 
     @Override
@@ -84,15 +73,15 @@ public class BlizzardDataInputStream
 
     public short readShort()
             throws IOException {
-        final byte[] b = new byte[2];
+        final byte[] b = this.scratch;
         this.offset += 2L;
         read(b, 0, 2);
-        return convertToShort(b);
+        return (short) (b[0] & 0xFF | (b[1] & 0xFF) << 8);
     }
 
     public int readInt()
             throws IOException {
-        final byte[] b = new byte[4];
+        final byte[] b = this.scratch;
         this.offset += 4L;
         read(b, 0, 4);
         return convertToInt(b);
@@ -106,6 +95,38 @@ public class BlizzardDataInputStream
         return convertNToInt(b);
     }
 
+    /**
+     * Fills the array with consecutive floats. Subclasses with random access to
+     * their data can override these bulk reads to avoid a call per element.
+     */
+    public void readFloats(final float[] array)
+            throws IOException {
+        for (int i = 0; i < array.length; i++) {
+            array[i] = readFloat();
+        }
+    }
+
+    public void readInts(final int[] array)
+            throws IOException {
+        for (int i = 0; i < array.length; i++) {
+            array[i] = readInt();
+        }
+    }
+
+    public void readShorts(final short[] array)
+            throws IOException {
+        for (int i = 0; i < array.length; i++) {
+            array[i] = readShort();
+        }
+    }
+
+    public void readBytes(final byte[] array)
+            throws IOException {
+        for (int i = 0; i < array.length; i++) {
+            array[i] = readByte();
+        }
+    }
+
     public boolean readBool()
             throws IOException {
         return readInt() == 1;
@@ -17,7 +17,7 @@ public class ArchivedFile implements Serializable {
 	// Specification is unclear when [(file is single unit) equals TRUE AND (file uses CRC) equals TRUE]. Assuming flag is ignored.
 	// Single Unit requires version safety check.
 	
-	public boolean ready;
+	public volatile boolean ready;
 	public final int blockShift;
 	public final int compressedSize;
 	public final int fileSize;
@@ -27,8 +27,16 @@ public class ArchivedFile implements Serializable {
 	public int[] blockChecksums = null;
 	public final int key;
 	public final byte compression;
+	// index in the block table, or -1 if unknown, identifies the file in a SectorCache
+	public final int blockIndex;
 	
 	public ArchivedFile( MPQArchive archive, HashLookup search, BlockTable.Entry file ) throws MPQException{
+		this(archive, search, file, -1);
+	}
+	
+	public ArchivedFile( MPQArchive archive, HashLookup search, BlockTable.Entry file, int blockIndex ) throws MPQException{
+		this.blockIndex = blockIndex;
+		
 		// *** load simple values
 		compressedSize = file.compressedSize;
 		fileSize = file.fileSize;
@@ -85,15 +93,35 @@ public class ArchivedFile implements Serializable {
 		}
 	}
 	
-	public void loadOffsets( SeekableByteChannel in ) throws IOException, MPQException{
+	public synchronized void loadOffsets( SeekableByteChannel in ) throws IOException, MPQException{
+		// another thread may have loaded the table while this one waited
+		if( ready ) return;
+		
 		// read sector table from file
 		ByteBuffer temp = ByteBuffer.allocate(blockOffsets.length * 4);
-		in.position( fileOffset );
-		while( temp.hasRemaining() )
-			if( in.read(temp) == -1 )
-				break;
+		ArchivedFileExtractor.readFully(in, temp, fileOffset);
+		temp.rewind();
+		
+		interpretOffsets(temp, in.size());
+	}
+	
+	public synchronized void loadOffsets( ByteBuffer mapping ) throws MPQException{
+		// another thread may have loaded the table while this one waited
+		if( ready ) return;
+		
+		// copy sector table out of the mapping
+		if( fileOffset < 0 || fileOffset + blockOffsets.length * 4 > mapping.capacity() ) throw new MPQException("block sector table located outside mapping");
+		ByteBuffer temp = ByteBuffer.allocate(blockOffsets.length * 4);
+		ByteBuffer table = mapping.duplicate();
+		table.limit((int) fileOffset + temp.capacity());
+		table.position((int) fileOffset);
+		temp.put(table);
 		temp.rewind();
 		
+		interpretOffsets(temp, mapping.capacity());
+	}
+	
+	private void interpretOffsets( ByteBuffer temp, long archiveSize ) throws MPQException{
 		// decrypt if required
 		if( hasFlag(BlockTable.FLAG_ENCRYPTED) ){
 			Cryption.decryptData(temp, temp, key - 1);
@@ -108,7 +136,7 @@ public class ArchivedFile implements Serializable {
 		else if( blockOffsets[0] < 0 || blockOffsets[0] > blockOffsets.length * 4 ) 
 			System.err.printf("block at %X has detached sectors starting at %X (%d bytes from end of sector table)%n",
 					fileOffset, fileOffset + blockOffsets[0], blockOffsets[0] - blockOffsets.length * 4);
-		if( fileOffset + blockOffsets[0] < 0 || fileOffset + blockOffsets[blockOffsets.length - 1] > in.size() )
+		if( fileOffset + blockOffsets[0] < 0 || fileOffset + blockOffsets[blockOffsets.length - 1] > archiveSize )
 			throw new MPQException("block sector located outside channel");
 		for( int i = 1, prevoff = blockOffsets[0] ; i < blockOffsets.length ; i+= 1){
 			int curroff = blockOffsets[i];
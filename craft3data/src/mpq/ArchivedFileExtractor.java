@@ -2,40 +2,145 @@ package mpq;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
 
 import mpq.compression.Compression;
 import mpq.util.Cryption;
 
+/**
+ * Reads sectors of archived files. One extractor can be shared by any number of
+ * streams and threads: sectors are read with positional reads that leave the
+ * channel position alone, and every thread decompresses with its own
+ * Compression since those keep scratch buffers between calls.
+ * 
+ * An extractor of a single archive can keep the sectors it decodes in a
+ * SectorCache, so that reading the same file again or seeking back in it does
+ * not decompress the same sectors again.
+ */
 public class ArchivedFileExtractor {
-	private Compression decompress = new Compression();
+	private final ThreadLocal<Compression> decompress = new ThreadLocal<Compression>(){
+		@Override
+		protected Compression initialValue(){
+			return new Compression();
+		}
+	};
+	private final SectorCache cache;
+	
+	public ArchivedFileExtractor(){
+		this(null);
+	}
 	
+	/**
+	 * @param cache cache for the decoded sectors, or null. Only use it with files of one archive.
+	 */
+	public ArchivedFileExtractor(SectorCache cache){
+		this.cache = cache;
+	}
+	
+	public SectorCache getCache(){
+		return cache;
+	}
+	
+	/**
+	 * Reads a sector. The returned buffer replaces the one passed in, which may
+	 * now belong to the decompressor of this thread, unless it is a read only
+	 * sector from the cache.
+	 */
 	public ByteBuffer readBlock(ByteBuffer bufferold, SeekableByteChannel in, ArchivedFile file, int block) throws IOException, MPQException{
+		// *** use the cached block if there is one
+		ByteBuffer cached = getCachedBlock(file, block);
+		if( cached != null ) return cached;
+		
 		// *** calculate the current block size
-		int currentSize;
-		if( file.fileSize < (block + 1) * bufferold.capacity() )
-			currentSize = file.fileSize % bufferold.capacity();
-		else
-			currentSize = bufferold.capacity();
+		int currentSize = blockSize(bufferold, file, block);
 		
 		// *** read block
+		long position;
 		if( file.blockOffsets != null ){
 			// use block offset table
 			if( !file.ready ){
 				file.loadOffsets(in);
 			}
 			bufferold.limit(file.blockOffsets[block+1] - file.blockOffsets[block]);
-			in.position(file.fileOffset + file.blockOffsets[block]);
+			position = file.fileOffset + file.blockOffsets[block];
 		}else{
 			// compute offset
 			bufferold.limit(currentSize);
-			in.position(file.fileOffset + bufferold.capacity() * block);
+			position = file.fileOffset + bufferold.capacity() * block;
 		}
-		while( bufferold.hasRemaining() )
-			if( in.read(bufferold) == -1 )
-				break;
+		readFully(in, bufferold, position);
 		bufferold.rewind();
 		
+		return decodeBlock(bufferold, file, block, currentSize);
+	}
+	
+	/**
+	 * Reads a sector from an archive that is mapped into memory. Sectors that
+	 * are stored as they are come back as read only slices of the mapping
+	 * without being copied. Other sectors are copied into the buffer passed in
+	 * to be decrypted and decompressed, as the decompressors work in place and
+	 * the inflater of Java 8 only takes arrays.
+	 * 
+	 * The returned buffer replaces the one passed in unless it is read only like
+	 * slices and cached sectors are,
+	 * see {@link #readBlock(ByteBuffer, SeekableByteChannel, ArchivedFile, int)}.
+	 */
+	public ByteBuffer readBlock(ByteBuffer bufferold, ByteBuffer mapping, ArchivedFile file, int block) throws MPQException{
+		// *** calculate the current block size
+		int currentSize = blockSize(bufferold, file, block);
+		
+		// *** locate block
+		long position;
+		int length;
+		if( file.blockOffsets != null ){
+			// use block offset table
+			if( !file.ready ){
+				file.loadOffsets(mapping);
+			}
+			length = file.blockOffsets[block+1] - file.blockOffsets[block];
+			position = file.fileOffset + file.blockOffsets[block];
+		}else{
+			// compute offset
+			length = currentSize;
+			position = file.fileOffset + bufferold.capacity() * block;
+		}
+		if( position < 0 || position + length > mapping.capacity() )
+			throw new MPQException("block sector located outside mapping");
+		ByteBuffer sector = mapping.duplicate();
+		sector.limit((int) position + length);
+		sector.position((int) position);
+		
+		// *** stored blocks need no copy
+		if( file.key == 0 && (file.compression == 0 || length >= currentSize) ){
+			return sector.slice();
+		}
+		
+		// *** use the cached block if there is one
+		ByteBuffer cached = getCachedBlock(file, block);
+		if( cached != null ) return cached;
+		
+		bufferold.limit(length);
+		bufferold.put(sector);
+		bufferold.rewind();
+		
+		return decodeBlock(bufferold, file, block, currentSize);
+	}
+	
+	private ByteBuffer getCachedBlock(ArchivedFile file, int block){
+		if( cache == null || file.blockIndex < 0 ) return null;
+		return cache.get(file.blockIndex, block);
+	}
+	
+	private static int blockSize(ByteBuffer bufferold, ArchivedFile file, int block){
+		if( file.fileSize < (block + 1) * bufferold.capacity() )
+			return file.fileSize % bufferold.capacity();
+		else
+			return bufferold.capacity();
+	}
+	
+	// decrypts and decompresses a block that was read into the buffer
+	private ByteBuffer decodeBlock(ByteBuffer bufferold, ArchivedFile file, int block, int currentSize) throws MPQException{
 		// *** decrypt if required
 		if( file.key != 0 ){
 			Cryption.decryptData(bufferold, bufferold, file.key + block);
@@ -51,16 +156,47 @@ public class ArchivedFileExtractor {
 		if( file.compression > 0 ){
 			// only decompress if block is compressed
 			if( bufferold.limit() < currentSize ){				
-				// decompress block
+				// decompress block, the buffer passed in is kept by this thread's compression in exchange for the one returned
+				Compression compression = decompress.get();
 				if( file.compression >= 3 ){
-					bufferold = decompress.blockDecompress3(bufferold, file.blockShift);
+					bufferold = compression.blockDecompress3(bufferold, file.blockShift);
 				}else if( file.compression == 2 ){
-					bufferold = decompress.blockDecompress2(bufferold, file.blockShift);
+					bufferold = compression.blockDecompress2(bufferold, file.blockShift);
 				}else{
-					bufferold = decompress.blockDecompress1(bufferold, file.blockShift);
+					bufferold = compression.blockDecompress1(bufferold, file.blockShift);
 				}
 			}
 		}
+		
+		// *** cache the decoded block
+		if( cache != null && file.blockIndex >= 0 ){
+			cache.put(file.blockIndex, block, bufferold);
+		}
 		return bufferold;
 	}
+	
+	/**
+	 * Fills the buffer from a position of the channel. File channels are read
+	 * without touching their position, so any number of threads can read from
+	 * the same channel at once. Other channels are locked while they are moved
+	 * and read.
+	 */
+	static void readFully(SeekableByteChannel in, ByteBuffer dst, long position) throws IOException{
+		if( in instanceof FileChannel ){
+			FileChannel channel = (FileChannel) in;
+			while( dst.hasRemaining() ){
+				int read = channel.read(dst, position);
+				if( read == -1 )
+					break;
+				position+= read;
+			}
+		}else{
+			synchronized( in ){
+				in.position(position);
+				while( dst.hasRemaining() )
+					if( in.read(dst) == -1 )
+						break;
+			}
+		}
+	}
 }
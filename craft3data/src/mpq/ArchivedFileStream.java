@@ -9,21 +9,41 @@ import java.nio.channels.SeekableByteChannel;
 public class ArchivedFileStream implements SeekableByteChannel{
 	private boolean open;
 	private SeekableByteChannel from;
+	private ByteBuffer mapping;
+	// the loaded sector, which may be a read only slice of the mapping
 	private ByteBuffer buffer;
+	// the buffer that sectors are read into when they cannot be sliced from the mapping
+	private ByteBuffer scratch;
+	private final int blockSize;
 	private ArchivedFile file;
 	private ArchivedFileExtractor extractor;
 	private long position;
 	private int currentBlock;
 	
 	public ArchivedFileStream(SeekableByteChannel in, ArchivedFileExtractor extractor, ArchivedFile file){
+		this(in, null, extractor, file);
+	}
+	
+	/**
+	 * Reads a file of an archive that is mapped into memory, see
+	 * {@link ArchivedFileExtractor#readBlock(ByteBuffer, ByteBuffer, ArchivedFile, int)}.
+	 */
+	public ArchivedFileStream(ByteBuffer mapping, ArchivedFileExtractor extractor, ArchivedFile file){
+		this(null, mapping, extractor, file);
+	}
+	
+	private ArchivedFileStream(SeekableByteChannel in, ByteBuffer mapping, ArchivedFileExtractor extractor, ArchivedFile file){
 		from = in;
+		this.mapping = mapping;
 		this.extractor = extractor;
 		this.file = file;
 		if( file.hasFlag(BlockTable.FLAG_SINGLE_UNIT) ){
-			buffer = ByteBuffer.allocate(file.fileSize);
+			blockSize = file.fileSize;
 		}else{
-			buffer = ByteBuffer.allocate(512 << file.blockShift);
+			blockSize = 512 << file.blockShift;
 		}
+		scratch = ByteBuffer.allocate(blockSize);
+		buffer = scratch;
 		position = 0;
 		currentBlock = -1;
 		open = true;
@@ -32,7 +52,9 @@ public class ArchivedFileStream implements SeekableByteChannel{
 	@Override
 	public void close() throws IOException {
 		from = null;
+		mapping = null;
 		buffer = null;
+		scratch = null;
 		open = false;
 	}
 
@@ -56,10 +78,10 @@ public class ArchivedFileStream implements SeekableByteChannel{
 		position = newPosition;
 		// try and update the buffer position of loaded sectors
 		if( currentBlock != -1 ){		
-			if( currentBlock != newPosition / buffer.capacity() )
+			if( currentBlock != newPosition / blockSize )
 				currentBlock = -1;
 			else
-				buffer.position((int) (newPosition % buffer.capacity()));
+				buffer.position((int) (newPosition % blockSize));
 		}
 		
 		// *** return value as described by SeekableByteChannel interface
@@ -75,14 +97,9 @@ public class ArchivedFileStream implements SeekableByteChannel{
 		
 		// load current block if no block is currently loaded
 		if( currentBlock == -1 ){
-			currentBlock = (int) (position / buffer.capacity());
-			buffer.clear();
-			try {
-				buffer = extractor.readBlock(buffer, from, file, currentBlock);
-			} catch (MPQException e) {
-				throw new IOException(e);
-			}
-			buffer.position((int) (position % buffer.capacity()));
+			currentBlock = (int) (position / blockSize);
+			loadBlock();
+			buffer.position((int) (position % blockSize));
 			
 		}
 		
@@ -98,13 +115,8 @@ public class ArchivedFileStream implements SeekableByteChannel{
 				position+= buffer.remaining();
 				dst.put(buffer);
 				if(position < file.fileSize){
-					currentBlock = (int) (position / buffer.capacity());
-					buffer.clear();
-					try {
-						buffer = extractor.readBlock(buffer, from, file, currentBlock);
-					} catch (MPQException e) {
-						throw new IOException(e);
-					}
+					currentBlock = (int) (position / blockSize);
+					loadBlock();
 				}else{
 					break;
 				}
@@ -114,6 +126,22 @@ public class ArchivedFileStream implements SeekableByteChannel{
 		return (int) (position - positionstart);
 	}
 
+	private void loadBlock() throws IOException{
+		scratch.clear();
+		try {
+			if( mapping != null ){
+				buffer = extractor.readBlock(scratch, mapping, file, currentBlock);
+			}else{
+				buffer = extractor.readBlock(scratch, from, file, currentBlock);
+			}
+		} catch (MPQException e) {
+			throw new IOException(e);
+		}
+		// a decompressor may have swapped the scratch buffer for one of its own
+		if( !buffer.isReadOnly() )
+			scratch = buffer;
+	}
+
 	@Override
 	public long size() throws IOException {
 		return file.fileSize;
@@ -5,6 +5,8 @@ import mpq.data.HashTableEntry;
 public class HashTable {
 	public static final int BLOCK_EMPTY_ALWAYS = 0xFFFFFFFF;
 	public static final int BLOCK_EMPTY_NOW = 0xFFFFFFFE;
+	// returned by findBlock for a miss, an empty bucket never names a block
+	public static final int BLOCK_NOT_FOUND = BLOCK_EMPTY_ALWAYS;
 	private Entry[] bucketArray;
 	
 	// raw constructor, assumes every entry is not null and the array is a power of 2
@@ -13,16 +15,23 @@ public class HashTable {
 	}
 	
 	public int lookupBlock(HashLookup what) throws MPQException{
+		int block = findBlock(what.index, what.hash);
+		if(block == BLOCK_NOT_FOUND) throw new MPQException("lookup not found");
+		return block;
+	}
+	
+	// same as lookupBlock but returns BLOCK_NOT_FOUND on a miss instead of throwing
+	public int findBlock(int tableOffset, long hash){
 		int mask = bucketArray.length-1;
-		int index = what.index & mask;
+		int index = tableOffset & mask;
 		for(int pos = index ; ; ){
 			Entry temp = bucketArray[pos];
 			if(temp.blockIndex == BLOCK_EMPTY_ALWAYS) break;
-			if(temp.getHash() == what.hash) return temp.blockIndex;
+			if(temp.hash == hash) return temp.blockIndex;
 			pos = ( pos + 1 ) & mask;
 			if(pos == index) break;
 		}
-		throw new MPQException("lookup not found");
+		return BLOCK_NOT_FOUND;
 	}
 	
 	/*public static int lookupBlock(Entry[] hashtable, byte[] file) throws FileNotFoundException{
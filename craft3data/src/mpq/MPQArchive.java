@@ -14,6 +14,13 @@ import mpq.data.UserDataHeader;
 import mpq.util.Cryption;
 
 public class MPQArchive {	
+	private static final ThreadLocal<PathHasher> PATH_HASHER = new ThreadLocal<PathHasher>(){
+		@Override
+		protected PathHasher initialValue(){
+			return new PathHasher();
+		}
+	};
+	
 	private long archiveOffset;
 	private short blockShift;
 	private HashTable hashTable;
@@ -286,6 +293,24 @@ public class MPQArchive {
 	}
 	
 	public ArchivedFile lookupHash2(HashLookup hash) throws MPQException{
-		return new ArchivedFile(this, hash, blockTable.lookupEntry(hashTable.lookupBlock(hash)));
+		int block = hashTable.lookupBlock(hash);
+		return new ArchivedFile(this, hash, blockTable.lookupEntry(block), block);
+	}
+	
+	// block index of a path, or HashTable.BLOCK_NOT_FOUND if it is not in the archive
+	public int findBlock(CharSequence path){
+		PathHasher hasher = PATH_HASHER.get().hash(path);
+		return hashTable.findBlock(hasher.getTableOffset(), hasher.getHash());
+	}
+	
+	public boolean hasFile(CharSequence path){
+		return findBlock(path) != HashTable.BLOCK_NOT_FOUND;
+	}
+	
+	// like lookupHash2, but returns null if the path is not in the archive
+	public ArchivedFile lookupFile(String path) throws MPQException{
+		int block = findBlock(path);
+		if( block == HashTable.BLOCK_NOT_FOUND ) return null;
+		return new ArchivedFile(this, new HashLookup(path), blockTable.lookupEntry(block), block);
 	}
 }
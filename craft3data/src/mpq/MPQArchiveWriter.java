@@ -0,0 +1,451 @@
+package mpq;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+import mpq.compression.pkware.PKImploder;
+import mpq.data.BlockTableEntry;
+import mpq.data.FileHeader;
+import mpq.data.HashTableEntry;
+import mpq.util.Cryption;
+
+/**
+ * Writes a version 0 (Warcraft III) MPQ archive.
+ *
+ * The sectors of every added file are compressed on a pool of worker threads
+ * while more files are added, and finished files are written to the channel
+ * in the order they were added as soon as they are ready, so memory use is
+ * bounded by the files still being compressed rather than the whole archive.
+ * The hash table, block table and (listfile) are written by {@link #close()},
+ * which also goes back to fill in the archive header.
+ *
+ * A writer is meant to be used from one thread.
+ */
+public class MPQArchiveWriter implements Closeable {
+	// sector compression masks, as read by Compression.blockDecompress2
+	public static final byte COMPRESSION_NONE = 0;
+	public static final byte COMPRESSION_ZLIB = 0x02;
+	public static final byte COMPRESSION_PKWARE = 0x08;
+
+	private static final int HEADER_SIZE = 32;
+	private static final short DEFAULT_BLOCK_SHIFT = 3;
+	// compressed files waiting to be written that are bigger than this are waited for
+	private static final long MAX_PENDING_BYTES = 64 * 1024 * 1024;
+
+	private final SeekableByteChannel out;
+	private final ExecutorService executor;
+	private final boolean ownsExecutor;
+	private final short blockShift;
+	private final int sectorSize;
+	private final long archiveStart;
+	private long position;
+	private boolean closed;
+	private boolean writeListfile = true;
+
+	private final ArrayDeque<PendingFile> pending = new ArrayDeque<PendingFile>();
+	private long pendingBytes;
+	private final List<WrittenFile> written = new ArrayList<WrittenFile>();
+	private final Set<String> paths = new HashSet<String>();
+	// compressors not in use by a sector task, ended on close; guarded by itself
+	private final ArrayDeque<SectorCompressor> idleCompressors = new ArrayDeque<SectorCompressor>();
+	private boolean compressorsEnded;
+
+	/**
+	 * Writes to the channel from its current position, compressing on a pool
+	 * with a thread per processor.
+	 */
+	public MPQArchiveWriter(SeekableByteChannel out) throws IOException{
+		this(out, null, DEFAULT_BLOCK_SHIFT);
+	}
+
+	/**
+	 * @param executor pool for the sector compression, or null for a pool of
+	 *            this writer with a thread per processor
+	 * @param blockShift sector size as a power of two times 512 bytes
+	 */
+	public MPQArchiveWriter(SeekableByteChannel out, ExecutorService executor, short blockShift) throws IOException{
+		if( blockShift < 0 || blockShift > 15 ) throw new IllegalArgumentException("invalid block shift " + blockShift);
+		this.out = out;
+		this.blockShift = blockShift;
+		sectorSize = 512 << blockShift;
+		if( executor == null ){
+			final AtomicInteger threadCount = new AtomicInteger();
+			this.executor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()), new ThreadFactory(){
+				@Override
+				public Thread newThread(Runnable runnable){
+					Thread thread = new Thread(runnable, "MPQ Compressor " + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			ownsExecutor = true;
+		}else{
+			this.executor = executor;
+			ownsExecutor = false;
+		}
+
+		// *** reserve space for the header, which is written last
+		archiveStart = out.position();
+		if( (archiveStart & (512 - 1)) != 0 ) throw new IllegalArgumentException("an archive has to start at a multiple of 512 bytes");
+		position = archiveStart;
+		writeFully(ByteBuffer.allocate(HEADER_SIZE));
+	}
+
+	/**
+	 * Whether close adds a (listfile) with the paths of all files, true by default.
+	 */
+	public void setWriteListfile(boolean writeListfile){
+		this.writeListfile = writeListfile;
+	}
+
+	/**
+	 * Adds a zlib compressed file.
+	 */
+	public void addFile(String path, ByteBuffer data) throws IOException{
+		addFile(path, data, COMPRESSION_ZLIB, false);
+	}
+
+	/**
+	 * Adds a file. Its sectors start compressing right away; the data must not
+	 * change until the file is written, which happens at the latest on close.
+	 *
+	 * @param path archive path, which must not have been added already
+	 * @param data the remaining bytes are the contents of the file
+	 * @param compression one of the COMPRESSION constants
+	 * @param encrypted encrypt the file with the key of its name
+	 */
+	public void addFile(String path, ByteBuffer data, byte compression, boolean encrypted) throws IOException{
+		if( closed ) throw new IOException("archive writer is closed");
+		if( compression != COMPRESSION_NONE && compression != COMPRESSION_ZLIB && compression != COMPRESSION_PKWARE )
+			throw new IllegalArgumentException("unsupported compression " + compression);
+		if( !paths.add(path.toUpperCase(Locale.US).replace('/', '\\')) ) throw new IllegalArgumentException("file already added: " + path);
+
+		// *** start compressing every sector
+		HashLookup lookup = new HashLookup(path);
+		PendingFile file = new PendingFile(path, lookup, data.remaining(), compression, encrypted);
+		ByteBuffer source = data.slice();
+		for( int offset = 0 ; offset < file.fileSize ; offset+= sectorSize ){
+			ByteBuffer sector = source.duplicate();
+			sector.position(offset);
+			sector.limit(Math.min(offset + sectorSize, file.fileSize));
+			file.sectors.add(executor.submit(new SectorTask(sector.slice(), compression, file.sectorKey(offset / sectorSize))));
+		}
+		pending.add(file);
+		pendingBytes+= file.fileSize;
+
+		// *** write out what is done, and wait for the oldest files if too much is pending
+		while( !pending.isEmpty() && (pendingBytes > MAX_PENDING_BYTES || pending.peek().isDone()) ){
+			writePending();
+		}
+	}
+
+	public void addFile(String path, byte[] data) throws IOException{
+		addFile(path, ByteBuffer.wrap(data));
+	}
+
+	/**
+	 * Number of files added so far.
+	 */
+	public int getFileCount(){
+		return paths.size();
+	}
+
+	/**
+	 * Writes the remaining files, the listfile and the tables, and fills in
+	 * the header. Does not close the channel.
+	 */
+	@Override
+	public void close() throws IOException{
+		if( closed ) return;
+		try {
+			if( writeListfile && !paths.contains("(LISTFILE)") ){
+				StringBuilder listfile = new StringBuilder();
+				for( PendingFile file : pending ) listfile.append(file.path).append("\r\n");
+				for( WrittenFile file : written ) listfile.append(file.path).append("\r\n");
+				addFile("(listfile)", ByteBuffer.wrap(listfile.toString().getBytes(StandardCharsets.UTF_8)));
+			}
+			while( !pending.isEmpty() ){
+				writePending();
+			}
+			closed = true;
+			writeTables();
+		} finally {
+			closed = true;
+			for( PendingFile file : pending )
+				for( Future<ByteBuffer> sector : file.sectors ) sector.cancel(false);
+			if( ownsExecutor ) executor.shutdownNow();
+			endCompressors();
+		}
+	}
+
+	private SectorCompressor takeCompressor(){
+		synchronized( idleCompressors ){
+			SectorCompressor compressor = idleCompressors.poll();
+			return compressor != null ? compressor : new SectorCompressor();
+		}
+	}
+
+	// a compressor given back after close, by a task that was still running, is ended right away
+	private void giveBackCompressor(SectorCompressor compressor){
+		synchronized( idleCompressors ){
+			if( compressorsEnded ) compressor.end();
+			else idleCompressors.push(compressor);
+		}
+	}
+
+	private void endCompressors(){
+		synchronized( idleCompressors ){
+			compressorsEnded = true;
+			for( SectorCompressor compressor : idleCompressors ) compressor.end();
+			idleCompressors.clear();
+		}
+	}
+
+	// writes the oldest pending file, waiting for its sectors if needed
+	private void writePending() throws IOException{
+		PendingFile file = pending.poll();
+		pendingBytes-= file.fileSize;
+
+		// *** collect compressed sectors
+		int sectorCount = file.sectors.size();
+		ByteBuffer[] sectors = new ByteBuffer[sectorCount];
+		for( int i = 0 ; i < sectorCount ; i+= 1 ){
+			try {
+				sectors[i] = file.sectors.get(i).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("interrupted while compressing " + file.path, e);
+			} catch (ExecutionException e) {
+				throw new IOException("failed to compress " + file.path, e.getCause());
+			}
+		}
+
+		// *** write the sector offset table and the sectors
+		long fileStart = position;
+		int flags = BlockTable.FLAG_EXISTS;
+		if( file.encrypted ) flags|= BlockTable.FLAG_ENCRYPTED;
+		if( file.compression != COMPRESSION_NONE && sectorCount > 0 ){
+			flags|= BlockTable.FLAG_COMPRESS;
+			ByteBuffer table = ByteBuffer.allocate((sectorCount + 1) * 4).order(ByteOrder.LITTLE_ENDIAN);
+			int offset = table.capacity();
+			for( int i = 0 ; i < sectorCount ; i+= 1 ){
+				table.putInt(offset);
+				offset+= sectors[i].remaining();
+			}
+			table.putInt(offset);
+			table.flip();
+			if( file.encrypted ) Cryption.encryptData(table, table, file.key - 1);
+			writeFully(table);
+		}
+		for( ByteBuffer sector : sectors ){
+			writeFully(sector);
+		}
+		if( position - archiveStart > 0xFFFFFFFFL ) throw new IOException("archive is larger than 4GB");
+		written.add(new WrittenFile(file.path, file.lookup, fileStart - archiveStart, (int) (position - fileStart), file.fileSize, flags));
+	}
+
+	private void writeTables() throws IOException{
+		// *** hash table, at least a third empty so that lookups stay short
+		int hashTableSize = 16;
+		while( hashTableSize < written.size() + written.size() / 2 ) hashTableSize<<= 1;
+		ByteBuffer hashTable = ByteBuffer.allocate(hashTableSize * HashTableEntry.STRUCT_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		for( int i = 0 ; i < hashTableSize ; i+= 1 ){
+			hashTable.putLong(-1L);
+			hashTable.putShort((short) -1);
+			hashTable.putShort((short) -1);
+			hashTable.putInt(HashTable.BLOCK_EMPTY_ALWAYS);
+		}
+		int mask = hashTableSize - 1;
+		for( int block = 0 ; block < written.size() ; block+= 1 ){
+			HashLookup lookup = written.get(block).lookup;
+			int bucket = lookup.index & mask;
+			while( hashTable.getInt(bucket * HashTableEntry.STRUCT_SIZE + 12) != HashTable.BLOCK_EMPTY_ALWAYS )
+				bucket = (bucket + 1) & mask;
+			int entry = bucket * HashTableEntry.STRUCT_SIZE;
+			hashTable.putLong(entry, lookup.hash);
+			hashTable.putShort(entry + 8, (short) 0);
+			hashTable.putShort(entry + 10, (short) 0);
+			hashTable.putInt(entry + 12, block);
+		}
+		hashTable.flip();
+		Cryption.encryptData(hashTable, hashTable, Cryption.KEY_HASH_TABLE);
+		long hashTablePosition = position - archiveStart;
+		writeFully(hashTable);
+
+		// *** block table
+		ByteBuffer blockTable = ByteBuffer.allocate(written.size() * BlockTableEntry.STRUCT_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		for( WrittenFile file : written ){
+			blockTable.putInt((int) file.filePosition);
+			blockTable.putInt(file.compressedSize);
+			blockTable.putInt(file.fileSize);
+			blockTable.putInt(file.flags);
+		}
+		blockTable.flip();
+		Cryption.encryptData(blockTable, blockTable, Cryption.KEY_BLOCK_TABLE);
+		long blockTablePosition = position - archiveStart;
+		writeFully(blockTable);
+		long archiveSize = position - archiveStart;
+		if( archiveSize > 0xFFFFFFFFL ) throw new IOException("archive is larger than 4GB");
+
+		// *** header
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(FileHeader.ARCHIVE_IDENTIFIER_INT);
+		header.putInt(HEADER_SIZE);
+		header.putInt((int) archiveSize);
+		header.putShort((short) 0);
+		header.putShort(blockShift);
+		header.putInt((int) hashTablePosition);
+		header.putInt((int) blockTablePosition);
+		header.putInt(hashTableSize);
+		header.putInt(written.size());
+		header.flip();
+		long end = position;
+		out.position(archiveStart);
+		while( header.hasRemaining() ) out.write(header);
+		out.position(end);
+	}
+
+	private void writeFully(ByteBuffer data) throws IOException{
+		position+= data.remaining();
+		while( data.hasRemaining() ) out.write(data);
+	}
+
+	private class PendingFile {
+		final String path;
+		final HashLookup lookup;
+		final int fileSize;
+		final byte compression;
+		final boolean encrypted;
+		final int key;
+		final List<Future<ByteBuffer>> sectors = new ArrayList<Future<ByteBuffer>>();
+
+		PendingFile(String path, HashLookup lookup, int fileSize, byte compression, boolean encrypted){
+			this.path = path;
+			this.lookup = lookup;
+			this.fileSize = fileSize;
+			this.compression = compression;
+			this.encrypted = encrypted;
+			key = encrypted ? Cryption.HashString(lookup.lookup, Cryption.MPQ_HASH_FILE_KEY) : 0;
+		}
+
+		// key of a sector, 0 if the file is not encrypted
+		int sectorKey(int sector){
+			return encrypted ? key + sector : 0;
+		}
+
+		boolean isDone(){
+			for( Future<ByteBuffer> sector : sectors )
+				if( !sector.isDone() ) return false;
+			return true;
+		}
+	}
+
+	private static class WrittenFile {
+		final String path;
+		final HashLookup lookup;
+		final long filePosition;
+		final int compressedSize;
+		final int fileSize;
+		final int flags;
+
+		WrittenFile(String path, HashLookup lookup, long filePosition, int compressedSize, int fileSize, int flags){
+			this.path = path;
+			this.lookup = lookup;
+			this.filePosition = filePosition;
+			this.compressedSize = compressedSize;
+			this.fileSize = fileSize;
+			this.flags = flags;
+		}
+	}
+
+	private class SectorTask implements Callable<ByteBuffer> {
+		private final ByteBuffer sector;
+		private final byte compression;
+		private final int key;
+
+		SectorTask(ByteBuffer sector, byte compression, int key){
+			this.sector = sector;
+			this.compression = compression;
+			this.key = key;
+		}
+
+		@Override
+		public ByteBuffer call() throws Exception{
+			ByteBuffer result;
+			SectorCompressor compressor = takeCompressor();
+			try {
+				result = compressor.compress(sector, compression);
+			} finally {
+				giveBackCompressor(compressor);
+			}
+			if( key != 0 ) Cryption.encryptData(result, result, key);
+			return result;
+		}
+	}
+
+	/**
+	 * Compression state used by one sector task at a time. The writer keeps the
+	 * idle ones and ends their Deflater on close.
+	 */
+	private static class SectorCompressor {
+		private final Deflater deflater = new Deflater();
+		private final PKImploder imploder = new PKImploder();
+		private byte[] input = new byte[0];
+
+		// a new buffer with the compressed sector, or a copy of the sector if compressing does not make it smaller
+		ByteBuffer compress(ByteBuffer sector, byte compression){
+			int length = sector.remaining();
+			ByteBuffer result = ByteBuffer.allocate(length);
+			if( compression == COMPRESSION_ZLIB ){
+				if( input.length < length ) input = new byte[length];
+				sector.duplicate().get(input, 0, length);
+				deflater.reset();
+				deflater.setInput(input, 0, length);
+				deflater.finish();
+				result.put(COMPRESSION_ZLIB);
+				while( !deflater.finished() && result.hasRemaining() ){
+					int written = deflater.deflate(result.array(), result.position(), result.remaining());
+					result.position(result.position() + written);
+				}
+				if( deflater.finished() && result.hasRemaining() ){
+					result.flip();
+					return result;
+				}
+			}else if( compression == COMPRESSION_PKWARE ){
+				result.put(COMPRESSION_PKWARE);
+				if( imploder.implode(sector, result) && result.hasRemaining() ){
+					result.flip();
+					return result;
+				}
+			}
+
+			// stored sectors are recognized by being as large as the data
+			result.clear();
+			result.put(sector.duplicate());
+			result.flip();
+			return result;
+		}
+
+		void end(){
+			deflater.end();
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package mpq;
+
+import mpq.util.Cryption;
+
+/**
+ * Hashes a path for a HashTable lookup like HashLookup does, but straight from
+ * its characters and into fields that are reused for the next path, so that
+ * checking whether an archive has a file does not allocate anything.
+ * 
+ * Unlike HashLookup it does not keep the file name needed to decrypt a file, so
+ * it only finds out whether and where a file is. Not thread safe, MPQArchive
+ * keeps one per thread.
+ */
+public class PathHasher {
+	private final int[] hashes = new int[3];
+	private int tableOffset;
+	private long hash;
+	
+	public PathHasher hash(CharSequence path){
+		Cryption.hashPath(path, hashes);
+		tableOffset = hashes[0];
+		hash = hashes[1] & 0xFFFFFFFFL | (long)hashes[2]<<32;
+		return this;
+	}
+	
+	public int getTableOffset(){
+		return tableOffset;
+	}
+	
+	public long getHash(){
+		return hash;
+	}
+}
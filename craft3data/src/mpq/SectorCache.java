@@ -0,0 +1,102 @@
+package mpq;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decoded sectors of the files of one archive, keyed by block table index and
+ * sector number so that every stream of the same file shares them. The least
+ * recently used sectors are evicted once the sectors take more than the
+ * maximum number of bytes.
+ */
+public class SectorCache {
+	private final LinkedHashMap<Long, ByteBuffer> sectors = new LinkedHashMap<Long, ByteBuffer>(64, 0.75f, true);
+	private long maximumBytes;
+	private long bytes;
+	private long hits;
+	private long misses;
+	
+	public SectorCache(long maximumBytes){
+		this.maximumBytes = maximumBytes;
+	}
+	
+	private static Long key(int blockIndex, int sector){
+		return Long.valueOf(((long) blockIndex << 32) | (sector & 0xFFFFFFFFL));
+	}
+	
+	/**
+	 * @return a read only view of the sector, or null if it is not cached
+	 */
+	public synchronized ByteBuffer get(int blockIndex, int sector){
+		ByteBuffer cached = sectors.get(key(blockIndex, sector));
+		if( cached == null ){
+			misses+= 1;
+			return null;
+		}
+		hits+= 1;
+		return cached.asReadOnlyBuffer();
+	}
+	
+	/**
+	 * Caches a copy of the remaining bytes of a decoded sector.
+	 */
+	public synchronized void put(int blockIndex, int sector, ByteBuffer decoded){
+		int size = decoded.remaining();
+		if( size > maximumBytes ) return;
+		ByteBuffer copy = ByteBuffer.allocate(size);
+		copy.put(decoded.duplicate());
+		copy.flip();
+		ByteBuffer old = sectors.put(key(blockIndex, sector), copy);
+		if( old != null ) bytes-= old.capacity();
+		bytes+= size;
+		evict();
+	}
+	
+	private void evict(){
+		Iterator<Map.Entry<Long, ByteBuffer>> iterator = sectors.entrySet().iterator();
+		while( bytes > maximumBytes && iterator.hasNext() ){
+			bytes-= iterator.next().getValue().capacity();
+			iterator.remove();
+		}
+	}
+	
+	public synchronized void setMaximumBytes(long maximumBytes){
+		this.maximumBytes = maximumBytes;
+		evict();
+	}
+	
+	public synchronized long getMaximumBytes(){
+		return maximumBytes;
+	}
+	
+	public synchronized long getSizeInBytes(){
+		return bytes;
+	}
+	
+	public synchronized long getHitCount(){
+		return hits;
+	}
+	
+	public synchronized long getMissCount(){
+		return misses;
+	}
+	
+	// hits per lookup, 1 when nothing was looked up yet
+	public synchronized double getHitRate(){
+		long lookups = hits + misses;
+		return lookups == 0 ? 1.0 : (double) hits / lookups;
+	}
+	
+	public synchronized void clear(){
+		sectors.clear();
+		bytes = 0;
+	}
+	
+	@Override
+	public synchronized String toString(){
+		return String.format("%d sectors, %d of %d bytes, %d hits, %d misses (%.1f%% hit rate)",
+				sectors.size(), bytes, maximumBytes, hits, misses, getHitRate() * 100);
+	}
+}
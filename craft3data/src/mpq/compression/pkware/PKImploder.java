@@ -0,0 +1,180 @@
+package mpq.compression.pkware;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * PKWARE Data Compression Library implode in binary mode, the reverse of
+ * PKExploder. Repeats are found with hash chains over 3 byte prefixes and
+ * picked greedily. One imploder can be reused but not shared between threads.
+ */
+public class PKImploder {
+	private static final byte CMP_BINARY = 0;
+
+	// length and distance codes, the same tables PKExploder decodes with
+	private static final byte[] LEN_BITS = {
+	    0x03, 0x02, 0x03, 0x03, 0x04, 0x04, 0x04, 0x05, 0x05, 0x05, 0x05, 0x06, 0x06, 0x06, 0x07, 0x07
+	    };
+	private static final short[] LEN_CODES = {
+	    0x05, 0x03, 0x01, 0x06, 0x0A, 0x02, 0x0C, 0x14, 0x04, 0x18, 0x08, 0x30, 0x10, 0x20, 0x40, 0x00
+		};
+	private static final byte[] EX_LEN_BITS = {
+		    0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08
+		};
+	private static final short[] LEN_BASE ={
+		    0x0000, 0x0001, 0x0002, 0x0003, 0x0004, 0x0005, 0x0006, 0x0007,
+		    0x0008, 0x000A, 0x000E, 0x0016, 0x0026, 0x0046, 0x0086, 0x0106
+		};
+	private static final byte[] DIST_BITS = {
+		    0x02, 0x04, 0x04, 0x05, 0x05, 0x05, 0x05, 0x06, 0x06, 0x06, 0x06, 0x06, 0x06, 0x06, 0x06, 0x06,
+		    0x06, 0x06, 0x06, 0x06, 0x06, 0x06, 0x07, 0x07, 0x07, 0x07, 0x07, 0x07, 0x07, 0x07, 0x07, 0x07,
+		    0x07, 0x07, 0x07, 0x07, 0x07, 0x07, 0x07, 0x07, 0x07, 0x07, 0x07, 0x07, 0x07, 0x07, 0x07, 0x07,
+		    0x08, 0x08, 0x08, 0x08, 0x08, 0x08, 0x08, 0x08, 0x08, 0x08, 0x08, 0x08, 0x08, 0x08, 0x08, 0x08
+		};
+	private static final short[] DIST_CODES =
+		{
+		    0x03, 0x0D, 0x05, 0x19, 0x09, 0x11, 0x01, 0x3E, 0x1E, 0x2E, 0x0E, 0x36, 0x16, 0x26, 0x06, 0x3A,
+		    0x1A, 0x2A, 0x0A, 0x32, 0x12, 0x22, 0x42, 0x02, 0x7C, 0x3C, 0x5C, 0x1C, 0x6C, 0x2C, 0x4C, 0x0C,
+		    0x74, 0x34, 0x54, 0x14, 0x64, 0x24, 0x44, 0x04, 0x78, 0x38, 0x58, 0x18, 0x68, 0x28, 0x48, 0x08,
+		    0xF0, 0x70, 0xB0, 0x30, 0xD0, 0x50, 0x90, 0x10, 0xE0, 0x60, 0xA0, 0x20, 0xC0, 0x40, 0x80, 0x00
+		};
+
+	// length codes for every repeat length, and the end of data marker
+	private static final byte[] LENGTH_INDEX = new byte[0x206];
+	static {
+		for( byte i = 0 ; i < LEN_BASE.length ; i++ ){
+			for( int length = LEN_BASE[i] ; length < LEN_BASE[i] + (1 << EX_LEN_BITS[i]) ; length++ ){
+				LENGTH_INDEX[length] = i;
+			}
+		}
+	}
+	private static final int END_OF_DATA = 0x205;
+
+	private static final int MIN_REPEAT = 3;
+	private static final int MAX_REPEAT = END_OF_DATA - 1 + 2;
+	private static final int MAX_CHAIN = 64;
+	private static final int HASH_BITS = 12;
+
+	private final int[] head = new int[1 << HASH_BITS];
+	private int[] prev = new int[0];
+
+	private byte[] data;
+	private ByteBuffer out;
+	private int bitBuffer;
+	private int bitCount;
+
+	/**
+	 * The dictionary size StormLib picks for a block of the given size, as a
+	 * number of bits (4, 5 or 6 for 1, 2 or 4 KB).
+	 */
+	public static int dictionaryBits(int length){
+		if( length < 0x600 ) return 4;
+		else if( length < 0xC00 ) return 5;
+		else return 6;
+	}
+
+	/**
+	 * Implodes the remaining bytes of in into out.
+	 *
+	 * @return false if out was too small, in which case its contents are undefined
+	 */
+	public boolean implode(ByteBuffer in, ByteBuffer out){
+		return implode(in, out, dictionaryBits(in.remaining()));
+	}
+
+	public boolean implode(ByteBuffer in, ByteBuffer out, int dictionaryBits){
+		if( dictionaryBits < 4 || 6 < dictionaryBits ) throw new IllegalArgumentException("invalid dictionary size");
+		int length = in.remaining();
+		if( data == null || data.length < length ) data = new byte[length];
+		in.duplicate().get(data, 0, length);
+		if( prev.length < length ) prev = new int[length];
+		Arrays.fill(head, -1);
+
+		this.out = out;
+		bitBuffer = 0;
+		bitCount = 0;
+		if( out.remaining() < 2 ) return false;
+		out.put(CMP_BINARY);
+		out.put((byte) dictionaryBits);
+
+		int window = 64 << dictionaryBits;
+		int dictionaryMask = (1 << dictionaryBits) - 1;
+		int pos = 0;
+		while( pos < length ){
+			// *** find the longest repeat in the dictionary
+			int bestLength = 0;
+			int bestDistance = 0;
+			if( pos + MIN_REPEAT <= length ){
+				int maxLength = Math.min(MAX_REPEAT, length - pos);
+				int candidate = head[hash(pos)];
+				for( int chain = 0 ; candidate >= 0 && pos - candidate <= window && chain < MAX_CHAIN ; chain++ ){
+					int matched = 0;
+					while( matched < maxLength && data[candidate + matched] == data[pos + matched] )
+						matched++;
+					if( matched > bestLength ){
+						bestLength = matched;
+						bestDistance = pos - candidate;
+						if( matched == maxLength ) break;
+					}
+					candidate = prev[candidate];
+				}
+			}
+
+			// *** write repeat or literal
+			int advance;
+			if( bestLength >= MIN_REPEAT ){
+				if( !writeBits(1, 1) ) return false;
+				int lengthCode = bestLength - 2;
+				int index = LENGTH_INDEX[lengthCode];
+				if( !writeBits(LEN_CODES[index], LEN_BITS[index]) ) return false;
+				if( !writeBits(lengthCode - LEN_BASE[index], EX_LEN_BITS[index]) ) return false;
+				int distance = bestDistance - 1;
+				int high = distance >>> dictionaryBits;
+				if( !writeBits(DIST_CODES[high], DIST_BITS[high]) ) return false;
+				if( !writeBits(distance & dictionaryMask, dictionaryBits) ) return false;
+				advance = bestLength;
+			}else{
+				if( !writeBits((data[pos] & 0xFF) << 1, 9) ) return false;
+				advance = 1;
+			}
+
+			// *** add the covered positions to the hash chains
+			for( int end = pos + advance ; pos < end ; pos++ ){
+				if( pos + MIN_REPEAT <= length ){
+					int h = hash(pos);
+					prev[pos] = head[h];
+					head[h] = pos;
+				}
+			}
+		}
+
+		// *** end of data marker, a repeat with the reserved length
+		if( !writeBits(1, 1) ) return false;
+		int index = LENGTH_INDEX[END_OF_DATA];
+		if( !writeBits(LEN_CODES[index], LEN_BITS[index]) ) return false;
+		if( !writeBits(END_OF_DATA - LEN_BASE[index], EX_LEN_BITS[index]) ) return false;
+		if( bitCount > 0 ){
+			if( !out.hasRemaining() ) return false;
+			out.put((byte) bitBuffer);
+		}
+		return true;
+	}
+
+	private int hash(int pos){
+		int value = (data[pos] & 0xFF) << 16 | (data[pos + 1] & 0xFF) << 8 | (data[pos + 2] & 0xFF);
+		return (value * 0x9E3779B1) >>> (32 - HASH_BITS);
+	}
+
+	// writes bits least significant first, as PKExploder reads them
+	private boolean writeBits(int value, int count){
+		bitBuffer|= value << bitCount;
+		bitCount+= count;
+		while( bitCount >= 8 ){
+			if( !out.hasRemaining() ) return false;
+			out.put((byte) bitBuffer);
+			bitBuffer>>>= 8;
+			bitCount-= 8;
+		}
+		return true;
+	}
+}
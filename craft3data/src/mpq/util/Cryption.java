@@ -23,6 +23,22 @@ public class Cryption {
 		}
 	}
 
+	// CRYPT_TABLE entries of the hash types for upper-cased ASCII characters, so
+	// that paths can be hashed straight from their characters. '/' is hashed as
+	// '\\' like StormLib and the game do, so both separators find the same file
+	private static final int ASCII_LIMIT = 0x80;
+	private static final int[] UPPER_CASE_CRYPT_TABLE = new int[4 * ASCII_LIMIT];
+	private static final byte[] ASCII_UPPER_CASE = new byte[ASCII_LIMIT];
+	static {
+		for (int ch = 0; ch < ASCII_LIMIT; ch++) {
+			final int upperCase = ((ch >= 'a') && (ch <= 'z')) ? (ch - ('a' - 'A')) : (ch == '/' ? '\\' : ch);
+			ASCII_UPPER_CASE[ch] = (byte) upperCase;
+			for (int hashType = 0; hashType < 4; hashType++) {
+				UPPER_CASE_CRYPT_TABLE[(hashType * ASCII_LIMIT) + ch] = CRYPT_TABLE[(hashType * 0x100) + upperCase];
+			}
+		}
+	}
+
 	// different types of hashes to make with HashString
 	public static final int MPQ_HASH_TABLE_OFFSET = 0;
 	public static final int MPQ_HASH_NAME_A = 1;
@@ -92,7 +108,7 @@ public class Cryption {
 	}
 
 	public static byte[] stringToHashable(final String in) {
-		return in.toUpperCase(Locale.US).getBytes(StandardCharsets.UTF_8); // UTF_8 defined for platform independence
+		return in.toUpperCase(Locale.US).replace('/', '\\').getBytes(StandardCharsets.UTF_8); // UTF_8 defined for platform independence
 	}
 
 	public static int HashString(final String in, final int HashType) {
@@ -103,13 +119,70 @@ public class Cryption {
 	public static int HashString(final byte[] in, final int HashType) {
 		int seed1 = 0x7FED7FED;
 		int seed2 = 0xEEEEEEEE;
-		for (final byte ch : in) {
+		for (final byte b : in) {
+			// unsigned, like StormLib, so that UTF-8 paths do not index outside the table
+			final int ch = b & 0xFF;
 			seed1 = CRYPT_TABLE[(HashType * 0x100) + ch] ^ (seed1 + seed2);
 			seed2 = ch + seed1 + seed2 + (seed2 << 5) + 3;
 		}
 		return seed1;
 	}
 
+	/**
+	 * Same result as HashString(String, int), without making an upper-case byte
+	 * copy of the string first.
+	 */
+	public static int hashString(final CharSequence in, final int hashType) {
+		int seed1 = 0x7FED7FED;
+		int seed2 = 0xEEEEEEEE;
+		final int tableOffset = hashType * ASCII_LIMIT;
+		for (int i = 0, length = in.length(); i < length; i++) {
+			final char ch = in.charAt(i);
+			if (ch >= ASCII_LIMIT) {
+				// multi-byte UTF-8, leave it to the byte version
+				return HashString(in.toString(), hashType);
+			}
+			seed1 = UPPER_CASE_CRYPT_TABLE[tableOffset + ch] ^ (seed1 + seed2);
+			seed2 = ASCII_UPPER_CASE[ch] + seed1 + seed2 + (seed2 << 5) + 3;
+		}
+		return seed1;
+	}
+
+	/**
+	 * The hash table offset and the two name hashes of a path in one pass, for
+	 * HashTable lookups. Stores the offset hash in result[0], name A in result[1]
+	 * and name B in result[2].
+	 */
+	public static void hashPath(final CharSequence in, final int[] result) {
+		int offsetSeed1 = 0x7FED7FED;
+		int offsetSeed2 = 0xEEEEEEEE;
+		int nameASeed1 = 0x7FED7FED;
+		int nameASeed2 = 0xEEEEEEEE;
+		int nameBSeed1 = 0x7FED7FED;
+		int nameBSeed2 = 0xEEEEEEEE;
+		for (int i = 0, length = in.length(); i < length; i++) {
+			final char ch = in.charAt(i);
+			if (ch >= ASCII_LIMIT) {
+				final byte[] raw = stringToHashable(in.toString());
+				result[0] = HashString(raw, MPQ_HASH_TABLE_OFFSET);
+				result[1] = HashString(raw, MPQ_HASH_NAME_A);
+				result[2] = HashString(raw, MPQ_HASH_NAME_B);
+				return;
+			}
+			final byte upperCase = ASCII_UPPER_CASE[ch];
+			offsetSeed1 = UPPER_CASE_CRYPT_TABLE[(MPQ_HASH_TABLE_OFFSET * ASCII_LIMIT) + ch]
+					^ (offsetSeed1 + offsetSeed2);
+			offsetSeed2 = upperCase + offsetSeed1 + offsetSeed2 + (offsetSeed2 << 5) + 3;
+			nameASeed1 = UPPER_CASE_CRYPT_TABLE[(MPQ_HASH_NAME_A * ASCII_LIMIT) + ch] ^ (nameASeed1 + nameASeed2);
+			nameASeed2 = upperCase + nameASeed1 + nameASeed2 + (nameASeed2 << 5) + 3;
+			nameBSeed1 = UPPER_CASE_CRYPT_TABLE[(MPQ_HASH_NAME_B * ASCII_LIMIT) + ch] ^ (nameBSeed1 + nameBSeed2);
+			nameBSeed2 = upperCase + nameBSeed1 + nameBSeed2 + (nameBSeed2 << 5) + 3;
+		}
+		result[0] = offsetSeed1;
+		result[1] = nameASeed1;
+		result[2] = nameBSeed1;
+	}
+
 	public static int adjustFileDecryptKey(final int in, final int pos, final int size) {
 		return (in + pos) ^ size;
 	}
@@ -0,0 +1,105 @@
+package com.matrixeater.hacks;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.lwjgl.BufferUtils;
+
+import com.hiveworkshop.wc3.gui.BLPHandler;
+
+import de.wc3data.image.BlpFile;
+
+/**
+ * Times the old texture decode (ImageIO plugin, sRGB copy, pixel by pixel copy
+ * into a direct buffer) against BlpFile decoding straight into the buffer.
+ * Every file is decoded a few rounds to warm up the JIT before the timed
+ * rounds.
+ */
+public final class BlpDecodeBenchmark {
+	private static final int WARMUP_ROUNDS = 20;
+	private static final int MEASURED_ROUNDS = 50;
+
+	public static void main(final String[] args) throws IOException {
+		if (args.length == 0) {
+			System.err.println("Usage: <blpFile or directory>...");
+			System.exit(-1);
+		}
+		final List<byte[]> blps = new ArrayList<>();
+		for (final String arg : args) {
+			collect(new File(arg), blps);
+		}
+		System.out.println("Decoding " + blps.size() + " BLP files");
+
+		long checksum = 0;
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			checksum += decodeWithImageIO(blps);
+			checksum += decodeWithBlpFile(blps);
+		}
+		long imageIONanos = 0;
+		long blpFileNanos = 0;
+		for (int i = 0; i < MEASURED_ROUNDS; i++) {
+			long start = System.nanoTime();
+			checksum += decodeWithImageIO(blps);
+			imageIONanos += System.nanoTime() - start;
+			start = System.nanoTime();
+			checksum += decodeWithBlpFile(blps);
+			blpFileNanos += System.nanoTime() - start;
+		}
+		System.out.println("ImageIO + forceBufferedImagesRGB + copy: "
+				+ ((imageIONanos / 1000000.0) / MEASURED_ROUNDS) + " ms per round");
+		System.out.println("BlpFile into RGBA buffer:                "
+				+ ((blpFileNanos / 1000000.0) / MEASURED_ROUNDS) + " ms per round");
+		System.out.println("(checksum " + checksum + ")");
+	}
+
+	private static void collect(final File file, final List<byte[]> blps) throws IOException {
+		if (file.isDirectory()) {
+			for (final File child : file.listFiles()) {
+				collect(child, blps);
+			}
+		} else if (file.getName().toLowerCase().endsWith(".blp")) {
+			blps.add(Files.readAllBytes(file.toPath()));
+		}
+	}
+
+	private static long decodeWithImageIO(final List<byte[]> blps) throws IOException {
+		long checksum = 0;
+		for (final byte[] blp : blps) {
+			final BufferedImage image = BLPHandler
+					.forceBufferedImagesRGB(ImageIO.read(new ByteArrayInputStream(blp)));
+			final int width = image.getWidth();
+			final int height = image.getHeight();
+			final int[] pixels = new int[width * height];
+			image.getRGB(0, 0, width, height, pixels, 0, width);
+			final ByteBuffer buffer = BufferUtils.createByteBuffer(width * height * 4);
+			for (int i = 0; i < pixels.length; i++) {
+				final int pixel = pixels[i];
+				buffer.put((byte) ((pixel >> 16) & 0xFF));
+				buffer.put((byte) ((pixel >> 8) & 0xFF));
+				buffer.put((byte) (pixel & 0xFF));
+				buffer.put((byte) ((pixel >> 24) & 0xFF));
+			}
+			checksum += buffer.get(buffer.position() / 2);
+		}
+		return checksum;
+	}
+
+	private static long decodeWithBlpFile(final List<byte[]> blps) throws IOException {
+		long checksum = 0;
+		for (final byte[] blp : blps) {
+			final BlpFile blpFile = new BlpFile(ByteBuffer.wrap(blp));
+			final ByteBuffer buffer = BufferUtils.createByteBuffer(blpFile.getWidth() * blpFile.getHeight() * 4);
+			blpFile.decode(0, buffer);
+			checksum += buffer.get(buffer.position() / 2);
+		}
+		return checksum;
+	}
+}
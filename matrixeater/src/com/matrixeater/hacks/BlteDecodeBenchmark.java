@@ -0,0 +1,161 @@
+package com.matrixeater.hacks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.hiveworkshop.blizzard.casc.storage.BankStream;
+
+/**
+ * Times BankStream decoding a synthetic BLTE stream of zlib banks against the
+ * old bank decode (a new Inflater per bank, encoded and decoded bytes copied
+ * through fresh arrays). The stream is decoded from a heap buffer and from a
+ * direct buffer, the latter standing in for a memory mapped data file.
+ */
+public final class BlteDecodeBenchmark {
+	private static final int BANK_SIZE = 64 * 1024;
+	private static final int BANK_COUNT = 256;
+	private static final int CONTAINER_HEADER_SIZE = 30;
+	private static final int BLTE_ENTRY_SIZE = 24;
+	private static final int WARMUP_ROUNDS = 10;
+	private static final int MEASURED_ROUNDS = 30;
+
+	public static void main(final String[] args) throws IOException, DataFormatException {
+		final ByteBuffer heapStream = createStream();
+		final ByteBuffer directStream = ByteBuffer.allocateDirect(heapStream.remaining());
+		directStream.put(heapStream.duplicate());
+		directStream.flip();
+		System.out.println("Decoding " + BANK_COUNT + " banks of " + (BANK_SIZE / 1024) + " KB, "
+				+ heapStream.remaining() + " encoded bytes");
+
+		final ByteBuffer fileBuffer = ByteBuffer.allocate(BANK_SIZE * BANK_COUNT);
+		long checksum = 0;
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			checksum += decodeOld(heapStream, fileBuffer);
+			checksum += decodeBankStream(heapStream, fileBuffer);
+			checksum += decodeOld(directStream, fileBuffer);
+			checksum += decodeBankStream(directStream, fileBuffer);
+		}
+		final long[] nanos = new long[4];
+		for (int i = 0; i < MEASURED_ROUNDS; i++) {
+			long start = System.nanoTime();
+			checksum += decodeOld(heapStream, fileBuffer);
+			nanos[0] += System.nanoTime() - start;
+			start = System.nanoTime();
+			checksum += decodeBankStream(heapStream, fileBuffer);
+			nanos[1] += System.nanoTime() - start;
+			start = System.nanoTime();
+			checksum += decodeOld(directStream, fileBuffer);
+			nanos[2] += System.nanoTime() - start;
+			start = System.nanoTime();
+			checksum += decodeBankStream(directStream, fileBuffer);
+			nanos[3] += System.nanoTime() - start;
+		}
+		System.out.println("heap, new Inflater and copies per bank:   " + millis(nanos[0]) + " ms per file");
+		System.out.println("heap, BankStream:                         " + millis(nanos[1]) + " ms per file");
+		System.out.println("direct, new Inflater and copies per bank: " + millis(nanos[2]) + " ms per file");
+		System.out.println("direct, BankStream:                       " + millis(nanos[3]) + " ms per file");
+		System.out.println("(checksum " + checksum + ")");
+	}
+
+	private static double millis(final long nanos) {
+		return (nanos / 1000000.0) / MEASURED_ROUNDS;
+	}
+
+	/**
+	 * A storage container holding a BLTE stream of zlib banks with text like
+	 * content.
+	 */
+	private static ByteBuffer createStream() {
+		final Random random = new Random(0);
+		final byte[] bank = new byte[BANK_SIZE];
+		final byte[][] encodedBanks = new byte[BANK_COUNT][];
+		final Deflater deflater = new Deflater();
+		final byte[] deflated = new byte[BANK_SIZE * 2];
+		int encodedTotal = 0;
+		for (int i = 0; i < BANK_COUNT; i++) {
+			for (int j = 0; j < bank.length; j++) {
+				bank[j] = (byte) ('a' + ((random.nextInt(4) == 0) ? random.nextInt(26) : (j % 26)));
+			}
+			deflater.reset();
+			deflater.setInput(bank);
+			deflater.finish();
+			final int length = deflater.deflate(deflated);
+			encodedBanks[i] = new byte[length + 1];
+			encodedBanks[i][0] = 'Z';
+			System.arraycopy(deflated, 0, encodedBanks[i], 1, length);
+			encodedTotal += encodedBanks[i].length;
+		}
+		deflater.end();
+
+		final int blteHeaderSize = 8 + 4 + (BANK_COUNT * BLTE_ENTRY_SIZE);
+		final int size = CONTAINER_HEADER_SIZE + blteHeaderSize + encodedTotal;
+		final ByteBuffer stream = ByteBuffer.allocate(size);
+
+		// storage container: reversed encoding key, size, flags and checksums
+		stream.order(ByteOrder.LITTLE_ENDIAN);
+		stream.put(new byte[16]);
+		stream.putInt(size);
+		stream.putShort((short) 0);
+		stream.putInt(0);
+		stream.putInt(0);
+
+		// BLTE header and bank table
+		stream.order(ByteOrder.BIG_ENDIAN);
+		stream.put(new byte[] { 'B', 'L', 'T', 'E' });
+		stream.putInt(blteHeaderSize);
+		stream.putInt(0x0F000000 | BANK_COUNT);
+		for (final byte[] encodedBank : encodedBanks) {
+			stream.putInt(encodedBank.length);
+			stream.putInt(BANK_SIZE);
+			stream.put(new byte[16]);
+		}
+		for (final byte[] encodedBank : encodedBanks) {
+			stream.put(encodedBank);
+		}
+		stream.flip();
+		return stream;
+	}
+
+	private static long decodeBankStream(final ByteBuffer stream, final ByteBuffer fileBuffer) throws IOException {
+		fileBuffer.clear();
+		final BankStream bankStream = new BankStream(stream.duplicate(), null);
+		while (bankStream.hasNextBank()) {
+			bankStream.getBank(fileBuffer);
+		}
+		return fileBuffer.get(fileBuffer.position() / 2);
+	}
+
+	/**
+	 * The bank decode BankStream used before, on the same stream layout.
+	 */
+	private static long decodeOld(final ByteBuffer stream, final ByteBuffer fileBuffer) throws DataFormatException {
+		fileBuffer.clear();
+		final ByteBuffer streamBuffer = stream.duplicate().order(ByteOrder.BIG_ENDIAN);
+		streamBuffer.position(CONTAINER_HEADER_SIZE + 12);
+		final int[] encodedSizes = new int[BANK_COUNT];
+		for (int i = 0; i < BANK_COUNT; i++) {
+			encodedSizes[i] = streamBuffer.getInt();
+			streamBuffer.position(streamBuffer.position() + BLTE_ENTRY_SIZE - 4);
+		}
+		for (int i = 0; i < BANK_COUNT; i++) {
+			final ByteBuffer encodedBuffer = ((ByteBuffer) streamBuffer.slice().limit(encodedSizes[i])).slice();
+			final ByteBuffer decodedBuffer = ((ByteBuffer) fileBuffer.slice().limit(BANK_SIZE)).slice();
+			final byte[] intermediateEncodedCopy = new byte[encodedBuffer.remaining()];
+			final byte[] intermediateDecodedCopy = new byte[decodedBuffer.remaining()];
+			encodedBuffer.get();
+			final Inflater zlib = new Inflater();
+			encodedBuffer.get(intermediateEncodedCopy, 0, encodedBuffer.remaining());
+			zlib.setInput(intermediateEncodedCopy);
+			final int resultSize = zlib.inflate(intermediateDecodedCopy);
+			decodedBuffer.put(intermediateDecodedCopy, 0, resultSize);
+			streamBuffer.position(streamBuffer.position() + encodedBuffer.position());
+			fileBuffer.position(fileBuffer.position() + decodedBuffer.position());
+		}
+		return fileBuffer.get(fileBuffer.position() / 2);
+	}
+}
@@ -0,0 +1,112 @@
+package com.matrixeater.hacks;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import com.hiveworkshop.wc3.mdl.EditableModel;
+import com.hiveworkshop.wc3.mdl.Geoset;
+import com.hiveworkshop.wc3.mdl.GeosetVertex;
+import com.hiveworkshop.wc3.mdl.Normal;
+import com.hiveworkshop.wc3.mdl.TVertex;
+import com.hiveworkshop.wc3.mdl.Triangle;
+import com.hiveworkshop.wc3.mdl.render3d.GeosetVertexBuffer;
+import com.hiveworkshop.wc3.mdl.render3d.RenderGeoset;
+import com.hiveworkshop.wc3.mdl.render3d.RenderModel;
+
+/**
+ * Builds the GeosetVertexBuffer of a one quad geoset without a GL context and
+ * checks the positions, normals, texture coordinates and indices it produces,
+ * and that edits made in place the way the editor makes them (moving a texture
+ * coordinate, flipping a triangle) are picked up without reallocating the
+ * buffers. Throws on the first difference.
+ */
+public final class GeosetVertexBufferCheck {
+	public static void main(final String[] args) {
+		final EditableModel model = new EditableModel("GeosetVertexBufferCheck");
+		final Geoset geoset = new Geoset();
+		final GeosetVertex[] corners = { vertex(0, 0, 0, 0), vertex(1, 0, 1, 0), vertex(1, 1, 1, 1),
+				vertex(0, 1, 0, 1) };
+		for (final GeosetVertex corner : corners) {
+			geoset.add(corner);
+		}
+		// a second coordinate set on one vertex only, the others fall back to their
+		// first one
+		corners[0].addTVertex(new TVertex(0.25, 0.75));
+		final Triangle first = new Triangle(corners[0], corners[1], corners[2], geoset);
+		geoset.add(first);
+		geoset.add(new Triangle(corners[0], corners[2], corners[3], geoset));
+		model.add(geoset);
+
+		final RenderModel renderModel = new RenderModel(model, null);
+		final RenderGeoset renderGeoset = renderModel.getRenderGeoset(geoset);
+		final GeosetVertexBuffer buffer = new GeosetVertexBuffer(renderGeoset);
+
+		check(buffer.update(1, false), "first update must report new vertex data");
+		check(buffer.getVertexCount() == 4, "vertex count " + buffer.getVertexCount());
+		checkInts(buffer.getIndices(), new int[] { 0, 1, 2, 0, 2, 3 }, "indices");
+		// GL axes are y, z, x of the model, every normal is model +z which is GL +y
+		checkFloats(buffer.getVertexData(), new float[] { 0, 0, 0, 0, 1, 0, /**/ 0, 0, 1, 0, 1, 0, /**/ 1, 0, 1, 0,
+				1, 0, /**/ 1, 0, 0, 0, 1, 0 }, "positions and normals");
+		checkFloats(buffer.getTexCoords(0), new float[] { 0, 0, 1, 0, 1, 1, 0, 1 }, "texture coordinates 0");
+		checkFloats(buffer.getTexCoords(1), new float[] { 0.25f, 0.75f, 1, 0, 1, 1, 0, 1 },
+				"texture coordinates 1");
+		check(!buffer.update(1, false), "a second update in the same frame must do nothing");
+
+		final FloatBuffer vertexData = buffer.getVertexData();
+		final IntBuffer indices = buffer.getIndices();
+		final FloatBuffer texCoords = buffer.getTexCoords(0);
+		final int structureVersion = buffer.getStructureVersion();
+		final int texCoordsVersion = buffer.getTexCoordsVersion(0);
+
+		buffer.update(2, false);
+		check(buffer.getStructureVersion() == structureVersion, "unchanged geoset must not rebuild");
+		check(buffer.getTexCoordsVersion(0) == texCoordsVersion, "unchanged texture coordinates must not change");
+
+		corners[1].getTVertex(0).x = 0.5;
+		buffer.update(3, false);
+		check(buffer.getStructureVersion() == structureVersion, "moving a texture coordinate must not rebuild");
+		check(buffer.getTexCoordsVersion(0) != texCoordsVersion, "moved texture coordinate must be picked up");
+		checkFloats(buffer.getTexCoords(0), new float[] { 0, 0, 0.5f, 0, 1, 1, 0, 1 }, "moved texture coordinates");
+		check(buffer.getTexCoords(0) == texCoords, "texture coordinates must be refilled in place");
+
+		first.flip(false);
+		buffer.update(4, false);
+		check(buffer.getStructureVersion() != structureVersion, "flipped triangle must rebuild");
+		checkInts(buffer.getIndices(), new int[] { 0, 2, 1, 0, 2, 3 }, "flipped indices");
+		check((buffer.getVertexData() == vertexData) && (buffer.getIndices() == indices),
+				"a rebuild of the same size must reuse the buffers");
+
+		model.remove(geoset);
+		renderModel.releaseRemovedGeosets();
+		check(!renderModel.isCurrent(renderGeoset), "removed geoset must be released");
+		System.out.println("GeosetVertexBuffer checks passed");
+	}
+
+	private static GeosetVertex vertex(final double x, final double y, final double u, final double v) {
+		final GeosetVertex vertex = new GeosetVertex(x, y, 0, new Normal(0, 0, 1));
+		vertex.addTVertex(new TVertex(u, v));
+		return vertex;
+	}
+
+	private static void checkFloats(final FloatBuffer actual, final float[] expected, final String what) {
+		check(actual.remaining() == expected.length, what + ": " + actual.remaining() + " floats");
+		for (int i = 0; i < expected.length; i++) {
+			check(actual.get(actual.position() + i) == expected[i],
+					what + " [" + i + "]: " + actual.get(actual.position() + i) + " instead of " + expected[i]);
+		}
+	}
+
+	private static void checkInts(final IntBuffer actual, final int[] expected, final String what) {
+		check(actual.remaining() == expected.length, what + ": " + actual.remaining() + " ints");
+		for (int i = 0; i < expected.length; i++) {
+			check(actual.get(actual.position() + i) == expected[i],
+					what + " [" + i + "]: " + actual.get(actual.position() + i) + " instead of " + expected[i]);
+		}
+	}
+
+	private static void check(final boolean condition, final String message) {
+		if (!condition) {
+			throw new IllegalStateException(message);
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package com.matrixeater.hacks;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.hiveworkshop.wc3.mdl.AnimFlag;
+import com.hiveworkshop.wc3.mdl.Animation;
+import com.hiveworkshop.wc3.mdl.Bitmap;
+import com.hiveworkshop.wc3.mdl.Bone;
+import com.hiveworkshop.wc3.mdl.EditableModel;
+import com.hiveworkshop.wc3.mdl.Geoset;
+import com.hiveworkshop.wc3.mdl.GeosetVertex;
+import com.hiveworkshop.wc3.mdl.Layer;
+import com.hiveworkshop.wc3.mdl.Material;
+import com.hiveworkshop.wc3.mdl.MdlTokenReader;
+import com.hiveworkshop.wc3.mdl.MdlWriter;
+import com.hiveworkshop.wc3.mdl.QuaternionRotation;
+import com.hiveworkshop.wc3.mdl.Triangle;
+import com.hiveworkshop.wc3.mdl.Vertex;
+import com.hiveworkshop.wc3.util.ModelUtils;
+import com.hiveworkshop.wc3.util.ModelUtils.Mesh;
+
+/**
+ * Times reading the bulk of a synthetic MDL file (geosets and keyframes) with
+ * the line parsers over an InputStreamReader, the way MDL files were read
+ * before, against the token methods of MdlTokenReader. Both read the same
+ * chunks through Geoset.read and AnimFlag.read, which pick the token methods
+ * when they are given an MdlTokenReader.
+ */
+public final class MdlReadBenchmark {
+	private static final int GEOSET_COUNT = 8;
+	private static final int SEGMENTS = 64;
+	private static final int KEYFRAME_COUNT = 20000;
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int MEASURED_ROUNDS = 10;
+
+	public static void main(final String[] args) throws IOException {
+		final byte[] text = createText();
+		final List<Object> oldChunks = readChunks(
+				new BufferedReader(new InputStreamReader(new ByteArrayInputStream(text))));
+		final List<Object> newChunks = readChunks(new MdlTokenReader(new ByteArrayInputStream(text)));
+		if (!describe(oldChunks).equals(describe(newChunks))) {
+			throw new IllegalStateException("MdlTokenReader read different values than the line parsers");
+		}
+		System.out.println("Reading " + GEOSET_COUNT + " geosets of " + ((SEGMENTS + 1) * (SEGMENTS + 1))
+				+ " vertices and " + (KEYFRAME_COUNT * 2) + " keyframes, " + text.length + " bytes");
+
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			readChunks(new BufferedReader(new InputStreamReader(new ByteArrayInputStream(text))));
+			readChunks(new MdlTokenReader(new ByteArrayInputStream(text)));
+		}
+		final long[] nanos = new long[2];
+		for (int i = 0; i < MEASURED_ROUNDS; i++) {
+			long start = System.nanoTime();
+			readChunks(new BufferedReader(new InputStreamReader(new ByteArrayInputStream(text))));
+			nanos[0] += System.nanoTime() - start;
+			start = System.nanoTime();
+			readChunks(new MdlTokenReader(new ByteArrayInputStream(text)));
+			nanos[1] += System.nanoTime() - start;
+		}
+		final long bytes = (long) text.length * MEASURED_ROUNDS;
+		System.out.println("Line parsers:   " + megabytesPerSecond(bytes, nanos[0]) + " MB/s");
+		System.out.println("MdlTokenReader: " + megabytesPerSecond(bytes, nanos[1]) + " MB/s");
+	}
+
+	/**
+	 * Writes the geosets and then the keyframes of the model from
+	 * MdlWriteBenchmark in the format of EditableModel.printTo, the keyframes
+	 * indented as in a node.
+	 */
+	private static byte[] createText() {
+		final Random random = new Random(0);
+		final EditableModel model = new EditableModel("ReadBenchmark");
+		final Bone root = new Bone("Bone_Root");
+		model.add(root);
+		model.add(new Animation("Stand", 0, KEYFRAME_COUNT * 10));
+		final Material material = new Material(new Layer("None", new Bitmap("Textures\\white.blp")));
+		model.add(material);
+		for (int g = 0; g < GEOSET_COUNT; g++) {
+			final Mesh mesh = ModelUtils.createPlane((byte) 0, (byte) 1, new Vertex(0, 0, 1), g * 16, -128, -128,
+					128, 128, SEGMENTS);
+			final Geoset geoset = new Geoset();
+			geoset.getVertices().addAll(mesh.getVertices());
+			geoset.getTriangles().addAll(mesh.getTriangles());
+			for (final GeosetVertex vertex : geoset.getVertices()) {
+				vertex.z += random.nextGaussian();
+				vertex.addBoneAttachment(root);
+			}
+			for (final Triangle triangle : geoset.getTriangles()) {
+				triangle.updateVertexIds(geoset);
+			}
+			geoset.setMaterial(material);
+			model.add(geoset);
+		}
+		final AnimFlag translation = new AnimFlag("Translation");
+		translation.addTag("Linear");
+		final AnimFlag rotation = new AnimFlag("Rotation");
+		rotation.addTag("Linear");
+		for (int i = 0; i < KEYFRAME_COUNT; i++) {
+			translation.addEntry(i * 10, new Vertex(random.nextGaussian() * 50, random.nextGaussian() * 50,
+					random.nextGaussian() * 50));
+			rotation.addEntry(i * 10, new QuaternionRotation(new Vertex(0, 0, 1), random.nextDouble() * Math.PI));
+		}
+
+		final ByteArrayOutputStream text = new ByteArrayOutputStream();
+		final PrintWriter writer = new MdlWriter(text);
+		for (final Geoset geoset : model.getGeosets()) {
+			geoset.printTo(writer, model, true);
+		}
+		translation.printTo(writer, 1);
+		rotation.printTo(writer, 1);
+		writer.close();
+		return text.toByteArray();
+	}
+
+	private static List<Object> readChunks(final BufferedReader reader) throws IOException {
+		final List<Object> chunks = new ArrayList<>();
+		for (int g = 0; g < GEOSET_COUNT; g++) {
+			chunks.add(Geoset.read(reader));
+		}
+		chunks.add(AnimFlag.read(reader));
+		chunks.add(AnimFlag.read(reader));
+		reader.close();
+		return chunks;
+	}
+
+	/**
+	 * @return the numbers read, as text, to compare the two readers
+	 */
+	private static String describe(final List<Object> chunks) {
+		final StringBuilder builder = new StringBuilder();
+		for (final Object chunk : chunks) {
+			if (chunk instanceof Geoset) {
+				final Geoset geoset = (Geoset) chunk;
+				for (final GeosetVertex vertex : geoset.getVertices()) {
+					builder.append(vertex).append(vertex.getNormal()).append(vertex.getTVertex(0))
+							.append(vertex.getVertexGroup()).append('\n');
+				}
+				for (final Triangle triangle : geoset.getTriangles()) {
+					builder.append(triangle).append('\n');
+				}
+			} else {
+				final AnimFlag flag = (AnimFlag) chunk;
+				builder.append(flag.getName()).append('\n');
+				for (int i = 0; i < flag.size(); i++) {
+					builder.append(flag.getTimes().get(i)).append(flag.getValues().get(i)).append('\n');
+				}
+			}
+		}
+		return builder.toString();
+	}
+
+	private static String megabytesPerSecond(final long bytes, final long nanos) {
+		return String.format("%.1f", (bytes / (1024.0 * 1024.0)) / (nanos / 1e9));
+	}
+}
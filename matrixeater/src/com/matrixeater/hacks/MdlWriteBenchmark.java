@@ -0,0 +1,239 @@
+package com.matrixeater.hacks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.hiveworkshop.wc3.mdl.AnimFlag;
+import com.hiveworkshop.wc3.mdl.Animation;
+import com.hiveworkshop.wc3.mdl.Bitmap;
+import com.hiveworkshop.wc3.mdl.Bone;
+import com.hiveworkshop.wc3.mdl.EditableModel;
+import com.hiveworkshop.wc3.mdl.Geoset;
+import com.hiveworkshop.wc3.mdl.GeosetVertex;
+import com.hiveworkshop.wc3.mdl.Layer;
+import com.hiveworkshop.wc3.mdl.Material;
+import com.hiveworkshop.wc3.mdl.MdlWriter;
+import com.hiveworkshop.wc3.mdl.QuaternionRotation;
+import com.hiveworkshop.wc3.mdl.Triangle;
+import com.hiveworkshop.wc3.mdl.Vertex;
+import com.hiveworkshop.wc3.util.ModelUtils;
+import com.hiveworkshop.wc3.util.ModelUtils.Mesh;
+
+/**
+ * Times writing the bulk of a synthetic MDL file (vertices, normals, texture
+ * coordinates, faces and keyframes) the way EditableModel.printTo used to (a
+ * String per number and per line, the triangle list of a geoset built by
+ * concatenation, a PrintWriter over the stream) against MdlWriter. Output goes
+ * to a channel that only counts bytes, so the numbers are formatting speed and
+ * not disk speed.
+ */
+public final class MdlWriteBenchmark {
+	private static final int GEOSET_COUNT = 16;
+	private static final int SEGMENTS = 64;
+	private static final int KEYFRAME_COUNT = 20000;
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int MEASURED_ROUNDS = 10;
+
+	public static void main(final String[] args) throws IOException {
+		final EditableModel model = createModel();
+		final ByteArrayOutputStream oldText = new ByteArrayOutputStream();
+		final ByteArrayOutputStream newText = new ByteArrayOutputStream();
+		writeOld(model, oldText);
+		writeNew(model, new CountingChannel(newText));
+		if (!Arrays.equals(oldText.toByteArray(), newText.toByteArray())) {
+			throw new IllegalStateException("MdlWriter text differs from the old text");
+		}
+		System.out.println("Writing " + GEOSET_COUNT + " geosets of " + ((SEGMENTS + 1) * (SEGMENTS + 1))
+				+ " vertices and " + (KEYFRAME_COUNT * 2) + " keyframes, " + oldText.size() + " bytes");
+
+		final CountingChannel channel = new CountingChannel(null);
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			writeOld(model, channel.asOutputStream());
+			writeNew(model, channel);
+		}
+		final long[] nanos = new long[2];
+		final long[] bytes = new long[2];
+		for (int i = 0; i < MEASURED_ROUNDS; i++) {
+			long start = System.nanoTime();
+			long written = channel.count;
+			writeOld(model, channel.asOutputStream());
+			nanos[0] += System.nanoTime() - start;
+			bytes[0] += channel.count - written;
+			start = System.nanoTime();
+			written = channel.count;
+			writeNew(model, channel);
+			nanos[1] += System.nanoTime() - start;
+			bytes[1] += channel.count - written;
+		}
+		System.out.println("String per number and per line: " + megabytesPerSecond(bytes[0], nanos[0]) + " MB/s");
+		System.out.println("MdlWriter:                      " + megabytesPerSecond(bytes[1], nanos[1]) + " MB/s");
+	}
+
+	private static EditableModel createModel() {
+		final Random random = new Random(0);
+		final EditableModel model = new EditableModel("WriteBenchmark");
+		final Bone root = new Bone("Bone_Root");
+		model.add(root);
+		model.add(new Animation("Stand", 0, KEYFRAME_COUNT * 10));
+		final Material material = new Material(new Layer("None", new Bitmap("Textures\\white.blp")));
+		for (int g = 0; g < GEOSET_COUNT; g++) {
+			final Mesh mesh = ModelUtils.createPlane((byte) 0, (byte) 1, new Vertex(0, 0, 1), g * 16, -128, -128,
+					128, 128, SEGMENTS);
+			final Geoset geoset = new Geoset();
+			geoset.getVertices().addAll(mesh.getVertices());
+			geoset.getTriangles().addAll(mesh.getTriangles());
+			for (final GeosetVertex vertex : geoset.getVertices()) {
+				vertex.z += random.nextGaussian();
+				vertex.addBoneAttachment(root);
+			}
+			for (final Triangle triangle : geoset.getTriangles()) {
+				triangle.updateVertexIds(geoset);
+			}
+			geoset.setMaterial(material);
+			model.add(geoset);
+		}
+		final AnimFlag translation = new AnimFlag("Translation");
+		translation.addTag("Linear");
+		final AnimFlag rotation = new AnimFlag("Rotation");
+		rotation.addTag("Linear");
+		for (int i = 0; i < KEYFRAME_COUNT; i++) {
+			translation.addEntry(i * 10, new Vertex(random.nextGaussian() * 50, random.nextGaussian() * 50,
+					random.nextGaussian() * 50));
+			rotation.addEntry(i * 10, new QuaternionRotation(new Vertex(0, 0, 1), random.nextDouble() * Math.PI));
+		}
+		root.add(translation);
+		root.add(rotation);
+		return model;
+	}
+
+	private static void writeOld(final EditableModel model, final OutputStream outputStream) {
+		final PrintWriter writer = new PrintWriter(outputStream);
+		final String tabs = "\t\t";
+		for (final Geoset geoset : model.getGeosets()) {
+			for (final GeosetVertex vertex : geoset.getVertices()) {
+				writer.println(tabs + vertex.toString() + ",");
+			}
+			for (final GeosetVertex vertex : geoset.getVertices()) {
+				writer.println(tabs + vertex.getNormal().toString() + ",");
+			}
+			for (final GeosetVertex vertex : geoset.getVertices()) {
+				writer.println(tabs + vertex.getTVertex(0).toString() + ",");
+			}
+			final List<Triangle> triangles = geoset.getTriangles();
+			String triangleOut = "\t\t\t{ ";
+			for (int i = 0; i < triangles.size(); i++) {
+				if (i != (triangles.size() - 1)) {
+					triangleOut = triangleOut + triangles.get(i).toString() + ", ";
+				} else {
+					triangleOut = triangleOut + triangles.get(i).toString() + " ";
+				}
+			}
+			writer.println(triangleOut + "},");
+		}
+		for (final AnimFlag flag : model.getIdObjects().get(0).getAnimFlags()) {
+			for (int i = 0; i < flag.size(); i++) {
+				writer.println(tabs + "\t" + flag.getTimes().get(i) + ": " + flag.flagToString(flag.getValues().get(i))
+						+ ",");
+			}
+		}
+		writer.close();
+	}
+
+	private static void writeNew(final EditableModel model, final WritableByteChannel channel) {
+		final PrintWriter writer = new MdlWriter(channel);
+		final String tabs = "\t\t";
+		for (final Geoset geoset : model.getGeosets()) {
+			for (final GeosetVertex vertex : geoset.getVertices()) {
+				writer.write(tabs);
+				vertex.printTo(writer);
+				writer.println(',');
+			}
+			for (final GeosetVertex vertex : geoset.getVertices()) {
+				writer.write(tabs);
+				vertex.getNormal().printTo(writer);
+				writer.println(',');
+			}
+			for (final GeosetVertex vertex : geoset.getVertices()) {
+				writer.write(tabs);
+				vertex.getTVertex(0).printTo(writer);
+				writer.println(',');
+			}
+			final List<Triangle> triangles = geoset.getTriangles();
+			writer.write("\t\t\t{ ");
+			for (int i = 0; i < triangles.size(); i++) {
+				triangles.get(i).printTo(writer);
+				writer.write(i != (triangles.size() - 1) ? ", " : " ");
+			}
+			writer.println("},");
+		}
+		for (final AnimFlag flag : model.getIdObjects().get(0).getAnimFlags()) {
+			for (int i = 0; i < flag.size(); i++) {
+				writer.write(tabs);
+				writer.write('\t');
+				MdlWriter.printInt(writer, flag.getTimes().get(i));
+				writer.write(": ");
+				flag.printFlag(writer, flag.getValues().get(i));
+				writer.println(',');
+			}
+		}
+		writer.close();
+	}
+
+	private static String megabytesPerSecond(final long bytes, final long nanos) {
+		return String.format("%.1f", (bytes / (1024.0 * 1024.0)) / (nanos / 1e9));
+	}
+
+	/**
+	 * Counts the bytes written, and copies them to a stream if there is one.
+	 * Closing it does nothing so that it can be written to again.
+	 */
+	private static final class CountingChannel implements WritableByteChannel {
+		private final ByteArrayOutputStream copy;
+		private long count;
+
+		private CountingChannel(final ByteArrayOutputStream copy) {
+			this.copy = copy;
+		}
+
+		@Override
+		public int write(final ByteBuffer src) {
+			final int length = src.remaining();
+			if (copy != null) {
+				copy.write(src.array(), src.arrayOffset() + src.position(), length);
+			}
+			src.position(src.limit());
+			count += length;
+			return length;
+		}
+
+		private OutputStream asOutputStream() {
+			return new OutputStream() {
+				@Override
+				public void write(final int b) {
+					count++;
+				}
+
+				@Override
+				public void write(final byte[] b, final int off, final int len) {
+					count += len;
+				}
+			};
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -2,45 +2,71 @@ package com.matrixeater.hacks;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import com.hiveworkshop.wc3.mdl.Geoset;
 import com.hiveworkshop.wc3.mdl.EditableModel;
+import com.hiveworkshop.wc3.mdl.Geoset;
+import com.hiveworkshop.wc3.mdl.ModelLoader;
+import com.hiveworkshop.wc3.mdl.ModelLoader.LoadedModel;
 
 public class ModelChecker {
 	private static List<String> matchingModels = new ArrayList<>();
 
-	public static void main(final String[] args) {
+	public static void main(final String[] args) throws InterruptedException {
+		final List<File> modelFiles = new ArrayList<>();
 		traverse(new File(
-				"C:\\Users\\micro\\OneDrive\\Documents\\Warcraft III\\Maps\\Altered Melee\\HFGen\\(2)HFAlteracIsle_FileDump.w3x"));
+				"C:\\Users\\micro\\OneDrive\\Documents\\Warcraft III\\Maps\\Altered Melee\\HFGen\\(2)HFAlteracIsle_FileDump.w3x"),
+				modelFiles);
+		final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		try {
+			final Map<File, Future<LoadedModel>> models = ModelLoader.loadAll(modelFiles, executor);
+			final Iterator<Map.Entry<File, Future<LoadedModel>>> iterator = models.entrySet().iterator();
+			while (iterator.hasNext()) {
+				final Map.Entry<File, Future<LoadedModel>> entry = iterator.next();
+				// drop the model once checked, otherwise every model found stays in memory
+				iterator.remove();
+				try {
+					check(entry.getKey(), entry.getValue().get().getModel());
+				} catch (final ExecutionException exc) {
+					exc.getCause().printStackTrace();
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
 		for (final String modelName : matchingModels) {
 			System.out.println(modelName);
 		}
 	}
 
-	public static void traverse(final File file) {
+	public static void traverse(final File file, final List<File> modelFiles) {
 		if (file.isDirectory()) {
 			for (final File subFile : file.listFiles()) {
-				traverse(subFile);
+				traverse(subFile, modelFiles);
 			}
 		} else {
 			final String lowerPath = file.getPath().toLowerCase();
 			if (lowerPath.endsWith(".mdx") || lowerPath.endsWith(".mdl")) {
-				boolean usesSecondLayer = false;
-				try {
-					final EditableModel model = EditableModel.read(file);
-					for (final Geoset geoset : model.getGeosets()) {
-						if (geoset.getUVLayers().size() >= 2) {
-							usesSecondLayer = true;
-						}
-					}
-					if (usesSecondLayer) {
-						matchingModels.add(file.getPath());
-					}
-				} catch (final Exception exc) {
-					exc.printStackTrace();
-				}
+				modelFiles.add(file);
+			}
+		}
+	}
+
+	private static void check(final File file, final EditableModel model) {
+		boolean usesSecondLayer = false;
+		for (final Geoset geoset : model.getGeosets()) {
+			if (geoset.getUVLayers().size() >= 2) {
+				usesSecondLayer = true;
 			}
 		}
+		if (usesSecondLayer) {
+			matchingModels.add(file.getPath());
+		}
 	}
 }
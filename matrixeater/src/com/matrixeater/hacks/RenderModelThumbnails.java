@@ -0,0 +1,100 @@
+package com.matrixeater.hacks;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import com.hiveworkshop.wc3.gui.modeledit.SoftwareSnapshot;
+import com.hiveworkshop.wc3.mdl.EditableModel;
+import com.hiveworkshop.wc3.mdl.Geoset;
+import com.hiveworkshop.wc3.mdl.ModelLoader;
+import com.hiveworkshop.wc3.mdl.v2.ModelViewManager;
+import com.hiveworkshop.wc3.util.ModelUtils;
+
+/**
+ * Renders a PNG thumbnail of every MDX and MDL model in a folder with
+ * SoftwareSnapshot, so that it runs without a GPU or display (on a build server
+ * for example). The images go to the output folder under the same relative path
+ * as the model, with the extension replaced by .png. Textures are looked up
+ * next to the model and in the configured game data, like when the model is
+ * opened in the editor.
+ */
+public final class RenderModelThumbnails {
+	private static final int DEFAULT_SIZE = 256;
+	private static final List<String> failed = new ArrayList<>();
+	private static final List<String> passed = new ArrayList<>();
+	private static final List<String> empty = new ArrayList<>();
+
+	public static void main(final String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		if ((args.length != 2) && (args.length != 3)) {
+			System.err.println("Usage: <modelsDirectory> <outputDirectory> [<size>]");
+			System.exit(-1);
+		}
+		final int size = args.length == 3 ? Integer.parseInt(args[2]) : DEFAULT_SIZE;
+		final File modelsDirectory = new File(args[0]);
+		render(modelsDirectory, modelsDirectory, new File(args[1]), size);
+		System.out.println("Passed: " + passed.size());
+		System.out.println("Nothing to render: " + empty.size());
+		System.out.println("Failed: " + failed.size());
+		System.out.println("Fail list:");
+		for (final String failedName : failed) {
+			System.out.println(failedName);
+		}
+	}
+
+	private static void render(final File root, final File target, final File outputDirectory, final int size) {
+		if (target.isDirectory()) {
+			for (final File file : target.listFiles()) {
+				render(root, file, outputDirectory, size);
+			}
+			return;
+		}
+		final String lowerName = target.getName().toLowerCase();
+		if (!lowerName.endsWith(".mdx") && !lowerName.endsWith(".mdl")) {
+			return;
+		}
+		try {
+			System.out.println(target.getPath());
+			// the loader reports problems instead of showing dialogs, which a headless run cannot
+			final EditableModel model = ModelLoader.load(target.getPath(), Files.readAllBytes(target.toPath()))
+					.getModel();
+			model.setFileRef(target);
+			final ModelViewManager modelView = new ModelViewManager(model);
+			boolean hasMesh = false;
+			for (final Geoset geoset : model.getGeosets()) {
+				// the full detail mesh only, a model without levels of detail has -1 everywhere
+				if (ModelUtils.isLevelOfDetailSupported(model.getFormatVersion())
+						&& (geoset.getLevelOfDetail() > 0)) {
+					continue;
+				}
+				modelView.makeGeosetVisible(geoset);
+				hasMesh |= !geoset.getVertices().isEmpty();
+			}
+			if (!hasMesh) {
+				empty.add(target.getPath());
+				return;
+			}
+			final SoftwareSnapshot snapshot = new SoftwareSnapshot(modelView, size, size);
+			snapshot.zoomToFit();
+			final BufferedImage image = snapshot.getBufferedImage();
+
+			final String relativePath = root.toURI().relativize(target.toURI()).getPath();
+			final File imageFile = new File(outputDirectory,
+					relativePath.substring(0, relativePath.lastIndexOf('.')) + ".png");
+			imageFile.getParentFile().mkdirs();
+			ImageIO.write(image, "png", imageFile);
+			passed.add(target.getPath());
+		} catch (final Exception e) {
+			e.printStackTrace();
+			failed.add(target.getPath());
+		}
+	}
+
+	private RenderModelThumbnails() {
+	}
+}
@@ -0,0 +1,74 @@
+package com.matrixeater.hacks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import com.google.common.io.ByteStreams;
+import com.hiveworkshop.wc3.gui.datachooser.MpqDataSource;
+import com.hiveworkshop.wc3.gui.datachooser.MpqDataSourceDescriptor;
+
+import mpq.MPQArchiveWriter;
+
+/**
+ * Copies every file in the listfile of an MPQ into a new MPQ, recompressing
+ * all sectors on every core.
+ */
+public final class RepackMPQ {
+
+	public static void main(final String[] args) throws IOException {
+		if ((args.length < 2) || (args.length > 3)) {
+			System.err.println("Usage: <input.mpq> <output.mpq> [zlib|pkware|none]");
+			System.exit(-1);
+		}
+		byte compression = MPQArchiveWriter.COMPRESSION_ZLIB;
+		if (args.length == 3) {
+			if (args[2].equalsIgnoreCase("pkware")) {
+				compression = MPQArchiveWriter.COMPRESSION_PKWARE;
+			} else if (args[2].equalsIgnoreCase("none")) {
+				compression = MPQArchiveWriter.COMPRESSION_NONE;
+			}
+		}
+
+		final MpqDataSource input = (MpqDataSource) new MpqDataSourceDescriptor(args[0], true).createDataSource();
+		final Collection<String> listfile = input.getListfile();
+		if (listfile == null) {
+			System.err.println("The input archive has no (listfile)");
+			System.exit(-1);
+		}
+		final List<String> failed = new ArrayList<>();
+		final long start = System.nanoTime();
+		long bytes = 0;
+		try (FileChannel channel = FileChannel.open(Paths.get(args[1]), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+				MPQArchiveWriter writer = new MPQArchiveWriter(channel)) {
+			for (final String path : listfile) {
+				if (path.isEmpty() || path.equalsIgnoreCase("(listfile)") || !input.has(path)) {
+					continue;
+				}
+				try (InputStream stream = input.getResourceAsStream(path)) {
+					final byte[] data = ByteStreams.toByteArray(stream);
+					bytes += data.length;
+					writer.addFile(path, ByteBuffer.wrap(data), compression, false);
+				} catch (final IOException e) {
+					failed.add(path);
+				}
+			}
+		} finally {
+			input.close();
+		}
+		final double seconds = (System.nanoTime() - start) / 1000000000.0;
+		final double megabytes = bytes / (1024.0 * 1024.0);
+		System.out.println("Repacked " + megabytes + " MB in " + seconds + " s (" + (megabytes / seconds) + " MB/s)");
+		System.out.println("Failed: " + failed.size());
+		for (final String failedName : failed) {
+			System.out.println(failedName);
+		}
+	}
+}
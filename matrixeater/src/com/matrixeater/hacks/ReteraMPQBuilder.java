@@ -2,13 +2,15 @@ package com.matrixeater.hacks;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.nio.channels.FileChannel;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
+import com.google.common.io.ByteStreams;
 import com.hiveworkshop.wc3.mpq.MpqCodebase;
 
+import mpq.MPQArchiveWriter;
+
 public class ReteraMPQBuilder {
 
 	public static void main(final String[] args) {
@@ -39,14 +41,26 @@ public class ReteraMPQBuilder {
 				+ "ReplaceableTextures\\TeamColor\\TeamColor14.blp\r\n"
 				+ "ReplaceableTextures\\TeamColor\\TeamColor15.blp";
 		final String[] files = fileList.split("\r\n");
-		for (final String file : files) {
-			try (InputStream stream = MpqCodebase.get().getResourceAsStream(file)) {
-				final Path target = Paths.get("C:\\Temp\\ReteraMPQ", file);
-				Files.createDirectories(target.getParent());
-				Files.copy(stream, target, StandardCopyOption.REPLACE_EXISTING);
-			} catch (final IOException e) {
-				e.printStackTrace();
+		try (FileChannel channel = FileChannel.open(Paths.get("C:\\Temp\\Retera.mpq"), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+				MPQArchiveWriter writer = new MPQArchiveWriter(channel)) {
+			for (final String file : files) {
+				final byte[] data;
+				try (InputStream stream = MpqCodebase.get().getResourceAsStream(file)) {
+					if (stream == null) {
+						System.err.println("Skipping missing file: " + file);
+						continue;
+					}
+					data = ByteStreams.toByteArray(stream);
+				} catch (final IOException e) {
+					System.err.println("Skipping unreadable file: " + file);
+					e.printStackTrace();
+					continue;
+				}
+				writer.addFile(file, data);
 			}
+		} catch (final IOException e) {
+			e.printStackTrace();
 		}
 	}
 
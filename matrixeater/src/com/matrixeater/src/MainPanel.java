@@ -101,6 +101,7 @@ import com.hiveworkshop.wc3.gui.BLPHandler;
 import com.hiveworkshop.wc3.gui.ExceptionPopup;
 import com.hiveworkshop.wc3.gui.GlobalIcons;
 import com.hiveworkshop.wc3.gui.ProgramPreferences;
+import com.hiveworkshop.wc3.gui.ProgramPreferencesChangeListener;
 import com.hiveworkshop.wc3.gui.animedit.ControllableTimeBoundProvider;
 import com.hiveworkshop.wc3.gui.animedit.TimeBoundChangeListener;
 import com.hiveworkshop.wc3.gui.animedit.TimeBoundChooserPanel;
@@ -916,6 +917,13 @@ public class MainPanel extends JPanel
 	public MainPanel() {
 		super();
 
+		BLPHandler.get().applyCacheLimits(prefs);
+		prefs.addChangeListener(new ProgramPreferencesChangeListener() {
+			@Override
+			public void preferencesChanged() {
+				BLPHandler.get().applyCacheLimits(prefs);
+			}
+		});
 		add(createJToolBar());
 		// testArea = new PerspDisplayPanel("Graphic Test",2,0);
 		// //botArea.setViewport(0,1);